@@ -0,0 +1,50 @@
+package com.bingochain.benchmarks;
+
+import com.bingochain.service.LotteryTicketService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LotteryTicketService#validateChosenNumbers}, run on every purchase and import row
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChosenNumbersValidationBenchmark {
+
+    @Param({
+        "[1,15,33,45,67,89]",        // valid
+        "[ 3, 14, 15, 92, 65, 35 ]", // valid, with spaces
+        "[1,15,33,45,67,67]",        // duplicate number
+        "[1,15,33,45,67,101]",       // out of range
+        "not a ticket"
+    })
+    private String chosenNumbers;
+
+    private LotteryTicketService lotteryTicketService;
+
+    @Setup
+    public void setUp() {
+        // validateChosenNumbers uses none of the injected collaborators
+        lotteryTicketService = new LotteryTicketService();
+    }
+
+    @Benchmark
+    public boolean validateChosenNumbers() {
+        return lotteryTicketService.validateChosenNumbers(chosenNumbers);
+    }
+}
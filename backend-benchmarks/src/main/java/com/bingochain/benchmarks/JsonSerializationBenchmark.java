@@ -0,0 +1,132 @@
+package com.bingochain.benchmarks;
+
+import com.bingochain.dto.LotteryTicketView;
+import com.bingochain.dto.WeeklyLotteryView;
+import com.bingochain.model.LotteryTicket;
+import com.bingochain.model.NumberSet;
+import com.bingochain.model.WeeklyLottery;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the ticket and lottery views returned by the REST API,
+ * with an ObjectMapper configured the way Spring Boot configures the application's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ObjectMapper objectMapper;
+    private List<LotteryTicketView> tickets;
+    private List<WeeklyLotteryView> lotteries;
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDateTime now = LocalDateTime.of(2024, 1, 7, 12, 30);
+        lotteries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            lotteries.add(WeeklyLotteryView.of(lottery(i + 1L, now)));
+        }
+
+        WeeklyLottery lottery = lottery(1L, now);
+        tickets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            NumberSet numbers = NumberSet.EMPTY;
+            while (numbers.size() < NumberSet.NUMBERS_PER_TICKET) {
+                numbers = numbers.with(random.nextInt(NumberSet.MIN_NUMBER, NumberSet.MAX_NUMBER + 1));
+            }
+            LotteryTicket ticket = new LotteryTicket();
+            ticket.setId(i + 1L);
+            ticket.setTicketId("ticket-" + (i + 1));
+            ticket.setWalletAddress(String.format("0x%040x", random.nextLong() & Long.MAX_VALUE));
+            ticket.setWeeklyLottery(lottery);
+            ticket.setChosenNumbers(numbers.toJson());
+            ticket.setChosenMask(numbers);
+            ticket.setMatchedNumbers(random.nextInt(NumberSet.NUMBERS_PER_TICKET + 1));
+            ticket.setTicketPricePaid(new BigDecimal("0.01000000"));
+            ticket.setIsWinner(false);
+            ticket.setPrizeAmount(BigDecimal.ZERO);
+            ticket.setTransactionHash(String.format("0x%064x", random.nextLong() & Long.MAX_VALUE));
+            ticket.setPurchasedAt(now.minusMinutes(i));
+            ticket.setUpdatedAt(now);
+            tickets.add(LotteryTicketView.of(ticket));
+        }
+    }
+
+    @Benchmark
+    public byte[] ticketsToBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(tickets);
+    }
+
+    @Benchmark
+    public void ticketsToStream() throws IOException {
+        objectMapper.writeValue(sink, tickets);
+    }
+
+    @Benchmark
+    public byte[] lotteriesToBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(lotteries);
+    }
+
+    @Benchmark
+    public void lotteriesToStream() throws IOException {
+        objectMapper.writeValue(sink, lotteries);
+    }
+
+    private static WeeklyLottery lottery(Long id, LocalDateTime now) {
+        WeeklyLottery lottery = new WeeklyLottery();
+        lottery.setId(id);
+        lottery.setContractAddress(String.format("0x%040x", id));
+        lottery.setChainLotteryId(id);
+        lottery.setLotteryName("Weekly Lottery #" + id);
+        lottery.setTicketPrice(new BigDecimal("0.01000000"));
+        lottery.setPrizePool(new BigDecimal("12.34500000"));
+        lottery.setTotalTickets(1300);
+        lottery.setStatus(WeeklyLottery.LotteryStatus.DRAWING_PHASE);
+        lottery.setSalesStartTime(now.minusDays(1));
+        lottery.setSalesEndTime(now);
+        lottery.setCurrentDrawDay(3);
+        lottery.setNextDrawTime(now.plusDays(3));
+        lottery.setDrawnNumbers("[7,42,99]");
+        lottery.setDrawnMask(NumberSet.of(7, 42, 99));
+        lottery.setWinnerAddresses("[]");
+        lottery.setPrizesDistributed(false);
+        lottery.setCreatedAt(now.minusDays(2));
+        lottery.setUpdatedAt(now);
+        return lottery;
+    }
+}
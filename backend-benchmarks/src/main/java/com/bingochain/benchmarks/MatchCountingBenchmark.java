@@ -0,0 +1,93 @@
+package com.bingochain.benchmarks;
+
+import com.bingochain.model.NumberSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counting how many drawn numbers each ticket matched, as settlement does after a draw.
+ * One operation is a full chunk of tickets, compared from the stored mask bytes (the
+ * settlement path), from the chosen_numbers JSON (tickets without a mask) and from
+ * already decoded sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MatchCountingBenchmark {
+
+    @Param({"10000"})
+    private int tickets;
+
+    @Param({"1", "6"})
+    private int drawnCount;
+
+    private byte[][] masks;
+    private String[] json;
+    private NumberSet[] decoded;
+    private NumberSet drawn;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        masks = new byte[tickets][];
+        json = new String[tickets];
+        decoded = new NumberSet[tickets];
+        for (int i = 0; i < tickets; i++) {
+            NumberSet numbers = randomSet(random, NumberSet.NUMBERS_PER_TICKET);
+            masks[i] = numbers.toBytes();
+            json[i] = numbers.toJson();
+            decoded[i] = numbers;
+        }
+        drawn = randomSet(random, drawnCount);
+    }
+
+    @Benchmark
+    public long fromMaskBytes() {
+        long total = 0;
+        for (byte[] mask : masks) {
+            total += NumberSet.fromBytes(mask).countMatches(drawn);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long fromJson() {
+        long total = 0;
+        for (String numbers : json) {
+            total += NumberSet.parse(numbers).countMatches(drawn);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long fromDecodedSets() {
+        long total = 0;
+        for (NumberSet numbers : decoded) {
+            total += numbers.countMatches(drawn);
+        }
+        return total;
+    }
+
+    private static NumberSet randomSet(SplittableRandom random, int size) {
+        NumberSet set = NumberSet.EMPTY;
+        while (set.size() < size) {
+            set = set.with(random.nextInt(NumberSet.MIN_NUMBER, NumberSet.MAX_NUMBER + 1));
+        }
+        return set;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bingochain.benchmarks;
+
+import com.bingochain.model.PlayerStatistics;
+import com.bingochain.service.LotteryTicketService;
+import com.bingochain.service.PlayerStatsService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link LotteryTicketService#getPlayerStatistics} on top of the stored player_stats row,
+ * including the derived win percentage and return on investment, with the database
+ * lookup replaced by a fixed row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlayerStatsBenchmark {
+
+    private static final String WALLET = "0x00000000000000000000000000000000000000aa";
+
+    private LotteryTicketService lotteryTicketService;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        PlayerStatistics stored = new PlayerStatistics(WALLET, 1250L, 87L,
+            new BigDecimal("12.50000000"), new BigDecimal("9.87654321"), LocalDateTime.of(2024, 1, 7, 12, 30));
+        PlayerStatsService playerStatsService = new PlayerStatsService() {
+            @Override
+            public Optional<PlayerStatistics> getStatistics(String walletAddress) {
+                return Optional.of(stored);
+            }
+        };
+
+        lotteryTicketService = new LotteryTicketService();
+        Field field = LotteryTicketService.class.getDeclaredField("playerStatsService");
+        field.setAccessible(true);
+        field.set(lotteryTicketService, playerStatsService);
+    }
+
+    @Benchmark
+    public void playerStatistics(Blackhole blackhole) {
+        LotteryTicketService.PlayerStats stats = lotteryTicketService.getPlayerStatistics(WALLET);
+        blackhole.consume(stats.getWinPercentage());
+        blackhole.consume(stats.getReturnOnInvestment());
+    }
+
+    @Benchmark
+    public void derivedRatios(Blackhole blackhole) {
+        LotteryTicketService.PlayerStats stats = new LotteryTicketService.PlayerStats(1250L, 87L, 12.5, 9.87654321);
+        blackhole.consume(stats.getWinPercentage());
+        blackhole.consume(stats.getReturnOnInvestment());
+    }
+}
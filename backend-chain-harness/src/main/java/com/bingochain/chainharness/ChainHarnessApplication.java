@@ -0,0 +1,340 @@
+package com.bingochain.chainharness;
+
+import com.bingochain.BingoChainApplication;
+import com.bingochain.model.WeeklyLottery;
+import com.bingochain.service.ChainEventIngestionService;
+import com.bingochain.service.LotteryTotalsService;
+import com.bingochain.service.WeeklyLotteryService;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.web3j.abi.EventEncoder;
+import org.web3j.protocol.Web3j;
+import org.web3j.utils.Numeric;
+
+import java.math.BigDecimal;
+import java.sql.ResultSetMetaData;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Runs the chain event ingestion against recorded JSON-RPC responses instead of a node.
+ *
+ * Starts PostgreSQL (embedded, unless --jdbc-url points at a local one) and the backend
+ * in this JVM with its Web3j client answered by a {@link RecordedJsonRpcService}, then
+ * drives {@link ChainEventIngestionService#ingest} through four phases:
+ * an initial sync of the confirmed blocks of the main recording; a backend restart, after
+ * which ingestion must resume right after its checkpoint; a replay from an older checkpoint,
+ * which must leave every table as it was; and a reorg above the confirmed blocks, after
+ * which only the new branch may be stored. After each phase the stored tickets, draws,
+ * player statistics and lottery totals are compared with what the served logs imply.
+ * Exits with status 1 if any check failed. Everything runs locally.
+ */
+public class ChainHarnessApplication {
+
+    private static final Logger log = LoggerFactory.getLogger(ChainHarnessApplication.class);
+
+    // The recordings' heads are chosen so the blocks orphaned by the reorg are never confirmed
+    private static final int CONFIRMATIONS = 3;
+    private static final long START_BLOCK = 1;
+    private static final long INITIAL_HEAD = 33;
+    private static final long REPLAY_CHECKPOINT = 10;
+
+    private static final String TICKET_PURCHASED_TOPIC =
+        EventEncoder.buildEventSignature("TicketPurchased(uint256,address,uint256,uint256,uint8[6])");
+    private static final String NUMBER_DRAWN_TOPIC =
+        EventEncoder.buildEventSignature("NumberDrawn(uint256,uint256,uint256,uint256)");
+
+    public static void main(String[] args) throws Exception {
+        ChainHarnessConfig config = ChainHarnessConfig.parse(args);
+        Recording main = Recording.load("main.json");
+        Recording reorg = Recording.load("reorg.json");
+        RecordedJsonRpcService node = new RecordedJsonRpcService(main);
+        node.setHead(INITIAL_HEAD);
+
+        EmbeddedPostgres postgres = null;
+        String jdbcUrl = config.getJdbcUrl();
+        if (jdbcUrl == null) {
+            log.info("Starting embedded PostgreSQL");
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        Checks checks = new Checks();
+        ConfigurableApplicationContext backend = null;
+        try {
+            backend = startBackend(config, jdbcUrl, main.getContract(), node);
+            Set<Long> lotteries = createLotteries(backend, main);
+
+            ingest("initial sync", backend, node, lotteries, START_BLOCK, checks);
+
+            long checkpoint = checkpoint(backend, main.getContract());
+            backend.close();
+            backend = startBackend(config, jdbcUrl, main.getContract(), node);
+            node.setHead(main.getHead());
+            ingest("resume after restart", backend, node, lotteries, checkpoint + 1, checks);
+
+            String replay = "replay from block " + (REPLAY_CHECKPOINT + 1);
+            Map<String, List<String>> before = snapshot(backend);
+            backend.getBean(JdbcTemplate.class).update(
+                "UPDATE chain_sync_checkpoints SET last_processed_block = ? WHERE contract_address = ?",
+                REPLAY_CHECKPOINT, main.getContract().toLowerCase());
+            ingest(replay, backend, node, lotteries, REPLAY_CHECKPOINT + 1, checks);
+            Map<String, List<String>> after = snapshot(backend);
+            List<String> changed = new ArrayList<>();
+            before.forEach((table, rows) -> {
+                if (!rows.equals(after.get(table))) {
+                    changed.add(table);
+                }
+            });
+            checks.check(replay, "replayed logs change no stored row", changed.isEmpty(), "changed: " + changed);
+
+            node.reorg(reorg);
+            ingest("reorg at block " + reorg.getForkBlock(), backend, node, lotteries,
+                   checkpoint(backend, main.getContract()) + 1, checks);
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+
+        checks.print();
+        if (checks.hasFailures()) {
+            System.exit(1);
+        }
+    }
+
+    private static ConfigurableApplicationContext startBackend(ChainHarnessConfig config, String jdbcUrl, String contract,
+                                                               RecordedJsonRpcService node) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", jdbcUrl);
+        properties.put("spring.datasource.username", config.getDbUser());
+        properties.put("spring.datasource.password", config.getDbPassword());
+        properties.put("blockchain.contract.crypto-bingo.address", contract);
+        // Phases call ingest() themselves, so the poller stays off
+        properties.put("blockchain.ingestion.enabled", false);
+        properties.put("blockchain.ingestion.start-block", START_BLOCK);
+        properties.put("blockchain.ingestion.confirmations", CONFIRMATIONS);
+        properties.put("blockchain.ingestion.batch-blocks", config.getBatchBlocks());
+        properties.put("blockchain.ingestion.parallel-ranges", config.getParallelRanges());
+        properties.put("draw.scheduler.enabled", false);
+        properties.put("spring.devtools.restart.enabled", false);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.bingochain.chainharness", "INFO");
+        properties.put("logging.level.com.bingochain.service.ChainEventIngestionService", "INFO");
+        // Passed as command line arguments so they win over the backend's application.yml
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            args.add("--" + property.getKey() + "=" + property.getValue());
+        }
+        // Registered as primary so the ingestion gets it instead of the backend's HTTP client
+        ApplicationContextInitializer<GenericApplicationContext> recordedNode = context ->
+            context.registerBean("recordedWeb3j", Web3j.class, () -> Web3j.build(node),
+                                 definition -> definition.setPrimary(true));
+        return new SpringApplicationBuilder(BingoChainApplication.class)
+            .initializers(recordedNode)
+            .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Create a lottery for every chain lottery id in the recording
+     */
+    private static Set<Long> createLotteries(ConfigurableApplicationContext backend, Recording recording) {
+        Long existing = backend.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM weekly_lotteries", Long.class);
+        if (existing != null && existing > 0) {
+            throw new IllegalStateException("The database already holds " + existing + " lotteries; the harness needs an empty one");
+        }
+        Set<Long> chainLotteryIds = new TreeSet<>();
+        for (JsonNode event : recording.getLogs()) {
+            chainLotteryIds.add(uint(event.get("topics").get(1).asText()));
+        }
+        WeeklyLotteryService weeklyLotteryService = backend.getBean(WeeklyLotteryService.class);
+        for (Long chainLotteryId : chainLotteryIds) {
+            WeeklyLottery lottery = new WeeklyLottery();
+            lottery.setContractAddress(recording.getContract() + "#" + chainLotteryId);
+            lottery.setChainLotteryId(chainLotteryId);
+            lottery.setLotteryName("Recorded lottery " + chainLotteryId);
+            lottery.setTicketPrice(new BigDecimal("0.01"));
+            lottery.setSalesStartTime(LocalDateTime.now().minusDays(1));
+            lottery.setSalesEndTime(LocalDateTime.now().plusDays(6));
+            weeklyLotteryService.createLottery(lottery);
+        }
+        log.info("Created lotteries for chain lottery ids {}", chainLotteryIds);
+        return chainLotteryIds;
+    }
+
+    /**
+     * Ingest up to the node's confirmed head and compare the database with the served logs
+     */
+    private static void ingest(String phase, ConfigurableApplicationContext backend, RecordedJsonRpcService node,
+                               Set<Long> lotteries, long expectedFrom, Checks checks) {
+        long confirmed = node.getHead() - CONFIRMATIONS;
+        node.drainRequestedRanges();
+        long applied = backend.getBean(ChainEventIngestionService.class).ingest();
+        backend.getBean(LotteryTotalsService.class).flush();
+        log.info("{}: applied {} logs up to block {}", phase, applied, confirmed);
+
+        List<long[]> ranges = node.drainRequestedRanges();
+        ranges.sort(Comparator.comparingLong(range -> range[0]));
+        boolean contiguous = !ranges.isEmpty() && ranges.get(ranges.size() - 1)[1] == confirmed;
+        for (int i = 1; i < ranges.size(); i++) {
+            contiguous &= ranges.get(i)[0] == ranges.get(i - 1)[1] + 1;
+        }
+        String requested = describe(ranges);
+        checks.check(phase, "eth_getLogs starts at block " + expectedFrom,
+                     !ranges.isEmpty() && ranges.get(0)[0] == expectedFrom, "requested " + requested);
+        checks.check(phase, "eth_getLogs covers every block up to " + confirmed, contiguous, "requested " + requested);
+        long checkpoint = checkpoint(backend, backend.getEnvironment().getProperty("blockchain.contract.crypto-bingo.address"));
+        checks.check(phase, "checkpoint at block " + confirmed, checkpoint == confirmed, "checkpoint is " + checkpoint);
+
+        verifyState(phase, backend.getBean(JdbcTemplate.class), node.canonicalLogs(confirmed), lotteries, checks);
+    }
+
+    private static void verifyState(String phase, JdbcTemplate jdbcTemplate, List<JsonNode> logs, Set<Long> lotteries,
+                                    Checks checks) {
+        Set<String> expectedTickets = new TreeSet<>();
+        Set<String> expectedDraws = new TreeSet<>();
+        Map<String, Long> expectedPlayerTickets = new TreeMap<>();
+        Map<Long, Long> expectedLotteryTickets = new TreeMap<>();
+        lotteries.forEach(lottery -> expectedLotteryTickets.put(lottery, 0L));
+        for (JsonNode event : logs) {
+            String topic = event.get("topics").get(0).asText();
+            long lottery = uint(event.get("topics").get(1).asText());
+            if (TICKET_PURCHASED_TOPIC.equals(topic)) {
+                String wallet = "0x" + event.get("topics").get(2).asText().substring(26);
+                expectedTickets.add(lottery + ":" + uint(event.get("topics").get(3).asText()) + ":" + wallet);
+                expectedPlayerTickets.merge(wallet, 1L, Long::sum);
+                expectedLotteryTickets.merge(lottery, 1L, Long::sum);
+            } else if (NUMBER_DRAWN_TOPIC.equals(topic)) {
+                String data = Numeric.cleanHexPrefix(event.get("data").asText());
+                expectedDraws.add(lottery + ":" + uint(data.substring(64, 128)) + ":" + uint(data.substring(0, 64)));
+            }
+        }
+
+        List<String> tickets = jdbcTemplate.queryForList(
+            "SELECT l.chain_lottery_id || ':' || t.ticket_id || ':' || lower(t.wallet_address) " +
+            "FROM lottery_tickets t JOIN weekly_lotteries l ON l.id = t.weekly_lottery_id", String.class);
+        Set<String> storedTickets = new TreeSet<>(tickets);
+        checks.check(phase, "stored tickets match the confirmed logs",
+                     storedTickets.equals(expectedTickets) && tickets.size() == storedTickets.size(),
+                     difference(expectedTickets, storedTickets) + ", " + (tickets.size() - storedTickets.size()) + " duplicated");
+
+        Set<String> storedDraws = new TreeSet<>(jdbcTemplate.queryForList(
+            "SELECT l.chain_lottery_id || ':' || d.draw_day || ':' || d.drawn_number " +
+            "FROM draw_events d JOIN weekly_lotteries l ON l.id = d.weekly_lottery_id", String.class));
+        checks.check(phase, "stored draws match the confirmed logs", storedDraws.equals(expectedDraws),
+                     difference(expectedDraws, storedDraws));
+
+        Map<String, Long> playerTickets = new TreeMap<>();
+        jdbcTemplate.query("SELECT lower(wallet_address), total_tickets FROM player_stats WHERE total_tickets <> 0",
+            rs -> {
+                playerTickets.put(rs.getString(1), rs.getLong(2));
+            });
+        checks.check(phase, "player ticket counts match", playerTickets.equals(expectedPlayerTickets),
+                     "expected " + expectedPlayerTickets + ", stored " + playerTickets);
+
+        Map<Long, Long> lotteryTickets = new TreeMap<>();
+        jdbcTemplate.query("SELECT chain_lottery_id, total_tickets FROM weekly_lotteries",
+            rs -> {
+                lotteryTickets.put(rs.getLong(1), rs.getLong(2));
+            });
+        checks.check(phase, "lottery ticket totals match", lotteryTickets.equals(expectedLotteryTickets),
+                     "expected " + expectedLotteryTickets + ", stored " + lotteryTickets);
+    }
+
+    /**
+     * Every row the ingestion writes, minus timestamps
+     */
+    private static Map<String, List<String>> snapshot(ConfigurableApplicationContext backend) {
+        JdbcTemplate jdbcTemplate = backend.getBean(JdbcTemplate.class);
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("lottery_tickets", "SELECT weekly_lottery_id, ticket_id, wallet_address, chosen_numbers, " +
+            "ticket_price_paid, transaction_hash FROM lottery_tickets ORDER BY weekly_lottery_id, ticket_id");
+        queries.put("draw_events", "SELECT weekly_lottery_id, draw_day, drawn_number, transaction_hash, block_number " +
+            "FROM draw_events ORDER BY weekly_lottery_id, draw_day");
+        queries.put("player_stats", "SELECT wallet_address, total_tickets, winning_tickets, total_spent, total_won " +
+            "FROM player_stats ORDER BY wallet_address");
+        queries.put("weekly_lotteries", "SELECT id, status, total_tickets, prize_pool, drawn_numbers, current_draw_day " +
+            "FROM weekly_lotteries ORDER BY id");
+
+        Map<String, List<String>> snapshot = new LinkedHashMap<>();
+        queries.forEach((table, sql) -> snapshot.put(table, jdbcTemplate.query(sql, (rs, rowNum) -> {
+            ResultSetMetaData columns = rs.getMetaData();
+            StringBuilder row = new StringBuilder();
+            for (int i = 1; i <= columns.getColumnCount(); i++) {
+                row.append(rs.getString(i)).append('|');
+            }
+            return row.toString();
+        })));
+        return snapshot;
+    }
+
+    private static long checkpoint(ConfigurableApplicationContext backend, String contract) {
+        List<Long> blocks = backend.getBean(JdbcTemplate.class).queryForList(
+            "SELECT last_processed_block FROM chain_sync_checkpoints WHERE contract_address = ?",
+            Long.class, contract.toLowerCase());
+        return blocks.isEmpty() ? -1 : blocks.get(0);
+    }
+
+    private static long uint(String hex) {
+        return Numeric.toBigInt(hex).longValueExact();
+    }
+
+    private static String describe(List<long[]> ranges) {
+        List<String> described = new ArrayList<>();
+        for (long[] range : ranges) {
+            described.add(range[0] + "-" + range[1]);
+        }
+        return described.toString();
+    }
+
+    private static String difference(Set<String> expected, Set<String> stored) {
+        Set<String> missing = new TreeSet<>(expected);
+        missing.removeAll(stored);
+        Set<String> unexpected = new HashSet<>(stored);
+        unexpected.removeAll(expected);
+        return "expected " + expected.size() + ", stored " + stored.size() + ", missing " + missing + ", unexpected " + unexpected;
+    }
+
+    /**
+     * Helper class collecting check outcomes per phase
+     */
+    private static class Checks {
+        private final List<String> lines = new ArrayList<>();
+        private boolean failed;
+
+        void check(String phase, String name, boolean passed, String detail) {
+            lines.add(String.format("%-4s %-24s %s%s", passed ? "PASS" : "FAIL", phase, name, passed ? "" : " (" + detail + ")"));
+            failed |= !passed;
+        }
+
+        boolean hasFailures() {
+            return failed;
+        }
+
+        void print() {
+            StringBuilder table = new StringBuilder(String.format("%n"));
+            lines.forEach(line -> table.append(line).append(String.format("%n")));
+            System.out.print(table);
+        }
+    }
+}
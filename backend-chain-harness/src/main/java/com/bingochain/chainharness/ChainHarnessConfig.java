@@ -0,0 +1,64 @@
+package com.bingochain.chainharness;
+
+/**
+ * Options of a harness run, given as --name=value arguments.
+ *
+ * --jdbc-url, --db-user, --db-password   local PostgreSQL to use instead of the embedded one;
+ *                                        its database must not hold any lottery yet
+ * --batch-blocks                         blocks per eth_getLogs request (default 8)
+ * --parallel-ranges                      ranges fetched concurrently (default 2)
+ */
+public class ChainHarnessConfig {
+
+    private String jdbcUrl;
+    private String dbUser = "postgres";
+    private String dbPassword = "postgres";
+    private int batchBlocks = 8;
+    private int parallelRanges = 2;
+
+    public static ChainHarnessConfig parse(String[] args) {
+        ChainHarnessConfig config = new ChainHarnessConfig();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "jdbc-url":
+                    config.jdbcUrl = value;
+                    break;
+                case "db-user":
+                    config.dbUser = value;
+                    break;
+                case "db-password":
+                    config.dbPassword = value;
+                    break;
+                case "batch-blocks":
+                    config.batchBlocks = positive(name, value);
+                    break;
+                case "parallel-ranges":
+                    config.parallelRanges = positive(name, value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return config;
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return parsed;
+    }
+
+    public String getJdbcUrl() { return jdbcUrl; }
+    public String getDbUser() { return dbUser; }
+    public String getDbPassword() { return dbPassword; }
+    public int getBatchBlocks() { return batchBlocks; }
+    public int getParallelRanges() { return parallelRanges; }
+}
@@ -0,0 +1,148 @@
+package com.bingochain.chainharness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.web3j.protocol.Service;
+import org.web3j.utils.Numeric;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Local stand-in for an Ethereum node behind Web3j, answering from a {@link Recording}.
+ *
+ * Only the two methods the ingestion calls are served. eth_blockNumber returns the head
+ * the harness set. eth_getLogs returns the logs up to that head that fall inside the
+ * requested range and match the filter's address and first topic, as a node would.
+ * Which ranges get requested is therefore up to the ingestion's batch size. Every
+ * requested range is remembered, so a run can check where ingestion resumed.
+ */
+public class RecordedJsonRpcService extends Service {
+
+    private final List<JsonNode> logs = new ArrayList<>();
+    private final List<long[]> requestedRanges = new CopyOnWriteArrayList<>();
+    private long head;
+
+    public RecordedJsonRpcService(Recording recording) {
+        super(false);
+        logs.addAll(recording.getLogs());
+        head = recording.getHead();
+    }
+
+    /**
+     * Move the chain head; logs past it stay hidden until it reaches them
+     */
+    public synchronized void setHead(long head) {
+        this.head = head;
+    }
+
+    public synchronized long getHead() {
+        return head;
+    }
+
+    /**
+     * Switch to the branch of a reorg recording: its logs replace every log from its fork block on
+     */
+    public synchronized void reorg(Recording fork) {
+        logs.removeIf(log -> Recording.blockNumber(log) >= fork.getForkBlock());
+        logs.addAll(fork.getLogs());
+        head = fork.getHead();
+    }
+
+    /**
+     * Logs of the current branch up to a block, without those reported as removed
+     */
+    public synchronized List<JsonNode> canonicalLogs(long toBlock) {
+        List<JsonNode> canonical = new ArrayList<>();
+        for (JsonNode log : logs) {
+            if (Recording.blockNumber(log) <= toBlock && !log.path("removed").asBoolean()) {
+                canonical.add(log);
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * Block ranges requested with eth_getLogs since the last call, in request order
+     */
+    public List<long[]> drainRequestedRanges() {
+        List<long[]> ranges = new ArrayList<>(requestedRanges);
+        requestedRanges.removeAll(ranges);
+        return ranges;
+    }
+
+    @Override
+    protected InputStream performIO(String payload) throws IOException {
+        JsonNode request = objectMapper.readTree(payload);
+        if (!request.isObject()) {
+            throw new IOException("Batch requests are not served by the recorded node");
+        }
+        ObjectNode response = objectMapper.createObjectNode();
+        response.put("jsonrpc", "2.0");
+        response.set("id", request.get("id"));
+
+        String method = request.path("method").asText();
+        if ("eth_blockNumber".equals(method)) {
+            response.put("result", Numeric.encodeQuantity(BigInteger.valueOf(getHead())));
+        } else if ("eth_getLogs".equals(method)) {
+            response.set("result", getLogs(request.path("params").path(0)));
+        } else {
+            ObjectNode error = response.putObject("error");
+            error.put("code", -32601);
+            error.put("message", "the method " + method + " does not exist/is not available");
+        }
+        return new ByteArrayInputStream(objectMapper.writeValueAsBytes(response));
+    }
+
+    @Override
+    public void close() {
+    }
+
+    private synchronized ArrayNode getLogs(JsonNode filter) {
+        long from = block(filter.path("fromBlock"), 0L);
+        long to = Math.min(block(filter.path("toBlock"), head), head);
+        requestedRanges.add(new long[] {from, to});
+
+        ArrayNode result = objectMapper.createArrayNode();
+        for (JsonNode log : logs) {
+            long block = Recording.blockNumber(log);
+            if (block >= from && block <= to && matches(filter.path("address"), log.path("address").asText())
+                    && matches(filter.path("topics").path(0), log.path("topics").path(0).asText())) {
+                result.add(log);
+            }
+        }
+        return result;
+    }
+
+    private long block(JsonNode parameter, long otherwise) {
+        if (parameter.isMissingNode() || parameter.isNull() || "latest".equals(parameter.asText())) {
+            return otherwise;
+        }
+        if ("earliest".equals(parameter.asText())) {
+            return 0L;
+        }
+        return Numeric.decodeQuantity(parameter.asText()).longValueExact();
+    }
+
+    // A filter value is absent, one value or a list of alternatives
+    private static boolean matches(JsonNode filter, String value) {
+        if (filter.isMissingNode() || filter.isNull()) {
+            return true;
+        }
+        if (filter.isArray()) {
+            for (JsonNode alternative : filter) {
+                if (alternative.asText().equalsIgnoreCase(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return filter.asText().equalsIgnoreCase(value);
+    }
+}
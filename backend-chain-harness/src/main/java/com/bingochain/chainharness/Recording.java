@@ -0,0 +1,53 @@
+package com.bingochain.chainharness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.web3j.utils.Numeric;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Contract logs in the form eth_getLogs returns them, read from src/main/resources/recordings.
+ *
+ * A recording holds the chain head it was taken at and its logs in block order. A reorg
+ * recording also names its fork block: it replaces every log of the chain from that block on.
+ */
+public class Recording {
+
+    private final String contract;
+    private final long head;
+    private final Long forkBlock;
+    private final List<JsonNode> logs;
+
+    private Recording(String contract, long head, Long forkBlock, List<JsonNode> logs) {
+        this.contract = contract;
+        this.head = head;
+        this.forkBlock = forkBlock;
+        this.logs = logs;
+    }
+
+    public static Recording load(String name) throws IOException {
+        try (InputStream input = Recording.class.getResourceAsStream("/recordings/" + name)) {
+            if (input == null) {
+                throw new IOException("Recording not found: " + name);
+            }
+            JsonNode root = new ObjectMapper().readTree(input);
+            List<JsonNode> logs = new ArrayList<>();
+            root.get("logs").forEach(logs::add);
+            return new Recording(root.get("contract").asText(), root.get("head").asLong(),
+                                 root.has("forkBlock") ? root.get("forkBlock").asLong() : null, logs);
+        }
+    }
+
+    public static long blockNumber(JsonNode log) {
+        return Numeric.decodeQuantity(log.get("blockNumber").asText()).longValueExact();
+    }
+
+    public String getContract() { return contract; }
+    public long getHead() { return head; }
+    public Long getForkBlock() { return forkBlock; }
+    public List<JsonNode> getLogs() { return logs; }
+}
@@ -0,0 +1,155 @@
+package com.bingochain.loadtest;
+
+import com.bingochain.model.NumberSet;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Creates the lotteries and tickets a run works on, through the same REST API the
+ * load test measures: lotteries are created one by one, tickets are bulk imported.
+ */
+public class DataSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(DataSeeder.class);
+
+    private static final int IMPORT_CHUNK = 50_000;
+    private static final BigDecimal TICKET_PRICE = new BigDecimal("0.01");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    public DataSeeder(HttpClient client, String baseUrl, ObjectMapper objectMapper) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+    }
+
+    public SeedData seed(LoadTestConfig config) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        List<String> wallets = new ArrayList<>(config.getPlayers());
+        for (int i = 0; i < config.getPlayers(); i++) {
+            wallets.add(wallet(i));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> salesLotteries = new ArrayList<>();
+        for (int i = 0; i < config.getSalesLotteries(); i++) {
+            salesLotteries.add(createLottery("Load test sales #" + (i + 1), now.minusHours(1), now.plusDays(1)));
+        }
+        // Settlement lotteries keep their sales window open too, so purchases and draws can overlap on them
+        List<Long> settlementLotteries = new ArrayList<>();
+        for (int i = 0; i < config.getSettlementLotteries(); i++) {
+            settlementLotteries.add(createLottery("Load test settlement #" + (i + 1), now.minusDays(1), now.plusDays(1)));
+        }
+
+        long ticketSeq = 0;
+        List<Long> all = new ArrayList<>(salesLotteries);
+        all.addAll(settlementLotteries);
+        for (Long lotteryId : all) {
+            for (int offset = 0; offset < config.getTicketsPerLottery(); offset += IMPORT_CHUNK) {
+                int count = Math.min(IMPORT_CHUNK, config.getTicketsPerLottery() - offset);
+                StringBuilder body = new StringBuilder(count * 160);
+                for (int i = 0; i < count; i++) {
+                    Map<String, Object> row = new LinkedHashMap<>();
+                    row.put("ticketId", "seed-" + (++ticketSeq));
+                    row.put("walletAddress", wallets.get(random.nextInt(wallets.size())));
+                    row.put("chosenNumbers", randomNumbers(random).toJson());
+                    row.put("ticketPrice", TICKET_PRICE);
+                    row.put("transactionHash", transactionHash(random));
+                    body.append(objectMapper.writeValueAsString(row)).append('\n');
+                }
+                JsonNode result = send(HttpRequest.newBuilder(URI.create(baseUrl + "/tickets/import?lotteryId=" + lotteryId))
+                    .header("Content-Type", "application/x-ndjson")
+                    .POST(HttpRequest.BodyPublishers.ofString(body.toString())));
+                if (result.path("rejected").asLong() > 0) {
+                    log.warn("Import into lottery {} rejected {} rows: {}", lotteryId, result.path("rejected").asLong(),
+                             result.path("errors"));
+                }
+            }
+        }
+        log.info("Seeded {} lotteries with {} tickets each for {} players in {} ms", all.size(),
+                 config.getTicketsPerLottery(), wallets.size(), (System.nanoTime() - start) / 1_000_000);
+        return new SeedData(salesLotteries, settlementLotteries, wallets, TICKET_PRICE);
+    }
+
+    private Long createLottery(String name, LocalDateTime salesStart, LocalDateTime salesEnd)
+            throws IOException, InterruptedException {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("contractAddress", String.format("0x%040x", random.nextLong() & Long.MAX_VALUE));
+        request.put("lotteryName", name);
+        request.put("ticketPrice", TICKET_PRICE);
+        request.put("salesStartTime", salesStart.toString());
+        request.put("salesEndTime", salesEnd.toString());
+        request.put("nextDrawTime", salesEnd.plusMinutes(30).toString());
+        JsonNode lottery = send(HttpRequest.newBuilder(URI.create(baseUrl + "/lotteries"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request))));
+        return lottery.get("id").asLong();
+    }
+
+    private JsonNode send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.timeout(Duration.ofMinutes(5)).build(),
+                                                    HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Seeding request " + response.request().uri() + " failed with HTTP " + response.statusCode());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    static String wallet(int index) {
+        return String.format("0x%040x", 0x10000L + index);
+    }
+
+    static String transactionHash(SplittableRandom random) {
+        return String.format("0x%016x%016x%016x%016x", random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong());
+    }
+
+    static NumberSet randomNumbers(SplittableRandom random) {
+        NumberSet numbers = NumberSet.EMPTY;
+        while (numbers.size() < NumberSet.NUMBERS_PER_TICKET) {
+            numbers = numbers.with(random.nextInt(NumberSet.MIN_NUMBER, NumberSet.MAX_NUMBER + 1));
+        }
+        return numbers;
+    }
+
+    /**
+     * Helper class for what was seeded
+     */
+    public static class SeedData {
+        private final List<Long> salesLotteries;
+        private final List<Long> settlementLotteries;
+        private final List<String> wallets;
+        private final BigDecimal ticketPrice;
+
+        public SeedData(List<Long> salesLotteries, List<Long> settlementLotteries, List<String> wallets,
+                        BigDecimal ticketPrice) {
+            this.salesLotteries = salesLotteries;
+            this.settlementLotteries = settlementLotteries;
+            this.wallets = wallets;
+            this.ticketPrice = ticketPrice;
+        }
+
+        public List<Long> getSalesLotteries() { return salesLotteries; }
+        public List<Long> getSettlementLotteries() { return settlementLotteries; }
+        public List<String> getWallets() { return wallets; }
+        public BigDecimal getTicketPrice() { return ticketPrice; }
+    }
+}
@@ -0,0 +1,126 @@
+package com.bingochain.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-model load generator: requests are started on a fixed schedule at the target
+ * rate whether or not earlier ones have returned, and each latency is measured from
+ * the moment the request was due, not from when it was actually sent. A slow server
+ * therefore shows up as higher latency instead of as a lower request rate.
+ */
+public class LoadGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+
+    private static final long MAX_LATENCY_MICROS = TimeUnit.MINUTES.toMicros(5);
+    private static final long DRAIN_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    private final HttpClient client;
+    private final Workload workload;
+    private final LoadTestConfig config;
+    private final LongConsumer onDraw;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public LoadGenerator(HttpClient client, Workload workload, LoadTestConfig config, LongConsumer onDraw) {
+        this.client = client;
+        this.workload = workload;
+        this.config = config;
+        this.onDraw = onDraw;
+    }
+
+    /**
+     * Run the warmup and then the measured phase; returns the statistics of the measured phase
+     */
+    public Map<String, EndpointStats> run(Runnable beforeMeasurement) {
+        workload.start(System.nanoTime());
+        if (config.getWarmupSeconds() > 0) {
+            log.info("Warming up for {} s at {} requests/s", config.getWarmupSeconds(), config.getRate());
+            runPhase(config.getWarmupSeconds(), new ConcurrentHashMap<>());
+        }
+        beforeMeasurement.run();
+        log.info("Measuring for {} s at {} requests/s", config.getDurationSeconds(), config.getRate());
+        Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+        runPhase(config.getDurationSeconds(), stats);
+        return new TreeMap<>(stats);
+    }
+
+    private void runPhase(int seconds, Map<String, EndpointStats> stats) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long due = start;
+        while (due < end) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+                continue;
+            }
+            send(workload.next(due), due, stats);
+            due += intervalNanos;
+        }
+        long drainDeadline = System.nanoTime() + DRAIN_TIMEOUT_NANOS;
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+    }
+
+    private void send(Workload.Request request, long dueNanos, Map<String, EndpointStats> stats) {
+        EndpointStats endpoint = stats.computeIfAbsent(request.getType(), type -> new EndpointStats());
+        if (inFlight.get() >= config.getMaxInFlight()) {
+            // The client cannot keep up; count it rather than silently lowering the rate
+            endpoint.dropped.increment();
+            return;
+        }
+        inFlight.incrementAndGet();
+        client.sendAsync(request.getHttpRequest(), HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, error) -> {
+                long latencyMicros = Math.min(MAX_LATENCY_MICROS, (System.nanoTime() - dueNanos) / 1_000);
+                if (error != null) {
+                    endpoint.recordError(error.toString());
+                } else if (response.statusCode() >= 400) {
+                    endpoint.recordError("HTTP " + response.statusCode());
+                } else {
+                    endpoint.latency.recordValue(latencyMicros);
+                    if (request.getDrawLotteryId() != null) {
+                        onDraw.accept(request.getDrawLotteryId());
+                    }
+                }
+                inFlight.decrementAndGet();
+            });
+    }
+
+    /**
+     * Helper class for the statistics of one request type
+     */
+    public static class EndpointStats {
+        final Histogram latency = new ConcurrentHistogram(MAX_LATENCY_MICROS, 3);
+        final LongAdder errors = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final AtomicReference<String> firstError = new AtomicReference<>();
+
+        void recordError(String error) {
+            errors.increment();
+            firstError.compareAndSet(null, error);
+        }
+
+        public Histogram getLatency() { return latency; }
+        public long getErrors() { return errors.sum(); }
+        public long getDropped() { return dropped.sum(); }
+        public String getFirstError() { return firstError.get(); }
+    }
+}
@@ -0,0 +1,208 @@
+package com.bingochain.loadtest;
+
+import com.bingochain.BingoChainApplication;
+import com.bingochain.service.DrawSettlementService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test of the REST API.
+ *
+ * Starts PostgreSQL (embedded, unless --jdbc-url points at a local one) and the backend
+ * in this JVM on a random port, seeds lotteries and tickets through the API, then drives
+ * the scripted request mix at a fixed rate and reports p50/p99/p99.9 latency and
+ * throughput per endpoint, plus the duration of the settlements the draws started.
+ * Everything runs locally; no network access is needed once the jar is built.
+ */
+public class LoadTestApplication {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestApplication.class);
+
+    private static final long SETTLEMENT_WAIT_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+
+        EmbeddedPostgres postgres = null;
+        String jdbcUrl = config.getJdbcUrl();
+        if (jdbcUrl == null) {
+            log.info("Starting embedded PostgreSQL");
+            postgres = EmbeddedPostgres.builder().start();
+            jdbcUrl = postgres.getJdbcUrl("postgres", "postgres");
+        }
+
+        ConfigurableApplicationContext backend = null;
+        try {
+            backend = startBackend(config, jdbcUrl);
+            runInitScript(backend.getBean(JdbcTemplate.class), Paths.get(config.getInitSql()));
+
+            String baseUrl = "http://localhost:" + backend.getEnvironment().getProperty("local.server.port") + "/api/v1/api/v1";
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+            DataSeeder.SeedData seed = new DataSeeder(client, baseUrl, objectMapper).seed(config);
+            SettlementTracker settlements = new SettlementTracker(backend.getBean(DrawSettlementService.class));
+            LoadGenerator generator = new LoadGenerator(client, new Workload(baseUrl, objectMapper, seed, config),
+                                                        config, settlements::drawRecorded);
+
+            long[] measureStart = new long[1];
+            Map<String, LoadGenerator.EndpointStats> stats = generator.run(() -> {
+                settlements.setRecording(true);
+                measureStart[0] = System.nanoTime();
+            });
+            double seconds = (System.nanoTime() - measureStart[0]) / 1e9;
+            settlements.awaitPending(SETTLEMENT_WAIT_MILLIS);
+
+            Map<String, Object> report = report(config, stats, settlements, seconds);
+            printReport(report);
+            objectMapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(config.getReport()), report);
+            log.info("Report written to {}", config.getReport());
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+            if (postgres != null) {
+                postgres.close();
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startBackend(LoadTestConfig config, String jdbcUrl) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.datasource.url", jdbcUrl + (jdbcUrl.contains("?") ? "&" : "?") + "reWriteBatchedInserts=true");
+        properties.put("spring.datasource.username", config.getDbUser());
+        properties.put("spring.datasource.password", config.getDbPassword());
+        // Draws come from the workload, not from the wall clock
+        properties.put("draw.scheduler.enabled", false);
+        properties.put("spring.devtools.restart.enabled", false);
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.com.bingochain.loadtest", "INFO");
+        // Passed as command line arguments so they win over the backend's application.yml
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            args.add("--" + property.getKey() + "=" + property.getValue());
+        }
+        return new SpringApplicationBuilder(BingoChainApplication.class, LoadTestSecurityConfig.class)
+            .run(args.toArray(new String[0]));
+    }
+
+    /**
+     * Apply the database init script so the run sees its indexes. psql meta-commands are
+     * skipped and dollar-quoted bodies are kept whole.
+     */
+    private static void runInitScript(JdbcTemplate jdbcTemplate, Path script) throws IOException {
+        if (!Files.exists(script)) {
+            log.warn("Init script {} not found; running with the tables and indexes Hibernate creates", script);
+            return;
+        }
+        List<String> statements = new ArrayList<>();
+        StringBuilder statement = new StringBuilder();
+        boolean dollarQuoted = false;
+        for (String line : Files.readAllLines(script, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (!dollarQuoted && (trimmed.startsWith("\\") || trimmed.startsWith("--") || trimmed.isEmpty())) {
+                continue;
+            }
+            statement.append(line).append('\n');
+            int quotes = line.split("\\$\\$", -1).length - 1;
+            if (quotes % 2 == 1) {
+                dollarQuoted = !dollarQuoted;
+            }
+            if (!dollarQuoted && trimmed.endsWith(";")) {
+                statements.add(statement.toString());
+                statement.setLength(0);
+            }
+        }
+        for (String sql : statements) {
+            jdbcTemplate.execute(sql);
+        }
+        log.info("Applied {} statements from {}", statements.size(), script);
+    }
+
+    private static Map<String, Object> report(LoadTestConfig config, Map<String, LoadGenerator.EndpointStats> stats,
+                                              SettlementTracker settlements, double seconds) {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, LoadGenerator.EndpointStats> entry : stats.entrySet()) {
+            LoadGenerator.EndpointStats endpoint = entry.getValue();
+            Map<String, Object> row = latencies(endpoint.getLatency(), 1_000.0);
+            row.put("errors", endpoint.getErrors());
+            row.put("dropped", endpoint.getDropped());
+            row.put("throughput", round(endpoint.getLatency().getTotalCount() / seconds));
+            if (endpoint.getFirstError() != null) {
+                row.put("firstError", endpoint.getFirstError());
+            }
+            endpoints.put(entry.getKey(), row);
+        }
+
+        Map<String, Object> settlement = latencies(settlements.getDurations(), 1.0);
+        settlement.put("errors", settlements.getFailed());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("targetRate", config.getRate());
+        report.put("durationSeconds", round(seconds));
+        report.put("ticketsPerLottery", config.getTicketsPerLottery());
+        report.put("players", config.getPlayers());
+        report.put("endpoints", endpoints);
+        report.put("settlement", settlement);
+        return report;
+    }
+
+    // Latencies in milliseconds; unitsPerMilli is what one millisecond is in the histogram
+    private static Map<String, Object> latencies(Histogram histogram, double unitsPerMilli) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("requests", histogram.getTotalCount());
+        row.put("p50Ms", round(histogram.getValueAtPercentile(50) / unitsPerMilli));
+        row.put("p99Ms", round(histogram.getValueAtPercentile(99) / unitsPerMilli));
+        row.put("p999Ms", round(histogram.getValueAtPercentile(99.9) / unitsPerMilli));
+        row.put("maxMs", round(histogram.getMaxValue() / unitsPerMilli));
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printReport(Map<String, Object> report) {
+        StringBuilder table = new StringBuilder();
+        table.append(String.format("%n%-16s %9s %7s %7s %9s %9s %9s %9s %9s%n",
+            "endpoint", "requests", "errors", "dropped", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Map<String, Object> endpoints = (Map<String, Object>) report.get("endpoints");
+        for (Map.Entry<String, Object> entry : endpoints.entrySet()) {
+            Map<String, Object> row = (Map<String, Object>) entry.getValue();
+            table.append(String.format("%-16s %9d %7d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+                row.get("requests"), row.get("errors"), row.get("dropped"), row.get("throughput"),
+                row.get("p50Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs")));
+        }
+        Map<String, Object> settlement = (Map<String, Object>) report.get("settlement");
+        table.append(String.format("%-16s %9d %7d %7s %9s %9.2f %9.2f %9.2f %9.2f%n", "settlement",
+            settlement.get("requests"), settlement.get("errors"), "-", "-",
+            settlement.get("p50Ms"), settlement.get("p99Ms"), settlement.get("p999Ms"), settlement.get("maxMs")));
+        System.out.print(table);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,152 @@
+package com.bingochain.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Options of a load test run, given as --name=value arguments.
+ *
+ * --jdbc-url, --db-user, --db-password   local PostgreSQL to use instead of the embedded one
+ * --sales-lotteries                      lotteries open for purchases (default 4)
+ * --settlement-lotteries                 lotteries that receive draws and get settled (default 2)
+ * --tickets-per-lottery                  tickets imported into every lottery before the run (default 20000)
+ * --players                              distinct wallets owning the tickets (default 5000)
+ * --rate                                 target requests per second, independent of response times (default 200)
+ * --warmup                               seconds of load before measuring (default 15)
+ * --duration                             measured seconds (default 60)
+ * --draw-interval                        seconds between draws on the settlement lotteries (default 10)
+ * --max-in-flight                        requests outstanding before new ones are dropped (default 2000)
+ * --mix                                  weights of the request types, e.g. purchase=25,current=15
+ * --report                               JSON report file (default loadtest-report.json)
+ * --init-sql                             database init script run after startup, if present
+ *                                        (default database/init/01-init-database.sql)
+ */
+public class LoadTestConfig {
+
+    static final Map<String, Integer> DEFAULT_MIX = new LinkedHashMap<>();
+
+    static {
+        DEFAULT_MIX.put("purchase", 25);
+        DEFAULT_MIX.put("lotteries", 10);
+        DEFAULT_MIX.put("current", 15);
+        DEFAULT_MIX.put("lottery", 10);
+        DEFAULT_MIX.put("ticketPage", 10);
+        DEFAULT_MIX.put("playerTickets", 10);
+        DEFAULT_MIX.put("playerStats", 15);
+        DEFAULT_MIX.put("settlement", 5);
+    }
+
+    private String jdbcUrl;
+    private String dbUser = "postgres";
+    private String dbPassword = "postgres";
+    private int salesLotteries = 4;
+    private int settlementLotteries = 2;
+    private int ticketsPerLottery = 20_000;
+    private int players = 5_000;
+    private int rate = 200;
+    private int warmupSeconds = 15;
+    private int durationSeconds = 60;
+    private int drawIntervalSeconds = 10;
+    private int maxInFlight = 2_000;
+    private Map<String, Integer> mix = new LinkedHashMap<>(DEFAULT_MIX);
+    private String report = "loadtest-report.json";
+    private String initSql = "database/init/01-init-database.sql";
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            switch (name) {
+                case "jdbc-url":
+                    config.jdbcUrl = value;
+                    break;
+                case "db-user":
+                    config.dbUser = value;
+                    break;
+                case "db-password":
+                    config.dbPassword = value;
+                    break;
+                case "sales-lotteries":
+                    config.salesLotteries = positive(name, value);
+                    break;
+                case "settlement-lotteries":
+                    config.settlementLotteries = Integer.parseInt(value);
+                    break;
+                case "tickets-per-lottery":
+                    config.ticketsPerLottery = Integer.parseInt(value);
+                    break;
+                case "players":
+                    config.players = positive(name, value);
+                    break;
+                case "rate":
+                    config.rate = positive(name, value);
+                    break;
+                case "warmup":
+                    config.warmupSeconds = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    config.durationSeconds = positive(name, value);
+                    break;
+                case "draw-interval":
+                    config.drawIntervalSeconds = positive(name, value);
+                    break;
+                case "max-in-flight":
+                    config.maxInFlight = positive(name, value);
+                    break;
+                case "mix":
+                    config.mix = parseMix(value);
+                    break;
+                case "report":
+                    config.report = value;
+                    break;
+                case "init-sql":
+                    config.initSql = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        return config;
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2 || !DEFAULT_MIX.containsKey(parts[0])) {
+                throw new IllegalArgumentException("Invalid mix entry '" + entry + "', known types: " + DEFAULT_MIX.keySet());
+            }
+            mix.put(parts[0], Integer.parseInt(parts[1]));
+        }
+        return mix;
+    }
+
+    private static int positive(String name, String value) {
+        int parsed = Integer.parseInt(value);
+        if (parsed <= 0) {
+            throw new IllegalArgumentException("--" + name + " must be positive");
+        }
+        return parsed;
+    }
+
+    public String getJdbcUrl() { return jdbcUrl; }
+    public String getDbUser() { return dbUser; }
+    public String getDbPassword() { return dbPassword; }
+    public int getSalesLotteries() { return salesLotteries; }
+    public int getSettlementLotteries() { return settlementLotteries; }
+    public int getTicketsPerLottery() { return ticketsPerLottery; }
+    public int getPlayers() { return players; }
+    public int getRate() { return rate; }
+    public int getWarmupSeconds() { return warmupSeconds; }
+    public int getDurationSeconds() { return durationSeconds; }
+    public int getDrawIntervalSeconds() { return drawIntervalSeconds; }
+    public int getMaxInFlight() { return maxInFlight; }
+    public Map<String, Integer> getMix() { return mix; }
+    public String getReport() { return report; }
+    public String getInitSql() { return initSql; }
+}
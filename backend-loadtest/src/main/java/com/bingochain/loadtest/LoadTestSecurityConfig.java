@@ -0,0 +1,21 @@
+package com.bingochain.loadtest;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+
+/**
+ * Opens the API of the in-process backend to the load generator.
+ * Only registered by {@link LoadTestApplication}; the backend itself keeps Boot's defaults.
+ */
+@Configuration
+public class LoadTestSecurityConfig {
+
+    @Bean
+    public SecurityFilterChain loadTestSecurityFilterChain(HttpSecurity http) throws Exception {
+        http.csrf(csrf -> csrf.disable())
+            .authorizeHttpRequests(requests -> requests.anyRequest().permitAll());
+        return http.build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.bingochain.loadtest;
+
+import com.bingochain.service.DrawSettlementService;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Times the background settlements that draws start. The draw request only covers
+ * recording the number; the settlement runs after it commits, so its duration is read
+ * from the in-process {@link DrawSettlementService} once it has finished.
+ */
+public class SettlementTracker {
+
+    private static final long POLL_MILLIS = 20;
+    private static final long GIVE_UP_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final DrawSettlementService settlementService;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "settlement-tracker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Histogram durations = new ConcurrentHistogram(3);
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder pending = new LongAdder();
+    private volatile boolean recording;
+
+    public SettlementTracker(DrawSettlementService settlementService) {
+        this.settlementService = settlementService;
+    }
+
+    /**
+     * Follow the settlement a draw of the lottery has just started
+     */
+    public void drawRecorded(long lotteryId) {
+        pending.increment();
+        schedulePoll(lotteryId, LocalDateTime.now().minusSeconds(1), System.currentTimeMillis() + GIVE_UP_MILLIS, recording);
+    }
+
+    private void schedulePoll(long lotteryId, LocalDateTime drawnAt, long deadline, boolean record) {
+        poller.schedule(() -> {
+            DrawSettlementService.SettlementProgress progress = settlementService.getProgress(lotteryId).orElse(null);
+            boolean done = progress != null && !progress.isRunning() && !progress.getStartedAt().isBefore(drawnAt);
+            if (!done && System.currentTimeMillis() < deadline) {
+                schedulePoll(lotteryId, drawnAt, deadline, record);
+                return;
+            }
+            if (record) {
+                if (done && progress.getError() == null) {
+                    durations.recordValue(progress.getElapsedMillis());
+                } else {
+                    failed.increment();
+                }
+            }
+            pending.decrement();
+        }, POLL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Only settlements started while recording count; warmup draws are followed but dropped
+     */
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * Wait for the settlements still running, up to the given time
+     */
+    public void awaitPending(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (pending.sum() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(POLL_MILLIS);
+        }
+        poller.shutdownNow();
+    }
+
+    public Histogram getDurations() { return durations; }
+    public long getFailed() { return failed.sum(); }
+}
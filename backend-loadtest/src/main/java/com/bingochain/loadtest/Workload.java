@@ -0,0 +1,190 @@
+package com.bingochain.loadtest;
+
+import com.bingochain.model.NumberSet;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * The scripted request stream of a run.
+ *
+ * Purchases and dashboard reads are picked at random by weight. Draws follow their own
+ * clock instead: every draw interval the next settlement lottery gets its next daily
+ * number, which starts a settlement in the backend, until each has had its six draws.
+ * Only the load generator thread calls {@link #next}, so the state needs no locking.
+ */
+public class Workload {
+
+    private static final int DRAWS_PER_LOTTERY = 6;
+    private static final int PAGE_SIZE = 50;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final String baseUrl;
+    private final ObjectMapper objectMapper;
+    private final DataSeeder.SeedData seed;
+    private final SplittableRandom random = new SplittableRandom(7);
+    private final String[] types;
+    private final int[] cumulativeWeights;
+    private final long drawIntervalNanos;
+    private final int[] drawDays;
+    private final List<Set<Integer>> drawnNumbers = new ArrayList<>();
+    private long nextDrawAt;
+    private int drawCursor;
+    private long purchaseSeq;
+
+    public Workload(String baseUrl, ObjectMapper objectMapper, DataSeeder.SeedData seed, LoadTestConfig config) {
+        this.baseUrl = baseUrl;
+        this.objectMapper = objectMapper;
+        this.seed = seed;
+        this.types = config.getMix().keySet().toArray(new String[0]);
+        this.cumulativeWeights = new int[types.length];
+        int total = 0;
+        for (int i = 0; i < types.length; i++) {
+            total += config.getMix().get(types[i]);
+            cumulativeWeights[i] = total;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("The request mix needs at least one positive weight");
+        }
+        this.drawIntervalNanos = Duration.ofSeconds(config.getDrawIntervalSeconds()).toNanos();
+        this.drawDays = new int[seed.getSettlementLotteries().size()];
+        for (int i = 0; i < drawDays.length; i++) {
+            drawnNumbers.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Start the draw clock
+     */
+    public void start(long nowNanos) {
+        nextDrawAt = nowNanos + drawIntervalNanos;
+    }
+
+    public Request next(long nowNanos) {
+        if (nowNanos >= nextDrawAt && hasDrawsLeft()) {
+            nextDrawAt += drawIntervalNanos;
+            return draw();
+        }
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int type = 0;
+        while (pick >= cumulativeWeights[type]) {
+            type++;
+        }
+        return request(types[type]);
+    }
+
+    private Request request(String type) {
+        Long salesLottery = pick(seed.getSalesLotteries());
+        String wallet = pick(seed.getWallets());
+        switch (type) {
+            case "purchase":
+                return purchase(salesLottery, wallet);
+            case "lotteries":
+                return get(type, "/lotteries");
+            case "current":
+                return get(type, "/lotteries/current");
+            case "lottery":
+                return get(type, "/lotteries/" + salesLottery);
+            case "ticketPage":
+                return get(type, "/tickets/lottery/" + salesLottery + "?limit=" + PAGE_SIZE);
+            case "playerTickets":
+                return get(type, "/tickets/player/" + wallet + "?limit=" + PAGE_SIZE);
+            case "playerStats":
+                return get(type, "/tickets/player/" + wallet + "/statistics");
+            case "settlement":
+                List<Long> settled = seed.getSettlementLotteries().isEmpty() ? seed.getSalesLotteries() : seed.getSettlementLotteries();
+                return get(type, "/lotteries/" + pick(settled) + "/settlement");
+            default:
+                throw new IllegalArgumentException("Unknown request type " + type);
+        }
+    }
+
+    private Request purchase(Long lotteryId, String wallet) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("walletAddress", wallet);
+        body.put("lotteryId", lotteryId);
+        body.put("chosenNumbers", DataSeeder.randomNumbers(random).toJson());
+        body.put("ticketPrice", seed.getTicketPrice());
+        body.put("transactionHash", DataSeeder.transactionHash(random));
+        body.put("contractTicketId", "load-" + (++purchaseSeq));
+        return post("purchase", "/tickets/purchase", body);
+    }
+
+    private Request draw() {
+        int lottery = drawCursor;
+        do {
+            lottery = (lottery + 1) % drawDays.length;
+        } while (drawDays[lottery] >= DRAWS_PER_LOTTERY);
+        drawCursor = lottery;
+
+        int number;
+        do {
+            number = random.nextInt(NumberSet.MIN_NUMBER, NumberSet.MAX_NUMBER + 1);
+        } while (!drawnNumbers.get(lottery).add(number));
+
+        Long lotteryId = seed.getSettlementLotteries().get(lottery);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("drawDay", ++drawDays[lottery]);
+        body.put("drawnNumber", number);
+        Request request = post("draw", "/lotteries/" + lotteryId + "/draws", body);
+        request.drawLotteryId = lotteryId;
+        return request;
+    }
+
+    private boolean hasDrawsLeft() {
+        for (int days : drawDays) {
+            if (days < DRAWS_PER_LOTTERY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Request get(String type, String path) {
+        return new Request(type, HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(REQUEST_TIMEOUT).GET().build());
+    }
+
+    private Request post(String type, String path, Map<String, Object> body) {
+        try {
+            return new Request(type, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    /**
+     * Helper class for one request of the stream
+     */
+    public static class Request {
+        private final String type;
+        private final HttpRequest httpRequest;
+        private Long drawLotteryId;
+
+        Request(String type, HttpRequest httpRequest) {
+            this.type = type;
+            this.httpRequest = httpRequest;
+        }
+
+        public String getType() { return type; }
+        public HttpRequest getHttpRequest() { return httpRequest; }
+        public Long getDrawLotteryId() { return drawLotteryId; }
+    }
+}
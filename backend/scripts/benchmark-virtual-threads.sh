@@ -0,0 +1,90 @@
+#!/bin/bash
+
+# BingoChain Virtual Thread Benchmark
+# Compares request throughput of the platform-thread and virtual-thread modes
+# at high client concurrency. Both runs use the same Java 21 build so the only
+# difference is spring.threads.virtual.enabled.
+#
+# Requires: Java 21 on PATH (or JAVA_HOME), hey (https://github.com/rakyll/hey),
+# and the PostgreSQL instance from docker-compose with some lottery data.
+
+set -e
+
+# Configuration
+CLIENTS="${CLIENTS:-5000}"
+DURATION="${DURATION:-60s}"
+WARMUP="${WARMUP:-15s}"
+PORT="${PORT:-3500}"
+LOTTERY_ID="${LOTTERY_ID:-1}"
+TARGET_PATH="${TARGET_PATH:-/api/v1/api/v1/tickets/lottery/${LOTTERY_ID}?limit=50}"
+RESULTS_DIR="${RESULTS_DIR:-./benchmark-results}"
+JAVA_BIN="${JAVA_HOME:+$JAVA_HOME/bin/}java"
+
+# Colors for output
+RED='\033[0;31m'
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+NC='\033[0m' # No Color
+
+cd "$(dirname "$0")/.."
+
+if ! command -v hey &> /dev/null; then
+    echo -e "${RED}Error: hey could not be found. Install it with: go install github.com/rakyll/hey@latest${NC}"
+    exit 1
+fi
+
+if ! "$JAVA_BIN" -version 2>&1 | grep -q 'version "2[1-9]'; then
+    echo -e "${RED}Error: Java 21 or newer is required (set JAVA_HOME)${NC}"
+    exit 1
+fi
+
+# Many concurrent sockets need a high open-file limit
+ulimit -n 65536 2>/dev/null || echo -e "${YELLOW}Warning: could not raise the open file limit${NC}"
+
+echo -e "${YELLOW}Building with the virtual-threads profile...${NC}"
+mvn -B -q -Pvirtual-threads clean package -DskipTests
+JAR=$(ls target/bingochain-backend-*.jar | head -1)
+mkdir -p "$RESULTS_DIR"
+
+run_mode() {
+    local mode=$1
+    local virtual=$2
+    local log_file="$RESULTS_DIR/${mode}-server.log"
+
+    echo -e "${YELLOW}Starting backend in ${mode} mode...${NC}"
+    "$JAVA_BIN" -Djdk.tracePinnedThreads=short -jar "$JAR" \
+        --server.port="$PORT" \
+        --spring.threads.virtual.enabled="$virtual" \
+        --server.tomcat.max-connections=$((CLIENTS + 1000)) \
+        --server.tomcat.accept-count=$CLIENTS \
+        --logging.level.com.bingochain=INFO \
+        --logging.level.org.hibernate.SQL=WARN \
+        --logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN \
+        > "$log_file" 2>&1 &
+    local pid=$!
+
+    until curl -sf "http://localhost:${PORT}/api/v1/actuator/health" > /dev/null; do
+        if ! kill -0 $pid 2> /dev/null; then
+            echo -e "${RED}Error: backend exited during startup, see ${log_file}${NC}"
+            exit 1
+        fi
+        sleep 2
+    done
+
+    hey -z "$WARMUP" -c 200 "http://localhost:${PORT}${TARGET_PATH}" > /dev/null
+    hey -z "$DURATION" -c "$CLIENTS" "http://localhost:${PORT}${TARGET_PATH}" > "$RESULTS_DIR/${mode}.txt"
+
+    kill $pid
+    wait $pid 2> /dev/null || true
+
+    echo -e "${GREEN}${mode}:${NC}"
+    grep -E "Requests/sec|Average|99% in|\[[0-9]+\]" "$RESULTS_DIR/${mode}.txt" | sed 's/^/    /'
+    local pinned
+    pinned=$(grep -c "Virtual thread pinned\|onPinned\|<== monitors" "$log_file" || true)
+    echo "    Pinning reports: ${pinned}"
+}
+
+run_mode platform false
+run_mode virtual true
+
+echo -e "${GREEN}Full reports written to ${RESULTS_DIR}${NC}"
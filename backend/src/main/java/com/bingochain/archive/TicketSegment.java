@@ -0,0 +1,354 @@
+package com.bingochain.archive;
+
+import com.bingochain.dto.LotteryTicketView;
+import com.bingochain.model.WeeklyLottery;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only view of a segment file written by {@link TicketSegmentWriter}.
+ *
+ * The file is memory-mapped once and never changes, so reads need no lock: only the
+ * footer and summary are decoded up front, and a query inflates just the blocks
+ * holding the tickets it returns. Wallet lookups binary-search the wallet table and
+ * drop tickets of other wallets sharing the 32-bit hash.
+ */
+public class TicketSegment {
+
+    public static final int TICKETS_PER_BLOCK = 1024;
+
+    static final int MAGIC = 0x42435347; // "BCSG"
+    static final int VERSION = 1;
+    static final int NULL_INT = Integer.MIN_VALUE;
+    static final int NULL_BYTE = 2;
+
+    private static final int FOOTER_BYTES = 8 + 4 * 4 + 5 * 8 + 4 + 4;
+    private static final int BLOCK_ENTRY_BYTES = 8 + 4 + 4 + 8 + 8;
+    private static final int WALLET_ENTRY_BYTES = 4 + 4 + 4;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long lotteryId;
+    private final int ticketCount;
+    private final int blockCount;
+    private final int walletCount;
+    private final int winnerCount;
+    private final int blockTableOffset;
+    private final int walletTableOffset;
+    private final int postingsOffset;
+    private final int winnersOffset;
+    private final String lotteryName;
+    private final WeeklyLottery.LotteryStatus status;
+    private final String drawnNumbers;
+
+    private TicketSegment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        int footer = buffer.capacity() - FOOTER_BYTES;
+        if (footer < 0 || buffer.getInt(buffer.capacity() - 4) != MAGIC) {
+            throw new IOException("Not a ticket segment: " + path);
+        }
+        if (buffer.getInt(buffer.capacity() - 8) != VERSION) {
+            throw new IOException("Unsupported ticket segment version " + buffer.getInt(buffer.capacity() - 8) + ": " + path);
+        }
+        this.lotteryId = buffer.getLong(footer);
+        this.ticketCount = buffer.getInt(footer + 8);
+        this.blockCount = buffer.getInt(footer + 12);
+        this.walletCount = buffer.getInt(footer + 16);
+        this.winnerCount = buffer.getInt(footer + 20);
+        int summaryOffset = (int) buffer.getLong(footer + 24);
+        this.blockTableOffset = (int) buffer.getLong(footer + 32);
+        this.walletTableOffset = (int) buffer.getLong(footer + 40);
+        this.postingsOffset = (int) buffer.getLong(footer + 48);
+        this.winnersOffset = (int) buffer.getLong(footer + 56);
+
+        DataInputStream summary = new DataInputStream(new ByteArrayInputStream(
+            bytes(summaryOffset, blockTableOffset - summaryOffset)));
+        this.lotteryName = readString(summary);
+        String statusName = readString(summary);
+        this.status = statusName != null ? WeeklyLottery.LotteryStatus.valueOf(statusName) : null;
+        this.drawnNumbers = readString(summary);
+    }
+
+    /**
+     * Map a segment file; the mapping stays valid after the channel is closed
+     */
+    public static TicketSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Ticket segment larger than 2 GB: " + path);
+            }
+            return new TicketSegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path getPath() { return path; }
+    public long getLotteryId() { return lotteryId; }
+    public int getTicketCount() { return ticketCount; }
+    public int getWinnerCount() { return winnerCount; }
+    public String getLotteryName() { return lotteryName; }
+    public WeeklyLottery.LotteryStatus getStatus() { return status; }
+    public String getDrawnNumbers() { return drawnNumbers; }
+
+    /**
+     * Get all tickets, oldest first
+     */
+    public List<LotteryTicketView> tickets() {
+        return stream().collect(Collectors.toList());
+    }
+
+    /**
+     * Stream all tickets, oldest first, inflating one block at a time
+     */
+    public Stream<LotteryTicketView> stream() {
+        return IntStream.range(0, blockCount).mapToObj(this::block).flatMap(List::stream);
+    }
+
+    /**
+     * Get the tickets after (purchasedAt, id), oldest first
+     */
+    public List<LotteryTicketView> ticketsAfter(LocalDateTime purchasedAt, long id, int limit) {
+        List<LotteryTicketView> tickets = new ArrayList<>(Math.min(limit, ticketCount));
+        for (int b = firstBlockAfter(purchasedAt, id); b < blockCount && tickets.size() < limit; b++) {
+            for (LotteryTicketView ticket : block(b)) {
+                if (isAfter(ticket, purchasedAt, id)) {
+                    tickets.add(ticket);
+                    if (tickets.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return tickets;
+    }
+
+    /**
+     * Get the winning tickets, oldest first
+     */
+    public List<LotteryTicketView> winners() {
+        return byOrdinals(winnersOffset, winnerCount, null);
+    }
+
+    /**
+     * Get the winning tickets after (purchasedAt, id), oldest first
+     */
+    public List<LotteryTicketView> winnersAfter(LocalDateTime purchasedAt, long id, int limit) {
+        // Winner ordinals ascend with (purchasedAt, id); skip those in blocks before the position
+        int firstOrdinal = firstBlockAfter(purchasedAt, id) * TICKETS_PER_BLOCK;
+        int low = 0;
+        int high = winnerCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(winnersOffset + mid * 4) < firstOrdinal) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        List<LotteryTicketView> winners = new ArrayList<>(Math.min(limit, winnerCount - low));
+        List<LotteryTicketView> decoded = null;
+        int decodedBlock = -1;
+        for (int i = low; i < winnerCount && winners.size() < limit; i++) {
+            int ordinal = buffer.getInt(winnersOffset + i * 4);
+            int b = ordinal / TICKETS_PER_BLOCK;
+            if (b != decodedBlock) {
+                decoded = block(b);
+                decodedBlock = b;
+            }
+            LotteryTicketView ticket = decoded.get(ordinal % TICKETS_PER_BLOCK);
+            if (isAfter(ticket, purchasedAt, id)) {
+                winners.add(ticket);
+            }
+        }
+        return winners;
+    }
+
+    /**
+     * Get the tickets of a wallet, oldest first
+     */
+    public List<LotteryTicketView> walletTickets(String walletAddress) {
+        int hash = walletHash(walletAddress);
+        int low = 0;
+        int high = walletCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = walletTableOffset + mid * WALLET_ENTRY_BYTES;
+            int entryHash = buffer.getInt(entry);
+            if (entryHash < hash) {
+                low = mid + 1;
+            } else if (entryHash > hash) {
+                high = mid - 1;
+            } else {
+                int firstPosting = buffer.getInt(entry + 4);
+                int postings = buffer.getInt(entry + 8);
+                return byOrdinals(postingsOffset + firstPosting * 4, postings, walletAddress);
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Last block starting at or before (purchasedAt, id); earlier blocks hold nothing after it
+     */
+    private int firstBlockAfter(LocalDateTime purchasedAt, long id) {
+        long micros = toMicros(purchasedAt);
+        int low = 0;
+        int high = blockCount - 1;
+        int start = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = blockTableOffset + mid * BLOCK_ENTRY_BYTES;
+            long firstMicros = buffer.getLong(entry + 16);
+            long firstId = buffer.getLong(entry + 24);
+            if (firstMicros < micros || (firstMicros == micros && firstId <= id)) {
+                start = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return start;
+    }
+
+    private static boolean isAfter(LotteryTicketView ticket, LocalDateTime purchasedAt, long id) {
+        long ticketMicros = toMicros(ticket.getPurchasedAt());
+        long micros = toMicros(purchasedAt);
+        return ticketMicros > micros || (ticketMicros == micros && ticket.getId() > id);
+    }
+
+    /**
+     * Decode the tickets whose ascending ordinals are stored at {@code offset}, inflating each block once
+     */
+    private List<LotteryTicketView> byOrdinals(int offset, int count, String walletAddress) {
+        List<LotteryTicketView> tickets = new ArrayList<>(count);
+        List<LotteryTicketView> decoded = null;
+        int decodedBlock = -1;
+        for (int i = 0; i < count; i++) {
+            int ordinal = buffer.getInt(offset + i * 4);
+            int b = ordinal / TICKETS_PER_BLOCK;
+            if (b != decodedBlock) {
+                decoded = block(b);
+                decodedBlock = b;
+            }
+            LotteryTicketView ticket = decoded.get(ordinal % TICKETS_PER_BLOCK);
+            if (walletAddress == null || walletAddress.equals(ticket.getWalletAddress())) {
+                tickets.add(ticket);
+            }
+        }
+        return tickets;
+    }
+
+    private List<LotteryTicketView> block(int b) {
+        int entry = blockTableOffset + b * BLOCK_ENTRY_BYTES;
+        int offset = (int) buffer.getLong(entry);
+        int deflated = buffer.getInt(entry + 8);
+        int rawLength = buffer.getInt(entry + 12);
+
+        byte[] raw = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(offset, deflated));
+            int inflated = 0;
+            while (inflated < rawLength && !inflater.finished()) {
+                inflated += inflater.inflate(raw, inflated, rawLength - inflated);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block " + b + " in " + path, e);
+        } finally {
+            inflater.end();
+        }
+
+        int first = b * TICKETS_PER_BLOCK;
+        int size = Math.min(TICKETS_PER_BLOCK, ticketCount - first);
+        List<LotteryTicketView> tickets = new ArrayList<>(size);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        try {
+            for (int i = 0; i < size; i++) {
+                tickets.add(readTicket(in));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt block " + b + " in " + path, e);
+        }
+        return tickets;
+    }
+
+    private LotteryTicketView readTicket(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String ticketId = readString(in);
+        String walletAddress = readString(in);
+        String chosenNumbers = readString(in);
+        int matched = in.readInt();
+        BigDecimal ticketPricePaid = readDecimal(in);
+        byte winner = in.readByte();
+        BigDecimal prizeAmount = readDecimal(in);
+        String transactionHash = readString(in);
+        LocalDateTime purchasedAt = readTime(in);
+        LocalDateTime updatedAt = readTime(in);
+        return new LotteryTicketView(id, ticketId, walletAddress, lotteryId, lotteryName, status, drawnNumbers,
+            chosenNumbers, matched != NULL_INT ? matched : null, ticketPricePaid,
+            winner != NULL_BYTE ? winner == 1 : null, prizeAmount, transactionHash, purchasedAt, updatedAt);
+    }
+
+    private byte[] bytes(int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        String value = readString(in);
+        return value != null ? new BigDecimal(value) : null;
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return in.readBoolean() ? fromMicros(in.readLong()) : null;
+    }
+
+    /**
+     * Sort key of a timestamp; tickets without one sort first
+     */
+    static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return Long.MIN_VALUE;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                                           (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * FNV-1a over the address, folded to 32 bits
+     */
+    static int walletHash(String walletAddress) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < walletAddress.length(); i++) {
+            hash ^= walletAddress.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,245 @@
+package com.bingochain.archive;
+
+import com.bingochain.dto.LotteryTicketView;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Writes the tickets of one lottery into an immutable segment file read by {@link TicketSegment}.
+ *
+ * Layout, all integers big-endian:
+ * <pre>
+ *   blocks         deflated runs of {@value TicketSegment#TICKETS_PER_BLOCK} tickets, in (purchasedAt, id) order
+ *   summary        lottery name, status and drawn numbers
+ *   block table    per block: offset, deflated length, raw length, first purchasedAt (epoch micros), first id
+ *   wallet table   per wallet hash, ascending: hash, first posting, posting count
+ *   postings       ticket ordinals grouped by wallet hash, ascending within a group
+ *   winners        ordinals of the winning tickets, ascending
+ *   footer         counts, section offsets, version and magic
+ * </pre>
+ * Tickets must be added in (purchasedAt, id) order; {@link #finish} writes the tables and
+ * forces the file to disk.
+ */
+public class TicketSegmentWriter implements Closeable {
+
+    private final Path path;
+    private final long lotteryId;
+    private final String lotteryName;
+    private final String status;
+    private final String drawnNumbers;
+    private final DataOutputStream out;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+    private final ByteArrayOutputStream blockBytes = new ByteArrayOutputStream(64 * 1024);
+    private final DataOutputStream block = new DataOutputStream(blockBytes);
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+    private int blockTickets;
+    private long blockFirstMicros;
+    private long blockFirstId;
+
+    private long[] blockTable = new long[5 * 64];
+    private int blockCount;
+    // (wallet hash << 32) | ordinal, sorted at the end to group postings by wallet
+    private long[] walletPostings = new long[1024];
+    private int[] winners = new int[64];
+    private int winnerCount;
+    private int ticketCount;
+    private long previousMicros = Long.MIN_VALUE;
+    private long previousId = Long.MIN_VALUE;
+
+    public TicketSegmentWriter(Path path, long lotteryId, String lotteryName, String status, String drawnNumbers)
+            throws IOException {
+        this.path = path;
+        this.lotteryId = lotteryId;
+        this.lotteryName = lotteryName;
+        this.status = status;
+        this.drawnNumbers = drawnNumbers;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE), 256 * 1024));
+    }
+
+    public int getTicketCount() { return ticketCount; }
+
+    /**
+     * Append the next ticket in (purchasedAt, id) order
+     */
+    public void add(LotteryTicketView ticket) throws IOException {
+        long micros = TicketSegment.toMicros(ticket.getPurchasedAt());
+        long id = ticket.getId();
+        if (micros < previousMicros || (micros == previousMicros && id <= previousId)) {
+            throw new IllegalArgumentException("Tickets must be added in (purchasedAt, id) order, got ticket " + id);
+        }
+        previousMicros = micros;
+        previousId = id;
+
+        if (blockTickets == 0) {
+            blockFirstMicros = micros;
+            blockFirstId = id;
+        }
+        block.writeLong(id);
+        writeString(block, ticket.getTicketId());
+        writeString(block, ticket.getWalletAddress());
+        writeString(block, ticket.getChosenNumbers());
+        block.writeInt(ticket.getMatchedNumbers() != null ? ticket.getMatchedNumbers() : TicketSegment.NULL_INT);
+        writeDecimal(block, ticket.getTicketPricePaid());
+        block.writeByte(ticket.getIsWinner() == null ? TicketSegment.NULL_BYTE : ticket.getIsWinner() ? 1 : 0);
+        writeDecimal(block, ticket.getPrizeAmount());
+        writeString(block, ticket.getTransactionHash());
+        writeTime(block, ticket.getPurchasedAt());
+        writeTime(block, ticket.getUpdatedAt());
+
+        int ordinal = ticketCount++;
+        if (ordinal == walletPostings.length) {
+            walletPostings = Arrays.copyOf(walletPostings, ordinal * 2);
+        }
+        walletPostings[ordinal] = ((long) TicketSegment.walletHash(ticket.getWalletAddress()) << 32) | ordinal;
+        if (Boolean.TRUE.equals(ticket.getIsWinner())) {
+            if (winnerCount == winners.length) {
+                winners = Arrays.copyOf(winners, winnerCount * 2);
+            }
+            winners[winnerCount++] = ordinal;
+        }
+        if (++blockTickets == TicketSegment.TICKETS_PER_BLOCK) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Write the summary, tables and footer, then force everything to disk
+     */
+    public void finish() throws IOException {
+        if (blockTickets > 0) {
+            flushBlock();
+        }
+        long summaryOffset = out.size();
+        writeString(out, lotteryName);
+        writeString(out, status);
+        writeString(out, drawnNumbers);
+
+        long blockTableOffset = out.size();
+        for (int b = 0; b < blockCount; b++) {
+            out.writeLong(blockTable[5 * b]);
+            out.writeInt((int) blockTable[5 * b + 1]);
+            out.writeInt((int) blockTable[5 * b + 2]);
+            out.writeLong(blockTable[5 * b + 3]);
+            out.writeLong(blockTable[5 * b + 4]);
+        }
+
+        // Signed sort orders by hash, then by ordinal within a hash
+        long[] postings = Arrays.copyOf(walletPostings, ticketCount);
+        Arrays.sort(postings);
+        long walletTableOffset = out.size();
+        int walletCount = 0;
+        for (int i = 0; i < postings.length; ) {
+            int hash = (int) (postings[i] >> 32);
+            int first = i;
+            while (i < postings.length && (int) (postings[i] >> 32) == hash) {
+                i++;
+            }
+            out.writeInt(hash);
+            out.writeInt(first);
+            out.writeInt(i - first);
+            walletCount++;
+        }
+        long postingsOffset = out.size();
+        for (long posting : postings) {
+            out.writeInt((int) posting);
+        }
+        long winnersOffset = out.size();
+        for (int i = 0; i < winnerCount; i++) {
+            out.writeInt(winners[i]);
+        }
+
+        out.writeLong(lotteryId);
+        out.writeInt(ticketCount);
+        out.writeInt(blockCount);
+        out.writeInt(walletCount);
+        out.writeInt(winnerCount);
+        out.writeLong(summaryOffset);
+        out.writeLong(blockTableOffset);
+        out.writeLong(walletTableOffset);
+        out.writeLong(postingsOffset);
+        out.writeLong(winnersOffset);
+        out.writeInt(TicketSegment.VERSION);
+        out.writeInt(TicketSegment.MAGIC);
+        checkSize();
+        out.close();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        out.close();
+    }
+
+    private void flushBlock() throws IOException {
+        block.flush();
+        byte[] raw = blockBytes.toByteArray();
+        long offset = out.size();
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        int deflated = 0;
+        while (!deflater.finished()) {
+            int length = deflater.deflate(deflateBuffer);
+            out.write(deflateBuffer, 0, length);
+            deflated += length;
+        }
+        checkSize();
+
+        if (5 * (blockCount + 1) > blockTable.length) {
+            blockTable = Arrays.copyOf(blockTable, blockTable.length * 2);
+        }
+        blockTable[5 * blockCount] = offset;
+        blockTable[5 * blockCount + 1] = deflated;
+        blockTable[5 * blockCount + 2] = raw.length;
+        blockTable[5 * blockCount + 3] = blockFirstMicros;
+        blockTable[5 * blockCount + 4] = blockFirstId;
+        blockCount++;
+        blockBytes.reset();
+        blockTickets = 0;
+    }
+
+    /**
+     * DataOutputStream's count stops at Integer.MAX_VALUE, and the reader maps the file as one buffer
+     */
+    private void checkSize() throws IOException {
+        if (out.size() == Integer.MAX_VALUE) {
+            throw new IOException("Segment of lottery " + lotteryId + " exceeds 2 GB");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static void writeDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        writeString(out, value != null ? value.toPlainString() : null);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(TicketSegment.toMicros(value));
+        }
+    }
+}
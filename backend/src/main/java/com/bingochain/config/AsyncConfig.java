@@ -0,0 +1,30 @@
+package com.bingochain.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * Executor behind {@code @Async} methods.
+ *
+ * Spring Boot only auto-configures its task executor when no other Executor bean
+ * exists, and the STOMP broker and RPC executors count as such, so it is declared
+ * here explicitly under the name {@code @Async} looks up.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Bean(name = "taskExecutor")
+    public AsyncTaskExecutor taskExecutor(Environment environment,
+                                          SimpleAsyncTaskExecutorBuilder simpleAsyncTaskExecutorBuilder,
+                                          ThreadPoolTaskExecutorBuilder threadPoolTaskExecutorBuilder) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleAsyncTaskExecutorBuilder.build();
+        }
+        return threadPoolTaskExecutorBuilder.build();
+    }
+}
@@ -1,8 +1,16 @@
 package com.bingochain.config;
 
+import com.bingochain.monitoring.Web3jMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.OkHttpClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.web3j.protocol.Web3j;
 import org.web3j.protocol.http.HttpService;
 import org.web3j.tx.gas.DefaultGasProvider;
@@ -22,9 +30,38 @@ public class BlockchainConfig {
     @Value("${blockchain.ethereum.gas-limit}")
     private BigInteger gasLimit;
 
+    @Value("${blockchain.rpc.max-concurrency:8}")
+    private int rpcMaxConcurrency;
+
+    /**
+     * Web3j client; every JSON-RPC call is timed per method
+     */
+    @Bean
+    public Web3j web3j(MeterRegistry meterRegistry) {
+        OkHttpClient httpClient = HttpService.getOkHttpClientBuilder()
+            .addInterceptor(new Web3jMetricsInterceptor(meterRegistry))
+            .build();
+        return Web3j.build(new HttpService(networkUrl, httpClient));
+    }
+
+    /**
+     * Executor for blocking JSON-RPC calls. Uses virtual threads when they are enabled;
+     * either way at most blockchain.rpc.max-concurrency calls hit the node at once.
+     */
     @Bean
-    public Web3j web3j() {
-        return Web3j.build(new HttpService(networkUrl));
+    public AsyncTaskExecutor rpcExecutor(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("web3j-rpc-");
+            executor.setVirtualThreads(true);
+            executor.setConcurrencyLimit(rpcMaxConcurrency);
+            return executor;
+        }
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("web3j-rpc-");
+        executor.setCorePoolSize(rpcMaxConcurrency);
+        executor.setMaxPoolSize(rpcMaxConcurrency);
+        executor.initialize();
+        return executor;
     }
 
     @Bean
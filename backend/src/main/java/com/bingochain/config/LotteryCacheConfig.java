@@ -0,0 +1,49 @@
+package com.bingochain.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@EnableCaching
+public class LotteryCacheConfig {
+
+    public static final String ALL_LOTTERIES = "allLotteries";
+    public static final String CURRENT_LOTTERY = "currentLottery";
+    public static final String ACTIVE_TICKET_SALES = "activeTicketSales";
+    public static final String DRAWING_LOTTERIES = "drawingLotteries";
+    public static final String COMPLETED_LOTTERIES = "completedLotteries";
+    public static final String LOTTERY_STATISTICS = "lotteryStatistics";
+
+    @Value("${cache.lotteries.ttl:10s}")
+    private Duration ttl;
+
+    @Value("${cache.lotteries.maximum-size:1000}")
+    private long maximumSize;
+
+    /**
+     * Bounded Caffeine caches with TTL. Evictions are deferred until the surrounding
+     * transaction commits so a concurrent read cannot re-cache the old state.
+     * Hit, miss and eviction counters are bound to Micrometer by actuator.
+     */
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maximumSize)
+                .recordStats());
+        cacheManager.setCacheNames(List.of(
+                ALL_LOTTERIES, CURRENT_LOTTERY, ACTIVE_TICKET_SALES,
+                DRAWING_LOTTERIES, COMPLETED_LOTTERIES, LOTTERY_STATISTICS));
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
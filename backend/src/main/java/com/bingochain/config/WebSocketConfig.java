@@ -0,0 +1,66 @@
+package com.bingochain.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.support.AbstractSubscribableChannel;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurationSupport;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * STOMP over WebSocket for live lottery updates.
+ *
+ * Clients connect to /ws and subscribe to /topic/lotteries or /topic/lotteries/{id}.
+ * Every session gets a bounded send buffer; when a slow client falls behind, the
+ * oldest buffered frames are dropped instead of holding up the broker threads.
+ * A client that stays blocked longer than the send time limit is disconnected.
+ *
+ * The simple broker only knows this instance's sessions; updates reach the clients
+ * of the other instances through {@link com.bingochain.service.LotteryUpdateRelay}.
+ */
+@Configuration
+public class WebSocketConfig extends WebSocketMessageBrokerConfigurationSupport {
+
+    @Value("${websocket.send-buffer-size-limit:65536}")
+    private int sendBufferSizeLimit;
+
+    @Value("${websocket.send-time-limit-ms:10000}")
+    private int sendTimeLimit;
+
+    @Override
+    protected void registerStompEndpoints(StompEndpointRegistry registry) {
+        registry.addEndpoint("/ws")
+                .setAllowedOrigins("http://localhost:3000", "http://127.0.0.1:3000");
+    }
+
+    @Override
+    protected void configureMessageBroker(MessageBrokerRegistry registry) {
+        registry.enableSimpleBroker("/topic");
+        registry.setApplicationDestinationPrefixes("/app");
+    }
+
+    @Override
+    protected void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        registration.setSendBufferSizeLimit(sendBufferSizeLimit)
+                    .setSendTimeLimit(sendTimeLimit);
+    }
+
+    @Bean
+    @Override
+    public WebSocketHandler subProtocolWebSocketHandler(AbstractSubscribableChannel clientInboundChannel,
+                                                        AbstractSubscribableChannel clientOutboundChannel) {
+        return new SubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel) {
+            @Override
+            protected WebSocketSession decorateSession(WebSocketSession session) {
+                return new ConcurrentWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit(),
+                        ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+            }
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package com.bingochain.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.Supplier;
+
+/**
+ * Answers GET requests with 304 Not Modified when the client's copy is still current.
+ *
+ * List responses carry weak ETags: Tomcat never compresses a response with a strong
+ * one, since a gzipped body is a different representation, and lists are what
+ * compression is for. Single resources keep strong ETags and a Last-Modified date.
+ */
+@Component
+public class ConditionalGet {
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Autowired
+    public ConditionalGet(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public static String weak(String version) {
+        return "W/\"" + version + "\"";
+    }
+
+    public static String strong(String version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Read the ETag, then the body only if the client's copy is stale. Both run in one
+     * read-only transaction, so the body is never older than its ETag.
+     */
+    public <T> ResponseEntity<T> read(WebRequest request, CacheControl cacheControl,
+                                      Supplier<String> etag, Supplier<T> body) {
+        return readOnlyTransaction.execute(status -> {
+            if (request.checkNotModified(etag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).<T>build();
+            }
+            return ResponseEntity.ok().cacheControl(cacheControl).body(body.get());
+        });
+    }
+
+    /**
+     * Answer with a body already at hand, e.g. from a cache, under the ETag computed from it
+     */
+    public <T> ResponseEntity<T> of(WebRequest request, CacheControl cacheControl, String etag,
+                                    LocalDateTime lastModified, T body) {
+        long lastModifiedMillis = lastModified != null
+            ? lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        if (request.checkNotModified(etag, lastModifiedMillis)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().cacheControl(cacheControl).body(body);
+    }
+}
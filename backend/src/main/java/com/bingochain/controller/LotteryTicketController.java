@@ -1,11 +1,24 @@
 package com.bingochain.controller;
 
+import com.bingochain.dto.LotteryTicketView;
 import com.bingochain.model.LotteryTicket;
 import com.bingochain.service.LotteryTicketService;
+import com.bingochain.service.PlayerStatsService;
+import com.bingochain.service.ResourceVersionService;
+import com.bingochain.service.TicketImportService;
+import com.bingochain.service.TicketIndexService;
+import com.bingochain.service.TicketPurchaseBatcher;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
@@ -15,25 +28,51 @@ import java.util.Optional;
 @CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:3000"})
 public class LotteryTicketController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
+    // A player's tickets and statistics are theirs alone, so shared caches must not keep them
+    private static final CacheControl PLAYER = CacheControl.noCache().cachePrivate();
+
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
     @Autowired
     private LotteryTicketService lotteryTicketService;
 
+    @Autowired
+    private TicketIndexService ticketIndexService;
+
+    @Autowired
+    private TicketImportService ticketImportService;
+
+    @Autowired
+    private TicketPurchaseBatcher ticketPurchaseBatcher;
+
+    @Autowired
+    private PlayerStatsService playerStatsService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
     /**
      * Get ticket by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<LotteryTicket> getTicketById(@PathVariable Long id) {
-        Optional<LotteryTicket> ticket = lotteryTicketService.getTicketById(id);
+    public ResponseEntity<LotteryTicketView> getTicketById(@PathVariable Long id) {
+        Optional<LotteryTicketView> ticket = lotteryTicketService.getTicketById(id);
         return ticket.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
 
     /**
-     * Get ticket by contract ticket ID
+     * Get ticket by contract ticket ID, optionally within a lottery
      */
     @GetMapping("/contract/{ticketId}")
-    public ResponseEntity<LotteryTicket> getTicketByTicketId(@PathVariable String ticketId) {
-        Optional<LotteryTicket> ticket = lotteryTicketService.getTicketByTicketId(ticketId);
+    public ResponseEntity<LotteryTicketView> getTicketByTicketId(@PathVariable String ticketId,
+                                                                 @RequestParam(required = false) Long lotteryId) {
+        Optional<LotteryTicketView> ticket = lotteryTicketService.getTicketByTicketId(lotteryId, ticketId);
         return ticket.map(ResponseEntity::ok)
                     .orElse(ResponseEntity.notFound().build());
     }
@@ -42,19 +81,45 @@ public class LotteryTicketController {
      * Get all tickets for a player
      */
     @GetMapping("/player/{walletAddress}")
-    public ResponseEntity<List<LotteryTicket>> getPlayerTickets(@PathVariable String walletAddress) {
-        List<LotteryTicket> tickets = lotteryTicketService.getPlayerTickets(walletAddress);
-        return ResponseEntity.ok(tickets);
+    public ResponseEntity<List<LotteryTicketView>> getPlayerTickets(@PathVariable String walletAddress,
+                                                                    WebRequest request) {
+        return conditionalGet.read(request, PLAYER,
+            () -> ConditionalGet.weak(resourceVersionService.playerTicketsVersion(walletAddress)),
+            () -> lotteryTicketService.getPlayerTickets(walletAddress));
+    }
+
+    /**
+     * Get one page of a player's tickets, newest first
+     */
+    @GetMapping(value = "/player/{walletAddress}", params = "limit")
+    public ResponseEntity<LotteryTicketService.TicketPage> getPlayerTicketsPage(
+            @PathVariable String walletAddress,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit) {
+        try {
+            return ResponseEntity.ok(lotteryTicketService.getPlayerTicketsPage(walletAddress, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Stream all tickets of a player as NDJSON
+     */
+    @GetMapping(value = "/player/{walletAddress}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamPlayerTickets(@PathVariable String walletAddress) {
+        StreamingResponseBody body = out -> lotteryTicketService.streamPlayerTickets(walletAddress, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     /**
      * Get player tickets for a specific lottery
      */
     @GetMapping("/player/{walletAddress}/lottery/{lotteryId}")
-    public ResponseEntity<List<LotteryTicket>> getPlayerTicketsForLottery(
+    public ResponseEntity<List<LotteryTicketView>> getPlayerTicketsForLottery(
             @PathVariable String walletAddress,
             @PathVariable Long lotteryId) {
-        List<LotteryTicket> tickets = lotteryTicketService.getPlayerTicketsForLottery(walletAddress, lotteryId);
+        List<LotteryTicketView> tickets = lotteryTicketService.getPlayerTicketsForLottery(walletAddress, lotteryId);
         return ResponseEntity.ok(tickets);
     }
 
@@ -62,50 +127,142 @@ public class LotteryTicketController {
      * Get all tickets for a lottery
      */
     @GetMapping("/lottery/{lotteryId}")
-    public ResponseEntity<List<LotteryTicket>> getLotteryTickets(@PathVariable Long lotteryId) {
-        List<LotteryTicket> tickets = lotteryTicketService.getLotteryTickets(lotteryId);
-        return ResponseEntity.ok(tickets);
+    public ResponseEntity<List<LotteryTicketView>> getLotteryTickets(@PathVariable Long lotteryId, WebRequest request) {
+        return conditionalGet.read(request, REVALIDATE,
+            () -> ConditionalGet.weak(resourceVersionService.lotteryTicketsVersion(lotteryId)),
+            () -> lotteryTicketService.getLotteryTickets(lotteryId));
+    }
+
+    /**
+     * Get one page of a lottery's tickets, oldest first
+     */
+    @GetMapping(value = "/lottery/{lotteryId}", params = "limit")
+    public ResponseEntity<LotteryTicketService.TicketPage> getLotteryTicketsPage(
+            @PathVariable Long lotteryId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit) {
+        try {
+            return ResponseEntity.ok(lotteryTicketService.getLotteryTicketsPage(lotteryId, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Stream all tickets of a lottery as NDJSON
+     */
+    @GetMapping(value = "/lottery/{lotteryId}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamLotteryTickets(@PathVariable Long lotteryId) {
+        StreamingResponseBody body = out -> lotteryTicketService.streamLotteryTickets(lotteryId, out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     /**
      * Get winning tickets for a lottery
      */
     @GetMapping("/lottery/{lotteryId}/winners")
-    public ResponseEntity<List<LotteryTicket>> getWinningTickets(@PathVariable Long lotteryId) {
-        List<LotteryTicket> tickets = lotteryTicketService.getWinningTickets(lotteryId);
-        return ResponseEntity.ok(tickets);
+    public ResponseEntity<List<LotteryTicketView>> getWinningTickets(@PathVariable Long lotteryId, WebRequest request) {
+        return conditionalGet.read(request, REVALIDATE,
+            () -> ConditionalGet.weak(resourceVersionService.lotteryTicketsVersion(lotteryId)),
+            () -> lotteryTicketService.getWinningTickets(lotteryId));
+    }
+
+    /**
+     * Find tickets of a lottery that chose all of the given numbers
+     */
+    @GetMapping("/lottery/{lotteryId}/containing")
+    public ResponseEntity<TicketIndexService.TicketSearchResult> findTicketsContaining(
+            @PathVariable Long lotteryId,
+            @RequestParam List<Integer> numbers) {
+        try {
+            TicketIndexService.TicketSearchResult result = ticketIndexService.findTicketsContaining(
+                lotteryId, numbers.stream().mapToInt(Integer::intValue).toArray());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Find tickets of a lottery with exactly the given combination of numbers
+     */
+    @GetMapping("/lottery/{lotteryId}/combination")
+    public ResponseEntity<TicketIndexService.TicketSearchResult> findTicketsWithCombination(
+            @PathVariable Long lotteryId,
+            @RequestParam List<Integer> numbers) {
+        try {
+            TicketIndexService.TicketSearchResult result = ticketIndexService.findTicketsWithCombination(
+                lotteryId, numbers.stream().mapToInt(Integer::intValue).toArray());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     /**
      * Get all winning tickets
      */
     @GetMapping("/winners")
-    public ResponseEntity<List<LotteryTicket>> getAllWinningTickets() {
-        List<LotteryTicket> tickets = lotteryTicketService.getAllWinningTickets();
+    public ResponseEntity<List<LotteryTicketView>> getAllWinningTickets() {
+        List<LotteryTicketView> tickets = lotteryTicketService.getAllWinningTickets();
         return ResponseEntity.ok(tickets);
     }
 
+    /**
+     * Get one page of all winning tickets, oldest first
+     */
+    @GetMapping(value = "/winners", params = "limit")
+    public ResponseEntity<LotteryTicketService.TicketPage> getAllWinningTicketsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam int limit) {
+        try {
+            return ResponseEntity.ok(lotteryTicketService.getAllWinningTicketsPage(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Stream all winning tickets as NDJSON
+     */
+    @GetMapping(value = "/winners", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllWinningTickets() {
+        StreamingResponseBody body = out -> lotteryTicketService.streamAllWinningTickets(out);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
     /**
      * Get player statistics
      */
     @GetMapping("/player/{walletAddress}/statistics")
-    public ResponseEntity<LotteryTicketService.PlayerStats> getPlayerStatistics(@PathVariable String walletAddress) {
+    public ResponseEntity<LotteryTicketService.PlayerStats> getPlayerStatistics(@PathVariable String walletAddress,
+                                                                                WebRequest request) {
         LotteryTicketService.PlayerStats stats = lotteryTicketService.getPlayerStatistics(walletAddress);
-        return ResponseEntity.ok(stats);
+        return conditionalGet.of(request, PLAYER,
+            ConditionalGet.strong(resourceVersionService.playerStatisticsVersion(stats)), null, stats);
+    }
+
+    /**
+     * Recompute stored player statistics from tickets and report drift (admin only)
+     */
+    @PostMapping("/player-stats/rebuild")
+    public ResponseEntity<PlayerStatsService.RebuildReport> rebuildPlayerStatistics(
+            @RequestParam(defaultValue = "false") boolean dryRun) {
+        return ResponseEntity.ok(playerStatsService.rebuild(dryRun));
     }
 
     /**
      * Purchase a ticket
      */
     @PostMapping("/purchase")
-    public ResponseEntity<LotteryTicket> purchaseTicket(@RequestBody PurchaseTicketRequest request) {
+    public ResponseEntity<LotteryTicketView> purchaseTicket(@RequestBody PurchaseTicketRequest request) {
         try {
             // Validate chosen numbers
             if (!lotteryTicketService.validateChosenNumbers(request.getChosenNumbers())) {
                 return ResponseEntity.badRequest().build();
             }
 
-            LotteryTicket ticket = lotteryTicketService.purchaseTicket(
+            LotteryTicket ticket = ticketPurchaseBatcher.purchaseTicket(
                 request.getWalletAddress(),
                 request.getLotteryId(),
                 request.getChosenNumbers(),
@@ -114,22 +271,44 @@ public class LotteryTicketController {
                 request.getContractTicketId()
             );
 
-            return ResponseEntity.ok(ticket);
+            return ResponseEntity.ok(LotteryTicketView.of(ticket));
+        } catch (TicketPurchaseBatcher.PurchaseUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Bulk import tickets for a lottery from an NDJSON or CSV body
+     */
+    @PostMapping(value = "/import", consumes = {NDJSON, "text/csv"})
+    public ResponseEntity<TicketImportService.ImportResult> importTickets(
+            @RequestParam Long lotteryId,
+            HttpServletRequest request) {
+        try {
+            TicketImportService.ImportFormat format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                    ? TicketImportService.ImportFormat.CSV
+                    : TicketImportService.ImportFormat.NDJSON;
+            TicketImportService.ImportResult result = ticketImportService.importTickets(
+                lotteryId, request.getInputStream(), format);
+            return ResponseEntity.ok(result);
+        } catch (IOException | RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     /**
      * Update ticket matched numbers (for draw processing)
      */
     @PutMapping("/{id}/matches")
-    public ResponseEntity<LotteryTicket> updateMatchedNumbers(
+    public ResponseEntity<LotteryTicketView> updateMatchedNumbers(
             @PathVariable Long id,
             @RequestBody UpdateMatchesRequest request) {
         try {
             LotteryTicket ticket = lotteryTicketService.updateMatchedNumbers(id, request.getMatchedNumbers());
-            return ResponseEntity.ok(ticket);
+            return ResponseEntity.ok(LotteryTicketView.of(ticket));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -139,12 +318,12 @@ public class LotteryTicketController {
      * Mark ticket as winner
      */
     @PutMapping("/{id}/winner")
-    public ResponseEntity<LotteryTicket> markAsWinner(
+    public ResponseEntity<LotteryTicketView> markAsWinner(
             @PathVariable Long id,
             @RequestBody MarkWinnerRequest request) {
         try {
             LotteryTicket ticket = lotteryTicketService.markAsWinner(id, request.getPrizeAmount());
-            return ResponseEntity.ok(ticket);
+            return ResponseEntity.ok(LotteryTicketView.of(ticket));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
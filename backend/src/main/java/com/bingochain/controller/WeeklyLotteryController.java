@@ -1,12 +1,28 @@
 package com.bingochain.controller;
 
+import com.bingochain.dto.DrawEventView;
+import com.bingochain.dto.WeeklyLotteryView;
+import com.bingochain.model.DrawEvent;
 import com.bingochain.model.WeeklyLottery;
+import com.bingochain.service.DrawSettlementService;
+import com.bingochain.service.NumberPopularityService;
+import com.bingochain.service.PrizePayoutService;
+import com.bingochain.service.ResourceVersionService;
+import com.bingochain.service.RiskSimulationService;
+import com.bingochain.service.TablePartitionService;
+import com.bingochain.service.TicketArchiveService;
 import com.bingochain.service.WeeklyLotteryService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 @RestController
@@ -14,63 +30,88 @@ import java.util.Optional;
 @CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:3000"})
 public class WeeklyLotteryController {
 
+    // Open lotteries change with every ticket sold; clients revalidate each poll and mostly get a 304
+    private static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    // The completed list only grows when another lottery completes
+    private static final CacheControl COMPLETED = CacheControl.maxAge(Duration.ofMinutes(1));
+
+    // Matches the lottery statistics cache, which may already be this old
+    private static final CacheControl STATISTICS = CacheControl.maxAge(Duration.ofSeconds(10));
+
     @Autowired
     private WeeklyLotteryService weeklyLotteryService;
 
+    @Autowired
+    private DrawSettlementService drawSettlementService;
+
+    @Autowired
+    private PrizePayoutService prizePayoutService;
+
+    @Autowired
+    private RiskSimulationService riskSimulationService;
+
+    @Autowired
+    private NumberPopularityService numberPopularityService;
+
+    @Autowired
+    private TicketArchiveService ticketArchiveService;
+
+    @Autowired
+    private TablePartitionService tablePartitionService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private ConditionalGet conditionalGet;
+
     /**
      * Get all lotteries
      */
     @GetMapping
-    public ResponseEntity<List<WeeklyLottery>> getAllLotteries() {
-        List<WeeklyLottery> lotteries = weeklyLotteryService.getAllLotteries();
-        return ResponseEntity.ok(lotteries);
+    public ResponseEntity<List<WeeklyLotteryView>> getAllLotteries(WebRequest request) {
+        return lotteryList(request, REVALIDATE, weeklyLotteryService.getAllLotteries());
     }
 
     /**
      * Get lottery by ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<WeeklyLottery> getLotteryById(@PathVariable Long id) {
-        Optional<WeeklyLottery> lottery = weeklyLotteryService.getLotteryById(id);
-        return lottery.map(ResponseEntity::ok)
-                     .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<WeeklyLotteryView> getLotteryById(@PathVariable Long id, WebRequest request) {
+        return lottery(request, weeklyLotteryService.getLotteryById(id));
     }
 
     /**
      * Get current active lottery
      */
     @GetMapping("/current")
-    public ResponseEntity<WeeklyLottery> getCurrentLottery() {
-        Optional<WeeklyLottery> lottery = weeklyLotteryService.getCurrentLottery();
-        return lottery.map(ResponseEntity::ok)
-                     .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<WeeklyLotteryView> getCurrentLottery(WebRequest request) {
+        return lottery(request, weeklyLotteryService.getCurrentLottery());
     }
 
     /**
      * Get lotteries with active ticket sales
      */
     @GetMapping("/active-sales")
-    public ResponseEntity<List<WeeklyLottery>> getActiveTicketSales() {
-        List<WeeklyLottery> lotteries = weeklyLotteryService.getActiveTicketSales();
-        return ResponseEntity.ok(lotteries);
+    public ResponseEntity<List<WeeklyLotteryView>> getActiveTicketSales(WebRequest request) {
+        return lotteryList(request, REVALIDATE, weeklyLotteryService.getActiveTicketSales());
     }
 
     /**
      * Get lotteries in drawing phase
      */
     @GetMapping("/drawing")
-    public ResponseEntity<List<WeeklyLottery>> getLotteriesInDrawingPhase() {
-        List<WeeklyLottery> lotteries = weeklyLotteryService.getLotteriesInDrawingPhase();
-        return ResponseEntity.ok(lotteries);
+    public ResponseEntity<List<WeeklyLotteryView>> getLotteriesInDrawingPhase(WebRequest request) {
+        return lotteryList(request, REVALIDATE, weeklyLotteryService.getLotteriesInDrawingPhase());
     }
 
     /**
      * Get completed lotteries
      */
     @GetMapping("/completed")
-    public ResponseEntity<List<WeeklyLottery>> getCompletedLotteries() {
-        List<WeeklyLottery> lotteries = weeklyLotteryService.getCompletedLotteries();
-        return ResponseEntity.ok(lotteries);
+    public ResponseEntity<List<WeeklyLotteryView>> getCompletedLotteries(WebRequest request) {
+        return lotteryList(request, COMPLETED, weeklyLotteryService.getCompletedLotteries());
     }
 
     /**
@@ -79,17 +120,18 @@ public class WeeklyLotteryController {
     @GetMapping("/statistics")
     public ResponseEntity<WeeklyLotteryService.LotteryStats> getLotteryStatistics() {
         WeeklyLotteryService.LotteryStats stats = weeklyLotteryService.getLotteryStatistics();
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok().cacheControl(STATISTICS).body(stats);
     }
 
     /**
      * Create a new lottery (admin only)
      */
     @PostMapping
-    public ResponseEntity<WeeklyLottery> createLottery(@RequestBody CreateLotteryRequest request) {
+    public ResponseEntity<WeeklyLotteryView> createLottery(@RequestBody CreateLotteryRequest request) {
         try {
             WeeklyLottery lottery = new WeeklyLottery();
             lottery.setContractAddress(request.getContractAddress());
+            lottery.setChainLotteryId(request.getChainLotteryId());
             lottery.setLotteryName(request.getLotteryName());
             lottery.setTicketPrice(request.getTicketPrice());
             lottery.setSalesStartTime(request.getSalesStartTime());
@@ -98,7 +140,7 @@ public class WeeklyLotteryController {
             lottery.setStatus(WeeklyLottery.LotteryStatus.TICKET_SALES);
 
             WeeklyLottery createdLottery = weeklyLotteryService.createLottery(lottery);
-            return ResponseEntity.ok(createdLottery);
+            return ResponseEntity.ok(WeeklyLotteryView.of(createdLottery));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -108,12 +150,12 @@ public class WeeklyLotteryController {
      * Update lottery status
      */
     @PutMapping("/{id}/status")
-    public ResponseEntity<WeeklyLottery> updateLotteryStatus(
+    public ResponseEntity<WeeklyLotteryView> updateLotteryStatus(
             @PathVariable Long id, 
             @RequestBody UpdateStatusRequest request) {
         try {
             WeeklyLottery updatedLottery = weeklyLotteryService.updateLotteryStatus(id, request.getStatus());
-            return ResponseEntity.ok(updatedLottery);
+            return ResponseEntity.ok(WeeklyLotteryView.of(updatedLottery));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -123,20 +165,150 @@ public class WeeklyLotteryController {
      * Update drawn numbers
      */
     @PutMapping("/{id}/drawn-numbers")
-    public ResponseEntity<WeeklyLottery> updateDrawnNumbers(
+    public ResponseEntity<WeeklyLotteryView> updateDrawnNumbers(
             @PathVariable Long id, 
             @RequestBody UpdateDrawnNumbersRequest request) {
         try {
             WeeklyLottery updatedLottery = weeklyLotteryService.updateDrawnNumbers(id, request.getDrawnNumbers());
-            return ResponseEntity.ok(updatedLottery);
+            return ResponseEntity.ok(WeeklyLotteryView.of(updatedLottery));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Record a daily draw
+     */
+    @PostMapping("/{id}/draws")
+    public ResponseEntity<DrawEventView> recordDraw(
+            @PathVariable Long id,
+            @RequestBody RecordDrawRequest request) {
+        try {
+            DrawEvent drawEvent = weeklyLotteryService.recordDrawEvent(
+                id,
+                request.getDrawDay(),
+                request.getDrawnNumber(),
+                request.getTransactionHash(),
+                request.getBlockNumber()
+            );
+            return ResponseEntity.ok(DrawEventView.of(drawEvent));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage())).build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage())).build();
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.of(ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Get progress of the latest draw settlement
+     */
+    @GetMapping("/{id}/settlement")
+    public ResponseEntity<DrawSettlementService.SettlementProgress> getSettlementProgress(@PathVariable Long id) {
+        return drawSettlementService.getProgress(id)
+                     .map(ResponseEntity::ok)
+                     .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Get the latest prize payout of a completed lottery
+     */
+    @GetMapping("/{id}/payouts")
+    public ResponseEntity<PrizePayoutService.PayoutSummary> getPayout(@PathVariable Long id) {
+        return prizePayoutService.getPayout(id)
+                     .map(ResponseEntity::ok)
+                     .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Recompute the prize payout of a completed lottery
+     */
+    @PostMapping("/{id}/payouts")
+    public ResponseEntity<PrizePayoutService.PayoutSummary> settlePrizes(@PathVariable Long id) {
+        try {
+            return prizePayoutService.settlePrizes(id)
+                         .map(ResponseEntity::ok)
+                         .orElse(ResponseEntity.badRequest().build());
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    /**
+     * Simulate the remaining draws to estimate winners per match count and prize pool exposure
+     */
+    @GetMapping("/{id}/simulation")
+    public ResponseEntity<RiskSimulationService.SimulationResult> simulateDraws(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "1000000") int simulations,
+            @RequestParam(required = false) Long seed) {
+        try {
+            return ResponseEntity.ok(riskSimulationService.simulate(id, simulations, seed));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Get how often each number was picked, with the most picked pairs and triples
+     */
+    @GetMapping("/{id}/popularity")
+    public ResponseEntity<NumberPopularityService.PopularityReport> getNumberPopularity(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(numberPopularityService.getReport(id, limit));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Move the tickets of a completed or cancelled lottery to the archive now
+     */
+    @PostMapping("/{id}/archive")
+    public ResponseEntity<TicketArchiveService.ArchiveResult> archiveTickets(@PathVariable Long id) {
+        try {
+            return ResponseEntity.ok(ticketArchiveService.archiveLottery(id));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Drop the ticket partition of an archived lottery, or only detach it with keep=true
+     */
+    @DeleteMapping("/{id}/partition")
+    public ResponseEntity<TablePartitionService.DetachResult> dropTicketPartition(
+            @PathVariable Long id, @RequestParam(defaultValue = "false") boolean keep) {
+        try {
+            return ResponseEntity.ok(tablePartitionService.detachTicketPartition(id, !keep));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Lottery reads come from the lottery caches, so the ETag is taken from the views served
+    private ResponseEntity<List<WeeklyLotteryView>> lotteryList(WebRequest request, CacheControl cacheControl,
+                                                                List<WeeklyLotteryView> lotteries) {
+        return conditionalGet.of(request, cacheControl,
+            ConditionalGet.weak(resourceVersionService.lotteriesVersion(lotteries)), null, lotteries);
+    }
+
+    private ResponseEntity<WeeklyLotteryView> lottery(WebRequest request, Optional<WeeklyLotteryView> lottery) {
+        if (lottery.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        WeeklyLotteryView view = lottery.get();
+        return conditionalGet.of(request, REVALIDATE,
+            ConditionalGet.strong(resourceVersionService.lotteriesVersion(List.of(view))), view.getUpdatedAt(), view);
+    }
+
     // Request DTOs
     public static class CreateLotteryRequest {
         private String contractAddress;
+        private Long chainLotteryId;
         private String lotteryName;
         private java.math.BigDecimal ticketPrice;
         private java.time.LocalDateTime salesStartTime;
@@ -147,6 +319,9 @@ public class WeeklyLotteryController {
         public String getContractAddress() { return contractAddress; }
         public void setContractAddress(String contractAddress) { this.contractAddress = contractAddress; }
         
+        public Long getChainLotteryId() { return chainLotteryId; }
+        public void setChainLotteryId(Long chainLotteryId) { this.chainLotteryId = chainLotteryId; }
+        
         public String getLotteryName() { return lotteryName; }
         public void setLotteryName(String lotteryName) { this.lotteryName = lotteryName; }
         
@@ -176,4 +351,23 @@ public class WeeklyLotteryController {
         public String getDrawnNumbers() { return drawnNumbers; }
         public void setDrawnNumbers(String drawnNumbers) { this.drawnNumbers = drawnNumbers; }
     }
+
+    public static class RecordDrawRequest {
+        private Integer drawDay;
+        private Integer drawnNumber;
+        private String transactionHash;
+        private Long blockNumber;
+
+        public Integer getDrawDay() { return drawDay; }
+        public void setDrawDay(Integer drawDay) { this.drawDay = drawDay; }
+
+        public Integer getDrawnNumber() { return drawnNumber; }
+        public void setDrawnNumber(Integer drawnNumber) { this.drawnNumber = drawnNumber; }
+
+        public String getTransactionHash() { return transactionHash; }
+        public void setTransactionHash(String transactionHash) { this.transactionHash = transactionHash; }
+
+        public Long getBlockNumber() { return blockNumber; }
+        public void setBlockNumber(Long blockNumber) { this.blockNumber = blockNumber; }
+    }
 }
@@ -0,0 +1,83 @@
+package com.bingochain.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Periodically measures how far the replica is behind the primary.
+ *
+ * The replica is used only while its replay lag stays within the configured bound
+ * and the last check succeeded. A replica that has replayed everything it has
+ * received counts as caught up, even if the primary has been idle for a while. A
+ * database that is not in recovery, such as a second local database used for
+ * testing, always counts as caught up.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final String LAG_QUERY =
+        "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT) END";
+
+    private static final int QUERY_TIMEOUT_SECONDS = 5;
+
+    private final JdbcTemplate replica;
+
+    private final long maxLagMillis;
+
+    // Unusable until the first check succeeds
+    private volatile boolean replicaUsable;
+
+    private volatile long lagMillis = -1;
+
+    public ReplicaLagMonitor(DataSource replica, long maxLagMillis) {
+        this.replica = new JdbcTemplate(replica);
+        this.replica.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${replica.lag-check-interval-ms:1000}")
+    public void check() {
+        Long lag;
+        try {
+            lag = replica.queryForObject(LAG_QUERY, Long.class);
+        } catch (RuntimeException e) {
+            replicaFailed(e);
+            return;
+        }
+        lagMillis = lag != null ? lag : -1;
+        boolean usable = lag != null && lag <= maxLagMillis;
+        if (usable != replicaUsable) {
+            if (usable) {
+                log.info("Replica caught up ({} ms behind); read-only requests use it again", lag);
+            } else {
+                log.warn("Replica is {} behind, more than {} ms; reading from the primary",
+                         lag != null ? lag + " ms" : "an unknown time", maxLagMillis);
+            }
+        }
+        replicaUsable = usable;
+    }
+
+    /**
+     * Stop using the replica until the next successful check
+     */
+    public void replicaFailed(Exception e) {
+        if (replicaUsable) {
+            log.warn("Replica unavailable, reading from the primary: {}", e.getMessage());
+        }
+        replicaUsable = false;
+        lagMillis = -1;
+    }
+
+    public boolean isReplicaUsable() { return replicaUsable; }
+
+    /**
+     * Lag measured by the last check, or -1 if it failed
+     */
+    public long getLagMillis() { return lagMillis; }
+}
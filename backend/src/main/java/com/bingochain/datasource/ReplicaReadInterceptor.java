@@ -0,0 +1,71 @@
+package com.bingochain.datasource;
+
+import com.bingochain.event.TicketPurchasedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lets GET requests read from the replica, unless they need to read their own writes.
+ *
+ * A request stays on the primary when it sends {@code X-Read-Your-Writes: true}, or
+ * when it is about a wallet that bought a ticket on this instance within the
+ * read-your-writes window. That way a player's ticket list shows the purchase they
+ * just made, however far behind the replica is.
+ */
+public class ReplicaReadInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String READ_YOUR_WRITES_HEADER = "X-Read-Your-Writes";
+
+    private static final String WALLET_VARIABLE = "walletAddress";
+
+    private final Cache<String, Boolean> recentBuyers;
+
+    public ReplicaReadInterceptor(Duration readYourWritesWindow) {
+        this.recentBuyers = Caffeine.newBuilder()
+            .expireAfterWrite(readYourWritesWindow)
+            .maximumSize(100_000)
+            .build();
+    }
+
+    @TransactionalEventListener
+    public void onTicketPurchased(TicketPurchasedEvent event) {
+        recentBuyers.put(event.getWalletAddress().toLowerCase(Locale.ROOT), Boolean.TRUE);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if ("GET".equals(request.getMethod()) && !readsOwnWrites(request)) {
+            ReplicaReadScope.enter();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaReadScope.exit();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaReadScope.exit();
+    }
+
+    private boolean readsOwnWrites(HttpServletRequest request) {
+        if (Boolean.parseBoolean(request.getHeader(READ_YOUR_WRITES_HEADER))) {
+            return true;
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables = (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String walletAddress = variables != null ? variables.get(WALLET_VARIABLE) : null;
+        return walletAddress != null && recentBuyers.getIfPresent(walletAddress.toLowerCase(Locale.ROOT)) != null;
+    }
+}
@@ -0,0 +1,28 @@
+package com.bingochain.datasource;
+
+/**
+ * Marks the current thread as one whose read-only transactions may run on the replica.
+ *
+ * Only web requests that can tolerate replication lag enter the scope. Scheduled
+ * jobs, settlement and chain ingestion stay outside it, so they keep reading from
+ * the primary the rows they are about to write.
+ */
+public final class ReplicaReadScope {
+
+    private static final ThreadLocal<Boolean> ACTIVE = new ThreadLocal<>();
+
+    private ReplicaReadScope() {
+    }
+
+    public static void enter() {
+        ACTIVE.set(Boolean.TRUE);
+    }
+
+    public static void exit() {
+        ACTIVE.remove();
+    }
+
+    public static boolean isActive() {
+        return ACTIVE.get() != null;
+    }
+}
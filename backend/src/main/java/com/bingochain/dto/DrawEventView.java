@@ -0,0 +1,47 @@
+package com.bingochain.dto;
+
+import com.bingochain.model.DrawEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * Draw event as returned by the REST API
+ */
+public class DrawEventView {
+
+    private final Long id;
+    private final Long weeklyLotteryId;
+    private final Integer drawDay;
+    private final Integer drawnNumber;
+    private final LocalDateTime scheduledTime;
+    private final LocalDateTime drawnAt;
+    private final String transactionHash;
+    private final Long blockNumber;
+
+    public DrawEventView(Long id, Long weeklyLotteryId, Integer drawDay, Integer drawnNumber,
+                         LocalDateTime scheduledTime, LocalDateTime drawnAt, String transactionHash, Long blockNumber) {
+        this.id = id;
+        this.weeklyLotteryId = weeklyLotteryId;
+        this.drawDay = drawDay;
+        this.drawnNumber = drawnNumber;
+        this.scheduledTime = scheduledTime;
+        this.drawnAt = drawnAt;
+        this.transactionHash = transactionHash;
+        this.blockNumber = blockNumber;
+    }
+
+    public static DrawEventView of(DrawEvent drawEvent) {
+        return new DrawEventView(drawEvent.getId(), drawEvent.getWeeklyLottery().getId(), drawEvent.getDrawDay(),
+            drawEvent.getDrawnNumber(), drawEvent.getScheduledTime(), drawEvent.getDrawnAt(),
+            drawEvent.getTransactionHash(), drawEvent.getBlockNumber());
+    }
+
+    public Long getId() { return id; }
+    public Long getWeeklyLotteryId() { return weeklyLotteryId; }
+    public Integer getDrawDay() { return drawDay; }
+    public Integer getDrawnNumber() { return drawnNumber; }
+    public LocalDateTime getScheduledTime() { return scheduledTime; }
+    public LocalDateTime getDrawnAt() { return drawnAt; }
+    public String getTransactionHash() { return transactionHash; }
+    public Long getBlockNumber() { return blockNumber; }
+}
@@ -0,0 +1,123 @@
+package com.bingochain.dto;
+
+import com.bingochain.model.LotteryTicket;
+import com.bingochain.model.WeeklyLottery;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Ticket as returned by the REST API, built from a JPQL constructor projection.
+ *
+ * List endpoints join the lottery for the few columns the ticket pages show and
+ * return them as {@code weeklyLottery}; exports only carry {@code weeklyLotteryId}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LotteryTicketView {
+
+    private final Long id;
+    private final String ticketId;
+    private final String walletAddress;
+    private final Long weeklyLotteryId;
+    private final LotterySummary weeklyLottery;
+    private final String chosenNumbers;
+    private final Integer matchedNumbers;
+    private final BigDecimal ticketPricePaid;
+    private final Boolean isWinner;
+    private final BigDecimal prizeAmount;
+    private final String transactionHash;
+    private final LocalDateTime purchasedAt;
+    private final LocalDateTime updatedAt;
+
+    /**
+     * Ticket columns only
+     */
+    public LotteryTicketView(Long id, String ticketId, String walletAddress, Long weeklyLotteryId,
+                             String chosenNumbers, Integer matchedNumbers, BigDecimal ticketPricePaid,
+                             Boolean isWinner, BigDecimal prizeAmount, String transactionHash,
+                             LocalDateTime purchasedAt, LocalDateTime updatedAt) {
+        this(id, ticketId, walletAddress, weeklyLotteryId, null, chosenNumbers, matchedNumbers, ticketPricePaid,
+             isWinner, prizeAmount, transactionHash, purchasedAt, updatedAt);
+    }
+
+    /**
+     * Ticket columns with the summary of its lottery
+     */
+    public LotteryTicketView(Long id, String ticketId, String walletAddress, Long weeklyLotteryId,
+                             String lotteryName, WeeklyLottery.LotteryStatus lotteryStatus, String drawnNumbers,
+                             String chosenNumbers, Integer matchedNumbers, BigDecimal ticketPricePaid,
+                             Boolean isWinner, BigDecimal prizeAmount, String transactionHash,
+                             LocalDateTime purchasedAt, LocalDateTime updatedAt) {
+        this(id, ticketId, walletAddress, weeklyLotteryId,
+             new LotterySummary(weeklyLotteryId, lotteryName, lotteryStatus, drawnNumbers),
+             chosenNumbers, matchedNumbers, ticketPricePaid, isWinner, prizeAmount, transactionHash,
+             purchasedAt, updatedAt);
+    }
+
+    private LotteryTicketView(Long id, String ticketId, String walletAddress, Long weeklyLotteryId,
+                              LotterySummary weeklyLottery, String chosenNumbers, Integer matchedNumbers,
+                              BigDecimal ticketPricePaid, Boolean isWinner, BigDecimal prizeAmount,
+                              String transactionHash, LocalDateTime purchasedAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.ticketId = ticketId;
+        this.walletAddress = walletAddress;
+        this.weeklyLotteryId = weeklyLotteryId;
+        this.weeklyLottery = weeklyLottery;
+        this.chosenNumbers = chosenNumbers;
+        this.matchedNumbers = matchedNumbers;
+        this.ticketPricePaid = ticketPricePaid;
+        this.isWinner = isWinner;
+        this.prizeAmount = prizeAmount;
+        this.transactionHash = transactionHash;
+        this.purchasedAt = purchasedAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * View of a loaded ticket whose lottery has been fetched with it
+     */
+    public static LotteryTicketView of(LotteryTicket ticket) {
+        WeeklyLottery lottery = ticket.getWeeklyLottery();
+        return new LotteryTicketView(ticket.getId(), ticket.getTicketId(), ticket.getWalletAddress(), lottery.getId(),
+            lottery.getLotteryName(), lottery.getStatus(), lottery.getDrawnNumbers(), ticket.getChosenNumbers(),
+            ticket.getMatchedNumbers(), ticket.getTicketPricePaid(), ticket.getIsWinner(), ticket.getPrizeAmount(),
+            ticket.getTransactionHash(), ticket.getPurchasedAt(), ticket.getUpdatedAt());
+    }
+
+    public Long getId() { return id; }
+    public String getTicketId() { return ticketId; }
+    public String getWalletAddress() { return walletAddress; }
+    public Long getWeeklyLotteryId() { return weeklyLotteryId; }
+    public LotterySummary getWeeklyLottery() { return weeklyLottery; }
+    public String getChosenNumbers() { return chosenNumbers; }
+    public Integer getMatchedNumbers() { return matchedNumbers; }
+    public BigDecimal getTicketPricePaid() { return ticketPricePaid; }
+    public Boolean getIsWinner() { return isWinner; }
+    public BigDecimal getPrizeAmount() { return prizeAmount; }
+    public String getTransactionHash() { return transactionHash; }
+    public LocalDateTime getPurchasedAt() { return purchasedAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    /**
+     * Helper class for the lottery columns shown next to a ticket
+     */
+    public static class LotterySummary {
+        private final Long id;
+        private final String lotteryName;
+        private final WeeklyLottery.LotteryStatus status;
+        private final String drawnNumbers;
+
+        public LotterySummary(Long id, String lotteryName, WeeklyLottery.LotteryStatus status, String drawnNumbers) {
+            this.id = id;
+            this.lotteryName = lotteryName;
+            this.status = status;
+            this.drawnNumbers = drawnNumbers;
+        }
+
+        public Long getId() { return id; }
+        public String getLotteryName() { return lotteryName; }
+        public WeeklyLottery.LotteryStatus getStatus() { return status; }
+        public String getDrawnNumbers() { return drawnNumbers; }
+    }
+}
@@ -0,0 +1,85 @@
+package com.bingochain.dto;
+
+import com.bingochain.model.WeeklyLottery;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Lottery as returned by the REST API. List endpoints build it directly from a JPQL
+ * constructor projection, so no entity, ticket collection or proxy is involved.
+ */
+public class WeeklyLotteryView {
+
+    private final Long id;
+    private final String contractAddress;
+    private final Long chainLotteryId;
+    private final String lotteryName;
+    private final BigDecimal ticketPrice;
+    private final BigDecimal prizePool;
+    private final Integer totalTickets;
+    private final WeeklyLottery.LotteryStatus status;
+    private final LocalDateTime salesStartTime;
+    private final LocalDateTime salesEndTime;
+    private final Integer currentDrawDay;
+    private final LocalDateTime nextDrawTime;
+    private final String drawnNumbers;
+    private final String winnerAddresses;
+    private final Boolean prizesDistributed;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+
+    public WeeklyLotteryView(Long id, String contractAddress, Long chainLotteryId, String lotteryName,
+                             BigDecimal ticketPrice, BigDecimal prizePool, Integer totalTickets,
+                             WeeklyLottery.LotteryStatus status, LocalDateTime salesStartTime,
+                             LocalDateTime salesEndTime, Integer currentDrawDay, LocalDateTime nextDrawTime,
+                             String drawnNumbers, String winnerAddresses, Boolean prizesDistributed,
+                             LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.contractAddress = contractAddress;
+        this.chainLotteryId = chainLotteryId;
+        this.lotteryName = lotteryName;
+        this.ticketPrice = ticketPrice;
+        this.prizePool = prizePool;
+        this.totalTickets = totalTickets;
+        this.status = status;
+        this.salesStartTime = salesStartTime;
+        this.salesEndTime = salesEndTime;
+        this.currentDrawDay = currentDrawDay;
+        this.nextDrawTime = nextDrawTime;
+        this.drawnNumbers = drawnNumbers;
+        this.winnerAddresses = winnerAddresses;
+        this.prizesDistributed = prizesDistributed;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * View of a loaded lottery; only its own columns are read
+     */
+    public static WeeklyLotteryView of(WeeklyLottery lottery) {
+        return new WeeklyLotteryView(lottery.getId(), lottery.getContractAddress(), lottery.getChainLotteryId(),
+            lottery.getLotteryName(), lottery.getTicketPrice(), lottery.getPrizePool(), lottery.getTotalTickets(),
+            lottery.getStatus(), lottery.getSalesStartTime(), lottery.getSalesEndTime(), lottery.getCurrentDrawDay(),
+            lottery.getNextDrawTime(), lottery.getDrawnNumbers(), lottery.getWinnerAddresses(),
+            lottery.getPrizesDistributed(), lottery.getCreatedAt(), lottery.getUpdatedAt());
+    }
+
+    public Long getId() { return id; }
+    public String getContractAddress() { return contractAddress; }
+    public Long getChainLotteryId() { return chainLotteryId; }
+    public String getLotteryName() { return lotteryName; }
+    public BigDecimal getTicketPrice() { return ticketPrice; }
+    public BigDecimal getPrizePool() { return prizePool; }
+    public Integer getTotalTickets() { return totalTickets; }
+    public WeeklyLottery.LotteryStatus getStatus() { return status; }
+    public LocalDateTime getSalesStartTime() { return salesStartTime; }
+    public LocalDateTime getSalesEndTime() { return salesEndTime; }
+    public Integer getCurrentDrawDay() { return currentDrawDay; }
+    public LocalDateTime getNextDrawTime() { return nextDrawTime; }
+    public String getDrawnNumbers() { return drawnNumbers; }
+    public String getWinnerAddresses() { return winnerAddresses; }
+    public Boolean getPrizesDistributed() { return prizesDistributed; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+}
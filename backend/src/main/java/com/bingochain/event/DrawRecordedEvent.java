@@ -0,0 +1,30 @@
+package com.bingochain.event;
+
+/**
+ * Published when a lottery's drawn numbers change, either through
+ * {@code updateDrawnNumbers} or when a new draw event is recorded.
+ */
+public class DrawRecordedEvent {
+
+    private final Long lotteryId;
+    private final String drawnNumbers;
+    private final Integer newNumber;
+
+    public DrawRecordedEvent(Long lotteryId, String drawnNumbers) {
+        this(lotteryId, drawnNumbers, null);
+    }
+
+    public DrawRecordedEvent(Long lotteryId, String drawnNumbers, Integer newNumber) {
+        this.lotteryId = lotteryId;
+        this.drawnNumbers = drawnNumbers;
+        this.newNumber = newNumber;
+    }
+
+    public Long getLotteryId() { return lotteryId; }
+    public String getDrawnNumbers() { return drawnNumbers; }
+
+    /**
+     * The single number added by this draw, or null when the whole set was replaced
+     */
+    public Integer getNewNumber() { return newNumber; }
+}
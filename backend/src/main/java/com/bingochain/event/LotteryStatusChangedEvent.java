@@ -0,0 +1,20 @@
+package com.bingochain.event;
+
+import com.bingochain.model.WeeklyLottery;
+
+/**
+ * Published when a lottery is created or moves to another status.
+ */
+public class LotteryStatusChangedEvent {
+
+    private final Long lotteryId;
+    private final WeeklyLottery.LotteryStatus status;
+
+    public LotteryStatusChangedEvent(Long lotteryId, WeeklyLottery.LotteryStatus status) {
+        this.lotteryId = lotteryId;
+        this.status = status;
+    }
+
+    public Long getLotteryId() { return lotteryId; }
+    public WeeklyLottery.LotteryStatus getStatus() { return status; }
+}
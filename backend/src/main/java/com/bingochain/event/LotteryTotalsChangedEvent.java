@@ -0,0 +1,24 @@
+package com.bingochain.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published after buffered ticket counts and prize-pool contributions of a
+ * lottery have been written to weekly_lotteries.
+ */
+public class LotteryTotalsChangedEvent {
+
+    private final Long lotteryId;
+    private final Integer totalTickets;
+    private final BigDecimal prizePool;
+
+    public LotteryTotalsChangedEvent(Long lotteryId, Integer totalTickets, BigDecimal prizePool) {
+        this.lotteryId = lotteryId;
+        this.totalTickets = totalTickets;
+        this.prizePool = prizePool;
+    }
+
+    public Long getLotteryId() { return lotteryId; }
+    public Integer getTotalTickets() { return totalTickets; }
+    public BigDecimal getPrizePool() { return prizePool; }
+}
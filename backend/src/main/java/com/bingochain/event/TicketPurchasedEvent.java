@@ -0,0 +1,31 @@
+package com.bingochain.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when a ticket purchase is saved. Listeners that only care about
+ * committed purchases should use {@code @TransactionalEventListener}.
+ */
+public class TicketPurchasedEvent {
+
+    private final Long ticketId;
+    private final Long lotteryId;
+    private final String walletAddress;
+    private final String chosenNumbers;
+    private final BigDecimal ticketPrice;
+
+    public TicketPurchasedEvent(Long ticketId, Long lotteryId, String walletAddress,
+                                String chosenNumbers, BigDecimal ticketPrice) {
+        this.ticketId = ticketId;
+        this.lotteryId = lotteryId;
+        this.walletAddress = walletAddress;
+        this.chosenNumbers = chosenNumbers;
+        this.ticketPrice = ticketPrice;
+    }
+
+    public Long getTicketId() { return ticketId; }
+    public Long getLotteryId() { return lotteryId; }
+    public String getWalletAddress() { return walletAddress; }
+    public String getChosenNumbers() { return chosenNumbers; }
+    public BigDecimal getTicketPrice() { return ticketPrice; }
+}
@@ -0,0 +1,28 @@
+package com.bingochain.event;
+
+import java.math.BigDecimal;
+
+/**
+ * Published when tickets are bulk loaded into a lottery without going through
+ * the regular purchase path.
+ */
+public class TicketsImportedEvent {
+
+    private final Long lotteryId;
+    private final long importedTickets;
+    private final BigDecimal totalPaid;
+
+    public TicketsImportedEvent(Long lotteryId, long importedTickets, BigDecimal totalPaid) {
+        this.lotteryId = lotteryId;
+        this.importedTickets = importedTickets;
+        this.totalPaid = totalPaid;
+    }
+
+    public Long getLotteryId() { return lotteryId; }
+    public long getImportedTickets() { return importedTickets; }
+
+    /**
+     * Sum of ticket_price_paid over the inserted tickets
+     */
+    public BigDecimal getTotalPaid() { return totalPaid; }
+}
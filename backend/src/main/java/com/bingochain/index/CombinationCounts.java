@@ -0,0 +1,228 @@
+package com.bingochain.index;
+
+import java.util.Arrays;
+
+/**
+ * Snapshot of a lottery's tickets as counts of the 3- to 6-number combinations they contain.
+ *
+ * A draw of six numbers matches a ticket in {@code m} numbers exactly when the ticket
+ * contains C(m, k) of the draw's k-number combinations. Summing the counts of the
+ * draw's 20 triples, 15 quadruples, 6 quintuples and its sextuple therefore gives
+ * sum(C(m, k) * winners with m matches), and solving from six matches down yields the
+ * exact number of winners per match count in 42 lookups, whatever the number of tickets.
+ *
+ * Combinations are keyed by their rank in the combinatorial number system. Triples
+ * and quadruples are dense arrays; quintuples and sextuples, far sparser than their
+ * key space, are open-addressing tables at most three quarters full, so a lookup is
+ * usually a single cache miss.
+ */
+public class CombinationCounts {
+
+    public static final int MAX_NUMBER = 100;
+    public static final int NUMBERS_PER_TICKET = 6;
+    public static final int MIN_COUNTED = 3;
+
+    private static final long EMPTY_SLOT = -1L;
+
+    // 2^64 / golden ratio, spreads consecutive ranks over the table
+    private static final long HASH_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private static final long[][] BINOMIAL = new long[MAX_NUMBER + 1][NUMBERS_PER_TICKET + 1];
+
+    static {
+        for (int n = 0; n <= MAX_NUMBER; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, NUMBERS_PER_TICKET); k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + (k < n ? BINOMIAL[n - 1][k] : 0);
+            }
+        }
+    }
+
+    private final long ticketCount;
+    private final int[] triples = new int[(int) BINOMIAL[MAX_NUMBER][3]];
+    private final int[] quadruples = new int[(int) BINOMIAL[MAX_NUMBER][4]];
+    private final long[] quintupleSlots;
+    private final int[] quintupleCounts;
+    private final long[] sextupleSlots;
+    private final int[] sextupleCounts;
+
+    /**
+     * Count the combinations of the given tickets
+     *
+     * @param masks two words per ticket, low then high, in the layout of {@code NumberSet}
+     * @param ticketCount number of tickets in {@code masks}; tickets with more than six numbers are skipped
+     */
+    public CombinationCounts(long[] masks, int ticketCount) {
+        long[] quintuples = new long[ticketCount * (int) BINOMIAL[NUMBERS_PER_TICKET][5]];
+        long[] sextuples = new long[ticketCount];
+        int quintupleCount = 0;
+        int sextupleCount = 0;
+        long counted = 0;
+
+        int[] numbers = new int[NUMBERS_PER_TICKET];
+        int[] subset = new int[NUMBERS_PER_TICKET];
+        for (int t = 0; t < ticketCount; t++) {
+            int size = toNumbers(masks[2 * t], masks[2 * t + 1], numbers);
+            if (size < 0) {
+                continue;
+            }
+            counted++;
+            for (int k = MIN_COUNTED; k <= size; k++) {
+                firstSubset(subset, k);
+                do {
+                    long rank = rank(numbers, subset, k);
+                    if (k == 3) {
+                        triples[(int) rank]++;
+                    } else if (k == 4) {
+                        quadruples[(int) rank]++;
+                    } else if (k == 5) {
+                        quintuples[quintupleCount++] = rank;
+                    } else {
+                        sextuples[sextupleCount++] = rank;
+                    }
+                } while (nextSubset(subset, k, size));
+            }
+        }
+        this.ticketCount = counted;
+
+        this.quintupleSlots = new long[capacityFor(quintuples, quintupleCount)];
+        this.quintupleCounts = new int[quintupleSlots.length];
+        fill(quintuples, quintupleCount, quintupleSlots, quintupleCounts);
+        this.sextupleSlots = new long[capacityFor(sextuples, sextupleCount)];
+        this.sextupleCounts = new int[sextupleSlots.length];
+        fill(sextuples, sextupleCount, sextupleSlots, sextupleCounts);
+    }
+
+    public long getTicketCount() { return ticketCount; }
+
+    /**
+     * Count the winners of a complete draw
+     *
+     * @param drawn the six drawn numbers, zero-based (number - 1) and ascending
+     * @param winners receives, at index m for m in 3..6, the tickets matching exactly m numbers
+     */
+    public void countWinners(int[] drawn, long[] winners) {
+        int[] subset = new int[NUMBERS_PER_TICKET];
+        // Solve from six matches down, so winners[m] for m > k is final when k is reached
+        for (int k = NUMBERS_PER_TICKET; k >= MIN_COUNTED; k--) {
+            long exact = 0;
+            firstSubset(subset, k);
+            do {
+                exact += count(rank(drawn, subset, k), k);
+            } while (nextSubset(subset, k, NUMBERS_PER_TICKET));
+            for (int m = k + 1; m <= NUMBERS_PER_TICKET; m++) {
+                exact -= BINOMIAL[m][k] * winners[m];
+            }
+            winners[k] = exact;
+        }
+    }
+
+    private int count(long rank, int k) {
+        if (k == 3) {
+            return triples[(int) rank];
+        }
+        if (k == 4) {
+            return quadruples[(int) rank];
+        }
+        if (k == 5) {
+            int slot = find(quintupleSlots, rank);
+            return quintupleSlots[slot] == rank ? quintupleCounts[slot] : 0;
+        }
+        int slot = find(sextupleSlots, rank);
+        return sextupleSlots[slot] == rank ? sextupleCounts[slot] : 0;
+    }
+
+    /**
+     * Slot holding {@code rank}, or the empty slot where it would go
+     */
+    private static int find(long[] slots, long rank) {
+        int mask = slots.length - 1;
+        int slot = (int) ((rank * HASH_MULTIPLIER) >>> (64 - Integer.numberOfTrailingZeros(slots.length)));
+        while (slots[slot] != rank && slots[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Unpack a mask into ascending zero-based numbers
+     *
+     * @return how many numbers were written, or -1 if there are more than six
+     */
+    private static int toNumbers(long low, long high, int[] numbers) {
+        if (Long.bitCount(low) + Long.bitCount(high) > NUMBERS_PER_TICKET) {
+            return -1;
+        }
+        int size = 0;
+        for (long bits = low; bits != 0; bits &= bits - 1) {
+            numbers[size++] = Long.numberOfTrailingZeros(bits) - 1;
+        }
+        for (long bits = high; bits != 0; bits &= bits - 1) {
+            numbers[size++] = Long.numberOfTrailingZeros(bits) + 63;
+        }
+        return size;
+    }
+
+    /**
+     * Rank of the combination {@code numbers[subset[0]] < ... < numbers[subset[k - 1]]}
+     */
+    private static long rank(int[] numbers, int[] subset, int k) {
+        long rank = 0;
+        for (int j = 0; j < k; j++) {
+            rank += BINOMIAL[numbers[subset[j]]][j + 1];
+        }
+        return rank;
+    }
+
+    private static void firstSubset(int[] subset, int k) {
+        for (int j = 0; j < k; j++) {
+            subset[j] = j;
+        }
+    }
+
+    /**
+     * Advance to the next k-subset of 0..size-1 in lexicographic order
+     */
+    private static boolean nextSubset(int[] subset, int k, int size) {
+        int j = k - 1;
+        while (j >= 0 && subset[j] == size - k + j) {
+            j--;
+        }
+        if (j < 0) {
+            return false;
+        }
+        subset[j]++;
+        for (int i = j + 1; i < k; i++) {
+            subset[i] = subset[i - 1] + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Smallest power of two holding the distinct ranks at three quarters load or less;
+     * sorts the ranks to count them
+     */
+    private static int capacityFor(long[] ranks, int length) {
+        Arrays.parallelSort(ranks, 0, length);
+        int distinct = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == 0 || ranks[i] != ranks[i - 1]) {
+                distinct++;
+            }
+        }
+        int capacity = 2;
+        while (capacity / 4 * 3 < distinct) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static void fill(long[] ranks, int length, long[] slots, int[] counts) {
+        Arrays.fill(slots, EMPTY_SLOT);
+        for (int i = 0; i < length; i++) {
+            int slot = find(slots, ranks[i]);
+            slots[slot] = ranks[i];
+            counts[slot]++;
+        }
+    }
+}
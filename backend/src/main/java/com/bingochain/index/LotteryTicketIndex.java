@@ -0,0 +1,205 @@
+package com.bingochain.index;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index of one weekly lottery: for every number 1..100 a
+ * compressed posting list of the ids of the tickets that chose it.
+ *
+ * Adding a ticket is idempotent, so replaying a purchase while the index is
+ * being loaded from the database is harmless.
+ */
+public class LotteryTicketIndex {
+
+    public static final int MIN_NUMBER = 1;
+    public static final int MAX_NUMBER = 100;
+    public static final int NUMBERS_PER_TICKET = 6;
+
+    private final Long lotteryId;
+    private final Roaring64Bitmap[] postings = new Roaring64Bitmap[MAX_NUMBER + 1];
+    private final Roaring64Bitmap allTickets = new Roaring64Bitmap();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public LotteryTicketIndex(Long lotteryId) {
+        this.lotteryId = lotteryId;
+        for (int number = MIN_NUMBER; number <= MAX_NUMBER; number++) {
+            postings[number] = new Roaring64Bitmap();
+        }
+    }
+
+    public Long getLotteryId() { return lotteryId; }
+
+    public boolean isLoaded() { return loaded; }
+
+    public void markLoaded() {
+        lock.writeLock().lock();
+        try {
+            for (int number = MIN_NUMBER; number <= MAX_NUMBER; number++) {
+                postings[number].runOptimize();
+            }
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add a ticket under each of its numbers; numbers outside 1..100 are ignored
+     */
+    public void add(long ticketId, int[] numbers) {
+        lock.writeLock().lock();
+        try {
+            allTickets.addLong(ticketId);
+            for (int number : numbers) {
+                if (number >= MIN_NUMBER && number <= MAX_NUMBER) {
+                    postings[number].addLong(ticketId);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getTicketCount() {
+        lock.readLock().lock();
+        try {
+            return allTickets.getLongCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get a snapshot of the posting list of one number
+     */
+    public Roaring64Bitmap postingList(int number) {
+        checkNumber(number);
+        lock.readLock().lock();
+        try {
+            return copyOf(postings[number]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the tickets that chose every one of the given numbers
+     */
+    public Roaring64Bitmap containingAll(int[] numbers) {
+        if (numbers.length == 0) {
+            throw new IllegalArgumentException("At least one number is required");
+        }
+        for (int number : numbers) {
+            checkNumber(number);
+        }
+
+        lock.readLock().lock();
+        try {
+            // Start from the shortest list so every AND shrinks the smallest possible set
+            int shortest = numbers[0];
+            for (int number : numbers) {
+                if (postings[number].getLongCardinality() < postings[shortest].getLongCardinality()) {
+                    shortest = number;
+                }
+            }
+            Roaring64Bitmap result = copyOf(postings[shortest]);
+            for (int number : numbers) {
+                if (number != shortest) {
+                    result.and(postings[number]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Get the tickets whose combination is exactly the given six numbers.
+     * Every ticket holds six distinct numbers, so containing all six means equality.
+     */
+    public Roaring64Bitmap exactCombination(int[] numbers) {
+        if (distinctCount(numbers) != NUMBERS_PER_TICKET) {
+            throw new IllegalArgumentException("A combination must have " + NUMBERS_PER_TICKET + " distinct numbers");
+        }
+        return containingAll(numbers);
+    }
+
+    /**
+     * Group the tickets that chose {@code newNumber} by how many of {@code drawnNumbers} they match.
+     * Only the posting lists of drawn numbers are read, never the whole lottery.
+     *
+     * @return array indexed by match count (0..6) of the ticket ids with that count
+     */
+    public long[][] matchCountsForDraw(int newNumber, int[] drawnNumbers) {
+        checkNumber(newNumber);
+        lock.readLock().lock();
+        try {
+            // atLeast[k] holds the tickets of the new number's list that match at least k + 1 drawn numbers
+            Roaring64Bitmap[] atLeast = new Roaring64Bitmap[NUMBERS_PER_TICKET];
+            atLeast[0] = copyOf(postings[newNumber]);
+            for (int k = 1; k < NUMBERS_PER_TICKET; k++) {
+                atLeast[k] = new Roaring64Bitmap();
+            }
+
+            for (int drawn : drawnNumbers) {
+                if (drawn == newNumber || drawn < MIN_NUMBER || drawn > MAX_NUMBER) {
+                    continue;
+                }
+                Roaring64Bitmap hits = intersect(atLeast[0], postings[drawn]);
+                for (int k = NUMBERS_PER_TICKET - 1; k >= 1; k--) {
+                    atLeast[k].or(intersect(atLeast[k - 1], hits));
+                }
+            }
+
+            long[][] byMatches = new long[NUMBERS_PER_TICKET + 1][];
+            byMatches[0] = new long[0];
+            for (int k = 0; k < NUMBERS_PER_TICKET; k++) {
+                Roaring64Bitmap exact = copyOf(atLeast[k]);
+                if (k + 1 < NUMBERS_PER_TICKET) {
+                    exact.andNot(atLeast[k + 1]);
+                }
+                byMatches[k + 1] = exact.toArray();
+            }
+            return byMatches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Roaring64Bitmap copyOf(Roaring64Bitmap bitmap) {
+        Roaring64Bitmap copy = new Roaring64Bitmap();
+        copy.or(bitmap);
+        return copy;
+    }
+
+    private static Roaring64Bitmap intersect(Roaring64Bitmap left, Roaring64Bitmap right) {
+        Roaring64Bitmap result = copyOf(left);
+        result.and(right);
+        return result;
+    }
+
+    private static int distinctCount(int[] numbers) {
+        long low = 0L;
+        long high = 0L;
+        for (int number : numbers) {
+            checkNumber(number);
+            if (number < 64) {
+                low |= 1L << number;
+            } else {
+                high |= 1L << (number - 64);
+            }
+        }
+        return Long.bitCount(low) + Long.bitCount(high);
+    }
+
+    private static void checkNumber(int number) {
+        if (number < MIN_NUMBER || number > MAX_NUMBER) {
+            throw new IllegalArgumentException("Number out of range 1-100: " + number);
+        }
+    }
+}
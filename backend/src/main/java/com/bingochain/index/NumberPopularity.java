@@ -0,0 +1,161 @@
+package com.bingochain.index;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * How often the numbers 1..100, and every pair and triple of them, were picked in one lottery.
+ *
+ * Counters are lock-free arrays: a ticket increments its six numbers, fifteen pairs
+ * and twenty triples, so concurrent purchases never block each other. Pairs and
+ * triples are indexed by their rank in the combinatorial number system; the triple
+ * table has C(100, 3) = 161,700 counters, about 1.3 MB per lottery.
+ */
+public class NumberPopularity {
+
+    public static final int MIN_NUMBER = 1;
+    public static final int MAX_NUMBER = 100;
+
+    private static final int PAIRS = MAX_NUMBER * (MAX_NUMBER - 1) / 2;
+    private static final int TRIPLES = MAX_NUMBER * (MAX_NUMBER - 1) * (MAX_NUMBER - 2) / 6;
+
+    private final AtomicLong tickets = new AtomicLong();
+    private final AtomicLongArray numbers = new AtomicLongArray(MAX_NUMBER + 1);
+    private final AtomicLongArray pairs = new AtomicLongArray(PAIRS);
+    private final AtomicLongArray triples = new AtomicLongArray(TRIPLES);
+
+    /**
+     * Count one ticket; numbers outside 1..100 and repeats are ignored
+     *
+     * @param chosen the ticket's numbers in ascending order
+     */
+    public void add(int[] chosen) {
+        tickets.incrementAndGet();
+        int previous = 0;
+        int[] distinct = new int[chosen.length];
+        int size = 0;
+        for (int number : chosen) {
+            if (number > previous && number >= MIN_NUMBER && number <= MAX_NUMBER) {
+                distinct[size++] = number;
+                previous = number;
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            numbers.incrementAndGet(distinct[i]);
+            for (int j = i + 1; j < size; j++) {
+                pairs.incrementAndGet(pairRank(distinct[i], distinct[j]));
+                for (int k = j + 1; k < size; k++) {
+                    triples.incrementAndGet(tripleRank(distinct[i], distinct[j], distinct[k]));
+                }
+            }
+        }
+    }
+
+    public long getTicketCount() { return tickets.get(); }
+
+    /**
+     * Get how often each number was picked; index 0 is number 1
+     */
+    public long[] numberCounts() {
+        long[] counts = new long[MAX_NUMBER];
+        for (int number = MIN_NUMBER; number <= MAX_NUMBER; number++) {
+            counts[number - 1] = numbers.get(number);
+        }
+        return counts;
+    }
+
+    /**
+     * Get the most picked pairs, most picked first
+     */
+    public List<Combination> topPairs(int limit) {
+        return top(pairs, limit, 2);
+    }
+
+    /**
+     * Get the most picked triples, most picked first
+     */
+    public List<Combination> topTriples(int limit) {
+        return top(triples, limit, 3);
+    }
+
+    private static List<Combination> top(AtomicLongArray counters, int limit, int size) {
+        // Min-heap of the best `limit` ranks seen so far; ties keep the lower rank
+        Comparator<long[]> byCount = Comparator.<long[]>comparingLong(entry -> entry[1])
+                                               .thenComparing(entry -> -entry[0]);
+        PriorityQueue<long[]> best = new PriorityQueue<>(byCount);
+        for (int rank = 0; rank < counters.length(); rank++) {
+            long count = counters.get(rank);
+            if (count == 0) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new long[] { rank, count });
+            } else if (count > best.peek()[1]) {
+                best.poll();
+                best.add(new long[] { rank, count });
+            }
+        }
+        List<Combination> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            long[] entry = best.poll();
+            result.add(0, new Combination(unrank((int) entry[0], size), entry[1]));
+        }
+        return result;
+    }
+
+    private static int pairRank(int a, int b) {
+        return binomial(b - 1, 2) + (a - 1);
+    }
+
+    private static int tripleRank(int a, int b, int c) {
+        return binomial(c - 1, 3) + binomial(b - 1, 2) + (a - 1);
+    }
+
+    /**
+     * Numbers (1-based, ascending) of the combination with the given rank
+     */
+    private static int[] unrank(int rank, int size) {
+        int[] combination = new int[size];
+        int remaining = rank;
+        for (int k = size; k >= 1; k--) {
+            int x = k - 1;
+            while (binomial(x + 1, k) <= remaining) {
+                x++;
+            }
+            remaining -= binomial(x, k);
+            combination[k - 1] = x + 1;
+        }
+        return combination;
+    }
+
+    private static int binomial(int n, int k) {
+        if (n < k) {
+            return 0;
+        }
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return (int) result;
+    }
+
+    /**
+     * Helper class for a combination of numbers and how many tickets picked it
+     */
+    public static class Combination {
+        private final int[] numbers;
+        private final Long count;
+
+        public Combination(int[] numbers, Long count) {
+            this.numbers = numbers;
+            this.count = count;
+        }
+
+        public int[] getNumbers() { return numbers; }
+        public Long getCount() { return count; }
+    }
+}
@@ -0,0 +1,40 @@
+package com.bingochain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Per-wallet totals of the tickets moved to the archive, so player statistics can
+ * still be rebuilt from the database after those rows leave lottery_tickets
+ */
+@Entity
+@Table(name = "archived_player_totals")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedPlayerTotals {
+
+    @Id
+    @Column(name = "wallet_address", nullable = false)
+    private String walletAddress;
+
+    @Column(name = "total_tickets", nullable = false)
+    private Long totalTickets = 0L;
+
+    @Column(name = "winning_tickets", nullable = false)
+    private Long winningTickets = 0L;
+
+    @Column(name = "total_spent", precision = 28, scale = 8, nullable = false)
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    @Column(name = "total_won", precision = 28, scale = 8, nullable = false)
+    private BigDecimal totalWon = BigDecimal.ZERO;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
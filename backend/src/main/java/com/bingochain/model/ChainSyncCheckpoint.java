@@ -0,0 +1,26 @@
+package com.bingochain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "chain_sync_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChainSyncCheckpoint {
+
+    @Id
+    @Column(name = "contract_address", nullable = false)
+    private String contractAddress;
+
+    @Column(name = "last_processed_block", nullable = false)
+    private Long lastProcessedBlock;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
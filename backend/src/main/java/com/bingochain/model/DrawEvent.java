@@ -16,7 +16,9 @@ import java.time.LocalDateTime;
 public class DrawEvent {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "draw_event_seq")
+    @SequenceGenerator(name = "draw_event_seq", sequenceName = "draw_events_seq", allocationSize = 50)
+    @Column(columnDefinition = "bigint default nextval('draw_events_seq'::text)")
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
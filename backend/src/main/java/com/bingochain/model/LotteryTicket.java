@@ -1,5 +1,6 @@
 package com.bingochain.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -12,17 +13,32 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "lottery_tickets")
+// Contract ticket ids are unique per lottery, the conflict target of bulk inserts. Unpartitioned
+// tables also keep them globally unique through uk_lottery_tickets_ticket_id, which the init script
+// creates and partitioning drops, since Postgres requires unique keys of partitioned tables to
+// include the partition key.
+@Table(name = "lottery_tickets",
+       indexes = {
+           @Index(name = "idx_lottery_tickets_transaction_hash", columnList = "transaction_hash"),
+           @Index(name = "idx_lottery_tickets_ticket_id", columnList = "ticket_id"),
+           @Index(name = "idx_lottery_tickets_lottery_updated", columnList = "weekly_lottery_id, updated_at")
+       },
+       uniqueConstraints = @UniqueConstraint(name = "uk_lottery_tickets_lottery_ticket",
+                                             columnNames = {"weekly_lottery_id", "ticket_id"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class LotteryTicket {
 
+    // Pooled sequence ids let Hibernate batch inserts; the column default serves plain SQL inserts.
+    // The text cast looks the sequence up at insert time, as Hibernate creates it after the table.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lottery_ticket_seq")
+    @SequenceGenerator(name = "lottery_ticket_seq", sequenceName = "lottery_tickets_seq", allocationSize = 50)
+    @Column(columnDefinition = "bigint default nextval('lottery_tickets_seq'::text)")
     private Long id;
 
-    @Column(name = "ticket_id", unique = true, nullable = false)
+    @Column(name = "ticket_id", nullable = false)
     private String ticketId; // Contract ticket ID
 
     @Column(name = "wallet_address", nullable = false)
@@ -35,6 +51,11 @@ public class LotteryTicket {
     @Column(name = "chosen_numbers", nullable = false, length = 50)
     private String chosenNumbers; // JSON array of 6 numbers [1,15,33,45,67,89]
 
+    @JsonIgnore
+    @Convert(converter = NumberSetConverter.class)
+    @Column(name = "chosen_mask", length = NumberSet.BYTES)
+    private NumberSet chosenMask; // chosenNumbers packed as a 128-bit mask
+
     @Column(name = "matched_numbers")
     private Integer matchedNumbers = 0;
 
@@ -0,0 +1,260 @@
+package com.bingochain.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Immutable set of lottery numbers 1..100 packed into a 128-bit mask.
+ *
+ * Bit {@code n} of the mask is set when number {@code n} is in the set; bits 0..63
+ * live in {@code low} and bits 64..127 in {@code high}. Counting the matches of a
+ * ticket against the drawn numbers is two ANDs and two popcounts.
+ */
+public final class NumberSet {
+
+    public static final int MIN_NUMBER = 1;
+    public static final int MAX_NUMBER = 100;
+    public static final int NUMBERS_PER_TICKET = 6;
+    public static final int BYTES = 16;
+
+    public static final NumberSet EMPTY = new NumberSet(0L, 0L);
+
+    private static final int MAX_DIGITS = 3;
+
+    private final long low;
+    private final long high;
+
+    private NumberSet(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Build a set from numbers in 1..100
+     */
+    public static NumberSet of(int... numbers) {
+        long low = 0L;
+        long high = 0L;
+        for (int number : numbers) {
+            if (number < MIN_NUMBER || number > MAX_NUMBER) {
+                throw new IllegalArgumentException("Number out of range 1-100: " + number);
+            }
+            if (number < 64) {
+                low |= 1L << number;
+            } else {
+                high |= 1L << (number - 64);
+            }
+        }
+        return new NumberSet(low, high);
+    }
+
+    /**
+     * Rebuild a set from its two mask words
+     */
+    public static NumberSet fromMask(long low, long high) {
+        if ((low & 1L) != 0 || (high >>> (MAX_NUMBER - 63)) != 0) {
+            throw new IllegalArgumentException("Mask contains numbers outside 1-100");
+        }
+        return low == 0L && high == 0L ? EMPTY : new NumberSet(low, high);
+    }
+
+    /**
+     * Decode the 16-byte column form produced by {@link #toBytes()}
+     */
+    public static NumberSet fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("Expected " + BYTES + " bytes but got " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long high = buffer.getLong();
+        long low = buffer.getLong();
+        return fromMask(low, high);
+    }
+
+    /**
+     * Parse a JSON number array such as [1,15,33,45,67,89]
+     *
+     * @throws IllegalArgumentException if the text is malformed, a number is outside 1..100 or repeated
+     */
+    public static NumberSet parse(CharSequence json) {
+        NumberSet set = tryParse(json);
+        if (set == null) {
+            throw new IllegalArgumentException("Invalid number array: " + json);
+        }
+        return set;
+    }
+
+    /**
+     * Parse a JSON number array, returning null instead of throwing when it is invalid.
+     * Scans the characters once; the returned set is the only allocation.
+     */
+    public static NumberSet tryParse(CharSequence json) {
+        if (json == null) {
+            return null;
+        }
+        int length = json.length();
+        int i = skipWhitespace(json, 0);
+        if (i >= length || json.charAt(i) != '[') {
+            return null;
+        }
+        i = skipWhitespace(json, i + 1);
+        if (i < length && json.charAt(i) == ']') {
+            return skipWhitespace(json, i + 1) == length ? EMPTY : null;
+        }
+
+        long low = 0L;
+        long high = 0L;
+        while (true) {
+            int value = 0;
+            int digits = 0;
+            while (i < length && json.charAt(i) >= '0' && json.charAt(i) <= '9') {
+                value = value * 10 + (json.charAt(i) - '0');
+                digits++;
+                i++;
+            }
+            if (digits == 0 || digits > MAX_DIGITS || value < MIN_NUMBER || value > MAX_NUMBER) {
+                return null;
+            }
+            if (value < 64) {
+                long bit = 1L << value;
+                if ((low & bit) != 0) {
+                    return null;
+                }
+                low |= bit;
+            } else {
+                long bit = 1L << (value - 64);
+                if ((high & bit) != 0) {
+                    return null;
+                }
+                high |= bit;
+            }
+
+            i = skipWhitespace(json, i);
+            if (i >= length) {
+                return null;
+            }
+            char separator = json.charAt(i);
+            if (separator == ']') {
+                return skipWhitespace(json, i + 1) == length ? new NumberSet(low, high) : null;
+            }
+            if (separator != ',') {
+                return null;
+            }
+            i = skipWhitespace(json, i + 1);
+        }
+    }
+
+    /**
+     * Check that a JSON number array is a valid ticket: six distinct numbers in 1..100
+     */
+    public static boolean isValidTicket(CharSequence json) {
+        NumberSet set = tryParse(json);
+        return set != null && set.size() == NUMBERS_PER_TICKET;
+    }
+
+    private static int skipWhitespace(CharSequence text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    public long getLow() { return low; }
+    public long getHigh() { return high; }
+
+    public int size() {
+        return Long.bitCount(low) + Long.bitCount(high);
+    }
+
+    public boolean isEmpty() {
+        return low == 0L && high == 0L;
+    }
+
+    public boolean contains(int number) {
+        if (number < MIN_NUMBER || number > MAX_NUMBER) {
+            return false;
+        }
+        return number < 64 ? (low & (1L << number)) != 0 : (high & (1L << (number - 64))) != 0;
+    }
+
+    /**
+     * Count the numbers this set shares with another
+     */
+    public int countMatches(NumberSet other) {
+        return Long.bitCount(low & other.low) + Long.bitCount(high & other.high);
+    }
+
+    public boolean containsAll(NumberSet other) {
+        return (other.low & ~low) == 0L && (other.high & ~high) == 0L;
+    }
+
+    public NumberSet with(int number) {
+        NumberSet single = of(number);
+        return new NumberSet(low | single.low, high | single.high);
+    }
+
+    /**
+     * Get the numbers in ascending order
+     */
+    public int[] toArray() {
+        int[] numbers = new int[size()];
+        int i = 0;
+        long bits = low;
+        while (bits != 0) {
+            numbers[i++] = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+        bits = high;
+        while (bits != 0) {
+            numbers[i++] = 64 + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+        return numbers;
+    }
+
+    /**
+     * Encode as 16 bytes: the high word followed by the low word, both big-endian
+     */
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(BYTES).putLong(high).putLong(low).array();
+    }
+
+    /**
+     * Render as a JSON array in ascending order, e.g. [1,15,33]
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(4 * size() + 2).append('[');
+        for (int number : toArray()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append(number);
+        }
+        return json.append(']').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof NumberSet)) {
+            return false;
+        }
+        NumberSet other = (NumberSet) o;
+        return low == other.low && high == other.high;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(low) * 31 + Long.hashCode(high);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
@@ -0,0 +1,21 @@
+package com.bingochain.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link NumberSet} as a fixed 16-byte bytea column.
+ */
+@Converter
+public class NumberSetConverter implements AttributeConverter<NumberSet, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(NumberSet numbers) {
+        return numbers != null ? numbers.toBytes() : null;
+    }
+
+    @Override
+    public NumberSet convertToEntityAttribute(byte[] bytes) {
+        return NumberSet.fromBytes(bytes);
+    }
+}
@@ -0,0 +1,39 @@
+package com.bingochain.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "player_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PlayerStatistics {
+
+    @Id
+    @Column(name = "wallet_address", nullable = false)
+    private String walletAddress;
+
+    @Column(name = "total_tickets", nullable = false)
+    private Long totalTickets = 0L;
+
+    @Column(name = "winning_tickets", nullable = false)
+    private Long winningTickets = 0L;
+
+    @Column(name = "total_spent", precision = 28, scale = 8, nullable = false)
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    @Column(name = "total_won", precision = 28, scale = 8, nullable = false)
+    private BigDecimal totalWon = BigDecimal.ZERO;
+
+    @Column(name = "version", columnDefinition = "bigint default 0 not null", insertable = false, updatable = false)
+    private Long version; // Bumped by every adjustment, see PlayerStatsService.upsertSql
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
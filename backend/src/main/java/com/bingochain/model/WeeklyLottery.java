@@ -1,5 +1,6 @@
 package com.bingochain.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -19,12 +20,17 @@ import java.util.List;
 public class WeeklyLottery {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "weekly_lottery_seq")
+    @SequenceGenerator(name = "weekly_lottery_seq", sequenceName = "weekly_lotteries_seq", allocationSize = 50)
+    @Column(columnDefinition = "bigint default nextval('weekly_lotteries_seq'::text)")
     private Long id;
 
     @Column(name = "contract_address", unique = true, nullable = false)
     private String contractAddress;
 
+    @Column(name = "chain_lottery_id", unique = true)
+    private Long chainLotteryId; // lotteryId inside the CryptoBingo contract
+
     @Column(name = "lottery_name", nullable = false)
     private String lotteryName;
 
@@ -56,12 +62,25 @@ public class WeeklyLottery {
     @Column(name = "drawn_numbers", length = 500)
     private String drawnNumbers; // JSON array of drawn numbers
 
-    @Column(name = "winner_addresses", length = 1000)
+    @JsonIgnore
+    @Convert(converter = NumberSetConverter.class)
+    @Column(name = "drawn_mask", length = NumberSet.BYTES)
+    private NumberSet drawnMask; // drawnNumbers packed as a 128-bit mask
+
+    @Column(name = "winner_addresses", columnDefinition = "text")
     private String winnerAddresses; // JSON array of winner addresses
 
     @Column(name = "prizes_distributed")
     private Boolean prizesDistributed = false;
 
+    @JsonIgnore
+    @Column(name = "tickets_version", columnDefinition = "bigint default 0 not null", insertable = false, updatable = false)
+    private Long ticketsVersion; // Bumped by every write to its tickets, see ResourceVersionService
+
+    @JsonIgnore
+    @Column(name = "archived_at")
+    private LocalDateTime archivedAt; // When its tickets moved from lottery_tickets to a segment file
+
     @OneToMany(mappedBy = "weeklyLottery", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<LotteryTicket> tickets;
 
@@ -0,0 +1,59 @@
+package com.bingochain.monitoring;
+
+import com.bingochain.event.DrawRecordedEvent;
+import com.bingochain.event.TicketPurchasedEvent;
+import com.bingochain.event.TicketsImportedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Counts committed ticket sales and draws.
+ */
+@Component
+public class LotteryActivityMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter purchasedTickets;
+
+    private Counter importedTickets;
+
+    private Counter draws;
+
+    @PostConstruct
+    public void init() {
+        purchasedTickets = Counter.builder("bingochain.tickets")
+            .description("Tickets added to lotteries")
+            .tag("source", "purchase")
+            .register(meterRegistry);
+        // Bulk imports and tickets ingested from the chain
+        importedTickets = Counter.builder("bingochain.tickets")
+            .description("Tickets added to lotteries")
+            .tag("source", "import")
+            .register(meterRegistry);
+        draws = Counter.builder("bingochain.draws")
+            .description("Changes to a lottery's drawn numbers")
+            .register(meterRegistry);
+    }
+
+    @TransactionalEventListener
+    public void onTicketPurchased(TicketPurchasedEvent event) {
+        purchasedTickets.increment();
+    }
+
+    @TransactionalEventListener
+    public void onTicketsImported(TicketsImportedEvent event) {
+        importedTickets.increment(event.getImportedTickets());
+    }
+
+    @TransactionalEventListener
+    public void onDrawRecorded(DrawRecordedEvent event) {
+        draws.increment();
+    }
+}
@@ -0,0 +1,67 @@
+package com.bingochain.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Times the JSON-RPC calls Web3j sends to the node, per RPC method.
+ *
+ * The status tag reflects the HTTP exchange only: a call the node answers with a
+ * JSON-RPC error still counts as success, one that fails to connect or times out as error.
+ */
+public class Web3jMetricsInterceptor implements Interceptor {
+
+    public static final String METRIC = "bingochain.web3j.requests";
+
+    private static final Pattern RPC_METHOD = Pattern.compile("\"method\"\\s*:\\s*\"([^\"]+)\"");
+
+    private final MeterRegistry meterRegistry;
+
+    public Web3jMetricsInterceptor(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String method = rpcMethod(request.body());
+        long start = System.nanoTime();
+        String status = "error";
+        try {
+            Response response = chain.proceed(request);
+            status = response.isSuccessful() ? "success" : "http_" + response.code();
+            return response;
+        } finally {
+            Timer.builder(METRIC)
+                .description("JSON-RPC calls to the Ethereum node")
+                .tag("method", method)
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String rpcMethod(RequestBody body) throws IOException {
+        if (body == null) {
+            return "unknown";
+        }
+        Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        String json = buffer.readUtf8();
+        if (json.startsWith("[")) {
+            return "batch";
+        }
+        Matcher matcher = RPC_METHOD.matcher(json);
+        return matcher.find() ? matcher.group(1) : "unknown";
+    }
+}
@@ -0,0 +1,9 @@
+package com.bingochain.repository;
+
+import com.bingochain.model.ChainSyncCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ChainSyncCheckpointRepository extends JpaRepository<ChainSyncCheckpoint, String> {
+}
@@ -1,30 +1,79 @@
 package com.bingochain.repository;
 
+import com.bingochain.dto.LotteryTicketView;
 import com.bingochain.model.LotteryTicket;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LotteryTicketRepository extends JpaRepository<LotteryTicket, Long> {
 
-    List<LotteryTicket> findByWalletAddress(String walletAddress);
+    // Ticket views for JSON responses: ticket columns plus the lottery summary, in one join
+    String TICKET_VIEW = "SELECT new com.bingochain.dto.LotteryTicketView(t.id, t.ticketId, t.walletAddress, " +
+        "l.id, l.lotteryName, l.status, l.drawnNumbers, t.chosenNumbers, t.matchedNumbers, t.ticketPricePaid, " +
+        "t.isWinner, t.prizeAmount, t.transactionHash, t.purchasedAt, t.updatedAt) " +
+        "FROM LotteryTicket t JOIN t.weeklyLottery l ";
+
+    // Ticket columns only, for exports; the lottery id comes from the foreign key without a join
+    String TICKET_ROW = "SELECT new com.bingochain.dto.LotteryTicketView(t.id, t.ticketId, t.walletAddress, " +
+        "t.weeklyLottery.id, t.chosenNumbers, t.matchedNumbers, t.ticketPricePaid, t.isWinner, t.prizeAmount, " +
+        "t.transactionHash, t.purchasedAt, t.updatedAt) FROM LotteryTicket t ";
 
-    List<LotteryTicket> findByWalletAddressAndWeeklyLotteryId(String walletAddress, Long weeklyLotteryId);
+    List<LotteryTicket> findByWalletAddress(String walletAddress);
 
     List<LotteryTicket> findByWeeklyLotteryId(Long weeklyLotteryId);
 
-    Optional<LotteryTicket> findByTicketId(String ticketId);
+    // Replayed purchases are answered with the original ticket, so its lottery is fetched with it
+    @EntityGraph(attributePaths = "weeklyLottery")
+    Optional<LotteryTicket> findByWeeklyLotteryIdAndTicketId(Long weeklyLotteryId, String ticketId);
+
+    @EntityGraph(attributePaths = "weeklyLottery")
+    Optional<LotteryTicket> findFirstByTransactionHash(String transactionHash);
+
+    @EntityGraph(attributePaths = "weeklyLottery")
+    Optional<LotteryTicket> findByWeeklyLotteryIdAndTransactionHash(Long weeklyLotteryId, String transactionHash);
+
+    @EntityGraph(attributePaths = "weeklyLottery")
+    Optional<LotteryTicket> findWithLotteryById(Long id);
+
+    @Query(TICKET_VIEW + "WHERE t.id = :id")
+    Optional<LotteryTicketView> findViewById(@Param("id") Long id);
+
+    // Contract ticket ids are only ambiguous on a partitioned table, where the oldest comes first
+    @Query(TICKET_VIEW + "WHERE t.ticketId = :ticketId ORDER BY t.id")
+    List<LotteryTicketView> findViewsByTicketId(@Param("ticketId") String ticketId, Limit limit);
+
+    @Query(TICKET_VIEW + "WHERE l.id = :lotteryId AND t.ticketId = :ticketId")
+    Optional<LotteryTicketView> findViewByLotteryIdAndTicketId(@Param("lotteryId") Long lotteryId,
+                                                               @Param("ticketId") String ticketId);
+
+    @Query(TICKET_VIEW + "WHERE t.walletAddress = :walletAddress ORDER BY t.purchasedAt DESC")
+    List<LotteryTicketView> findViewsByWalletAddress(@Param("walletAddress") String walletAddress);
+
+    @Query(TICKET_VIEW + "WHERE t.walletAddress = :walletAddress AND l.id = :lotteryId")
+    List<LotteryTicketView> findViewsByWalletAddressAndLotteryId(@Param("walletAddress") String walletAddress,
+                                                                 @Param("lotteryId") Long lotteryId);
 
-    @Query("SELECT t FROM LotteryTicket t WHERE t.isWinner = true")
-    List<LotteryTicket> findAllWinningTickets();
+    @Query(TICKET_VIEW + "WHERE l.id = :lotteryId")
+    List<LotteryTicketView> findViewsByLotteryId(@Param("lotteryId") Long lotteryId);
 
-    @Query("SELECT t FROM LotteryTicket t WHERE t.weeklyLottery.id = :lotteryId AND t.isWinner = true")
-    List<LotteryTicket> findWinningTicketsByLotteryId(@Param("lotteryId") Long lotteryId);
+    @Query(TICKET_VIEW + "WHERE t.isWinner = true")
+    List<LotteryTicketView> findAllWinningTickets();
+
+    @Query(TICKET_VIEW + "WHERE l.id = :lotteryId AND t.isWinner = true")
+    List<LotteryTicketView> findWinningTicketsByLotteryId(@Param("lotteryId") Long lotteryId);
 
     @Query("SELECT COUNT(t) FROM LotteryTicket t WHERE t.walletAddress = :walletAddress")
     Long countTicketsByPlayer(@Param("walletAddress") String walletAddress);
@@ -38,9 +87,39 @@ public interface LotteryTicketRepository extends JpaRepository<LotteryTicket, Lo
     @Query("SELECT SUM(t.prizeAmount) FROM LotteryTicket t WHERE t.walletAddress = :walletAddress AND t.isWinner = true")
     Double getTotalWonByPlayer(@Param("walletAddress") String walletAddress);
 
-    @Query("SELECT t FROM LotteryTicket t WHERE t.walletAddress = :walletAddress ORDER BY t.purchasedAt DESC")
-    List<LotteryTicket> findByWalletAddressOrderByPurchasedAtDesc(@Param("walletAddress") String walletAddress);
-
     @Query("SELECT t FROM LotteryTicket t WHERE t.weeklyLottery.id = :lotteryId AND t.matchedNumbers = :matchedNumbers")
     List<LotteryTicket> findTicketsByLotteryAndMatches(@Param("lotteryId") Long lotteryId, @Param("matchedNumbers") Integer matchedNumbers);
+
+    // Keyset pages ordered by (purchasedAt, id); the cursor is the last row of the previous page
+
+    @Query(TICKET_VIEW + "WHERE l.id = :lotteryId " +
+           "AND (t.purchasedAt > :purchasedAt OR (t.purchasedAt = :purchasedAt AND t.id > :id)) " +
+           "ORDER BY t.purchasedAt, t.id")
+    List<LotteryTicketView> findLotteryTicketsAfter(@Param("lotteryId") Long lotteryId, @Param("purchasedAt") LocalDateTime purchasedAt,
+                                                    @Param("id") Long id, Limit limit);
+
+    @Query(TICKET_VIEW + "WHERE t.isWinner = true " +
+           "AND (t.purchasedAt > :purchasedAt OR (t.purchasedAt = :purchasedAt AND t.id > :id)) " +
+           "ORDER BY t.purchasedAt, t.id")
+    List<LotteryTicketView> findWinningTicketsAfter(@Param("purchasedAt") LocalDateTime purchasedAt, @Param("id") Long id, Limit limit);
+
+    @Query(TICKET_VIEW + "WHERE t.walletAddress = :walletAddress " +
+           "AND (t.purchasedAt < :purchasedAt OR (t.purchasedAt = :purchasedAt AND t.id < :id)) " +
+           "ORDER BY t.purchasedAt DESC, t.id DESC")
+    List<LotteryTicketView> findPlayerTicketsBefore(@Param("walletAddress") String walletAddress, @Param("purchasedAt") LocalDateTime purchasedAt,
+                                                    @Param("id") Long id, Limit limit);
+
+    // Streams for NDJSON export; must be consumed inside a read-only transaction
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(TICKET_ROW + "WHERE t.weeklyLottery.id = :lotteryId ORDER BY t.purchasedAt, t.id")
+    Stream<LotteryTicketView> streamByLotteryId(@Param("lotteryId") Long lotteryId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(TICKET_ROW + "WHERE t.isWinner = true ORDER BY t.purchasedAt, t.id")
+    Stream<LotteryTicketView> streamAllWinningTickets();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query(TICKET_ROW + "WHERE t.walletAddress = :walletAddress ORDER BY t.purchasedAt DESC, t.id DESC")
+    Stream<LotteryTicketView> streamByWalletAddress(@Param("walletAddress") String walletAddress);
 }
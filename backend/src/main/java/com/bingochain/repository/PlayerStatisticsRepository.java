@@ -0,0 +1,9 @@
+package com.bingochain.repository;
+
+import com.bingochain.model.PlayerStatistics;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface PlayerStatisticsRepository extends JpaRepository<PlayerStatistics, String> {
+}
@@ -1,6 +1,8 @@
 package com.bingochain.repository;
 
+import com.bingochain.dto.WeeklyLotteryView;
 import com.bingochain.model.WeeklyLottery;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,12 +15,21 @@ import java.util.Optional;
 @Repository
 public interface WeeklyLotteryRepository extends JpaRepository<WeeklyLottery, Long> {
 
+    // Lottery views for JSON responses: every column except the drawn mask, no tickets
+    String LOTTERY_VIEW = "SELECT new com.bingochain.dto.WeeklyLotteryView(l.id, l.contractAddress, l.chainLotteryId, " +
+        "l.lotteryName, l.ticketPrice, l.prizePool, l.totalTickets, l.status, l.salesStartTime, l.salesEndTime, " +
+        "l.currentDrawDay, l.nextDrawTime, l.drawnNumbers, l.winnerAddresses, l.prizesDistributed, " +
+        "l.createdAt, l.updatedAt) FROM WeeklyLottery l ";
+
     Optional<WeeklyLottery> findByContractAddress(String contractAddress);
 
     List<WeeklyLottery> findByStatus(WeeklyLottery.LotteryStatus status);
 
-    @Query("SELECT l FROM WeeklyLottery l WHERE l.status = 'TICKET_SALES' AND l.salesStartTime <= :currentTime AND l.salesEndTime >= :currentTime")
-    List<WeeklyLottery> findActiveTicketSales(@Param("currentTime") LocalDateTime currentTime);
+    @Query(LOTTERY_VIEW + "WHERE l.id = :id")
+    Optional<WeeklyLotteryView> findViewById(@Param("id") Long id);
+
+    @Query(LOTTERY_VIEW + "WHERE l.status = 'TICKET_SALES' AND l.salesStartTime <= :currentTime AND l.salesEndTime >= :currentTime")
+    List<WeeklyLotteryView> findActiveTicketSales(@Param("currentTime") LocalDateTime currentTime);
 
     @Query("SELECT l FROM WeeklyLottery l WHERE l.status = 'DRAWING_PHASE'")
     List<WeeklyLottery> findLotteriesInDrawingPhase();
@@ -26,11 +37,17 @@ public interface WeeklyLotteryRepository extends JpaRepository<WeeklyLottery, Lo
     @Query("SELECT l FROM WeeklyLottery l WHERE l.status = 'DRAWING_PHASE' AND l.nextDrawTime <= :currentTime")
     List<WeeklyLottery> findLotteriesReadyForDraw(@Param("currentTime") LocalDateTime currentTime);
 
-    @Query("SELECT l FROM WeeklyLottery l ORDER BY l.createdAt DESC")
-    List<WeeklyLottery> findAllOrderByCreatedAtDesc();
+    @Query(LOTTERY_VIEW + "WHERE l.status = 'DRAWING_PHASE'")
+    List<WeeklyLotteryView> findDrawingPhaseViews();
+
+    @Query(LOTTERY_VIEW + "ORDER BY l.createdAt DESC")
+    List<WeeklyLotteryView> findAllOrderByCreatedAtDesc();
 
-    @Query("SELECT l FROM WeeklyLottery l WHERE l.status = 'COMPLETED'")
-    List<WeeklyLottery> findCompletedLotteries();
+    @Query(LOTTERY_VIEW + "ORDER BY l.createdAt DESC")
+    List<WeeklyLotteryView> findLatest(Limit limit);
+
+    @Query(LOTTERY_VIEW + "WHERE l.status = 'COMPLETED'")
+    List<WeeklyLotteryView> findCompletedLotteries();
 
     @Query("SELECT COUNT(l) FROM WeeklyLottery l WHERE l.status = 'COMPLETED'")
     Long countCompletedLotteries();
@@ -40,6 +57,4 @@ public interface WeeklyLotteryRepository extends JpaRepository<WeeklyLottery, Lo
 
     @Query("SELECT l FROM WeeklyLottery l WHERE l.salesStartTime >= :startDate AND l.salesStartTime <= :endDate")
     List<WeeklyLottery> findLotteriesByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
-
-    Optional<WeeklyLottery> findTopByOrderByCreatedAtDesc();
 }
@@ -0,0 +1,122 @@
+package com.bingochain.scheduling;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hashed timing wheel holding at most one deadline per key.
+ *
+ * Deadlines are rounded up to ticks and hashed into a fixed ring of buckets, so
+ * scheduling is O(1) and each {@link #advance} only looks at the buckets of the
+ * ticks that elapsed. Deadlines further away than one revolution stay in their
+ * bucket and are skipped until their tick comes round. Scheduling a key again
+ * replaces its previous deadline.
+ */
+public class TimingWheel {
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final int mask;
+    private final List<Entry>[] buckets;
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive: " + tickMillis);
+        }
+        if (wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new List[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Schedule a key at an epoch-millisecond deadline; past deadlines fire on the next advance
+     */
+    public synchronized void schedule(long key, long deadlineMillis) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+        long tick = Math.max(currentTick, ceilDiv(deadlineMillis - startMillis, tickMillis));
+        Entry entry = new Entry(key, deadlineMillis, tick);
+        buckets[(int) (tick & mask)].add(entry);
+        entries.put(key, entry);
+    }
+
+    public synchronized void cancel(long key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            entry.cancelled = true;
+        }
+    }
+
+    /**
+     * Get the deadline of a key, or null when nothing is scheduled for it
+     */
+    public synchronized Long deadlineOf(long key) {
+        Entry entry = entries.get(key);
+        return entry != null ? entry.deadlineMillis : null;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Move the wheel up to the given time and return the keys whose deadlines passed
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        List<Long> due = new ArrayList<>();
+        if (targetTick < currentTick) {
+            return due;
+        }
+
+        // Visit every bucket at most once, even after a long pause
+        long ticks = Math.min(targetTick - currentTick + 1, buckets.length);
+        for (long i = 0; i < ticks; i++) {
+            Iterator<Entry> iterator = buckets[(int) ((currentTick + i) & mask)].iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.cancelled) {
+                    iterator.remove();
+                } else if (entry.tick <= targetTick) {
+                    iterator.remove();
+                    entries.remove(entry.key);
+                    due.add(entry.key);
+                }
+            }
+        }
+        currentTick = targetTick + 1;
+        return due;
+    }
+
+    private static long ceilDiv(long dividend, long divisor) {
+        return -Math.floorDiv(-dividend, divisor);
+    }
+
+    private static class Entry {
+        final long key;
+        final long deadlineMillis;
+        final long tick;
+        boolean cancelled;
+
+        Entry(long key, long deadlineMillis, long tick) {
+            this.key = key;
+            this.deadlineMillis = deadlineMillis;
+            this.tick = tick;
+        }
+    }
+}
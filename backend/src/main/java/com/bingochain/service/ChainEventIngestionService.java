@@ -0,0 +1,604 @@
+package com.bingochain.service;
+
+import com.bingochain.event.DrawRecordedEvent;
+import com.bingochain.event.LotteryStatusChangedEvent;
+import com.bingochain.event.TicketsImportedEvent;
+import com.bingochain.model.ChainSyncCheckpoint;
+import com.bingochain.model.NumberSet;
+import com.bingochain.model.WeeklyLottery;
+import com.bingochain.repository.ChainSyncCheckpointRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.web3j.abi.EventEncoder;
+import org.web3j.abi.FunctionReturnDecoder;
+import org.web3j.abi.TypeReference;
+import org.web3j.abi.datatypes.Address;
+import org.web3j.abi.datatypes.DynamicArray;
+import org.web3j.abi.datatypes.Event;
+import org.web3j.abi.datatypes.Type;
+import org.web3j.abi.datatypes.generated.StaticArray6;
+import org.web3j.abi.datatypes.generated.Uint256;
+import org.web3j.abi.datatypes.generated.Uint8;
+import org.web3j.protocol.Web3j;
+import org.web3j.protocol.core.DefaultBlockParameter;
+import org.web3j.protocol.core.methods.request.EthFilter;
+import org.web3j.protocol.core.methods.response.EthLog;
+import org.web3j.protocol.core.methods.response.Log;
+import org.web3j.utils.Convert;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Pulls CryptoBingo contract logs into Postgres.
+ *
+ * Logs are fetched with eth_getLogs over fixed block ranges, decoded in parallel and
+ * written with set-based upserts. Each range is applied in one transaction together
+ * with the last-processed-block checkpoint, so a restart resumes exactly where the
+ * previous run stopped and replaying a range is harmless.
+ *
+ * A poll applies at most one window of {@code parallel-ranges} ranges, so catching up
+ * a long way never holds the shared scheduler thread; the next poll continues. A range
+ * with events of a chain lottery that no weekly lottery is mapped to is held back, with
+ * the checkpoint before it, until the mapping exists, unless
+ * {@code skip-unknown-lotteries} is set.
+ */
+@Service
+public class ChainEventIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChainEventIngestionService.class);
+
+    static final Event TICKET_PURCHASED = new Event("TicketPurchased", Arrays.asList(
+        new TypeReference<Uint256>(true) {},
+        new TypeReference<Address>(true) {},
+        new TypeReference<Uint256>(true) {},
+        new TypeReference<Uint256>() {},
+        new TypeReference<StaticArray6<Uint8>>() {}));
+
+    static final Event NUMBER_DRAWN = new Event("NumberDrawn", Arrays.asList(
+        new TypeReference<Uint256>(true) {},
+        new TypeReference<Uint256>() {},
+        new TypeReference<Uint256>() {},
+        new TypeReference<Uint256>() {}));
+
+    static final Event LOTTERY_COMPLETED = new Event("LotteryCompleted", Arrays.asList(
+        new TypeReference<Uint256>(true) {},
+        new TypeReference<DynamicArray<Uint256>>() {},
+        new TypeReference<DynamicArray<Address>>() {}));
+
+    static final Event PRIZE_DISTRIBUTED = new Event("PrizeDistributed", Arrays.asList(
+        new TypeReference<Uint256>(true) {},
+        new TypeReference<Address>(true) {},
+        new TypeReference<Uint256>() {},
+        new TypeReference<Uint256>() {}));
+
+    private static final String TICKET_PURCHASED_TOPIC = EventEncoder.encode(TICKET_PURCHASED);
+    private static final String NUMBER_DRAWN_TOPIC = EventEncoder.encode(NUMBER_DRAWN);
+    private static final String LOTTERY_COMPLETED_TOPIC = EventEncoder.encode(LOTTERY_COMPLETED);
+    private static final String PRIZE_DISTRIBUTED_TOPIC = EventEncoder.encode(PRIZE_DISTRIBUTED);
+
+    @Autowired
+    private Web3j web3j;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ChainSyncCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private WeeklyLotteryService weeklyLotteryService;
+
+    @Autowired
+    private PurchaseIdempotencyService purchaseIdempotencyService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    @Qualifier("rpcExecutor")
+    private AsyncTaskExecutor rpcExecutor;
+
+    @Value("${blockchain.contract.crypto-bingo.address:}")
+    private String contractAddress;
+
+    @Value("${blockchain.ingestion.enabled:false}")
+    private boolean enabled;
+
+    @Value("${blockchain.ingestion.batch-blocks:2000}")
+    private long batchBlocks;
+
+    @Value("${blockchain.ingestion.start-block:0}")
+    private long startBlock;
+
+    @Value("${blockchain.ingestion.confirmations:0}")
+    private long confirmations;
+
+    @Value("${blockchain.ingestion.parallel-ranges:4}")
+    private int parallelRanges;
+
+    @Value("${blockchain.ingestion.skip-unknown-lotteries:false}")
+    private boolean skipUnknownLotteries;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Poll the chain for new contract logs
+     */
+    @Scheduled(fixedDelayString = "${blockchain.ingestion.poll-interval-ms:15000}")
+    public void poll() {
+        if (!enabled || contractAddress == null || contractAddress.isBlank()) {
+            return;
+        }
+        try {
+            ingest(1);
+        } catch (RuntimeException e) {
+            log.error("Chain ingestion failed, will retry on next poll", e);
+        }
+    }
+
+    /**
+     * Process all confirmed blocks after the checkpoint
+     *
+     * @return number of logs applied
+     */
+    public long ingest() {
+        return ingest(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Process confirmed blocks after the checkpoint, at most {@code maxWindows} windows of ranges
+     */
+    private long ingest(int maxWindows) {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            long head = send(() -> web3j.ethBlockNumber().send().getBlockNumber()).longValue() - confirmations;
+            long from = checkpointRepository.findById(checkpointKey())
+                .map(checkpoint -> checkpoint.getLastProcessedBlock() + 1)
+                .orElse(startBlock);
+
+            // Fetch a window of ranges concurrently, then apply them strictly in block order
+            long applied = 0;
+            int windows = 0;
+            while (from <= head && windows++ < maxWindows) {
+                List<long[]> ranges = new ArrayList<>();
+                List<CompletableFuture<List<ChainEvent>>> fetches = new ArrayList<>();
+                while (ranges.size() < parallelRanges && from <= head) {
+                    long rangeFrom = from;
+                    long rangeTo = Math.min(head, from + batchBlocks - 1);
+                    ranges.add(new long[] {rangeFrom, rangeTo});
+                    fetches.add(CompletableFuture.supplyAsync(() -> fetchRange(rangeFrom, rangeTo), rpcExecutor));
+                    from = rangeTo + 1;
+                }
+                for (int i = 0; i < ranges.size(); i++) {
+                    long rangeApplied = applyRange(ranges.get(i)[0], ranges.get(i)[1], await(fetches.get(i)));
+                    if (rangeApplied < 0) {
+                        return applied;
+                    }
+                    applied += rangeApplied;
+                }
+            }
+            return applied;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private List<ChainEvent> fetchRange(long from, long to) {
+        EthFilter filter = new EthFilter(
+            DefaultBlockParameter.valueOf(BigInteger.valueOf(from)),
+            DefaultBlockParameter.valueOf(BigInteger.valueOf(to)),
+            contractAddress);
+        filter.addOptionalTopics(TICKET_PURCHASED_TOPIC, NUMBER_DRAWN_TOPIC, LOTTERY_COMPLETED_TOPIC, PRIZE_DISTRIBUTED_TOPIC);
+
+        EthLog response = send(() -> web3j.ethGetLogs(filter).send());
+        if (response.hasError()) {
+            throw new RuntimeException("eth_getLogs failed for blocks " + from + "-" + to + ": "
+                                       + response.getError().getMessage());
+        }
+
+        return response.getLogs().parallelStream()
+            .map(result -> (Log) result.get())
+            .map(this::decode)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return number of logs applied, or -1 if the range is held back for unmapped lotteries
+     */
+    private long applyRange(long from, long to, List<ChainEvent> events) {
+        long start = System.nanoTime();
+        Boolean applied = new TransactionTemplate(transactionManager).execute(status -> {
+            Map<Long, Long> lotteryIds = events.isEmpty() ? Map.of() : resolveLotteries(events);
+            Set<Long> unknown = new TreeSet<>();
+            for (ChainEvent event : events) {
+                if (!lotteryIds.containsKey(event.chainLotteryId)) {
+                    unknown.add(event.chainLotteryId);
+                }
+            }
+            if (!unknown.isEmpty() && !skipUnknownLotteries) {
+                log.warn("Holding chain ingestion at block {}: chain lotteries {} are not mapped to a weekly lottery",
+                         from, unknown);
+                return false;
+            }
+            apply(events, lotteryIds);
+            saveCheckpoint(to);
+            return true;
+        });
+        if (!Boolean.TRUE.equals(applied)) {
+            return -1;
+        }
+
+        log.info("Ingested blocks {}-{}: {} events in {} ms", from, to, events.size(),
+                 (System.nanoTime() - start) / 1_000_000);
+        return events.size();
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private ChainEvent decode(Log event) {
+        List<String> topics = event.getTopics();
+        if (topics == null || topics.isEmpty() || event.isRemoved()) {
+            return null;
+        }
+        String signature = topics.get(0);
+        if (TICKET_PURCHASED_TOPIC.equals(signature)) {
+            List<Type> data = FunctionReturnDecoder.decode(event.getData(), TICKET_PURCHASED.getNonIndexedParameters());
+            @SuppressWarnings("unchecked")
+            List<Uint8> numbers = ((StaticArray6<Uint8>) data.get(1)).getValue();
+            int[] chosen = numbers.stream().mapToInt(number -> number.getValue().intValue()).toArray();
+            if (!NumberSet.isValidTicket(toJson(chosen))) {
+                log.warn("Skipping ticket with invalid numbers in transaction {}", event.getTransactionHash());
+                return null;
+            }
+            return new TicketPurchased(event, indexedUint(topics.get(1)), indexedAddress(topics.get(2)),
+                                       indexedUint(topics.get(3)).toString(), chosen);
+        }
+        if (NUMBER_DRAWN_TOPIC.equals(signature)) {
+            List<Type> data = FunctionReturnDecoder.decode(event.getData(), NUMBER_DRAWN.getNonIndexedParameters());
+            return new NumberDrawn(event, indexedUint(topics.get(1)),
+                                   ((Uint256) data.get(0)).getValue().intValue(),
+                                   ((Uint256) data.get(1)).getValue().intValue());
+        }
+        if (LOTTERY_COMPLETED_TOPIC.equals(signature)) {
+            List<Type> data = FunctionReturnDecoder.decode(event.getData(), LOTTERY_COMPLETED.getNonIndexedParameters());
+            @SuppressWarnings("unchecked")
+            List<Address> winners = ((DynamicArray<Address>) data.get(1)).getValue();
+            return new LotteryCompleted(event, indexedUint(topics.get(1)),
+                                        winners.stream().map(Address::getValue).collect(Collectors.toList()));
+        }
+        if (PRIZE_DISTRIBUTED_TOPIC.equals(signature)) {
+            List<Type> data = FunctionReturnDecoder.decode(event.getData(), PRIZE_DISTRIBUTED.getNonIndexedParameters());
+            BigDecimal prize = Convert.fromWei(new BigDecimal(((Uint256) data.get(0)).getValue()), Convert.Unit.ETHER);
+            return new PrizeDistributed(event, indexedUint(topics.get(1)), indexedAddress(topics.get(2)), prize,
+                                        ((Uint256) data.get(1)).getValue().intValue());
+        }
+        return null;
+    }
+
+    private void apply(List<ChainEvent> events, Map<Long, Long> lotteryIds) {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<TicketPurchased> tickets = new ArrayList<>();
+        List<NumberDrawn> draws = new ArrayList<>();
+        List<LotteryCompleted> completions = new ArrayList<>();
+        List<PrizeDistributed> prizes = new ArrayList<>();
+        for (ChainEvent event : events) {
+            if (!lotteryIds.containsKey(event.chainLotteryId)) {
+                log.warn("Skipping {} for unknown chain lottery {}", event.getClass().getSimpleName(), event.chainLotteryId);
+            } else if (event instanceof TicketPurchased) {
+                tickets.add((TicketPurchased) event);
+            } else if (event instanceof NumberDrawn) {
+                draws.add((NumberDrawn) event);
+            } else if (event instanceof LotteryCompleted) {
+                completions.add((LotteryCompleted) event);
+            } else if (event instanceof PrizeDistributed) {
+                prizes.add((PrizeDistributed) event);
+            }
+        }
+
+        applyTickets(tickets, lotteryIds);
+        applyDraws(draws, lotteryIds);
+        applyCompletions(completions, lotteryIds);
+        applyPrizes(prizes, lotteryIds);
+
+        // Last, as it keeps the lottery rows locked until the range commits
+        Set<Long> changedLotteries = new TreeSet<>();
+        tickets.forEach(ticket -> changedLotteries.add(lotteryIds.get(ticket.chainLotteryId)));
+        prizes.forEach(prize -> changedLotteries.add(lotteryIds.get(prize.chainLotteryId)));
+        resourceVersionService.ticketsChanged(changedLotteries);
+
+        if (!draws.isEmpty() || !completions.isEmpty() || !prizes.isEmpty()) {
+            weeklyLotteryService.evictCaches();
+        }
+    }
+
+    private Map<Long, Long> resolveLotteries(List<ChainEvent> events) {
+        Set<Long> chainIds = events.stream().map(event -> event.chainLotteryId).collect(Collectors.toSet());
+        Map<Long, Long> lotteryIds = new HashMap<>();
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    "SELECT chain_lottery_id, id FROM weekly_lotteries WHERE chain_lottery_id = ANY(?)");
+                statement.setArray(1, connection.createArrayOf("bigint", chainIds.toArray()));
+                return statement;
+            },
+            rs -> {
+                lotteryIds.put(rs.getLong(1), rs.getLong(2));
+            });
+        return lotteryIds;
+    }
+
+    private void applyTickets(List<TicketPurchased> tickets, Map<Long, Long> lotteryIds) {
+        if (tickets.isEmpty()) {
+            return;
+        }
+        int size = tickets.size();
+        Object[] ticketIds = new Object[size];
+        Object[] wallets = new Object[size];
+        Object[] lotteries = new Object[size];
+        Object[] numbers = new Object[size];
+        Object[] masks = new Object[size];
+        Object[] hashes = new Object[size];
+        for (int i = 0; i < size; i++) {
+            TicketPurchased ticket = tickets.get(i);
+            NumberSet chosen = NumberSet.of(ticket.chosenNumbers);
+            ticketIds[i] = ticket.ticketId;
+            wallets[i] = ticket.buyer;
+            lotteries[i] = lotteryIds.get(ticket.chainLotteryId);
+            numbers[i] = toJson(ticket.chosenNumbers);
+            masks[i] = HexFormat.of().formatHex(chosen.toBytes());
+            hashes[i] = ticket.transactionHash;
+            purchaseIdempotencyService.record((Long) lotteries[i], ticket.ticketId, ticket.transactionHash);
+        }
+
+        // Ticket rows and their player_stats increments go in one statement; replays insert nothing
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    "WITH incoming AS (" +
+                    "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::bigint[], ?::varchar[], ?::varchar[], ?::varchar[]) " +
+                    "AS r(ticket_id, wallet_address, weekly_lottery_id, chosen_numbers, chosen_mask, transaction_hash)), " +
+                    "inserted AS (" +
+                    "INSERT INTO lottery_tickets (ticket_id, wallet_address, weekly_lottery_id, chosen_numbers, chosen_mask, " +
+                    "matched_numbers, ticket_price_paid, is_winner, prize_amount, transaction_hash, purchased_at, updated_at) " +
+                    "SELECT i.ticket_id, i.wallet_address, i.weekly_lottery_id, i.chosen_numbers, decode(i.chosen_mask, 'hex'), " +
+                    "0, l.ticket_price, false, 0, i.transaction_hash, NOW(), NOW() " +
+                    "FROM incoming i JOIN weekly_lotteries l ON l.id = i.weekly_lottery_id " +
+                    // A ticket already taken by id or by transaction hash is skipped
+                    "ON CONFLICT DO NOTHING " +
+                    "RETURNING weekly_lottery_id, wallet_address, ticket_price_paid), " +
+                    "stats AS (" + PlayerStatsService.upsertSql(
+                        "SELECT wallet_address, COUNT(*), 0, SUM(ticket_price_paid), 0 FROM inserted GROUP BY wallet_address") + ") " +
+                    "SELECT weekly_lottery_id, COUNT(*), SUM(ticket_price_paid) FROM inserted GROUP BY weekly_lottery_id");
+                statement.setArray(1, connection.createArrayOf("varchar", ticketIds));
+                statement.setArray(2, connection.createArrayOf("varchar", wallets));
+                statement.setArray(3, connection.createArrayOf("bigint", lotteries));
+                statement.setArray(4, connection.createArrayOf("varchar", numbers));
+                statement.setArray(5, connection.createArrayOf("varchar", masks));
+                statement.setArray(6, connection.createArrayOf("varchar", hashes));
+                return statement;
+            },
+            rs -> {
+                // Lottery totals pick these up through the event once the range commits
+                eventPublisher.publishEvent(new TicketsImportedEvent(rs.getLong(1), rs.getLong(2), rs.getBigDecimal(3)));
+            });
+    }
+
+    private void applyDraws(List<NumberDrawn> draws, Map<Long, Long> lotteryIds) {
+        if (draws.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO draw_events (weekly_lottery_id, draw_day, drawn_number, scheduled_time, drawn_at, transaction_hash, block_number) " +
+            "SELECT ?, ?, ?, NOW(), NOW(), ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM draw_events WHERE weekly_lottery_id = ? AND draw_day = ?)",
+            draws, draws.size(),
+            (statement, draw) -> {
+                Long lotteryId = lotteryIds.get(draw.chainLotteryId);
+                statement.setLong(1, lotteryId);
+                statement.setInt(2, draw.drawDay);
+                statement.setInt(3, draw.drawnNumber);
+                statement.setString(4, draw.transactionHash);
+                statement.setLong(5, draw.blockNumber);
+                statement.setLong(6, lotteryId);
+                statement.setInt(7, draw.drawDay);
+            });
+
+        Set<Long> touched = new LinkedHashSet<>();
+        draws.forEach(draw -> touched.add(lotteryIds.get(draw.chainLotteryId)));
+        for (Long lotteryId : touched) {
+            List<Integer> drawnNumbers = jdbcTemplate.queryForList(
+                "SELECT drawn_number FROM draw_events WHERE weekly_lottery_id = ? ORDER BY draw_day", Integer.class, lotteryId);
+            int[] numbers = drawnNumbers.stream().mapToInt(Integer::intValue).toArray();
+            String json = toJson(numbers);
+            jdbcTemplate.update(
+                "UPDATE weekly_lotteries SET drawn_numbers = ?, drawn_mask = ?, current_draw_day = ?, " +
+                "status = CASE WHEN status = 'TICKET_SALES' THEN 'DRAWING_PHASE' ELSE status END, updated_at = NOW() " +
+                "WHERE id = ?",
+                json, NumberSet.of(numbers).toBytes(), numbers.length, lotteryId);
+            eventPublisher.publishEvent(new DrawRecordedEvent(lotteryId, json));
+        }
+    }
+
+    private void applyCompletions(List<LotteryCompleted> completions, Map<Long, Long> lotteryIds) {
+        if (completions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+            "UPDATE weekly_lotteries SET status = 'COMPLETED', winner_addresses = ?, updated_at = NOW() WHERE id = ?",
+            completions, completions.size(),
+            (statement, completion) -> {
+                statement.setString(1, completion.winners.stream()
+                    .map(winner -> "\"" + winner + "\"").collect(Collectors.joining(",", "[", "]")));
+                statement.setLong(2, lotteryIds.get(completion.chainLotteryId));
+            });
+        completions.stream().map(completion -> lotteryIds.get(completion.chainLotteryId)).distinct()
+            .forEach(lotteryId -> eventPublisher.publishEvent(
+                new LotteryStatusChangedEvent(lotteryId, WeeklyLottery.LotteryStatus.COMPLETED)));
+    }
+
+    private void applyPrizes(List<PrizeDistributed> prizes, Map<Long, Long> lotteryIds) {
+        if (prizes.isEmpty()) {
+            return;
+        }
+        for (PrizeDistributed prize : prizes) {
+            Long lotteryId = lotteryIds.get(prize.chainLotteryId);
+            // Only tickets that were not yet winners change player_stats, so replays are no-ops
+            jdbcTemplate.update(
+                "WITH updated AS (" +
+                "UPDATE lottery_tickets SET is_winner = true, prize_amount = ?, updated_at = NOW() " +
+                "WHERE weekly_lottery_id = ? AND lower(wallet_address) = lower(?) AND matched_numbers = ? " +
+                "AND is_winner IS DISTINCT FROM true RETURNING wallet_address, prize_amount) " +
+                PlayerStatsService.upsertSql(
+                    "SELECT wallet_address, 0, COUNT(*), 0, SUM(prize_amount) FROM updated GROUP BY wallet_address"),
+                prize.prize, lotteryId, prize.winner, prize.matchedNumbers);
+        }
+        prizes.stream().map(prize -> lotteryIds.get(prize.chainLotteryId)).distinct()
+            .forEach(lotteryId -> jdbcTemplate.update(
+                "UPDATE weekly_lotteries SET prizes_distributed = true, updated_at = NOW() WHERE id = ?", lotteryId));
+    }
+
+    private void saveCheckpoint(long block) {
+        ChainSyncCheckpoint checkpoint = checkpointRepository.findById(checkpointKey())
+            .orElseGet(() -> new ChainSyncCheckpoint(checkpointKey(), block, null));
+        checkpoint.setLastProcessedBlock(block);
+        checkpoint.setUpdatedAt(LocalDateTime.now());
+        checkpointRepository.save(checkpoint);
+    }
+
+    private String checkpointKey() {
+        return contractAddress.toLowerCase();
+    }
+
+    private static String toJson(int[] numbers) {
+        return Arrays.stream(numbers).mapToObj(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static BigInteger indexedUint(String topic) {
+        return ((Uint256) FunctionReturnDecoder.decodeIndexedValue(topic, new TypeReference<Uint256>() {})).getValue();
+    }
+
+    private static String indexedAddress(String topic) {
+        return ((Address) FunctionReturnDecoder.decodeIndexedValue(topic, new TypeReference<Address>() {})).getValue();
+    }
+
+    private static <T> T send(RpcCall<T> call) {
+        try {
+            return call.send();
+        } catch (IOException e) {
+            throw new RuntimeException("JSON-RPC call failed: " + e.getMessage(), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RpcCall<T> {
+        T send() throws IOException;
+    }
+
+    private abstract static class ChainEvent {
+        final long chainLotteryId;
+        final String transactionHash;
+        final long blockNumber;
+
+        ChainEvent(Log log, BigInteger chainLotteryId) {
+            this.chainLotteryId = chainLotteryId.longValue();
+            this.transactionHash = log.getTransactionHash();
+            this.blockNumber = log.getBlockNumber() != null ? log.getBlockNumber().longValue() : 0L;
+        }
+    }
+
+    private static class TicketPurchased extends ChainEvent {
+        final String buyer;
+        final String ticketId;
+        final int[] chosenNumbers;
+
+        TicketPurchased(Log log, BigInteger lotteryId, String buyer, String ticketId, int[] chosenNumbers) {
+            super(log, lotteryId);
+            this.buyer = buyer;
+            this.ticketId = ticketId;
+            this.chosenNumbers = chosenNumbers;
+        }
+    }
+
+    private static class NumberDrawn extends ChainEvent {
+        final int drawnNumber;
+        final int drawDay;
+
+        NumberDrawn(Log log, BigInteger lotteryId, int drawnNumber, int drawDay) {
+            super(log, lotteryId);
+            this.drawnNumber = drawnNumber;
+            this.drawDay = drawDay;
+        }
+    }
+
+    private static class LotteryCompleted extends ChainEvent {
+        final List<String> winners;
+
+        LotteryCompleted(Log log, BigInteger lotteryId, List<String> winners) {
+            super(log, lotteryId);
+            this.winners = winners;
+        }
+    }
+
+    private static class PrizeDistributed extends ChainEvent {
+        final String winner;
+        final BigDecimal prize;
+        final int matchedNumbers;
+
+        PrizeDistributed(Log log, BigInteger lotteryId, String winner, BigDecimal prize, int matchedNumbers) {
+            super(log, lotteryId);
+            this.winner = winner;
+            this.prize = prize;
+            this.matchedNumbers = matchedNumbers;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package com.bingochain.service;
+
+import com.bingochain.event.DrawRecordedEvent;
+import com.bingochain.event.LotteryStatusChangedEvent;
+import com.bingochain.model.DrawEvent;
+import com.bingochain.model.NumberSet;
+import com.bingochain.model.WeeklyLottery;
+import com.bingochain.repository.DrawEventRepository;
+import com.bingochain.repository.WeeklyLotteryRepository;
+import com.bingochain.scheduling.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Drives lotteries through their schedule: closes ticket sales at salesEndTime,
+ * draws one number per day at nextDrawTime and completes the lottery after the
+ * sixth draw.
+ *
+ * Upcoming deadlines are kept in an in-memory timing wheel, loaded at startup and
+ * updated from lottery events, so the tables are only read when something is due
+ * and on a slow resync that picks up changes made by other instances. Each step
+ * runs under a transaction-scoped Postgres advisory lock on the lottery, so with
+ * several backends exactly one of them processes it; the others see the lock taken,
+ * retry shortly and find the lottery already moved on. Independent lotteries are
+ * processed in parallel on the task executor.
+ */
+@Service
+public class DrawSchedulerService {
+
+    private static final Logger log = LoggerFactory.getLogger(DrawSchedulerService.class);
+
+    // Advisory lock namespace ('BING'), paired with the lottery id as the second key
+    private static final int LOCK_NAMESPACE = 0x42494E47;
+
+    private static final int DAYS_IN_DRAW_PHASE = WeeklyLotteryService.DRAW_DAYS;
+    private static final int WHEEL_SIZE = 512;
+
+    @Autowired
+    private WeeklyLotteryRepository weeklyLotteryRepository;
+
+    @Autowired
+    private DrawEventRepository drawEventRepository;
+
+    @Autowired
+    private WeeklyLotteryService weeklyLotteryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${draw.scheduler.enabled:true}")
+    private boolean enabled;
+
+    @Value("${draw.scheduler.draw-numbers:true}")
+    private boolean drawNumbers;
+
+    @Value("${draw.scheduler.first-draw-delay-minutes:30}")
+    private long firstDrawDelayMinutes;
+
+    @Value("${draw.scheduler.retry-delay-ms:5000}")
+    private long retryDelayMillis;
+
+    @Value("${draw.scheduler.tick-ms:1000}")
+    private long tickMillis;
+
+    private TimingWheel wheel;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final SecureRandom random = new SecureRandom();
+
+    @PostConstruct
+    public void init() {
+        wheel = new TimingWheel(tickMillis, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Reload every open deadline from the database, including overdue lotteries and pending draws
+     */
+    @Scheduled(fixedDelayString = "${draw.scheduler.resync-interval-ms:60000}",
+               initialDelayString = "${draw.scheduler.resync-interval-ms:60000}")
+    public void reconcile() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        long nowMillis = System.currentTimeMillis();
+
+        for (WeeklyLottery lottery : weeklyLotteryRepository.findByStatus(WeeklyLottery.LotteryStatus.TICKET_SALES)) {
+            scheduleDeadline(lottery);
+        }
+        for (WeeklyLottery lottery : weeklyLotteryRepository.findLotteriesInDrawingPhase()) {
+            scheduleDeadline(lottery);
+        }
+        for (WeeklyLottery lottery : weeklyLotteryRepository.findLotteriesReadyForDraw(now)) {
+            wheel.schedule(lottery.getId(), nowMillis);
+        }
+        for (DrawEvent draw : drawEventRepository.findPendingDraws(now)) {
+            wheel.schedule(draw.getWeeklyLottery().getId(), nowMillis);
+        }
+        log.debug("Draw scheduler holds {} deadlines", wheel.size());
+    }
+
+    @TransactionalEventListener
+    public void onStatusChanged(LotteryStatusChangedEvent event) {
+        reschedule(event.getLotteryId());
+    }
+
+    @TransactionalEventListener
+    public void onDrawRecorded(DrawRecordedEvent event) {
+        reschedule(event.getLotteryId());
+    }
+
+    /**
+     * Fire the lotteries whose deadlines passed
+     */
+    @Scheduled(fixedRateString = "${draw.scheduler.tick-ms:1000}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+        for (Long lotteryId : wheel.advance(System.currentTimeMillis())) {
+            if (!inFlight.add(lotteryId)) {
+                // Still processing the previous step; look again once it is done
+                wheel.schedule(lotteryId, System.currentTimeMillis() + retryDelayMillis);
+                continue;
+            }
+            taskExecutor.execute(() -> {
+                try {
+                    process(lotteryId);
+                } catch (RuntimeException e) {
+                    log.error("Draw scheduling failed for lottery {}", lotteryId, e);
+                    wheel.schedule(lotteryId, System.currentTimeMillis() + retryDelayMillis);
+                } finally {
+                    inFlight.remove(lotteryId);
+                }
+            });
+        }
+    }
+
+    private void process(Long lotteryId) {
+        Boolean locked = new TransactionTemplate(transactionManager).execute(status -> {
+            Boolean acquired = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?, ?)", Boolean.class, LOCK_NAMESPACE, lotteryId.intValue());
+            if (!Boolean.TRUE.equals(acquired)) {
+                return false;
+            }
+            weeklyLotteryRepository.findById(lotteryId).ifPresent(this::advanceLottery);
+            return true;
+        });
+
+        if (Boolean.TRUE.equals(locked)) {
+            reschedule(lotteryId);
+            // Still overdue after this step: catching up, or waiting for a draw from the chain
+            Long deadline = wheel.deadlineOf(lotteryId);
+            if (deadline != null && deadline <= System.currentTimeMillis()) {
+                wheel.schedule(lotteryId, System.currentTimeMillis() + retryDelayMillis);
+            }
+        } else {
+            // Another instance is on it; by the retry it will have moved the lottery on
+            wheel.schedule(lotteryId, System.currentTimeMillis() + retryDelayMillis);
+        }
+    }
+
+    /**
+     * Apply whatever step is due; re-checks the state because another instance may have done it already
+     */
+    private void advanceLottery(WeeklyLottery lottery) {
+        LocalDateTime now = LocalDateTime.now();
+        Long lotteryId = lottery.getId();
+
+        if (lottery.getStatus() == WeeklyLottery.LotteryStatus.TICKET_SALES) {
+            if (lottery.getSalesEndTime() == null || lottery.getSalesEndTime().isAfter(now)) {
+                return;
+            }
+            if (lottery.getNextDrawTime() == null) {
+                weeklyLotteryService.updateNextDrawTime(lotteryId, lottery.getSalesEndTime().plusMinutes(firstDrawDelayMinutes));
+            }
+            weeklyLotteryService.updateLotteryStatus(lotteryId, WeeklyLottery.LotteryStatus.DRAWING_PHASE);
+            log.info("Closed ticket sales for lottery {}", lotteryId);
+            return;
+        }
+
+        if (lottery.getStatus() != WeeklyLottery.LotteryStatus.DRAWING_PHASE
+            || (lottery.getNextDrawTime() != null && lottery.getNextDrawTime().isAfter(now))) {
+            return;
+        }
+
+        int drawDay = (lottery.getCurrentDrawDay() != null ? lottery.getCurrentDrawDay() : 0) + 1;
+        if (drawDay <= DAYS_IN_DRAW_PHASE) {
+            if (!drawNumbers) {
+                // Draws arrive from the contract through chain ingestion
+                return;
+            }
+            int number = pickNumber(lottery);
+            weeklyLotteryService.recordDrawEvent(lotteryId, drawDay, number, null, null);
+            log.info("Drew number {} for lottery {} (day {})", number, lotteryId, drawDay);
+        }
+
+        if (drawDay >= DAYS_IN_DRAW_PHASE) {
+            weeklyLotteryService.updateLotteryStatus(lotteryId, WeeklyLottery.LotteryStatus.COMPLETED);
+            log.info("Completed lottery {}", lotteryId);
+        } else {
+            LocalDateTime previous = lottery.getNextDrawTime() != null ? lottery.getNextDrawTime() : now;
+            weeklyLotteryService.updateNextDrawTime(lotteryId, previous.plusDays(1));
+        }
+    }
+
+    private int pickNumber(WeeklyLottery lottery) {
+        NumberSet drawn = lottery.getDrawnMask() != null ? lottery.getDrawnMask() : NumberSet.tryParse(lottery.getDrawnNumbers());
+        List<Integer> remaining = new ArrayList<>(NumberSet.MAX_NUMBER);
+        for (int number = NumberSet.MIN_NUMBER; number <= NumberSet.MAX_NUMBER; number++) {
+            if (drawn == null || !drawn.contains(number)) {
+                remaining.add(number);
+            }
+        }
+        return remaining.get(random.nextInt(remaining.size()));
+    }
+
+    private void reschedule(Long lotteryId) {
+        if (!enabled) {
+            return;
+        }
+        weeklyLotteryRepository.findById(lotteryId).ifPresentOrElse(this::scheduleDeadline, () -> wheel.cancel(lotteryId));
+    }
+
+    private void scheduleDeadline(WeeklyLottery lottery) {
+        LocalDateTime deadline = null;
+        if (lottery.getStatus() == WeeklyLottery.LotteryStatus.TICKET_SALES) {
+            deadline = lottery.getSalesEndTime();
+        } else if (lottery.getStatus() == WeeklyLottery.LotteryStatus.DRAWING_PHASE) {
+            deadline = lottery.getNextDrawTime() != null ? lottery.getNextDrawTime() : LocalDateTime.now();
+        }
+
+        if (deadline == null) {
+            wheel.cancel(lottery.getId());
+        } else {
+            wheel.schedule(lottery.getId(), deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+}
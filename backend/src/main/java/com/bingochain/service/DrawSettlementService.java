@@ -0,0 +1,353 @@
+package com.bingochain.service;
+
+import com.bingochain.event.DrawRecordedEvent;
+import com.bingochain.event.LotteryStatusChangedEvent;
+import com.bingochain.index.LotteryTicketIndex;
+import com.bingochain.model.NumberSet;
+import com.bingochain.model.WeeklyLottery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Recomputes matched numbers for every ticket of a lottery after a draw.
+ *
+ * Tickets are read in keyset-ordered chunks, matched on a dedicated fork-join pool
+ * and written back with one set-based UPDATE per distinct match count, so a draw
+ * costs a handful of statements per chunk instead of one round trip per ticket.
+ * When the lottery's ticket index is loaded, a single new number only rewrites the
+ * tickets in that number's posting list. Every pass ends by paying out the prize
+ * pool once the lottery is completed, see {@link PrizePayoutService}.
+ */
+@Service
+public class DrawSettlementService {
+
+    private static final Logger log = LoggerFactory.getLogger(DrawSettlementService.class);
+
+    private static final int MAX_MATCHES = 6;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TicketIndexService ticketIndexService;
+
+    @Autowired
+    private PrizePayoutService prizePayoutService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Value("${settlement.chunk-size:10000}")
+    private int chunkSize;
+
+    private final ForkJoinPool matchPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final Map<Long, SettlementProgress> progressByLottery = new ConcurrentHashMap<>();
+
+    private final Map<Long, AtomicBoolean> runningByLottery = new ConcurrentHashMap<>();
+
+    private final Map<Long, AtomicBoolean> rerunRequested = new ConcurrentHashMap<>();
+
+    /**
+     * Settle the lottery once the transaction that changed its drawn numbers has committed
+     */
+    @Async
+    @TransactionalEventListener
+    public void onDrawRecorded(DrawRecordedEvent event) {
+        settleLottery(event.getLotteryId(), event.getNewNumber());
+    }
+
+    /**
+     * Pay out a lottery once it is completed; its matches are already settled by its draws
+     */
+    @Async
+    @TransactionalEventListener
+    public void onStatusChanged(LotteryStatusChangedEvent event) {
+        if (event.getStatus() == WeeklyLottery.LotteryStatus.COMPLETED) {
+            settle(event.getLotteryId(), null, false);
+        }
+    }
+
+    /**
+     * Recompute matched numbers for all tickets of a lottery
+     */
+    public void settleLottery(Long lotteryId) {
+        settleLottery(lotteryId, null);
+    }
+
+    /**
+     * Recompute matched numbers after a draw. When {@code newNumber} is known and the
+     * lottery's ticket index is in memory and holds all its tickets, only the tickets that
+     * chose that number are touched; otherwise every ticket is rescanned.
+     * If a settlement for the same lottery is already running, it is asked to run again
+     * once it finishes so the latest drawn numbers always win.
+     */
+    public void settleLottery(Long lotteryId, Integer newNumber) {
+        settle(lotteryId, newNumber, true);
+    }
+
+    private void settle(Long lotteryId, Integer newNumber, boolean recomputeMatches) {
+        AtomicBoolean running = runningByLottery.computeIfAbsent(lotteryId, id -> new AtomicBoolean());
+        AtomicBoolean rerun = rerunRequested.computeIfAbsent(lotteryId, id -> new AtomicBoolean());
+
+        rerun.set(true);
+        boolean firstRun = true;
+        while (rerun.get() && running.compareAndSet(false, true)) {
+            try {
+                rerun.set(false);
+                Optional<LotteryTicketIndex> index = firstRun && recomputeMatches && newNumber != null
+                    ? ticketIndexService.getCompleteIndex(lotteryId) : Optional.empty();
+                if (firstRun && !recomputeMatches) {
+                    log.debug("Paying out lottery {} without rescanning its tickets", lotteryId);
+                } else if (index.isPresent()) {
+                    runIncrementalSettlement(lotteryId, newNumber, index.get());
+                } else {
+                    runSettlement(lotteryId);
+                }
+                firstRun = false;
+                prizePayoutService.settlePrizes(lotteryId);
+            } finally {
+                running.set(false);
+            }
+        }
+    }
+
+    /**
+     * Get progress of the latest settlement for a lottery
+     */
+    public Optional<SettlementProgress> getProgress(Long lotteryId) {
+        return Optional.ofNullable(progressByLottery.get(lotteryId));
+    }
+
+    private void runSettlement(Long lotteryId) {
+        NumberSet drawnMask = loadDrawnNumbers(lotteryId);
+
+        Long total = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM lottery_tickets WHERE weekly_lottery_id = ?", Long.class, lotteryId);
+        SettlementProgress progress = new SettlementProgress(lotteryId, total != null ? total : 0L);
+        progressByLottery.put(lotteryId, progress);
+
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        long lastId = 0L;
+        try {
+            while (true) {
+                List<TicketRow> chunk = loadChunk(lotteryId, lastId);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                int[] matches = computeMatches(chunk, drawnMask);
+                chunkTransaction.executeWithoutResult(status -> {
+                    writeMatches(lotteryId, chunk, matches);
+                    resourceVersionService.ticketsChanged(lotteryId);
+                });
+
+                lastId = chunk.get(chunk.size() - 1).id;
+                progress.advance(chunk.size());
+                log.debug("Settlement of lottery {}: {}/{} tickets", lotteryId,
+                          progress.getProcessedTickets(), progress.getTotalTickets());
+            }
+            progress.finish(null);
+            log.info("Settled lottery {} ({} tickets) in {} ms", lotteryId,
+                     progress.getProcessedTickets(), progress.getElapsedMillis());
+        } catch (RuntimeException e) {
+            progress.finish(e.getMessage());
+            log.error("Settlement of lottery {} failed after {} tickets", lotteryId,
+                      progress.getProcessedTickets(), e);
+            throw e;
+        }
+    }
+
+    private void runIncrementalSettlement(Long lotteryId, int newNumber, LotteryTicketIndex index) {
+        long[][] idsByMatches = index.matchCountsForDraw(newNumber, loadDrawnNumbers(lotteryId).toArray());
+        long total = 0;
+        for (long[] ids : idsByMatches) {
+            total += ids.length;
+        }
+        SettlementProgress progress = new SettlementProgress(lotteryId, total);
+        progressByLottery.put(lotteryId, progress);
+
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        try {
+            for (int matched = 0; matched <= MAX_MATCHES; matched++) {
+                long[] ids = idsByMatches[matched];
+                for (int from = 0; from < ids.length; from += chunkSize) {
+                    int to = Math.min(ids.length, from + chunkSize);
+                    List<Long> chunk = new ArrayList<>(to - from);
+                    for (int i = from; i < to; i++) {
+                        chunk.add(ids[i]);
+                    }
+                    int matchedNumbers = matched;
+                    chunkTransaction.executeWithoutResult(status -> {
+                        updateMatches(lotteryId, chunk, matchedNumbers);
+                        resourceVersionService.ticketsChanged(lotteryId);
+                    });
+                    progress.advance(chunk.size());
+                }
+            }
+            progress.finish(null);
+            log.info("Settled number {} of lottery {} ({} tickets) in {} ms", newNumber, lotteryId,
+                     progress.getProcessedTickets(), progress.getElapsedMillis());
+        } catch (RuntimeException e) {
+            progress.finish(e.getMessage());
+            log.error("Incremental settlement of lottery {} failed after {} tickets", lotteryId,
+                      progress.getProcessedTickets(), e);
+            throw e;
+        }
+    }
+
+    private NumberSet loadDrawnNumbers(Long lotteryId) {
+        List<NumberSet> drawn = jdbcTemplate.query(
+            "SELECT drawn_mask, drawn_numbers FROM weekly_lotteries WHERE id = ?",
+            (rs, rowNum) -> decode(rs.getBytes(1), rs.getString(2)),
+            lotteryId);
+        if (drawn.isEmpty()) {
+            throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+        }
+        return drawn.get(0);
+    }
+
+    private List<TicketRow> loadChunk(Long lotteryId, long afterId) {
+        return jdbcTemplate.query(
+            "SELECT id, chosen_mask, chosen_numbers FROM lottery_tickets " +
+            "WHERE weekly_lottery_id = ? AND id > ? ORDER BY id LIMIT ?",
+            (rs, rowNum) -> new TicketRow(rs.getLong(1), rs.getBytes(2), rs.getString(3)),
+            lotteryId, afterId, chunkSize);
+    }
+
+    private int[] computeMatches(List<TicketRow> chunk, NumberSet drawnNumbers) {
+        int[] matches = new int[chunk.size()];
+        matchPool.submit(() -> IntStream.range(0, chunk.size()).parallel().forEach(i -> {
+            TicketRow row = chunk.get(i);
+            matches[i] = decode(row.chosenMask, row.chosenNumbers).countMatches(drawnNumbers);
+        })).join();
+        return matches;
+    }
+
+    private void writeMatches(Long lotteryId, List<TicketRow> chunk, int[] matches) {
+        List<List<Long>> idsByMatches = new ArrayList<>(MAX_MATCHES + 1);
+        for (int i = 0; i <= MAX_MATCHES; i++) {
+            idsByMatches.add(new ArrayList<>());
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            idsByMatches.get(Math.min(matches[i], MAX_MATCHES)).add(chunk.get(i).id);
+        }
+
+        for (int matched = 0; matched <= MAX_MATCHES; matched++) {
+            List<Long> ids = idsByMatches.get(matched);
+            if (!ids.isEmpty()) {
+                updateMatches(lotteryId, ids, matched);
+            }
+        }
+    }
+
+    // The lottery id lets a partitioned table prune to the lottery's partition
+    private void updateMatches(Long lotteryId, List<Long> ids, int matchedNumbers) {
+        jdbcTemplate.update(connection -> {
+            Array idArray = connection.createArrayOf("bigint", ids.toArray());
+            PreparedStatement statement = connection.prepareStatement(
+                "UPDATE lottery_tickets SET matched_numbers = ?, updated_at = NOW() " +
+                "WHERE weekly_lottery_id = ? AND id = ANY(?) AND matched_numbers IS DISTINCT FROM ?");
+            statement.setInt(1, matchedNumbers);
+            statement.setLong(2, lotteryId);
+            statement.setArray(3, idArray);
+            statement.setInt(4, matchedNumbers);
+            return statement;
+        });
+    }
+
+    /**
+     * Prefer the packed mask column and fall back to the JSON text for rows written before it existed
+     */
+    private static NumberSet decode(byte[] mask, String json) {
+        if (mask != null) {
+            return NumberSet.fromBytes(mask);
+        }
+        NumberSet parsed = NumberSet.tryParse(json);
+        return parsed != null ? parsed : NumberSet.EMPTY;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        matchPool.shutdown();
+    }
+
+    private static class TicketRow {
+        private final long id;
+        private final byte[] chosenMask;
+        private final String chosenNumbers;
+
+        private TicketRow(long id, byte[] chosenMask, String chosenNumbers) {
+            this.id = id;
+            this.chosenMask = chosenMask;
+            this.chosenNumbers = chosenNumbers;
+        }
+    }
+
+    /**
+     * Helper class for settlement progress
+     */
+    public static class SettlementProgress {
+        private final Long lotteryId;
+        private final Long totalTickets;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong processedTickets = new AtomicLong();
+        private volatile Long elapsedMillis;
+        private volatile String error;
+
+        public SettlementProgress(Long lotteryId, Long totalTickets) {
+            this.lotteryId = lotteryId;
+            this.totalTickets = totalTickets;
+        }
+
+        void advance(int tickets) {
+            processedTickets.addAndGet(tickets);
+        }
+
+        void finish(String error) {
+            this.error = error;
+            this.elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        public Long getLotteryId() { return lotteryId; }
+        public Long getTotalTickets() { return totalTickets; }
+        public Long getProcessedTickets() { return processedTickets.get(); }
+        public LocalDateTime getStartedAt() { return startedAt; }
+        public String getError() { return error; }
+        public boolean isRunning() { return elapsedMillis == null; }
+
+        public Long getElapsedMillis() {
+            Long elapsed = elapsedMillis;
+            return elapsed != null ? elapsed : (System.nanoTime() - startNanos) / 1_000_000;
+        }
+
+        public Double getPercentComplete() {
+            return totalTickets > 0 ? (processedTickets.get() * 100.0) / totalTickets : 100.0;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.bingochain.service;
+
+import com.bingochain.event.DrawRecordedEvent;
+import com.bingochain.event.LotteryStatusChangedEvent;
+import com.bingochain.event.LotteryTotalsChangedEvent;
+import com.bingochain.model.NumberSet;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+
+/**
+ * Pushes committed lottery changes to STOMP subscribers.
+ *
+ * Status transitions and drawn numbers are sent as soon as their transaction commits.
+ * Ticket sales are coalesced by {@link LotteryTotalsService}: a burst of purchases
+ * costs one message per lottery and flush interval instead of one per ticket.
+ * Messages reach the subscribers of every instance through {@link LotteryUpdateRelay}.
+ *
+ * Slow clients may have frames dropped, so no message depends on an earlier one:
+ * ticket and draw messages carry the full totals and drawn numbers, and status
+ * messages carry the whole live state of the lottery.
+ */
+@Service
+public class LotteryBroadcastService {
+
+    public static final String TOPIC = "/topic/lotteries";
+
+    @Autowired
+    private LotteryUpdateRelay lotteryUpdateRelay;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Ticket counts arrive already coalesced, once per totals flush
+     */
+    @EventListener
+    public void onTotalsChanged(LotteryTotalsChangedEvent event) {
+        LotteryUpdate update = new LotteryUpdate(UpdateType.TICKETS, event.getLotteryId());
+        update.totalTickets = event.getTotalTickets();
+        update.prizePool = event.getPrizePool();
+        send(update);
+    }
+
+    @TransactionalEventListener
+    public void onStatusChanged(LotteryStatusChangedEvent event) {
+        LotteryUpdate update = new LotteryUpdate(UpdateType.STATUS, event.getLotteryId());
+        update.status = event.getStatus().name();
+        // Read after commit, so it is at least as new as the transition
+        jdbcTemplate.query(
+            "SELECT status, total_tickets, prize_pool, drawn_numbers, current_draw_day FROM weekly_lotteries WHERE id = ?",
+            rs -> {
+                update.status = rs.getString(1);
+                update.totalTickets = rs.getInt(2);
+                update.prizePool = rs.getBigDecimal(3);
+                update.drawnNumbers = rs.getString(4);
+                update.currentDrawDay = rs.getInt(5);
+            },
+            event.getLotteryId());
+        send(update);
+    }
+
+    @TransactionalEventListener
+    public void onDrawRecorded(DrawRecordedEvent event) {
+        LotteryUpdate update = new LotteryUpdate(UpdateType.DRAW, event.getLotteryId());
+        // Each draw message carries the full list, so a client that dropped an earlier one catches up
+        update.drawnNumbers = event.getDrawnNumbers();
+        update.newNumber = event.getNewNumber();
+        NumberSet drawn = NumberSet.tryParse(event.getDrawnNumbers());
+        update.currentDrawDay = drawn != null ? drawn.size() : null;
+        send(update);
+    }
+
+    private void send(LotteryUpdate update) {
+        lotteryUpdateRelay.publish(update.getLotteryId(), update);
+    }
+
+    public enum UpdateType {
+        TICKETS,
+        STATUS,
+        DRAW
+    }
+
+    /**
+     * Helper class for broadcast payloads; only the fields of the update type are set,
+     * except for STATUS, which sets all of them
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class LotteryUpdate {
+        private final UpdateType type;
+        private final Long lotteryId;
+        private final long timestamp = System.currentTimeMillis();
+        private Integer totalTickets;
+        private BigDecimal prizePool;
+        private String status;
+        private String drawnNumbers;
+        private Integer newNumber;
+        private Integer currentDrawDay;
+
+        public LotteryUpdate(UpdateType type, Long lotteryId) {
+            this.type = type;
+            this.lotteryId = lotteryId;
+        }
+
+        public UpdateType getType() { return type; }
+        public Long getLotteryId() { return lotteryId; }
+        public long getTimestamp() { return timestamp; }
+        public Integer getTotalTickets() { return totalTickets; }
+        public BigDecimal getPrizePool() { return prizePool; }
+        public String getStatus() { return status; }
+        public String getDrawnNumbers() { return drawnNumbers; }
+        public Integer getNewNumber() { return newNumber; }
+        public Integer getCurrentDrawDay() { return currentDrawDay; }
+    }
+}
@@ -1,17 +1,45 @@
 package com.bingochain.service;
 
+import com.bingochain.archive.TicketSegment;
+import com.bingochain.dto.LotteryTicketView;
+import com.bingochain.event.TicketPurchasedEvent;
 import com.bingochain.model.LotteryTicket;
+import com.bingochain.model.NumberSet;
 import com.bingochain.model.WeeklyLottery;
 import com.bingochain.repository.LotteryTicketRepository;
 import com.bingochain.repository.WeeklyLotteryRepository;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -23,6 +51,39 @@ public class LotteryTicketService {
     @Autowired
     private WeeklyLotteryRepository weeklyLotteryRepository;
 
+    @Autowired
+    private PlayerStatsService playerStatsService;
+
+    @Autowired
+    private PurchaseIdempotencyService purchaseIdempotencyService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TicketArchiveService ticketArchiveService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int STREAM_FLUSH_ROWS = 500;
+
+    private static final LocalDateTime FIRST_PURCHASE = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime LAST_PURCHASE = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private static final Comparator<LotteryTicketView> OLDEST_FIRST = Comparator
+        .comparing(LotteryTicketView::getPurchasedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparing(LotteryTicketView::getId);
+    private static final Comparator<LotteryTicketView> NEWEST_FIRST = OLDEST_FIRST.reversed();
+
     /**
      * Create a new lottery ticket
      */
@@ -35,62 +96,135 @@ public class LotteryTicketService {
     /**
      * Get ticket by ID
      */
-    public Optional<LotteryTicket> getTicketById(Long id) {
-        return lotteryTicketRepository.findById(id);
+    @Transactional(readOnly = true)
+    public Optional<LotteryTicketView> getTicketById(Long id) {
+        return lotteryTicketRepository.findViewById(id);
     }
 
     /**
-     * Get ticket by contract ticket ID
+     * Get ticket by contract ticket ID, which is unique within its lottery. Without a
+     * lottery it is looked up across all of them, where it is unique unless partitioned.
      */
-    public Optional<LotteryTicket> getTicketByTicketId(String ticketId) {
-        return lotteryTicketRepository.findByTicketId(ticketId);
+    @Transactional(readOnly = true)
+    public Optional<LotteryTicketView> getTicketByTicketId(Long lotteryId, String ticketId) {
+        if (lotteryId == null) {
+            return lotteryTicketRepository.findViewsByTicketId(ticketId, Limit.of(1)).stream().findFirst();
+        }
+        return lotteryTicketRepository.findViewByLotteryIdAndTicketId(lotteryId, ticketId);
     }
 
     /**
      * Get all tickets for a player
      */
-    public List<LotteryTicket> getPlayerTickets(String walletAddress) {
-        return lotteryTicketRepository.findByWalletAddressOrderByPurchasedAtDesc(walletAddress);
+    @Transactional(readOnly = true)
+    public List<LotteryTicketView> getPlayerTickets(String walletAddress) {
+        List<LotteryTicketView> tickets = withArchived(lotteryTicketRepository.findViewsByWalletAddress(walletAddress),
+                                                       archivedPlayerTickets(walletAddress));
+        tickets.sort(NEWEST_FIRST);
+        return tickets;
     }
 
     /**
      * Get player tickets for a specific lottery
      */
-    public List<LotteryTicket> getPlayerTicketsForLottery(String walletAddress, Long lotteryId) {
-        return lotteryTicketRepository.findByWalletAddressAndWeeklyLotteryId(walletAddress, lotteryId);
+    @Transactional(readOnly = true)
+    public List<LotteryTicketView> getPlayerTicketsForLottery(String walletAddress, Long lotteryId) {
+        return fromLottery(lotteryId,
+            () -> lotteryTicketRepository.findViewsByWalletAddressAndLotteryId(walletAddress, lotteryId),
+            segment -> segment.walletTickets(walletAddress));
     }
 
     /**
      * Get all tickets for a lottery
      */
-    public List<LotteryTicket> getLotteryTickets(Long lotteryId) {
-        return lotteryTicketRepository.findByWeeklyLotteryId(lotteryId);
+    @Transactional(readOnly = true)
+    public List<LotteryTicketView> getLotteryTickets(Long lotteryId) {
+        return fromLottery(lotteryId, () -> lotteryTicketRepository.findViewsByLotteryId(lotteryId), TicketSegment::tickets);
     }
 
     /**
      * Get winning tickets for a lottery
      */
-    public List<LotteryTicket> getWinningTickets(Long lotteryId) {
-        return lotteryTicketRepository.findWinningTicketsByLotteryId(lotteryId);
+    @Transactional(readOnly = true)
+    public List<LotteryTicketView> getWinningTickets(Long lotteryId) {
+        return fromLottery(lotteryId, () -> lotteryTicketRepository.findWinningTicketsByLotteryId(lotteryId),
+                           TicketSegment::winners);
     }
 
     /**
      * Get all winning tickets
      */
-    public List<LotteryTicket> getAllWinningTickets() {
-        return lotteryTicketRepository.findAllWinningTickets();
+    @Transactional(readOnly = true)
+    public List<LotteryTicketView> getAllWinningTickets() {
+        List<LotteryTicketView> archived = new ArrayList<>();
+        for (TicketSegment segment : ticketArchiveService.getSegments()) {
+            archived.addAll(segment.winners());
+        }
+        return withArchived(lotteryTicketRepository.findAllWinningTickets(), archived);
+    }
+
+    /**
+     * Tickets of one lottery: from its segment once archived, else from the table. A lottery
+     * archived by another instance has no rows left, so an empty result checks for its segment.
+     */
+    private List<LotteryTicketView> fromLottery(Long lotteryId, Supplier<List<LotteryTicketView>> live,
+                                                Function<TicketSegment, List<LotteryTicketView>> archived) {
+        TicketSegment segment = ticketArchiveService.getSegment(lotteryId);
+        if (segment != null) {
+            return archived.apply(segment);
+        }
+        List<LotteryTicketView> tickets = live.get();
+        if (tickets.isEmpty()) {
+            segment = ticketArchiveService.loadSegment(lotteryId);
+            if (segment != null) {
+                return archived.apply(segment);
+            }
+        }
+        return tickets;
+    }
+
+    private List<LotteryTicketView> archivedPlayerTickets(String walletAddress) {
+        List<LotteryTicketView> archived = new ArrayList<>();
+        for (TicketSegment segment : ticketArchiveService.getSegments()) {
+            archived.addAll(segment.walletTickets(walletAddress));
+        }
+        return archived;
+    }
+
+    /**
+     * Live tickets followed by the archived ones; a ticket archived while the live rows
+     * were read appears in both and is kept once
+     */
+    private static List<LotteryTicketView> withArchived(List<LotteryTicketView> live, List<LotteryTicketView> archived) {
+        List<LotteryTicketView> tickets = new ArrayList<>(live.size() + archived.size());
+        tickets.addAll(live);
+        if (archived.isEmpty()) {
+            return tickets;
+        }
+        Set<Long> liveIds = new HashSet<>();
+        for (LotteryTicketView ticket : live) {
+            liveIds.add(ticket.getId());
+        }
+        for (LotteryTicketView ticket : archived) {
+            if (!liveIds.contains(ticket.getId())) {
+                tickets.add(ticket);
+            }
+        }
+        return tickets;
     }
 
     /**
      * Update ticket matched numbers
      */
     public LotteryTicket updateMatchedNumbers(Long ticketId, Integer matchedNumbers) {
-        Optional<LotteryTicket> ticketOpt = lotteryTicketRepository.findById(ticketId);
+        Optional<LotteryTicket> ticketOpt = lotteryTicketRepository.findWithLotteryById(ticketId);
         if (ticketOpt.isPresent()) {
             LotteryTicket ticket = ticketOpt.get();
             ticket.setMatchedNumbers(matchedNumbers);
             ticket.setUpdatedAt(LocalDateTime.now());
-            return lotteryTicketRepository.save(ticket);
+            LotteryTicket saved = lotteryTicketRepository.save(ticket);
+            resourceVersionService.ticketsChanged(ticket.getWeeklyLottery().getId());
+            return saved;
         }
         throw new RuntimeException("Ticket not found with ID: " + ticketId);
     }
@@ -99,76 +233,384 @@ public class LotteryTicketService {
      * Mark ticket as winner
      */
     public LotteryTicket markAsWinner(Long ticketId, BigDecimal prizeAmount) {
-        Optional<LotteryTicket> ticketOpt = lotteryTicketRepository.findById(ticketId);
+        Optional<LotteryTicket> ticketOpt = lotteryTicketRepository.findWithLotteryById(ticketId);
         if (ticketOpt.isPresent()) {
             LotteryTicket ticket = ticketOpt.get();
+            playerStatsService.recordWin(ticket.getWalletAddress(), Boolean.TRUE.equals(ticket.getIsWinner()),
+                                         ticket.getPrizeAmount(), prizeAmount);
             ticket.setIsWinner(true);
             ticket.setPrizeAmount(prizeAmount);
             ticket.setUpdatedAt(LocalDateTime.now());
-            return lotteryTicketRepository.save(ticket);
+            LotteryTicket saved = lotteryTicketRepository.save(ticket);
+            resourceVersionService.ticketsChanged(ticket.getWeeklyLottery().getId());
+            return saved;
         }
         throw new RuntimeException("Ticket not found with ID: " + ticketId);
     }
 
     /**
-     * Purchase ticket for lottery
+     * Purchase ticket for lottery; a replayed purchase returns the ticket it created before
      */
     public LotteryTicket purchaseTicket(String walletAddress, Long lotteryId, String chosenNumbers, 
                                        BigDecimal ticketPrice, String transactionHash, String contractTicketId) {
-        
-        Optional<WeeklyLottery> lotteryOpt = weeklyLotteryRepository.findById(lotteryId);
-        if (!lotteryOpt.isPresent()) {
-            throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+        TicketPurchase purchase = new TicketPurchase(walletAddress, lotteryId, chosenNumbers, ticketPrice,
+                                                     transactionHash, contractTicketId);
+        purchaseTickets(List.of(purchase));
+        if (purchase.error != null) {
+            throw purchase.error;
         }
+        return purchase.ticket;
+    }
 
-        WeeklyLottery lottery = lotteryOpt.get();
-        
+    /**
+     * Purchase a batch of tickets in one transaction.
+     * Replays get the ticket they created before, purchases that fail validation get their
+     * error set; the rest are inserted together and get their saved ticket set. A replay
+     * the filter missed, e.g. one committed on another instance moments ago, is caught by
+     * the insert and also gets the original ticket.
+     */
+    public void purchaseTickets(List<TicketPurchase> purchases) {
+        Set<Long> lotteryIds = new HashSet<>();
+        for (TicketPurchase purchase : purchases) {
+            lotteryIds.add(purchase.lotteryId);
+        }
+        Map<Long, WeeklyLottery> lotteries = new HashMap<>();
+        for (WeeklyLottery lottery : weeklyLotteryRepository.findAllById(lotteryIds)) {
+            lotteries.put(lottery.getId(), lottery);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<TicketPurchase> accepted = new ArrayList<>(purchases.size());
+        List<LotteryTicket> tickets = new ArrayList<>(purchases.size());
+        // Replays of a purchase queued earlier in the same batch, keyed by lottery and ticket id and by transaction hash
+        Map<String, TicketPurchase> batchKeys = new HashMap<>();
+        Map<TicketPurchase, TicketPurchase> batchReplays = new HashMap<>();
+        for (TicketPurchase purchase : purchases) {
+            TicketPurchase earlier = batchKeys.get("ticket:" + purchase.lotteryId + ":" + purchase.contractTicketId);
+            if (earlier == null && purchase.transactionHash != null) {
+                earlier = batchKeys.get("tx:" + purchase.transactionHash);
+            }
+            if (earlier != null) {
+                batchReplays.put(purchase, earlier);
+                continue;
+            }
+            Optional<LotteryTicket> original = purchaseIdempotencyService.findOriginal(
+                purchase.lotteryId, purchase.contractTicketId, purchase.transactionHash);
+            if (original.isPresent()) {
+                purchase.ticket = original.get();
+                continue;
+            }
+
+            WeeklyLottery lottery = lotteries.get(purchase.lotteryId);
+            LotteryTicket ticket;
+            try {
+                if (lottery == null) {
+                    throw new RuntimeException("Lottery not found with ID: " + purchase.lotteryId);
+                }
+                validateSalesOpen(lottery, now);
+                // Malformed numbers fail only this purchase, not the whole batch
+                ticket = newTicket(lottery, purchase.walletAddress, purchase.chosenNumbers,
+                                   purchase.ticketPrice, purchase.transactionHash, purchase.contractTicketId);
+            } catch (RuntimeException e) {
+                purchase.error = e;
+                continue;
+            }
+            ticket.setPurchasedAt(now);
+            ticket.setUpdatedAt(now);
+            tickets.add(ticket);
+            accepted.add(purchase);
+            batchKeys.put("ticket:" + purchase.lotteryId + ":" + purchase.contractTicketId, purchase);
+            if (purchase.transactionHash != null) {
+                batchKeys.put("tx:" + purchase.transactionHash, purchase);
+            }
+        }
+
+        if (!tickets.isEmpty()) {
+            Map<String, Long> insertedIds = insertTickets(tickets);
+            for (int i = 0; i < tickets.size(); i++) {
+                LotteryTicket ticket = tickets.get(i);
+                TicketPurchase purchase = accepted.get(i);
+                Long id = insertedIds.get(purchase.lotteryId + ":" + purchase.contractTicketId);
+                if (id == null) {
+                    // Taken since the replay check, e.g. by a retry committed on another instance,
+                    // either under the same ticket id or the same transaction hash
+                    Optional<LotteryTicket> original = lotteryTicketRepository.findByWeeklyLotteryIdAndTicketId(
+                        purchase.lotteryId, purchase.contractTicketId);
+                    if (original.isEmpty() && purchase.transactionHash != null && !purchase.transactionHash.isBlank()) {
+                        original = lotteryTicketRepository.findByWeeklyLotteryIdAndTransactionHash(
+                            purchase.lotteryId, purchase.transactionHash);
+                    }
+                    if (original.isPresent()) {
+                        purchase.ticket = original.get();
+                    } else {
+                        purchase.error = new RuntimeException("Ticket ID already used: " + purchase.contractTicketId);
+                    }
+                    continue;
+                }
+                ticket.setId(id);
+                purchase.ticket = ticket;
+                purchaseIdempotencyService.record(purchase.lotteryId, purchase.contractTicketId, purchase.transactionHash);
+                eventPublisher.publishEvent(new TicketPurchasedEvent(
+                    ticket.getId(), purchase.lotteryId, purchase.walletAddress, purchase.chosenNumbers, purchase.ticketPrice));
+            }
+        }
+        batchReplays.forEach((replay, earlier) -> {
+            replay.ticket = earlier.ticket;
+            replay.error = earlier.error;
+        });
+    }
+
+    /**
+     * Insert tickets and their player_stats increments in one statement. A ticket id or
+     * transaction hash that is already taken inserts nothing instead of failing the statement,
+     * and so the batch.
+     *
+     * @return the ids of the inserted tickets, keyed by lottery id and contract ticket id
+     */
+    private Map<String, Long> insertTickets(List<LotteryTicket> tickets) {
+        int size = tickets.size();
+        Object[] ticketIds = new Object[size];
+        Object[] wallets = new Object[size];
+        Object[] lotteries = new Object[size];
+        Object[] numbers = new Object[size];
+        Object[] masks = new Object[size];
+        Object[] prices = new Object[size];
+        Object[] hashes = new Object[size];
+        for (int i = 0; i < size; i++) {
+            LotteryTicket ticket = tickets.get(i);
+            ticketIds[i] = ticket.getTicketId();
+            wallets[i] = ticket.getWalletAddress();
+            lotteries[i] = ticket.getWeeklyLottery().getId();
+            numbers[i] = ticket.getChosenNumbers();
+            masks[i] = HexFormat.of().formatHex(ticket.getChosenMask().toBytes());
+            prices[i] = ticket.getTicketPricePaid();
+            hashes[i] = ticket.getTransactionHash();
+        }
+        Timestamp purchasedAt = Timestamp.valueOf(tickets.get(0).getPurchasedAt());
+
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query(
+            connection -> {
+                // No conflict target, so an id taken in another lottery while it is still globally unique is skipped too
+                PreparedStatement statement = connection.prepareStatement(
+                    "WITH incoming AS (" +
+                    "SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::bigint[], ?::varchar[], ?::varchar[], " +
+                    "?::numeric[], ?::varchar[]) WITH ORDINALITY " +
+                    "AS r(ticket_id, wallet_address, weekly_lottery_id, chosen_numbers, chosen_mask, ticket_price_paid, " +
+                    "transaction_hash, position)), " +
+                    "inserted AS (" +
+                    "INSERT INTO lottery_tickets (ticket_id, wallet_address, weekly_lottery_id, chosen_numbers, chosen_mask, " +
+                    "matched_numbers, ticket_price_paid, is_winner, prize_amount, transaction_hash, purchased_at, updated_at) " +
+                    "SELECT ticket_id, wallet_address, weekly_lottery_id, chosen_numbers, decode(chosen_mask, 'hex'), " +
+                    "0, ticket_price_paid, false, 0, transaction_hash, ?, ? FROM incoming ORDER BY position " +
+                    "ON CONFLICT DO NOTHING " +
+                    "RETURNING id, weekly_lottery_id, ticket_id, wallet_address, ticket_price_paid), " +
+                    "stats AS (" + PlayerStatsService.upsertSql(
+                        "SELECT wallet_address, COUNT(*), 0, SUM(ticket_price_paid), 0 FROM inserted GROUP BY wallet_address") + ") " +
+                    "SELECT id, weekly_lottery_id, ticket_id FROM inserted");
+                statement.setArray(1, connection.createArrayOf("varchar", ticketIds));
+                statement.setArray(2, connection.createArrayOf("varchar", wallets));
+                statement.setArray(3, connection.createArrayOf("bigint", lotteries));
+                statement.setArray(4, connection.createArrayOf("varchar", numbers));
+                statement.setArray(5, connection.createArrayOf("varchar", masks));
+                statement.setArray(6, connection.createArrayOf("numeric", prices));
+                statement.setArray(7, connection.createArrayOf("varchar", hashes));
+                statement.setTimestamp(8, purchasedAt);
+                statement.setTimestamp(9, purchasedAt);
+                return statement;
+            },
+            rs -> {
+                ids.put(rs.getLong(2) + ":" + rs.getString(3), rs.getLong(1));
+            });
+        return ids;
+    }
+
+    private static void validateSalesOpen(WeeklyLottery lottery, LocalDateTime now) {
         // Validate lottery is in ticket sales phase
         if (lottery.getStatus() != WeeklyLottery.LotteryStatus.TICKET_SALES) {
             throw new RuntimeException("Lottery is not in ticket sales phase");
         }
 
         // Validate sales period
-        LocalDateTime now = LocalDateTime.now();
         if (now.isBefore(lottery.getSalesStartTime()) || now.isAfter(lottery.getSalesEndTime())) {
             throw new RuntimeException("Ticket sales period has ended");
         }
+    }
 
-        // Create ticket
+    private static LotteryTicket newTicket(WeeklyLottery lottery, String walletAddress, String chosenNumbers,
+                                           BigDecimal ticketPrice, String transactionHash, String contractTicketId) {
         LotteryTicket ticket = new LotteryTicket();
         ticket.setTicketId(contractTicketId);
         ticket.setWalletAddress(walletAddress);
         ticket.setWeeklyLottery(lottery);
         ticket.setChosenNumbers(chosenNumbers);
+        ticket.setChosenMask(NumberSet.parse(chosenNumbers));
         ticket.setTicketPricePaid(ticketPrice);
         ticket.setTransactionHash(transactionHash);
         ticket.setMatchedNumbers(0);
         ticket.setIsWinner(false);
         ticket.setPrizeAmount(BigDecimal.ZERO);
+        return ticket;
+    }
+
+    /**
+     * Get one page of a lottery's tickets, oldest first
+     */
+    @Transactional(readOnly = true)
+    public TicketPage getLotteryTicketsPage(Long lotteryId, String cursor, int limit) {
+        TicketCursor after = cursor != null ? TicketCursor.decode(cursor) : new TicketCursor(FIRST_PURCHASE, 0L);
+        Limit pageLimit = pageLimit(limit);
+        return TicketPage.of(fromLottery(lotteryId,
+            () -> lotteryTicketRepository.findLotteryTicketsAfter(lotteryId, after.purchasedAt, after.id, pageLimit),
+            segment -> segment.ticketsAfter(after.purchasedAt, after.id, limit)), limit);
+    }
+
+    /**
+     * Get one page of all winning tickets, oldest first
+     */
+    @Transactional(readOnly = true)
+    public TicketPage getAllWinningTicketsPage(String cursor, int limit) {
+        TicketCursor after = cursor != null ? TicketCursor.decode(cursor) : new TicketCursor(FIRST_PURCHASE, 0L);
+        List<LotteryTicketView> live = lotteryTicketRepository.findWinningTicketsAfter(
+            after.purchasedAt, after.id, pageLimit(limit));
+        List<LotteryTicketView> archived = new ArrayList<>();
+        for (TicketSegment segment : ticketArchiveService.getSegments()) {
+            archived.addAll(segment.winnersAfter(after.purchasedAt, after.id, limit));
+        }
+        return TicketPage.of(firstOf(withArchived(live, archived), OLDEST_FIRST, limit), limit);
+    }
+
+    /**
+     * Get one page of a player's tickets, newest first
+     */
+    @Transactional(readOnly = true)
+    public TicketPage getPlayerTicketsPage(String walletAddress, String cursor, int limit) {
+        TicketCursor before = cursor != null ? TicketCursor.decode(cursor) : new TicketCursor(LAST_PURCHASE, Long.MAX_VALUE);
+        List<LotteryTicketView> live = lotteryTicketRepository.findPlayerTicketsBefore(
+            walletAddress, before.purchasedAt, before.id, pageLimit(limit));
+        List<LotteryTicketView> archived = new ArrayList<>();
+        for (LotteryTicketView ticket : archivedPlayerTickets(walletAddress)) {
+            if (NEWEST_FIRST.compare(ticket, before.asTicket()) > 0) {
+                archived.add(ticket);
+            }
+        }
+        return TicketPage.of(firstOf(withArchived(live, archived), NEWEST_FIRST, limit), limit);
+    }
+
+    private static List<LotteryTicketView> firstOf(List<LotteryTicketView> tickets, Comparator<LotteryTicketView> order,
+                                                   int limit) {
+        tickets.sort(order);
+        return tickets.size() > limit ? new ArrayList<>(tickets.subList(0, limit)) : tickets;
+    }
+
+    private static Limit pageLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        return Limit.of(limit);
+    }
+
+    /**
+     * Write all tickets of a lottery as NDJSON
+     */
+    @Transactional(readOnly = true)
+    public void streamLotteryTickets(Long lotteryId, OutputStream out) throws IOException {
+        TicketSegment segment = ticketArchiveService.getSegment(lotteryId);
+        if (segment != null) {
+            writeNdjson(segment.stream().iterator(), out);
+            return;
+        }
+        boolean empty;
+        try (Stream<LotteryTicketView> tickets = lotteryTicketRepository.streamByLotteryId(lotteryId)) {
+            empty = writeNdjson(tickets.iterator(), out) == 0;
+        }
+        segment = empty ? ticketArchiveService.loadSegment(lotteryId) : null;
+        if (segment != null) {
+            writeNdjson(segment.stream().iterator(), out);
+        }
+    }
 
-        return createTicket(ticket);
+    /**
+     * Write all winning tickets as NDJSON
+     */
+    @Transactional(readOnly = true)
+    public void streamAllWinningTickets(OutputStream out) throws IOException {
+        List<LotteryTicketView> archived = new ArrayList<>();
+        for (TicketSegment segment : ticketArchiveService.getSegments()) {
+            archived.addAll(segment.winners());
+        }
+        archived.sort(OLDEST_FIRST);
+        try (Stream<LotteryTicketView> tickets = lotteryTicketRepository.streamAllWinningTickets()) {
+            writeNdjson(new MergingIterator(tickets.iterator(), archived.iterator(), OLDEST_FIRST), out);
+        }
+    }
+
+    /**
+     * Write all tickets of a player as NDJSON
+     */
+    @Transactional(readOnly = true)
+    public void streamPlayerTickets(String walletAddress, OutputStream out) throws IOException {
+        List<LotteryTicketView> archived = archivedPlayerTickets(walletAddress);
+        archived.sort(NEWEST_FIRST);
+        try (Stream<LotteryTicketView> tickets = lotteryTicketRepository.streamByWalletAddress(walletAddress)) {
+            writeNdjson(new MergingIterator(tickets.iterator(), archived.iterator(), NEWEST_FIRST), out);
+        }
+    }
+
+    /**
+     * One flat JSON object per line; rows are projections, so nothing builds up in
+     * the persistence context however many are streamed
+     *
+     * @return the number of tickets written
+     */
+    private int writeNdjson(Iterator<LotteryTicketView> iterator, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+        generator.setRootValueSeparator(null);
+        int rows = 0;
+        while (iterator.hasNext()) {
+            LotteryTicketView ticket = iterator.next();
+            generator.writeStartObject();
+            generator.writeNumberField("id", ticket.getId());
+            generator.writeStringField("ticketId", ticket.getTicketId());
+            generator.writeStringField("walletAddress", ticket.getWalletAddress());
+            generator.writeNumberField("weeklyLotteryId", ticket.getWeeklyLotteryId());
+            generator.writeStringField("chosenNumbers", ticket.getChosenNumbers());
+            generator.writeNumberField("matchedNumbers", ticket.getMatchedNumbers());
+            generator.writeNumberField("ticketPricePaid", ticket.getTicketPricePaid());
+            generator.writeBooleanField("isWinner", Boolean.TRUE.equals(ticket.getIsWinner()));
+            generator.writeNumberField("prizeAmount", ticket.getPrizeAmount());
+            generator.writeStringField("transactionHash", ticket.getTransactionHash());
+            generator.writeStringField("purchasedAt", String.valueOf(ticket.getPurchasedAt()));
+            generator.writeStringField("updatedAt", String.valueOf(ticket.getUpdatedAt()));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+
+            if (++rows % STREAM_FLUSH_ROWS == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+        return rows;
     }
 
     /**
      * Get player statistics
      */
+    @Transactional(readOnly = true)
     public PlayerStats getPlayerStatistics(String walletAddress) {
-        Long totalTickets = lotteryTicketRepository.countTicketsByPlayer(walletAddress);
-        Long winningTickets = lotteryTicketRepository.countWinsByPlayer(walletAddress);
-        Double totalSpent = lotteryTicketRepository.getTotalSpentByPlayer(walletAddress);
-        Double totalWon = lotteryTicketRepository.getTotalWonByPlayer(walletAddress);
-
-        return new PlayerStats(
-            totalTickets != null ? totalTickets : 0L,
-            winningTickets != null ? winningTickets : 0L,
-            totalSpent != null ? totalSpent : 0.0,
-            totalWon != null ? totalWon : 0.0
-        );
+        return playerStatsService.getStatistics(walletAddress)
+            .map(stats -> new PlayerStats(
+                stats.getTotalTickets(),
+                stats.getWinningTickets(),
+                stats.getTotalSpent().doubleValue(),
+                stats.getTotalWon().doubleValue()))
+            .orElseGet(() -> new PlayerStats(0L, 0L, 0.0, 0.0));
     }
 
     /**
      * Get tickets by lottery and number of matches
      */
+    @Transactional(readOnly = true)
     public List<LotteryTicket> getTicketsByMatches(Long lotteryId, Integer matchedNumbers) {
         return lotteryTicketRepository.findTicketsByLotteryAndMatches(lotteryId, matchedNumbers);
     }
@@ -177,37 +619,144 @@ public class LotteryTicketService {
      * Validate chosen numbers format
      */
     public boolean validateChosenNumbers(String chosenNumbers) {
-        try {
-            // Parse JSON array and validate format
-            // Expected format: [1,15,33,45,67,89]
-            if (!chosenNumbers.startsWith("[") || !chosenNumbers.endsWith("]")) {
-                return false;
+        // Expected format: [1,15,33,45,67,89]
+        return NumberSet.isValidTicket(chosenNumbers);
+    }
+
+    /**
+     * Helper class for one purchase of a batch and its outcome
+     */
+    public static class TicketPurchase {
+        private final String walletAddress;
+        private final Long lotteryId;
+        private final String chosenNumbers;
+        private final BigDecimal ticketPrice;
+        private final String transactionHash;
+        private final String contractTicketId;
+        private LotteryTicket ticket;
+        private RuntimeException error;
+
+        public TicketPurchase(String walletAddress, Long lotteryId, String chosenNumbers,
+                              BigDecimal ticketPrice, String transactionHash, String contractTicketId) {
+            this.walletAddress = walletAddress;
+            this.lotteryId = lotteryId;
+            this.chosenNumbers = chosenNumbers;
+            this.ticketPrice = ticketPrice;
+            this.transactionHash = transactionHash;
+            this.contractTicketId = contractTicketId;
+        }
+
+        public String getWalletAddress() { return walletAddress; }
+        public Long getLotteryId() { return lotteryId; }
+        public String getChosenNumbers() { return chosenNumbers; }
+        public BigDecimal getTicketPrice() { return ticketPrice; }
+        public String getTransactionHash() { return transactionHash; }
+        public String getContractTicketId() { return contractTicketId; }
+        public LotteryTicket getTicket() { return ticket; }
+        public RuntimeException getError() { return error; }
+    }
+
+    /**
+     * Helper class for one keyset page of tickets
+     */
+    public static class TicketPage {
+        private final List<LotteryTicketView> tickets;
+        private final String nextCursor;
+
+        public TicketPage(List<LotteryTicketView> tickets, String nextCursor) {
+            this.tickets = tickets;
+            this.nextCursor = nextCursor;
+        }
+
+        static TicketPage of(List<LotteryTicketView> tickets, int limit) {
+            if (tickets.size() < limit) {
+                return new TicketPage(tickets, null);
             }
-            
-            String[] numbers = chosenNumbers.substring(1, chosenNumbers.length() - 1).split(",");
-            if (numbers.length != 6) {
-                return false;
+            LotteryTicketView last = tickets.get(tickets.size() - 1);
+            return new TicketPage(tickets, new TicketCursor(last.getPurchasedAt(), last.getId()).encode());
+        }
+
+        public List<LotteryTicketView> getTickets() { return tickets; }
+        public String getNextCursor() { return nextCursor; }
+    }
+
+    /**
+     * Opaque position (purchasedAt, id) of the last ticket of a page
+     */
+    static class TicketCursor {
+        private final LocalDateTime purchasedAt;
+        private final Long id;
+
+        TicketCursor(LocalDateTime purchasedAt, Long id) {
+            this.purchasedAt = purchasedAt;
+            this.id = id;
+        }
+
+        /**
+         * Stand-in ticket at this position, for comparing against tickets
+         */
+        LotteryTicketView asTicket() {
+            return new LotteryTicketView(id, null, null, null, null, null, null, null, null, null, purchasedAt, null);
+        }
+
+        String encode() {
+            String raw = purchasedAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static TicketCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.indexOf('|');
+                return new TicketCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
             }
-            
-            for (String number : numbers) {
-                int num = Integer.parseInt(number.trim());
-                if (num < 1 || num > 100) {
-                    return false;
-                }
+        }
+    }
+
+    /**
+     * Merges two iterators sorted in the same order; a ticket present in both, archived
+     * while the live rows were read, is returned once
+     */
+    private static class MergingIterator implements Iterator<LotteryTicketView> {
+        private final Iterator<LotteryTicketView> live;
+        private final Iterator<LotteryTicketView> archived;
+        private final Comparator<LotteryTicketView> order;
+        private LotteryTicketView nextLive;
+        private LotteryTicketView nextArchived;
+
+        MergingIterator(Iterator<LotteryTicketView> live, Iterator<LotteryTicketView> archived,
+                        Comparator<LotteryTicketView> order) {
+            this.live = live;
+            this.archived = archived;
+            this.order = order;
+            this.nextLive = live.hasNext() ? live.next() : null;
+            this.nextArchived = archived.hasNext() ? archived.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextLive != null || nextArchived != null;
+        }
+
+        @Override
+        public LotteryTicketView next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
             }
-            
-            // Check for duplicates
-            java.util.Set<Integer> uniqueNumbers = new java.util.HashSet<>();
-            for (String number : numbers) {
-                int num = Integer.parseInt(number.trim());
-                if (!uniqueNumbers.add(num)) {
-                    return false; // Duplicate found
+            if (nextArchived == null || (nextLive != null && order.compare(nextLive, nextArchived) <= 0)) {
+                LotteryTicketView ticket = nextLive;
+                nextLive = live.hasNext() ? live.next() : null;
+                if (nextArchived != null && nextArchived.getId().equals(ticket.getId())) {
+                    nextArchived = archived.hasNext() ? archived.next() : null;
                 }
+                return ticket;
             }
-            
-            return true;
-        } catch (Exception e) {
-            return false;
+            LotteryTicketView ticket = nextArchived;
+            nextArchived = archived.hasNext() ? archived.next() : null;
+            return ticket;
         }
     }
 
@@ -0,0 +1,340 @@
+package com.bingochain.service;
+
+import com.bingochain.event.LotteryTotalsChangedEvent;
+import com.bingochain.event.TicketPurchasedEvent;
+import com.bingochain.event.TicketsImportedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps weekly_lotteries.total_tickets and prize_pool up to date.
+ *
+ * Committed purchases and imports are added to striped per-lottery accumulators,
+ * so concurrent buyers never contend on the lottery row. A periodic flush writes
+ * the accumulated deltas of all lotteries in one UPDATE, which also bumps their
+ * tickets_version; ETags of purchased tickets may so lag by one flush interval.
+ *
+ * Deltas that were not yet flushed when a process died are recovered by {@link #reconcile},
+ * which rebuilds both totals from lottery_tickets at startup and periodically. A rebuild
+ * while any instance still holds deltas would count those tickets twice, so every instance
+ * holds a shared advisory lock, on a session of its own, from before its tickets commit
+ * until their deltas are flushed, and the rebuild only runs if it gets the lock exclusively.
+ * A process that dies loses its session and with it the lock. Archived lotteries keep the
+ * totals they had, since their tickets left the table.
+ *
+ * Each ticket adds its price minus the platform fee to the prize pool.
+ */
+@Service
+public class LotteryTotalsService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(LotteryTotalsService.class);
+
+    private static final int SCALE = 8;
+
+    // Advisory lock ('TOTL') held shared by instances with deltas not yet flushed
+    private static final int LOCK_NAMESPACE = 0x544F544C;
+    private static final int LOCK_KEY = 0;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private WeeklyLotteryService weeklyLotteryService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Value("${lottery.platform-fee-percentage:5}")
+    private int platformFeePercentage;
+
+    private final Map<Long, Totals> pending = new ConcurrentHashMap<>();
+
+    // Guards the lock session and the count of writes between publishing and completion;
+    // not a monitor, since holding it may block on the database from a virtual thread
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private Connection lockSession;
+    private boolean lockHeld;
+    private int inFlight;
+
+    @EventListener
+    public void onTicketPurchased(TicketPurchasedEvent event) {
+        track(event.getLotteryId(), 1, prizeContribution(event.getTicketPrice()));
+    }
+
+    /**
+     * Imports only know the sum of the prices, so the fee is applied to the sum
+     */
+    @EventListener
+    public void onTicketsImported(TicketsImportedEvent event) {
+        if (event.getImportedTickets() > 0) {
+            track(event.getLotteryId(), event.getImportedTickets(), prizeContribution(event.getTotalPaid()));
+        }
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reconcile();
+    }
+
+    /**
+     * Rebuild the totals of every lottery not archived from lottery_tickets, unless some
+     * instance has deltas pending. Row locks are only waited for briefly: a writer holding
+     * one may be waiting for the advisory lock this holds.
+     */
+    @Scheduled(initialDelayString = "${lottery.totals.reconcile-interval-ms:300000}",
+               fixedDelayString = "${lottery.totals.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long start = System.nanoTime();
+        Integer updated;
+        try {
+            updated = new TransactionTemplate(transactionManager).execute(status -> {
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '2s'");
+                Boolean idle = jdbcTemplate.queryForObject(
+                    "SELECT pg_try_advisory_xact_lock(?, ?)", Boolean.class, LOCK_NAMESPACE, LOCK_KEY);
+                return Boolean.TRUE.equals(idle) ? rebuildTotals() : null;
+            });
+        } catch (RuntimeException e) {
+            log.warn("Reconciling ticket totals failed, will retry: {}", e.getMessage());
+            return;
+        }
+        if (updated == null) {
+            log.debug("Skipped reconciling ticket totals, deltas are pending");
+            return;
+        }
+        if (updated > 0) {
+            weeklyLotteryService.evictCaches();
+        }
+        log.info("Reconciled ticket totals in {} ms ({} lotteries corrected)",
+                 (System.nanoTime() - start) / 1_000_000, updated);
+    }
+
+    private int rebuildTotals() {
+        return jdbcTemplate.update(
+            "UPDATE weekly_lotteries l SET total_tickets = COALESCE(t.tickets, 0), " +
+            "prize_pool = COALESCE(t.pool, 0), tickets_version = l.tickets_version + 1, updated_at = NOW() " +
+            "FROM weekly_lotteries w LEFT JOIN (" +
+            "SELECT weekly_lottery_id, COUNT(*) AS tickets, " +
+            "SUM(TRUNC(ticket_price_paid * (100 - ?) / 100, " + SCALE + ")) AS pool " +
+            "FROM lottery_tickets GROUP BY weekly_lottery_id) t ON t.weekly_lottery_id = w.id " +
+            "WHERE l.id = w.id AND w.archived_at IS NULL AND (l.total_tickets IS DISTINCT FROM COALESCE(t.tickets, 0) " +
+            "OR l.prize_pool IS DISTINCT FROM COALESCE(t.pool, 0))",
+            platformFeePercentage);
+    }
+
+    /**
+     * Write the accumulated deltas of all lotteries in one statement, bumping the
+     * tickets version of each lottery that sold tickets
+     */
+    @Scheduled(fixedDelayString = "${lottery.totals.flush-interval-ms:1000}")
+    public void flush() {
+        List<Long> lotteryIds = new ArrayList<>();
+        List<Long> tickets = new ArrayList<>();
+        List<Long> poolUnits = new ArrayList<>();
+        pending.forEach((lotteryId, totals) -> {
+            long ticketDelta = totals.tickets.sumThenReset();
+            long poolDelta = totals.poolUnits.sumThenReset();
+            if (ticketDelta != 0 || poolDelta != 0) {
+                lotteryIds.add(lotteryId);
+                tickets.add(ticketDelta);
+                poolUnits.add(poolDelta);
+            }
+        });
+        if (lotteryIds.isEmpty()) {
+            releaseIfIdle();
+            return;
+        }
+
+        List<LotteryTotalsChangedEvent> changes = new ArrayList<>();
+        try {
+            jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                        "UPDATE weekly_lotteries l SET total_tickets = COALESCE(l.total_tickets, 0) + d.tickets, " +
+                        "prize_pool = COALESCE(l.prize_pool, 0) + d.pool_units / 1e" + SCALE + ", " +
+                        "tickets_version = l.tickets_version + 1, updated_at = NOW() " +
+                        "FROM unnest(?::bigint[], ?::bigint[], ?::bigint[]) AS d(id, tickets, pool_units) " +
+                        "WHERE l.id = d.id RETURNING l.id, l.total_tickets, l.prize_pool");
+                    statement.setArray(1, connection.createArrayOf("bigint", lotteryIds.toArray()));
+                    statement.setArray(2, connection.createArrayOf("bigint", tickets.toArray()));
+                    statement.setArray(3, connection.createArrayOf("bigint", poolUnits.toArray()));
+                    return statement;
+                },
+                rs -> {
+                    changes.add(new LotteryTotalsChangedEvent(rs.getLong(1), rs.getInt(2), rs.getBigDecimal(3)));
+                });
+        } catch (RuntimeException e) {
+            // Put the deltas back so the next flush retries them
+            for (int i = 0; i < lotteryIds.size(); i++) {
+                Totals totals = pending.computeIfAbsent(lotteryIds.get(i), id -> new Totals());
+                totals.tickets.add(tickets.get(i));
+                totals.poolUnits.add(poolUnits.get(i));
+            }
+            log.warn("Flushing lottery totals failed, will retry: {}", e.getMessage());
+            return;
+        }
+        weeklyLotteryService.evictCaches();
+        changes.forEach(eventPublisher::publishEvent);
+        releaseIfIdle();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        pendingLock.lock();
+        try {
+            closeLockSession();
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Take the pending lock while the writing transaction is still open, and add its
+     * tickets once it committed. Writes outside a transaction are not counted.
+     */
+    private void track(Long lotteryId, long tickets, BigDecimal contribution) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        pendingLock.lock();
+        try {
+            inFlight++;
+            holdLock();
+        } finally {
+            pendingLock.unlock();
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        add(lotteryId, tickets, contribution);
+                    }
+                } finally {
+                    pendingLock.lock();
+                    try {
+                        inFlight--;
+                    } finally {
+                        pendingLock.unlock();
+                    }
+                }
+            }
+        });
+    }
+
+    // Waits while a rebuild runs, so tickets committing after it are left to the deltas
+    private void holdLock() {
+        if (lockHeld) {
+            return;
+        }
+        try {
+            if (lockSession == null) {
+                lockSession = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+            }
+            try (PreparedStatement statement = lockSession.prepareStatement("SELECT pg_advisory_lock_shared(?, ?)")) {
+                statement.setInt(1, LOCK_NAMESPACE);
+                statement.setInt(2, LOCK_KEY);
+                statement.execute();
+            }
+            lockHeld = true;
+        } catch (SQLException e) {
+            log.warn("Could not take the pending totals lock, a reconcile may count these tickets twice: {}",
+                     e.getMessage());
+            closeLockSession();
+        }
+    }
+
+    private void releaseIfIdle() {
+        pendingLock.lock();
+        try {
+            if (!lockHeld || inFlight > 0 || hasPendingDeltas()) {
+                return;
+            }
+            try (PreparedStatement statement = lockSession.prepareStatement("SELECT pg_advisory_unlock_shared(?, ?)")) {
+                statement.setInt(1, LOCK_NAMESPACE);
+                statement.setInt(2, LOCK_KEY);
+                statement.execute();
+                lockHeld = false;
+            } catch (SQLException e) {
+                // Closing the session releases the lock as well
+                closeLockSession();
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    private void closeLockSession() {
+        if (lockSession != null) {
+            try {
+                lockSession.close();
+            } catch (SQLException e) {
+                log.debug("Closing the pending totals lock session failed: {}", e.getMessage());
+            }
+        }
+        lockSession = null;
+        lockHeld = false;
+    }
+
+    private boolean hasPendingDeltas() {
+        for (Totals totals : pending.values()) {
+            if (totals.tickets.sum() != 0 || totals.poolUnits.sum() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void add(Long lotteryId, long tickets, BigDecimal contribution) {
+        Totals totals = pending.computeIfAbsent(lotteryId, id -> new Totals());
+        totals.tickets.add(tickets);
+        totals.poolUnits.add(contribution.unscaledValue().longValueExact());
+    }
+
+    private BigDecimal prizeContribution(BigDecimal paid) {
+        if (paid == null) {
+            return BigDecimal.ZERO.setScale(SCALE);
+        }
+        return paid.multiply(BigDecimal.valueOf(100 - platformFeePercentage))
+                   .divide(BigDecimal.valueOf(100), SCALE, RoundingMode.DOWN);
+    }
+
+    private static class Totals {
+        final LongAdder tickets = new LongAdder();
+        final LongAdder poolUnits = new LongAdder(); // prize pool in units of 10^-8
+    }
+}
@@ -0,0 +1,193 @@
+package com.bingochain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.MimeTypeUtils;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fans lottery updates out to the STOMP subscribers of every backend instance.
+ *
+ * The in-memory broker only reaches clients connected to this instance, so updates
+ * are published with Postgres NOTIFY and every instance, this one included, LISTENs
+ * on a connection of its own and hands what it receives to its local broker. The
+ * JSON is forwarded untouched. Notifications sent while an instance is reconnecting
+ * are lost to its clients; the next STATUS, DRAW or TICKETS frame of the lottery
+ * carries the state they missed.
+ *
+ * With {@code websocket.relay.enabled} off, updates only go to local subscribers.
+ */
+@Service
+public class LotteryUpdateRelay implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(LotteryUpdateRelay.class);
+
+    // NOTIFY payloads must stay below 8000 bytes
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private static final int POLL_MILLIS = 1000;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${websocket.relay.enabled:true}")
+    private boolean enabled;
+
+    @Value("${websocket.relay.channel:lottery_updates}")
+    private String channel;
+
+    @Value("${websocket.relay.reconnect-delay-ms:5000}")
+    private long reconnectDelayMillis;
+
+    private volatile boolean running;
+    private Thread listener;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "lottery-update-relay");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    /**
+     * Send an update to the subscribers of its lottery and of all lotteries, on every instance.
+     * Callers run after their transaction committed, so the notification gets a transaction of its own.
+     */
+    public void publish(Long lotteryId, Object update) {
+        if (!enabled) {
+            deliverLocally(lotteryId, update);
+            return;
+        }
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(update);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize update of lottery " + lotteryId, e);
+        }
+        if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_PAYLOAD_BYTES) {
+            log.warn("Update of lottery {} is too large to relay ({} chars), sending it to local clients only",
+                     lotteryId, payload.length());
+            deliverLocally(lotteryId, update);
+            return;
+        }
+
+        TransactionTemplate notification = new TransactionTemplate(transactionManager);
+        notification.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            notification.executeWithoutResult(status -> jdbcTemplate.query(
+                "SELECT pg_notify(?, ?)", rs -> { }, channel, lotteryId + " " + payload));
+        } catch (RuntimeException e) {
+            log.warn("Relaying update of lottery {} failed, sending it to local clients only: {}", lotteryId, e.getMessage());
+            deliverLocally(lotteryId, update);
+        }
+    }
+
+    private void deliverLocally(Long lotteryId, Object update) {
+        messagingTemplate.convertAndSend(LotteryBroadcastService.TOPIC + "/" + lotteryId, update);
+        messagingTemplate.convertAndSend(LotteryBroadcastService.TOPIC, update);
+    }
+
+    private void deliverRelayed(String notification) {
+        int separator = notification.indexOf(' ');
+        Long lotteryId = Long.valueOf(notification.substring(0, separator));
+        byte[] json = notification.substring(separator + 1).getBytes(StandardCharsets.UTF_8);
+        sendJson(LotteryBroadcastService.TOPIC + "/" + lotteryId, json);
+        sendJson(LotteryBroadcastService.TOPIC, json);
+    }
+
+    // Already serialized, so it bypasses the message converters
+    private void sendJson(String destination, byte[] json) {
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headers.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headers.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(json, headers.getMessageHeaders()));
+    }
+
+    /**
+     * Listen on a dedicated connection outside the pool, so it neither holds a pooled
+     * connection nor gets routed to a read replica, and reconnect when it drops
+     */
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Relaying lottery updates through channel {}", channel);
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] received = notifications.getNotifications(POLL_MILLIS);
+                    if (received == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : received) {
+                        try {
+                            deliverRelayed(notification.getParameter());
+                        } catch (RuntimeException e) {
+                            log.warn("Dropping malformed lottery update: {}", e.getMessage());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Lottery update relay lost its connection, reconnecting in {} ms: {}",
+                         reconnectDelayMillis, e.getMessage());
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.bingochain.service;
+
+import com.bingochain.event.LotteryStatusChangedEvent;
+import com.bingochain.event.TicketPurchasedEvent;
+import com.bingochain.event.TicketsImportedEvent;
+import com.bingochain.index.NumberPopularity;
+import com.bingochain.model.NumberSet;
+import com.bingochain.model.WeeklyLottery;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps one {@link NumberPopularity} per weekly lottery.
+ *
+ * The counters of lotteries still selling or drawing are rebuilt from lottery_tickets
+ * at startup, and any other lottery's the first time it is asked for. After that,
+ * committed purchases keep them current and reads never touch lottery_tickets.
+ * Purchases that commit while a lottery is being loaded are held back and applied
+ * afterwards unless the load already saw their ticket, so none is counted twice.
+ */
+@Service
+public class NumberPopularityService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(NumberPopularityService.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, LotteryCounters> countersByLottery = new ConcurrentHashMap<>();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<Long> openLotteries = jdbcTemplate.queryForList(
+            "SELECT id FROM weekly_lotteries WHERE status IN ('TICKET_SALES', 'DRAWING_PHASE')", Long.class);
+        for (Long lotteryId : openLotteries) {
+            getPopularity(lotteryId);
+        }
+    }
+
+    /**
+     * Count a committed purchase; lotteries not loaded yet pick it up when they are
+     */
+    @TransactionalEventListener
+    public void onTicketPurchased(TicketPurchasedEvent event) {
+        LotteryCounters counters = countersByLottery.get(event.getLotteryId());
+        if (counters == null) {
+            return;
+        }
+        int[] numbers = toNumbers(null, event.getChosenNumbers());
+        if (!counters.loaded) {
+            synchronized (counters) {
+                if (!counters.loaded) {
+                    counters.heldBack.put(event.getTicketId(), numbers);
+                    return;
+                }
+            }
+        }
+        counters.popularity.add(numbers);
+    }
+
+    /**
+     * Drop the counters of a lottery after a bulk import so they are rebuilt with the new rows
+     */
+    @TransactionalEventListener
+    public void onTicketsImported(TicketsImportedEvent event) {
+        if (event.getImportedTickets() > 0) {
+            countersByLottery.remove(event.getLotteryId());
+        }
+    }
+
+    /**
+     * Free the counters of lotteries that no longer sell tickets; they are rebuilt if asked for again
+     */
+    @TransactionalEventListener
+    public void onStatusChanged(LotteryStatusChangedEvent event) {
+        if (event.getStatus() == WeeklyLottery.LotteryStatus.COMPLETED
+                || event.getStatus() == WeeklyLottery.LotteryStatus.CANCELLED) {
+            countersByLottery.remove(event.getLotteryId());
+        }
+    }
+
+    /**
+     * Get the counters of a lottery, loading them from the database on first use
+     */
+    public NumberPopularity getPopularity(Long lotteryId) {
+        LotteryCounters counters = countersByLottery.get(lotteryId);
+        if (counters == null) {
+            Integer lotteries = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM weekly_lotteries WHERE id = ?", Integer.class, lotteryId);
+            if (lotteries == null || lotteries == 0) {
+                throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+            }
+            counters = countersByLottery.computeIfAbsent(lotteryId, id -> new LotteryCounters());
+        }
+        if (!counters.loaded) {
+            synchronized (counters.loadLock) {
+                if (!counters.loaded) {
+                    try {
+                        load(lotteryId, counters);
+                    } catch (RuntimeException e) {
+                        // Partly filled counters must not be reused; the next call starts over
+                        countersByLottery.remove(lotteryId, counters);
+                        throw e;
+                    }
+                }
+            }
+        }
+        return counters.popularity;
+    }
+
+    /**
+     * Get the heatmap of a lottery with its most picked numbers, pairs and triples
+     */
+    public PopularityReport getReport(Long lotteryId, int limit) {
+        if (limit < 1 || limit > NumberPopularity.MAX_NUMBER) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + NumberPopularity.MAX_NUMBER);
+        }
+        NumberPopularity popularity = getPopularity(lotteryId);
+        long[] counts = popularity.numberCounts();
+        List<NumberCount> byPopularity = IntStream.range(0, counts.length)
+            .mapToObj(i -> new NumberCount(i + 1, counts[i]))
+            .sorted(Comparator.comparing(NumberCount::getCount).reversed()
+                              .thenComparing(NumberCount::getNumber))
+            .collect(Collectors.toList());
+        int shown = Math.min(limit, byPopularity.size());
+        List<NumberCount> leastPicked = new ArrayList<>(byPopularity.subList(byPopularity.size() - shown, byPopularity.size()));
+        leastPicked.sort(Comparator.comparing(NumberCount::getCount).thenComparing(NumberCount::getNumber));
+
+        return new PopularityReport(lotteryId, popularity.getTicketCount(), counts,
+                                    new ArrayList<>(byPopularity.subList(0, shown)), leastPicked,
+                                    popularity.topPairs(limit), popularity.topTriples(limit));
+    }
+
+    private void load(Long lotteryId, LotteryCounters counters) {
+        long start = System.nanoTime();
+        Roaring64Bitmap loadedTickets = new Roaring64Bitmap();
+        jdbcTemplate.query(
+            "SELECT id, chosen_mask, chosen_numbers FROM lottery_tickets WHERE weekly_lottery_id = ?",
+            rs -> {
+                loadedTickets.addLong(rs.getLong(1));
+                counters.popularity.add(toNumbers(rs.getBytes(2), rs.getString(3)));
+            },
+            lotteryId);
+
+        synchronized (counters) {
+            counters.heldBack.forEach((ticketId, numbers) -> {
+                if (!loadedTickets.contains(ticketId)) {
+                    counters.popularity.add(numbers);
+                }
+            });
+            counters.heldBack.clear();
+            counters.loaded = true;
+        }
+        log.info("Loaded number popularity for lottery {} ({} tickets) in {} ms", lotteryId,
+                 counters.popularity.getTicketCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static int[] toNumbers(byte[] mask, String json) {
+        NumberSet numbers = mask != null ? NumberSet.fromBytes(mask) : NumberSet.tryParse(json);
+        return numbers != null ? numbers.toArray() : new int[0];
+    }
+
+    private static class LotteryCounters {
+        private final NumberPopularity popularity = new NumberPopularity();
+        private final Object loadLock = new Object();
+        // Purchases committed during the load, by ticket id; guarded by this
+        private final Map<Long, int[]> heldBack = new HashMap<>();
+        private volatile boolean loaded;
+    }
+
+    /**
+     * Helper class for how many tickets picked a number
+     */
+    public static class NumberCount {
+        private final Integer number;
+        private final Long count;
+
+        public NumberCount(Integer number, Long count) {
+            this.number = number;
+            this.count = count;
+        }
+
+        public Integer getNumber() { return number; }
+        public Long getCount() { return count; }
+    }
+
+    /**
+     * Helper class for a lottery's number heatmap; counts[i] is for number i + 1
+     */
+    public static class PopularityReport {
+        private final Long lotteryId;
+        private final Long tickets;
+        private final long[] counts;
+        private final List<NumberCount> mostPicked;
+        private final List<NumberCount> leastPicked;
+        private final List<NumberPopularity.Combination> topPairs;
+        private final List<NumberPopularity.Combination> topTriples;
+
+        public PopularityReport(Long lotteryId, Long tickets, long[] counts, List<NumberCount> mostPicked,
+                                List<NumberCount> leastPicked, List<NumberPopularity.Combination> topPairs,
+                                List<NumberPopularity.Combination> topTriples) {
+            this.lotteryId = lotteryId;
+            this.tickets = tickets;
+            this.counts = counts;
+            this.mostPicked = mostPicked;
+            this.leastPicked = leastPicked;
+            this.topPairs = topPairs;
+            this.topTriples = topTriples;
+        }
+
+        public Long getLotteryId() { return lotteryId; }
+        public Long getTickets() { return tickets; }
+        public long[] getCounts() { return counts; }
+        public List<NumberCount> getMostPicked() { return mostPicked; }
+        public List<NumberCount> getLeastPicked() { return leastPicked; }
+        public List<NumberPopularity.Combination> getTopPairs() { return topPairs; }
+        public List<NumberPopularity.Combination> getTopTriples() { return topTriples; }
+    }
+}
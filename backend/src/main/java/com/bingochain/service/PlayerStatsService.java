@@ -0,0 +1,204 @@
+package com.bingochain.service;
+
+import com.bingochain.model.PlayerStatistics;
+import com.bingochain.repository.PlayerStatisticsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Maintains the player_stats aggregate.
+ *
+ * Counters are adjusted in the caller's transaction by purchases and winner updates,
+ * so reading a player's statistics is a single primary-key lookup. Every adjustment,
+ * including those made by bulk statements elsewhere, goes through {@link #upsertSql},
+ * which also bumps the row's version, the per-wallet part of the player-tickets ETag.
+ * {@link #rebuild}
+ * recomputes the table from lottery_tickets, plus the totals of archived tickets,
+ * and reports any drift it finds. It runs at startup when the table counts fewer
+ * tickets than those, e.g. on a database that predates player_stats.
+ */
+@Service
+public class PlayerStatsService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerStatsService.class);
+
+    private static final int MAX_REPORTED_DRIFTS = 100;
+
+    private static final String AGGREGATE_SQL =
+        "SELECT wallet_address, SUM(total_tickets)::bigint AS total_tickets, " +
+        "SUM(winning_tickets)::bigint AS winning_tickets, SUM(total_spent) AS total_spent, " +
+        "SUM(total_won) AS total_won FROM (" +
+        "SELECT wallet_address, COUNT(*) AS total_tickets, " +
+        "COUNT(*) FILTER (WHERE is_winner = true) AS winning_tickets, " +
+        "COALESCE(SUM(ticket_price_paid), 0) AS total_spent, " +
+        "COALESCE(SUM(prize_amount) FILTER (WHERE is_winner = true), 0) AS total_won " +
+        "FROM lottery_tickets GROUP BY wallet_address " +
+        "UNION ALL " +
+        "SELECT wallet_address, total_tickets, winning_tickets, total_spent, total_won FROM archived_player_totals" +
+        ") t GROUP BY wallet_address";
+
+    @Autowired
+    private PlayerStatisticsRepository playerStatisticsRepository;
+
+    /**
+     * Build the statement that adds per-wallet deltas to player_stats.
+     * {@code deltas} is a query returning (wallet_address, tickets, wins, spent, won) with
+     * one row per wallet; it may read a CTE of the enclosing statement. Rows are written in
+     * wallet order so concurrent writers lock them in the same order.
+     */
+    public static String upsertSql(String deltas) {
+        return "INSERT INTO player_stats (wallet_address, total_tickets, winning_tickets, total_spent, total_won, updated_at) " +
+               "SELECT wallet_address, COALESCE(tickets, 0), COALESCE(wins, 0), COALESCE(spent, 0), COALESCE(won, 0), NOW() " +
+               "FROM (" + deltas + ") AS delta(wallet_address, tickets, wins, spent, won) ORDER BY wallet_address " +
+               "ON CONFLICT (wallet_address) DO UPDATE SET " +
+               "total_tickets = player_stats.total_tickets + EXCLUDED.total_tickets, " +
+               "winning_tickets = player_stats.winning_tickets + EXCLUDED.winning_tickets, " +
+               "total_spent = player_stats.total_spent + EXCLUDED.total_spent, " +
+               "total_won = player_stats.total_won + EXCLUDED.total_won, " +
+               "version = player_stats.version + 1, updated_at = NOW()";
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                jdbcTemplate.execute("LOCK TABLE player_stats IN SHARE ROW EXCLUSIVE MODE");
+                Boolean behind = jdbcTemplate.queryForObject(
+                    "SELECT (SELECT COALESCE(SUM(total_tickets), 0) FROM player_stats) < " +
+                    "(SELECT COUNT(*) FROM lottery_tickets) + " +
+                    "(SELECT COALESCE(SUM(total_tickets), 0) FROM archived_player_totals)", Boolean.class);
+                if (Boolean.TRUE.equals(behind)) {
+                    log.info("player_stats is behind lottery_tickets, rebuilding it");
+                    rebuildTable(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Checking player_stats at startup failed, rebuild it with POST /tickets/player-stats/rebuild: {}",
+                     e.getMessage());
+        }
+    }
+
+    /**
+     * Apply a winner update; must run in the transaction that changes the ticket
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordWin(String walletAddress, boolean wasWinner, BigDecimal previousPrize, BigDecimal newPrize) {
+        BigDecimal previous = wasWinner && previousPrize != null ? previousPrize : BigDecimal.ZERO;
+        BigDecimal current = newPrize != null ? newPrize : BigDecimal.ZERO;
+        jdbcTemplate.update(upsertSql("VALUES (?, 0, ?::bigint, 0, ?::numeric)"),
+                            walletAddress, wasWinner ? 0L : 1L, current.subtract(previous));
+    }
+
+    /**
+     * Get the stored statistics of a player
+     */
+    @Transactional(readOnly = true)
+    public Optional<PlayerStatistics> getStatistics(String walletAddress) {
+        return playerStatisticsRepository.findById(walletAddress);
+    }
+
+    /**
+     * Recompute player_stats from lottery_tickets and archived_player_totals.
+     * Concurrent purchases wait on the table lock and apply their increments after the rebuild commits.
+     *
+     * @param dryRun only report drift, leave the table untouched
+     */
+    @Transactional
+    public RebuildReport rebuild(boolean dryRun) {
+        return rebuildTable(dryRun);
+    }
+
+    private RebuildReport rebuildTable(boolean dryRun) {
+        long start = System.nanoTime();
+        if (!dryRun) {
+            jdbcTemplate.execute("LOCK TABLE player_stats IN SHARE ROW EXCLUSIVE MODE");
+        }
+
+        List<String> drifts = new ArrayList<>();
+        long[] driftCount = new long[1];
+        jdbcTemplate.query(
+            "SELECT COALESCE(a.wallet_address, s.wallet_address), " +
+            "COALESCE(a.total_tickets, 0), COALESCE(s.total_tickets, 0), " +
+            "COALESCE(a.winning_tickets, 0), COALESCE(s.winning_tickets, 0), " +
+            "COALESCE(a.total_spent, 0), COALESCE(s.total_spent, 0), " +
+            "COALESCE(a.total_won, 0), COALESCE(s.total_won, 0) " +
+            "FROM (" + AGGREGATE_SQL + ") a " +
+            "FULL OUTER JOIN player_stats s ON s.wallet_address = a.wallet_address " +
+            "WHERE COALESCE(a.total_tickets, 0) <> COALESCE(s.total_tickets, 0) " +
+            "OR COALESCE(a.winning_tickets, 0) <> COALESCE(s.winning_tickets, 0) " +
+            "OR COALESCE(a.total_spent, 0) <> COALESCE(s.total_spent, 0) " +
+            "OR COALESCE(a.total_won, 0) <> COALESCE(s.total_won, 0)",
+            rs -> {
+                driftCount[0]++;
+                if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                    drifts.add(String.format(
+                        "%s: tickets %d (stored %d), wins %d (stored %d), spent %s (stored %s), won %s (stored %s)",
+                        rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5),
+                        rs.getBigDecimal(6).toPlainString(), rs.getBigDecimal(7).toPlainString(),
+                        rs.getBigDecimal(8).toPlainString(), rs.getBigDecimal(9).toPlainString()));
+                }
+            });
+
+        long rebuiltPlayers = 0;
+        if (!dryRun) {
+            // Versions carry on past the replaced rows, so ETags issued before the rebuild do not match again
+            rebuiltPlayers = jdbcTemplate.update(
+                "WITH replaced AS (DELETE FROM player_stats RETURNING wallet_address, version) " +
+                "INSERT INTO player_stats (wallet_address, total_tickets, winning_tickets, total_spent, total_won, version, updated_at) " +
+                "SELECT a.wallet_address, a.total_tickets, a.winning_tickets, a.total_spent, a.total_won, " +
+                "COALESCE(r.version, 0) + 1, NOW() " +
+                "FROM (" + AGGREGATE_SQL + ") a LEFT JOIN replaced r ON r.wallet_address = a.wallet_address");
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        if (driftCount[0] > 0) {
+            log.warn("player_stats drift found for {} players{}", driftCount[0], dryRun ? " (dry run)" : "");
+        }
+        log.info("player_stats rebuild finished in {} ms ({} players written)", elapsedMillis, rebuiltPlayers);
+        return new RebuildReport(dryRun, driftCount[0], rebuiltPlayers, elapsedMillis, drifts);
+    }
+
+    /**
+     * Helper class for rebuild results
+     */
+    public static class RebuildReport {
+        private final boolean dryRun;
+        private final Long driftedPlayers;
+        private final Long rebuiltPlayers;
+        private final Long elapsedMillis;
+        private final List<String> drifts;
+
+        public RebuildReport(boolean dryRun, Long driftedPlayers, Long rebuiltPlayers, Long elapsedMillis, List<String> drifts) {
+            this.dryRun = dryRun;
+            this.driftedPlayers = driftedPlayers;
+            this.rebuiltPlayers = rebuiltPlayers;
+            this.elapsedMillis = elapsedMillis;
+            this.drifts = drifts;
+        }
+
+        public boolean isDryRun() { return dryRun; }
+        public Long getDriftedPlayers() { return driftedPlayers; }
+        public Long getRebuiltPlayers() { return rebuiltPlayers; }
+        public Long getElapsedMillis() { return elapsedMillis; }
+        public List<String> getDrifts() { return drifts; }
+    }
+}
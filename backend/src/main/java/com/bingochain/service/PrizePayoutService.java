@@ -0,0 +1,395 @@
+package com.bingochain.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Splits a completed lottery's prize pool between its winning tickets.
+ *
+ * Every tier is a share of the pool for one match count (by default 50% for six
+ * matches, 30% for five, 15% for four and 5% for three). A tier's amount is split
+ * evenly, down to the last unit of the prize column, and the remaining units go one
+ * each to the tier's oldest tickets, so a tier pays out exactly its share. A tier
+ * without winning tickets stays in the pool.
+ *
+ * The match histogram is one GROUP BY. Prizes, winner flags and the matching
+ * player_stats adjustments are written by a single statement, which only touches
+ * tickets whose payout changes. Running it again after more matches are settled
+ * replaces the previous payout. Once a lottery is marked as distributed, its
+ * payout no longer changes.
+ *
+ * The summary of the latest payout is kept in memory; after a restart, or on an
+ * instance that did not run the payout, it is rebuilt from the tickets' prizes.
+ */
+@Service
+public class PrizePayoutService {
+
+    private static final Logger log = LoggerFactory.getLogger(PrizePayoutService.class);
+
+    private static final int MAX_MATCHES = 6;
+
+    // Scale of lottery_tickets.prize_amount; splits never go below one unit of it
+    private static final int PRIZE_SCALE = 8;
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+
+    private static final String PAYOUT_SQL =
+        "WITH tier AS (" +
+        "    SELECT * FROM unnest(?::int[], ?::numeric[], ?::bigint[]) AS tier(matched_numbers, share, extra_units)" +
+        "), payout AS (" +
+        "    SELECT t.id, t.weekly_lottery_id, t.wallet_address, COALESCE(t.is_winner, false) AS was_winner, " +
+        "           COALESCE(t.prize_amount, 0) AS old_prize, " +
+        "           COALESCE(tier.share + CASE WHEN ROW_NUMBER() OVER (PARTITION BY tier.matched_numbers ORDER BY t.id) " +
+        "                                          <= tier.extra_units THEN ? ELSE 0 END, 0) AS new_prize " +
+        "    FROM lottery_tickets t LEFT JOIN tier ON tier.matched_numbers = t.matched_numbers " +
+        "    WHERE t.weekly_lottery_id = ? AND (tier.matched_numbers IS NOT NULL OR t.is_winner = true OR t.prize_amount <> 0)" +
+        "), changed AS (" +
+        "    UPDATE lottery_tickets t SET is_winner = payout.new_prize > 0, prize_amount = payout.new_prize, updated_at = NOW() " +
+        "    FROM payout WHERE t.weekly_lottery_id = payout.weekly_lottery_id AND t.id = payout.id " +
+        "    AND (payout.was_winner <> (payout.new_prize > 0) OR payout.old_prize <> payout.new_prize) " +
+        "    RETURNING payout.wallet_address, payout.was_winner, payout.old_prize, payout.new_prize" +
+        ") " +
+        PlayerStatsService.upsertSql(
+            "SELECT wallet_address, 0, " +
+            "       SUM((CASE WHEN new_prize > 0 THEN 1 ELSE 0 END) - (CASE WHEN was_winner THEN 1 ELSE 0 END)), 0, " +
+            "       SUM(new_prize - (CASE WHEN was_winner THEN old_prize ELSE 0 END)) " +
+            "FROM changed GROUP BY wallet_address");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private WeeklyLotteryService weeklyLotteryService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    // Match count to percentage of the prize pool, e.g. "6:50,5:30,4:15,3:5"
+    @Value("${settlement.payout.tiers:6:50,5:30,4:15,3:5}")
+    private String tierSpec;
+
+    private Map<Integer, BigDecimal> tiers;
+
+    private final Map<Long, PayoutSummary> payoutsByLottery = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        tiers = parseTiers(tierSpec);
+    }
+
+    /**
+     * Pay out a completed lottery's prize pool; does nothing for lotteries still running,
+     * already marked as distributed or whose tickets have been archived
+     */
+    @Transactional
+    public Optional<PayoutSummary> settlePrizes(Long lotteryId) {
+        long start = System.nanoTime();
+        List<LotteryState> lottery = jdbcTemplate.query(
+            "SELECT status, prize_pool, prizes_distributed, archived_at IS NOT NULL FROM weekly_lotteries WHERE id = ? FOR UPDATE",
+            (rs, rowNum) -> new LotteryState(rs.getString(1), rs.getBigDecimal(2), rs.getBoolean(3), rs.getBoolean(4)),
+            lotteryId);
+        if (lottery.isEmpty()) {
+            throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+        }
+        LotteryState state = lottery.get(0);
+        if (!"COMPLETED".equals(state.status) || state.prizesDistributed || state.archived) {
+            return Optional.empty();
+        }
+
+        long[] histogram = loadHistogram(lotteryId);
+        BigDecimal prizePool = state.prizePool != null ? state.prizePool.setScale(PRIZE_SCALE, RoundingMode.DOWN) : BigDecimal.ZERO;
+        List<TierPayout> payouts = splitPool(prizePool, histogram);
+
+        applyPayouts(lotteryId, payouts);
+        resourceVersionService.ticketsChanged(lotteryId);
+        List<String> winners = jdbcTemplate.queryForList(
+            "SELECT DISTINCT wallet_address FROM lottery_tickets WHERE weekly_lottery_id = ? AND is_winner = true " +
+            "ORDER BY wallet_address", String.class, lotteryId);
+        weeklyLotteryService.updateWinnerAddresses(lotteryId, toJson(winners));
+
+        PayoutSummary summary = new PayoutSummary(lotteryId, prizePool, histogram, payouts, winners.size(),
+                                                  (System.nanoTime() - start) / 1_000_000);
+        payoutsByLottery.put(lotteryId, summary);
+        log.info("Paid out {} of {} to {} tickets ({} players) of lottery {} in {} ms", summary.getTotalPaid(), prizePool,
+                 summary.getWinningTickets(), winners.size(), lotteryId, summary.getElapsedMillis());
+        return Optional.of(summary);
+    }
+
+    /**
+     * Get the configured tiers: match count to percentage of the prize pool, best tier first
+     */
+    public Map<Integer, BigDecimal> getTiers() {
+        return Collections.unmodifiableMap(tiers);
+    }
+
+    /**
+     * Get the latest payout of a lottery
+     */
+    @Transactional(readOnly = true)
+    public Optional<PayoutSummary> getPayout(Long lotteryId) {
+        PayoutSummary summary = payoutsByLottery.get(lotteryId);
+        return summary != null ? Optional.of(summary) : rebuildPayout(lotteryId);
+    }
+
+    /**
+     * Rebuild a payout from the prizes written to the tickets. Tier amounts follow the
+     * configured tiers and the pool; the rest comes from the tickets, so it matches what
+     * was paid. Lotteries never paid out, or archived, have nothing to rebuild from.
+     */
+    private Optional<PayoutSummary> rebuildPayout(Long lotteryId) {
+        long start = System.nanoTime();
+        List<LotteryState> lottery = jdbcTemplate.query(
+            "SELECT status, prize_pool, prizes_distributed, archived_at IS NOT NULL FROM weekly_lotteries WHERE id = ?",
+            (rs, rowNum) -> new LotteryState(rs.getString(1), rs.getBigDecimal(2), rs.getBoolean(3), rs.getBoolean(4)),
+            lotteryId);
+        if (lottery.isEmpty() || !"COMPLETED".equals(lottery.get(0).status) || lottery.get(0).archived) {
+            return Optional.empty();
+        }
+        LotteryState state = lottery.get(0);
+
+        // Matched numbers to winning tickets, smallest prize and prizes paid
+        Map<Integer, Object[]> winnersByTier = new TreeMap<>();
+        jdbcTemplate.query(
+            "SELECT matched_numbers, COUNT(*), MIN(prize_amount), SUM(prize_amount) FROM lottery_tickets " +
+            "WHERE weekly_lottery_id = ? AND is_winner = true GROUP BY matched_numbers",
+            rs -> {
+                winnersByTier.put(rs.getInt(1), new Object[] {rs.getLong(2), rs.getBigDecimal(3), rs.getBigDecimal(4)});
+            },
+            lotteryId);
+        if (winnersByTier.isEmpty() && !state.prizesDistributed) {
+            return Optional.empty();
+        }
+
+        BigDecimal prizePool = state.prizePool != null ? state.prizePool.setScale(PRIZE_SCALE, RoundingMode.DOWN) : BigDecimal.ZERO;
+        List<TierPayout> payouts = new ArrayList<>(tiers.size());
+        for (Map.Entry<Integer, BigDecimal> tier : tiers.entrySet()) {
+            BigDecimal amount = prizePool.multiply(tier.getValue()).divide(HUNDRED, PRIZE_SCALE, RoundingMode.DOWN);
+            Object[] winners = winnersByTier.get(tier.getKey());
+            if (winners == null) {
+                payouts.add(new TierPayout(tier.getKey(), tier.getValue(), amount, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO));
+                continue;
+            }
+            long tickets = (Long) winners[0];
+            BigDecimal share = ((BigDecimal) winners[1]).setScale(PRIZE_SCALE, RoundingMode.DOWN);
+            BigDecimal paid = ((BigDecimal) winners[2]).setScale(PRIZE_SCALE, RoundingMode.DOWN);
+            long extraUnits = paid.subtract(share.multiply(BigDecimal.valueOf(tickets))).unscaledValue().longValueExact();
+            payouts.add(new TierPayout(tier.getKey(), tier.getValue(), amount, tickets, share, extraUnits, paid));
+        }
+        Integer winningPlayers = jdbcTemplate.queryForObject(
+            "SELECT COUNT(DISTINCT wallet_address) FROM lottery_tickets WHERE weekly_lottery_id = ? AND is_winner = true",
+            Integer.class, lotteryId);
+
+        return Optional.of(new PayoutSummary(lotteryId, prizePool, loadHistogram(lotteryId), payouts,
+                                             winningPlayers, (System.nanoTime() - start) / 1_000_000));
+    }
+
+    private long[] loadHistogram(Long lotteryId) {
+        long[] histogram = new long[MAX_MATCHES + 1];
+        jdbcTemplate.query(
+            "SELECT matched_numbers, COUNT(*) FROM lottery_tickets WHERE weekly_lottery_id = ? GROUP BY matched_numbers",
+            rs -> {
+                int matched = rs.getInt(1);
+                if (!rs.wasNull() && matched >= 0 && matched <= MAX_MATCHES) {
+                    histogram[matched] = rs.getLong(2);
+                }
+            },
+            lotteryId);
+        return histogram;
+    }
+
+    /**
+     * Each tier gets its percentage of the pool, rounded down to the prize scale, split
+     * evenly between its tickets; the units left over by the even split go one per ticket
+     */
+    private List<TierPayout> splitPool(BigDecimal prizePool, long[] histogram) {
+        List<TierPayout> payouts = new ArrayList<>(tiers.size());
+        for (Map.Entry<Integer, BigDecimal> tier : tiers.entrySet()) {
+            int matched = tier.getKey();
+            long tickets = histogram[matched];
+            BigDecimal amount = prizePool.multiply(tier.getValue()).divide(HUNDRED, PRIZE_SCALE, RoundingMode.DOWN);
+            if (tickets == 0) {
+                payouts.add(new TierPayout(matched, tier.getValue(), amount, 0, BigDecimal.ZERO, 0, BigDecimal.ZERO));
+                continue;
+            }
+            BigDecimal share = amount.divide(BigDecimal.valueOf(tickets), PRIZE_SCALE, RoundingMode.DOWN);
+            long extraUnits = amount.subtract(share.multiply(BigDecimal.valueOf(tickets))).unscaledValue().longValueExact();
+            payouts.add(new TierPayout(matched, tier.getValue(), amount, tickets, share, extraUnits, amount));
+        }
+        return payouts;
+    }
+
+    private void applyPayouts(Long lotteryId, List<TierPayout> payouts) {
+        List<Integer> matchedNumbers = new ArrayList<>();
+        List<BigDecimal> shares = new ArrayList<>();
+        List<Long> extraUnits = new ArrayList<>();
+        for (TierPayout payout : payouts) {
+            if (payout.getWinningTickets() > 0) {
+                matchedNumbers.add(payout.getMatchedNumbers());
+                shares.add(payout.getShare());
+                extraUnits.add(payout.getExtraUnits());
+            }
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(PAYOUT_SQL);
+            statement.setArray(1, connection.createArrayOf("integer", matchedNumbers.toArray()));
+            statement.setArray(2, connection.createArrayOf("numeric", shares.toArray()));
+            statement.setArray(3, connection.createArrayOf("bigint", extraUnits.toArray()));
+            statement.setBigDecimal(4, BigDecimal.ONE.movePointLeft(PRIZE_SCALE));
+            statement.setLong(5, lotteryId);
+            return statement;
+        });
+    }
+
+    private String toJson(List<String> winners) {
+        try {
+            return objectMapper.writeValueAsString(winners);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Map<Integer, BigDecimal> parseTiers(String spec) {
+        Map<Integer, BigDecimal> parsed = new TreeMap<>(Collections.reverseOrder());
+        BigDecimal total = BigDecimal.ZERO;
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid payout tier '" + entry + "', expected matches:percent");
+            }
+            int matched = Integer.parseInt(parts[0].trim());
+            BigDecimal percent = new BigDecimal(parts[1].trim());
+            if (matched < 1 || matched > MAX_MATCHES || percent.signum() < 0) {
+                throw new IllegalArgumentException("Invalid payout tier '" + entry + "'");
+            }
+            parsed.put(matched, percent);
+            total = total.add(percent);
+        }
+        if (total.compareTo(HUNDRED) > 0) {
+            throw new IllegalArgumentException("Payout tiers add up to " + total + "%, more than the whole pool");
+        }
+        return parsed;
+    }
+
+    private static class LotteryState {
+        private final String status;
+        private final BigDecimal prizePool;
+        private final boolean prizesDistributed;
+        private final boolean archived;
+
+        private LotteryState(String status, BigDecimal prizePool, boolean prizesDistributed, boolean archived) {
+            this.status = status;
+            this.prizePool = prizePool;
+            this.prizesDistributed = prizesDistributed;
+            this.archived = archived;
+        }
+    }
+
+    /**
+     * Helper class for one payout tier
+     */
+    public static class TierPayout {
+        private final int matchedNumbers;
+        private final BigDecimal percentage;
+        private final BigDecimal amount;
+        private final long winningTickets;
+        private final BigDecimal share;
+        private final long extraUnits;
+        private final BigDecimal paid;
+
+        public TierPayout(int matchedNumbers, BigDecimal percentage, BigDecimal amount, long winningTickets,
+                          BigDecimal share, long extraUnits, BigDecimal paid) {
+            this.matchedNumbers = matchedNumbers;
+            this.percentage = percentage;
+            this.amount = amount;
+            this.winningTickets = winningTickets;
+            this.share = share;
+            this.extraUnits = extraUnits;
+            this.paid = paid;
+        }
+
+        public int getMatchedNumbers() { return matchedNumbers; }
+        public BigDecimal getPercentage() { return percentage; }
+        public BigDecimal getAmount() { return amount; }
+        public long getWinningTickets() { return winningTickets; }
+        public BigDecimal getShare() { return share; }
+        /** Tickets that get one more unit than the share */
+        public long getExtraUnits() { return extraUnits; }
+        public BigDecimal getPaid() { return paid; }
+    }
+
+    /**
+     * Helper class for a lottery's payout
+     */
+    public static class PayoutSummary {
+        private final Long lotteryId;
+        private final BigDecimal prizePool;
+        private final long[] matchHistogram;
+        private final List<TierPayout> tiers;
+        private final int winningPlayers;
+        private final Long elapsedMillis;
+        private final LocalDateTime settledAt = LocalDateTime.now();
+
+        public PayoutSummary(Long lotteryId, BigDecimal prizePool, long[] matchHistogram, List<TierPayout> tiers,
+                             int winningPlayers, Long elapsedMillis) {
+            this.lotteryId = lotteryId;
+            this.prizePool = prizePool;
+            this.matchHistogram = matchHistogram;
+            this.tiers = tiers;
+            this.winningPlayers = winningPlayers;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Long getLotteryId() { return lotteryId; }
+        public BigDecimal getPrizePool() { return prizePool; }
+        /** Ticket count by matched numbers, index 0 to 6 */
+        public long[] getMatchHistogram() { return matchHistogram; }
+        public List<TierPayout> getTiers() { return tiers; }
+        public int getWinningPlayers() { return winningPlayers; }
+        public Long getElapsedMillis() { return elapsedMillis; }
+        public LocalDateTime getSettledAt() { return settledAt; }
+
+        public long getWinningTickets() {
+            long tickets = 0;
+            for (TierPayout tier : tiers) {
+                tickets += tier.getWinningTickets();
+            }
+            return tickets;
+        }
+
+        public BigDecimal getTotalPaid() {
+            BigDecimal paid = BigDecimal.ZERO;
+            for (TierPayout tier : tiers) {
+                paid = paid.add(tier.getPaid());
+            }
+            return paid;
+        }
+
+        /** Share of the pool left for the next lottery: unclaimed tiers and the part no tier covers */
+        public BigDecimal getUndistributed() {
+            return prizePool.subtract(getTotalPaid());
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.bingochain.service;
+
+import com.bingochain.index.BloomFilter;
+import com.bingochain.model.LotteryTicket;
+import com.bingochain.repository.LotteryTicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Recognises replayed ticket purchases.
+ *
+ * Every contract ticket id and transaction hash that has been recorded is kept in a
+ * Bloom filter, so the common case, a purchase that was never seen, is answered from
+ * memory without touching the database. Only when the filter reports a possible match
+ * are lottery_tickets looked up by lottery and ticket_id, or by transaction_hash.
+ * Contract ticket ids are only unique within a lottery, so their keys include it.
+ *
+ * The filter is seeded from the database in the background once the application is
+ * ready; until then every purchase is checked against the database. Keys are added
+ * when a purchase is saved, and a periodic refresh picks up tickets written by imports,
+ * chain ingestion and other backend instances. When the filter fills past its expected
+ * size it is rebuilt twice as large. A replay it has not learned about yet, e.g. one
+ * committed on another instance since the last refresh, is left to the purchase insert:
+ * lottery_tickets is unique by lottery and ticket_id and, for non-empty hashes, by lottery
+ * and transaction_hash, so the insert skips the replay and answers with the original ticket.
+ * Only the per-lottery hash key is enforced; the same hash in another lottery is caught by
+ * the filter alone.
+ */
+@Service
+public class PurchaseIdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseIdempotencyService.class);
+
+    private static final int SEED_FETCH_SIZE = 10_000;
+
+    // Tickets committed shortly after a refresh may carry an earlier purchased_at
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private static final String TICKET_KEY = "ticket:";
+    private static final String TRANSACTION_KEY = "tx:";
+
+    @Autowired
+    private LotteryTicketRepository lotteryTicketRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${lottery.purchase.dedup.expected-keys:1000000}")
+    private long expectedKeys;
+
+    @Value("${lottery.purchase.dedup.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+
+    // Filter being rebuilt; recorded keys go into it as well
+    private volatile BloomFilter seeding;
+
+    private volatile boolean ready;
+
+    private volatile LocalDateTime refreshedFrom;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        filter = new BloomFilter(expectedKeys, falsePositiveRate);
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    /**
+     * Get the ticket an earlier purchase with the same contract ticket id in the lottery, or
+     * the same transaction hash, created
+     */
+    public Optional<LotteryTicket> findOriginal(Long lotteryId, String contractTicketId, String transactionHash) {
+        if (contractTicketId != null && mightContain(ticketKey(lotteryId, contractTicketId))) {
+            Optional<LotteryTicket> ticket =
+                lotteryTicketRepository.findByWeeklyLotteryIdAndTicketId(lotteryId, contractTicketId);
+            if (ticket.isPresent()) {
+                return ticket;
+            }
+        }
+        if (!isBlank(transactionHash) && mightContain(TRANSACTION_KEY + transactionHash)) {
+            return lotteryTicketRepository.findFirstByTransactionHash(transactionHash);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Remember the keys of a saved purchase; harmless if its transaction later rolls back
+     */
+    public void record(Long lotteryId, String contractTicketId, String transactionHash) {
+        put(ticketKey(lotteryId, contractTicketId));
+        if (!isBlank(transactionHash)) {
+            put(TRANSACTION_KEY + transactionHash);
+        }
+    }
+
+    /**
+     * Add the keys of tickets written since the last refresh
+     */
+    @Scheduled(fixedDelayString = "${lottery.purchase.dedup.refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!ready) {
+            return;
+        }
+        if (filter.getInsertions() > filter.getExpectedInsertions()) {
+            log.info("Purchase filter holds {} keys, more than the {} it was sized for; rebuilding",
+                     filter.getInsertions(), filter.getExpectedInsertions());
+            rebuild();
+            return;
+        }
+        LocalDateTime from = refreshedFrom;
+        LocalDateTime next = LocalDateTime.now().minus(REFRESH_OVERLAP);
+        loadKeys(from, filter);
+        refreshedFrom = next;
+    }
+
+    private void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            LocalDateTime next = LocalDateTime.now().minus(REFRESH_OVERLAP);
+            Long tickets = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lottery_tickets", Long.class);
+            // Two keys per ticket, with room for the ticket count to double
+            long capacity = Math.max(expectedKeys, (tickets != null ? tickets : 0) * 4);
+            BloomFilter rebuilt = new BloomFilter(capacity, falsePositiveRate);
+
+            ready = false;
+            seeding = rebuilt;
+            long keys = loadKeys(null, rebuilt);
+            filter = rebuilt;
+            seeding = null;
+            refreshedFrom = next;
+            ready = true;
+
+            log.info("Seeded purchase filter with {} keys ({} KB, {} hashes) in {} ms", keys,
+                     rebuilt.getBitCount() / 8 / 1024, rebuilt.getHashCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            seeding = null;
+            log.error("Seeding the purchase filter failed; purchases are checked against the database", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private long loadKeys(LocalDateTime from, BloomFilter target) {
+        long[] keys = new long[1];
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        // Inside a transaction the driver honours the fetch size instead of buffering every row
+        transaction.executeWithoutResult(status -> jdbcTemplate.query(
+            connection -> {
+                PreparedStatement statement = connection.prepareStatement(from == null
+                    ? "SELECT weekly_lottery_id, ticket_id, transaction_hash FROM lottery_tickets"
+                    : "SELECT weekly_lottery_id, ticket_id, transaction_hash FROM lottery_tickets WHERE purchased_at >= ?");
+                if (from != null) {
+                    statement.setTimestamp(1, Timestamp.valueOf(from));
+                }
+                statement.setFetchSize(SEED_FETCH_SIZE);
+                return statement;
+            },
+            rs -> {
+                if (target.put(ticketKey(rs.getLong(1), rs.getString(2)))) {
+                    keys[0]++;
+                }
+                String transactionHash = rs.getString(3);
+                if (!isBlank(transactionHash) && target.put(TRANSACTION_KEY + transactionHash)) {
+                    keys[0]++;
+                }
+            }));
+        return keys[0];
+    }
+
+    private static String ticketKey(Long lotteryId, String contractTicketId) {
+        return TICKET_KEY + lotteryId + ":" + contractTicketId;
+    }
+
+    private boolean mightContain(String key) {
+        return !ready || filter.mightContain(key);
+    }
+
+    private void put(String key) {
+        filter.put(key);
+        BloomFilter next = seeding;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,107 @@
+package com.bingochain.service;
+
+import com.bingochain.dto.WeeklyLotteryView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Computes the versions behind the ETags of lottery and ticket reads.
+ *
+ * Lottery views carry their updated_at, so their version is a digest of (id, updated_at)
+ * pairs. Tickets are versioned by weekly_lotteries.tickets_version, a counter bumped by
+ * every write to a lottery's tickets. Purchases leave it to {@link LotteryTotalsService#flush},
+ * so buyers never lock the lottery row and their tickets show up in the ETag within one
+ * flush interval. The rare writers, i.e. imports, chain ingestion, settlement, payouts and
+ * archiving, bump it in their own transaction through {@link #ticketsChanged}. Reading it
+ * costs one row per lottery rather than a pass over the tickets. It is a counter rather
+ * than MAX(updated_at) because updated_at is the writing transaction's start time, and a
+ * late commit can carry an older timestamp than rows committed before it.
+ */
+@Service
+public class ResourceVersionService {
+
+    // Ticket views carry these lottery columns, and archiving moves tickets to a segment
+    private static final String LOTTERY_SUMMARY_HASH =
+        "COALESCE(SUM(hashtextextended(l.id || ':' || COALESCE(l.lottery_name, '') || ':' || l.status || ':' || " +
+        "COALESCE(l.drawn_numbers, '') || ':' || COALESCE(l.archived_at::text, ''), 0)), 0)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Version of lottery views, e.g. a cached list; computed from the views themselves
+     */
+    public String lotteriesVersion(Collection<WeeklyLotteryView> lotteries) {
+        StringBuilder versions = new StringBuilder(lotteries.size() * 32);
+        for (WeeklyLotteryView lottery : lotteries) {
+            versions.append(lottery.getId()).append(':').append(lottery.getUpdatedAt()).append(';');
+        }
+        return DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Version of a player's statistics, a single small row that is cheaper to hash than to look up twice
+     */
+    public String playerStatisticsVersion(LotteryTicketService.PlayerStats stats) {
+        String values = stats.getTotalTickets() + ":" + stats.getWinningTickets() + ":" +
+                        stats.getTotalSpent() + ":" + stats.getTotalWon();
+        return DigestUtils.md5DigestAsHex(values.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Version of a player's tickets, live and archived. Tickets a player buys or wins
+     * bump their player_stats row. Settlement updates matches of every ticket of a lottery
+     * without touching player_stats, so the ticket versions of lotteries past their sales
+     * count as well; those of lotteries still selling change with every purchase and would
+     * invalidate every player, so they are left out.
+     */
+    public String playerTicketsVersion(String walletAddress) {
+        return jdbcTemplate.queryForObject(
+            "SELECT md5(COALESCE((SELECT s.version FROM player_stats s WHERE s.wallet_address = ?), -1) || '/' || " +
+            "COALESCE(SUM(l.tickets_version) FILTER (WHERE l.status <> 'TICKET_SALES'), 0) || '/' || " +
+            LOTTERY_SUMMARY_HASH + ") FROM weekly_lotteries l", String.class, walletAddress);
+    }
+
+    /**
+     * Version of the tickets of a lottery, winning or not
+     */
+    public String lotteryTicketsVersion(Long lotteryId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT md5(COALESCE(MAX(l.tickets_version), 0) || '/' || " + LOTTERY_SUMMARY_HASH + ") " +
+            "FROM weekly_lotteries l WHERE l.id = ?", String.class, lotteryId);
+    }
+
+    /**
+     * Bump the tickets version of a lottery whose tickets the current transaction wrote;
+     * not for purchases, which the totals flush accounts for
+     */
+    public void ticketsChanged(Long lotteryId) {
+        ticketsChanged(List.of(lotteryId));
+    }
+
+    /**
+     * Bump the tickets versions of lotteries whose tickets the current transaction wrote.
+     * Their rows stay locked until it commits, so call it after the writes; they are
+     * locked in id order, so writers of several lotteries cannot deadlock.
+     */
+    public void ticketsChanged(Collection<Long> lotteryIds) {
+        if (lotteryIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                "UPDATE weekly_lotteries l SET tickets_version = l.tickets_version + 1 " +
+                "FROM (SELECT id FROM weekly_lotteries WHERE id = ANY(?) ORDER BY id FOR UPDATE) locked " +
+                "WHERE l.id = locked.id");
+            statement.setArray(1, connection.createArrayOf("bigint", lotteryIds.toArray()));
+            return statement;
+        });
+    }
+}
@@ -0,0 +1,398 @@
+package com.bingochain.service;
+
+import com.bingochain.index.CombinationCounts;
+import com.bingochain.model.NumberSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Estimates how many tickets of a lottery will win, before its numbers are drawn.
+ *
+ * The lottery's tickets are snapshotted once into {@link CombinationCounts}. Each
+ * simulation then draws the remaining numbers the way the contract's
+ * {@code drawDailyNumber} does (a uniform number in 1..100, moved up to the next
+ * number not drawn yet) and counts the exact winners per match count. The numbers
+ * already drawn are kept, so a lottery in its drawing phase is simulated from
+ * where it stands. Simulations run in chunks on a dedicated fork-join pool, each
+ * chunk with its own split of the random generator, so a seeded run is reproducible.
+ */
+@Service
+public class RiskSimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskSimulationService.class);
+
+    private static final int MAX_NUMBER = 100;
+
+    private static final int DRAWS = 6;
+
+    private static final int MIN_MATCHES = 3;
+
+    private static final int SIMULATIONS_PER_CHUNK = 10_000;
+
+    // Two-sided 95% normal quantile
+    private static final double Z_95 = 1.959964;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PrizePayoutService prizePayoutService;
+
+    @Value("${simulation.max-simulations:5000000}")
+    private int maxSimulations;
+
+    private final ForkJoinPool simulationPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Simulate the remaining draws of a lottery
+     *
+     * @param seed fixes the random sequence; null picks a fresh one
+     */
+    public SimulationResult simulate(Long lotteryId, int simulations, Long seed) {
+        if (simulations < 1 || simulations > maxSimulations) {
+            throw new IllegalArgumentException("Simulations must be between 1 and " + maxSimulations);
+        }
+        long start = System.nanoTime();
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Snapshot snapshot = readOnly.execute(status -> loadSnapshot(lotteryId));
+        CombinationCounts counts = new CombinationCounts(snapshot.masks, snapshot.tickets);
+        long snapshotMillis = (System.nanoTime() - start) / 1_000_000;
+
+        int[] drawn = snapshot.drawnNumbers.toArray();
+        long seedUsed = seed != null ? seed : new SplittableRandom().nextLong();
+        int remaining = Math.max(0, DRAWS - drawn.length);
+
+        int chunks = (simulations + SIMULATIONS_PER_CHUNK - 1) / SIMULATIONS_PER_CHUNK;
+        SplittableRandom root = new SplittableRandom(seedUsed);
+        SplittableRandom[] randoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            randoms[c] = root.split();
+        }
+
+        // winners[m - MIN_MATCHES][i] is the number of m-match tickets in simulation i
+        int[][] winners = new int[DRAWS - MIN_MATCHES + 1][simulations];
+        long low = snapshot.drawnNumbers.getLow();
+        long high = snapshot.drawnNumbers.getHigh();
+        simulationPool.submit(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = c * SIMULATIONS_PER_CHUNK;
+            int to = Math.min(simulations, from + SIMULATIONS_PER_CHUNK);
+            runChunk(counts, low, high, remaining, randoms[c], winners, from, to);
+        })).join();
+
+        List<WinnerDistribution> distributions = new ArrayList<>(winners.length);
+        for (int m = DRAWS; m >= MIN_MATCHES; m--) {
+            distributions.add(distribution(m, winners[m - MIN_MATCHES]));
+        }
+        ExposureEstimate exposure = exposure(snapshot.prizePool, winners);
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Simulated {} draws of lottery {} ({} tickets) in {} ms, {} ms of it loading the snapshot",
+                 simulations, lotteryId, counts.getTicketCount(), elapsedMillis, snapshotMillis);
+        return new SimulationResult(lotteryId, counts.getTicketCount(), drawn, simulations, seedUsed,
+                                    distributions, exposure, snapshotMillis, elapsedMillis);
+    }
+
+    private void runChunk(CombinationCounts counts, long drawnLow, long drawnHigh, int remaining,
+                          SplittableRandom random, int[][] winners, int from, int to) {
+        int[] drawn = new int[DRAWS];
+        long[] byMatches = new long[DRAWS + 1];
+        for (int i = from; i < to; i++) {
+            long low = drawnLow;
+            long high = drawnHigh;
+            for (int d = 0; d < remaining; d++) {
+                // Same rule as the contract: random % 100 + 1, then the next number up that is free
+                int number = random.nextInt(MAX_NUMBER) + 1;
+                while (isSet(low, high, number)) {
+                    number = number % MAX_NUMBER + 1;
+                }
+                if (number < 64) {
+                    low |= 1L << number;
+                } else {
+                    high |= 1L << (number - 64);
+                }
+            }
+            int size = 0;
+            for (long bits = low; bits != 0 && size < DRAWS; bits &= bits - 1) {
+                drawn[size++] = Long.numberOfTrailingZeros(bits) - 1;
+            }
+            for (long bits = high; bits != 0 && size < DRAWS; bits &= bits - 1) {
+                drawn[size++] = Long.numberOfTrailingZeros(bits) + 63;
+            }
+            counts.countWinners(drawn, byMatches);
+            for (int m = MIN_MATCHES; m <= DRAWS; m++) {
+                winners[m - MIN_MATCHES][i] = (int) byMatches[m];
+            }
+        }
+    }
+
+    private static boolean isSet(long low, long high, int number) {
+        return number < 64 ? (low & (1L << number)) != 0 : (high & (1L << (number - 64))) != 0;
+    }
+
+    private Snapshot loadSnapshot(Long lotteryId) {
+        List<Snapshot> lottery = jdbcTemplate.query(
+            "SELECT prize_pool, drawn_mask, drawn_numbers FROM weekly_lotteries WHERE id = ?",
+            (rs, rowNum) -> new Snapshot(rs.getBigDecimal(1), decode(rs.getBytes(2), rs.getString(3))),
+            lotteryId);
+        if (lottery.isEmpty()) {
+            throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+        }
+        Snapshot snapshot = lottery.get(0);
+
+        Long total = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM lottery_tickets WHERE weekly_lottery_id = ?", Long.class, lotteryId);
+        snapshot.masks = new long[2 * (int) Math.max(1L, total != null ? total : 0L)];
+        jdbcTemplate.query(
+            "SELECT chosen_mask, chosen_numbers FROM lottery_tickets WHERE weekly_lottery_id = ?",
+            rs -> {
+                NumberSet numbers = decode(rs.getBytes(1), rs.getString(2));
+                if (numbers.isEmpty()) {
+                    return;
+                }
+                if (2 * snapshot.tickets + 1 >= snapshot.masks.length) {
+                    snapshot.masks = Arrays.copyOf(snapshot.masks, snapshot.masks.length * 2);
+                }
+                snapshot.masks[2 * snapshot.tickets] = numbers.getLow();
+                snapshot.masks[2 * snapshot.tickets + 1] = numbers.getHigh();
+                snapshot.tickets++;
+            },
+            lotteryId);
+        return snapshot;
+    }
+
+    /**
+     * Prefer the packed mask column and fall back to the JSON text for rows written before it existed
+     */
+    private static NumberSet decode(byte[] mask, String json) {
+        if (mask != null) {
+            return NumberSet.fromBytes(mask);
+        }
+        NumberSet parsed = NumberSet.tryParse(json);
+        return parsed != null ? parsed : NumberSet.EMPTY;
+    }
+
+    private static WinnerDistribution distribution(int matchedNumbers, int[] winners) {
+        int n = winners.length;
+        double sum = 0;
+        double sumSquares = 0;
+        long withWinner = 0;
+        for (int count : winners) {
+            sum += count;
+            sumSquares += (double) count * count;
+            if (count > 0) {
+                withWinner++;
+            }
+        }
+        double mean = sum / n;
+        double deviation = Math.sqrt(Math.max(0, sumSquares / n - mean * mean));
+        double meanMargin = Z_95 * deviation / Math.sqrt(n);
+        double probability = (double) withWinner / n;
+        double probabilityMargin = Z_95 * Math.sqrt(probability * (1 - probability) / n);
+
+        int[] sorted = winners.clone();
+        Arrays.parallelSort(sorted);
+        return new WinnerDistribution(matchedNumbers, mean, deviation, mean - meanMargin, mean + meanMargin,
+                                      probability, Math.max(0, probability - probabilityMargin),
+                                      Math.min(1, probability + probabilityMargin),
+                                      percentile(sorted, 0.05), percentile(sorted, 0.5),
+                                      percentile(sorted, 0.95), percentile(sorted, 0.99), sorted[n - 1]);
+    }
+
+    /**
+     * Share of the pool paid out per simulation; a tier without winners stays in the pool
+     */
+    private ExposureEstimate exposure(BigDecimal prizePool, int[][] winners) {
+        BigDecimal pool = prizePool != null ? prizePool : BigDecimal.ZERO;
+        int n = winners[0].length;
+        double[] tierFractions = new double[DRAWS + 1];
+        for (Map.Entry<Integer, BigDecimal> tier : prizePayoutService.getTiers().entrySet()) {
+            if (tier.getKey() >= MIN_MATCHES && tier.getKey() <= DRAWS) {
+                tierFractions[tier.getKey()] = tier.getValue().doubleValue() / 100;
+            }
+        }
+
+        double sum = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < n; i++) {
+            double paid = 0;
+            for (int m = MIN_MATCHES; m <= DRAWS; m++) {
+                if (winners[m - MIN_MATCHES][i] > 0) {
+                    paid += tierFractions[m];
+                }
+            }
+            sum += paid;
+            sumSquares += paid * paid;
+        }
+        double mean = sum / n;
+        double deviation = Math.sqrt(Math.max(0, sumSquares / n - mean * mean));
+        double margin = Z_95 * deviation / Math.sqrt(n);
+        return new ExposureEstimate(pool, mean, share(pool, mean), share(pool, Math.max(0, mean - margin)),
+                                    share(pool, mean + margin));
+    }
+
+    private static BigDecimal share(BigDecimal pool, double fraction) {
+        return pool.multiply(BigDecimal.valueOf(fraction)).setScale(8, RoundingMode.HALF_UP);
+    }
+
+    private static int percentile(int[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        simulationPool.shutdown();
+    }
+
+    private static class Snapshot {
+        private final BigDecimal prizePool;
+        private final NumberSet drawnNumbers;
+        private long[] masks;
+        private int tickets;
+
+        private Snapshot(BigDecimal prizePool, NumberSet drawnNumbers) {
+            this.prizePool = prizePool;
+            this.drawnNumbers = drawnNumbers;
+        }
+    }
+
+    /**
+     * Helper class for simulation results
+     */
+    public static class SimulationResult {
+        private final Long lotteryId;
+        private final Long tickets;
+        private final int[] drawnNumbers;
+        private final Integer simulations;
+        private final Long seed;
+        private final List<WinnerDistribution> winners;
+        private final ExposureEstimate exposure;
+        private final Long snapshotMillis;
+        private final Long elapsedMillis;
+
+        public SimulationResult(Long lotteryId, Long tickets, int[] drawnNumbers, Integer simulations, Long seed,
+                                List<WinnerDistribution> winners, ExposureEstimate exposure,
+                                Long snapshotMillis, Long elapsedMillis) {
+            this.lotteryId = lotteryId;
+            this.tickets = tickets;
+            this.drawnNumbers = drawnNumbers;
+            this.simulations = simulations;
+            this.seed = seed;
+            this.winners = winners;
+            this.exposure = exposure;
+            this.snapshotMillis = snapshotMillis;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Long getLotteryId() { return lotteryId; }
+        public Long getTickets() { return tickets; }
+        public int[] getDrawnNumbers() { return drawnNumbers; }
+        public Integer getSimulations() { return simulations; }
+        public Long getSeed() { return seed; }
+        public List<WinnerDistribution> getWinners() { return winners; }
+        public ExposureEstimate getExposure() { return exposure; }
+        public Long getSnapshotMillis() { return snapshotMillis; }
+        public Long getElapsedMillis() { return elapsedMillis; }
+    }
+
+    /**
+     * Helper class for the simulated number of winners with one match count;
+     * the low/high bounds are 95% confidence intervals
+     */
+    public static class WinnerDistribution {
+        private final Integer matchedNumbers;
+        private final Double mean;
+        private final Double standardDeviation;
+        private final Double meanLow;
+        private final Double meanHigh;
+        private final Double probabilityOfWinner;
+        private final Double probabilityLow;
+        private final Double probabilityHigh;
+        private final Integer p5;
+        private final Integer p50;
+        private final Integer p95;
+        private final Integer p99;
+        private final Integer max;
+
+        public WinnerDistribution(Integer matchedNumbers, Double mean, Double standardDeviation,
+                                  Double meanLow, Double meanHigh, Double probabilityOfWinner,
+                                  Double probabilityLow, Double probabilityHigh,
+                                  Integer p5, Integer p50, Integer p95, Integer p99, Integer max) {
+            this.matchedNumbers = matchedNumbers;
+            this.mean = mean;
+            this.standardDeviation = standardDeviation;
+            this.meanLow = meanLow;
+            this.meanHigh = meanHigh;
+            this.probabilityOfWinner = probabilityOfWinner;
+            this.probabilityLow = probabilityLow;
+            this.probabilityHigh = probabilityHigh;
+            this.p5 = p5;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        public Integer getMatchedNumbers() { return matchedNumbers; }
+        public Double getMean() { return mean; }
+        public Double getStandardDeviation() { return standardDeviation; }
+        public Double getMeanLow() { return meanLow; }
+        public Double getMeanHigh() { return meanHigh; }
+        public Double getProbabilityOfWinner() { return probabilityOfWinner; }
+        public Double getProbabilityLow() { return probabilityLow; }
+        public Double getProbabilityHigh() { return probabilityHigh; }
+        public Integer getP5() { return p5; }
+        public Integer getP50() { return p50; }
+        public Integer getP95() { return p95; }
+        public Integer getP99() { return p99; }
+        public Integer getMax() { return max; }
+    }
+
+    /**
+     * Helper class for the expected prize pool payout under the configured tiers
+     */
+    public static class ExposureEstimate {
+        private final BigDecimal prizePool;
+        private final Double expectedShare;
+        private final BigDecimal expectedPayout;
+        private final BigDecimal payoutLow;
+        private final BigDecimal payoutHigh;
+
+        public ExposureEstimate(BigDecimal prizePool, Double expectedShare, BigDecimal expectedPayout,
+                                BigDecimal payoutLow, BigDecimal payoutHigh) {
+            this.prizePool = prizePool;
+            this.expectedShare = expectedShare;
+            this.expectedPayout = expectedPayout;
+            this.payoutLow = payoutLow;
+            this.payoutHigh = payoutHigh;
+        }
+
+        public BigDecimal getPrizePool() { return prizePool; }
+        public Double getExpectedShare() { return expectedShare; }
+        public BigDecimal getExpectedPayout() { return expectedPayout; }
+        public BigDecimal getPayoutLow() { return payoutLow; }
+        public BigDecimal getPayoutHigh() { return payoutHigh; }
+    }
+}
@@ -0,0 +1,266 @@
+package com.bingochain.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps lottery_tickets and draw_events range partitioned by weekly_lottery_id.
+ *
+ * Every lottery gets its own lottery_tickets partition; draw_events, with a handful of
+ * rows per lottery, is split into runs of {@code partitioning.draw-events-lotteries-per-partition}
+ * lottery ids. Queries filtering on the lottery id only touch its partition. A default
+ * partition catches rows of lotteries created behind the backend's back; they are moved
+ * out when the lottery's partition is created.
+ *
+ * With {@code partitioning.enabled}, plain tables are converted at startup by copying
+ * them into a partitioned table of the same name, keeping their indexes, foreign keys and
+ * dependent views. The primary keys become (id, weekly_lottery_id) and contract ticket ids
+ * are unique per lottery, as Postgres requires unique keys to include the partition key;
+ * the global ticket id key is dropped first.
+ */
+@Service
+public class TablePartitionService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TablePartitionService.class);
+
+    private static final String PARTITION_KEY = "weekly_lottery_id";
+
+    // Same name as LotteryTicket's unique constraint, so Hibernate finds it on the converted table
+    private static final String TICKET_UNIQUE_KEY = "uk_lottery_tickets_lottery_ticket";
+
+    // Global key on ticket_id from the init script; a partitioned table cannot keep it
+    private static final String TICKET_GLOBAL_KEY = "uk_lottery_tickets_ticket_id";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${partitioning.enabled:false}")
+    private boolean enabled;
+
+    @Value("${partitioning.draw-events-lotteries-per-partition:1000}")
+    private long drawEventsLotteriesPerPartition;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (PartitionedTable table : tables()) {
+            if (!isPartitioned(table.name)) {
+                transaction.executeWithoutResult(status -> convert(table));
+            }
+        }
+        // Archived lotteries are left out, so partitions dropped after archiving stay dropped
+        List<Long> lotteries = jdbcTemplate.queryForList(
+            "SELECT id FROM weekly_lotteries WHERE archived_at IS NULL ORDER BY id", Long.class);
+        for (Long lotteryId : lotteries) {
+            transaction.executeWithoutResult(status -> ensurePartitions(lotteryId));
+        }
+    }
+
+    /**
+     * Create the partitions a lottery's rows go to, moving any of them out of the default partitions
+     */
+    public void ensurePartitions(Long lotteryId) {
+        if (!enabled) {
+            return;
+        }
+        for (PartitionedTable table : tables()) {
+            long from = table.lowerBound(lotteryId);
+            String partition = table.partitionName(from);
+            if (!isPartitioned(table.name) || jdbcTemplate.queryForObject(
+                    "SELECT to_regclass(?) IS NOT NULL", Boolean.class, partition)) {
+                continue;
+            }
+            // A new partition's range must not hold rows of the default partition
+            String defaultPartition = table.name + "_default";
+            String moved = table.name + "_moved";
+            jdbcTemplate.execute("CREATE TEMPORARY TABLE " + moved + " (LIKE " + table.name + ") ON COMMIT DROP");
+            jdbcTemplate.update("WITH moved AS (DELETE FROM " + defaultPartition + " WHERE " + PARTITION_KEY +
+                " >= ? AND " + PARTITION_KEY + " < ? RETURNING *) INSERT INTO " + moved + " SELECT * FROM moved",
+                from, from + table.lotteriesPerPartition);
+            jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + table.name +
+                " FOR VALUES FROM (" + from + ") TO (" + (from + table.lotteriesPerPartition) + ")");
+            int rows = jdbcTemplate.update("INSERT INTO " + table.name + " SELECT * FROM " + moved);
+            jdbcTemplate.execute("DROP TABLE " + moved);
+            log.info("Created partition {} for lottery {}{}", partition, lotteryId,
+                     rows > 0 ? " with " + rows + " rows from " + defaultPartition : "");
+        }
+    }
+
+    /**
+     * Detach the lottery_tickets partition of an archived lottery, dropping it unless asked to keep it.
+     * Its tickets are read from the archive segment, so nothing disappears from the API; a kept
+     * partition becomes a standalone table that can be dumped and dropped later.
+     */
+    public DetachResult detachTicketPartition(Long lotteryId, boolean drop) {
+        if (!isPartitioned("lottery_tickets")) {
+            throw new IllegalStateException("lottery_tickets is not partitioned");
+        }
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            List<Boolean> archived = jdbcTemplate.queryForList(
+                "SELECT archived_at IS NOT NULL FROM weekly_lotteries WHERE id = ? FOR SHARE", Boolean.class, lotteryId);
+            if (archived.isEmpty()) {
+                throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+            }
+            if (!archived.get(0)) {
+                throw new IllegalStateException("Lottery " + lotteryId + " is not archived");
+            }
+            PartitionedTable tickets = tables().get(0);
+            String partition = tickets.partitionName(tickets.lowerBound(lotteryId));
+            Boolean attached = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM pg_inherits WHERE inhrelid = to_regclass(?) " +
+                "AND inhparent = 'lottery_tickets'::regclass)", Boolean.class, partition);
+            if (!attached) {
+                throw new IllegalStateException("Lottery " + lotteryId + " has no attached ticket partition");
+            }
+            Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + partition, Long.class);
+            jdbcTemplate.execute("ALTER TABLE lottery_tickets DETACH PARTITION " + partition);
+            if (drop) {
+                jdbcTemplate.execute("DROP TABLE " + partition);
+            }
+            log.info("{} partition {} of archived lottery {} ({} rows)",
+                     drop ? "Dropped" : "Detached", partition, lotteryId, rows);
+            return new DetachResult(lotteryId, partition, rows, drop);
+        });
+    }
+
+    private boolean isPartitioned(String table) {
+        return jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass(?) AND relkind = 'p')",
+            Boolean.class, table);
+    }
+
+    private void convert(PartitionedTable table) {
+        long start = System.nanoTime();
+        String name = table.name;
+        String staging = name + "_partitioned";
+        jdbcTemplate.execute("LOCK TABLE " + name + " IN ACCESS EXCLUSIVE MODE");
+        if (table.droppedKey != null) {
+            jdbcTemplate.execute("ALTER TABLE " + name + " DROP CONSTRAINT IF EXISTS " + table.droppedKey);
+            log.info("Dropped unique key {} of {}, it does not include {}", table.droppedKey, name, PARTITION_KEY);
+        }
+
+        // Definitions are taken before the swap, while they still name the plain table. Unique
+        // indexes without a constraint, like the partial transaction hash key, come along too.
+        List<String> indexes = jdbcTemplate.queryForList(
+            "SELECT pg_get_indexdef(indexrelid) FROM pg_index WHERE indrelid = ?::regclass " +
+            "AND NOT indisprimary AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = indexrelid)",
+            String.class, name);
+        List<Map<String, Object>> constraints = jdbcTemplate.queryForList(
+            "SELECT conname, pg_get_constraintdef(oid) AS definition FROM pg_constraint " +
+            "WHERE conrelid = ?::regclass AND contype IN ('f', 'c')", name);
+        List<Map<String, Object>> views = jdbcTemplate.queryForList(
+            "SELECT DISTINCT v.oid::regclass::text AS view, pg_get_viewdef(v.oid) AS definition " +
+            "FROM pg_depend d JOIN pg_rewrite r ON r.oid = d.objid JOIN pg_class v ON v.oid = r.ev_class " +
+            "WHERE d.refobjid = ?::regclass AND v.relkind = 'v'", name);
+
+        jdbcTemplate.execute("CREATE TABLE " + staging + " (LIKE " + name + " INCLUDING DEFAULTS INCLUDING STORAGE) " +
+                             "PARTITION BY RANGE (" + PARTITION_KEY + ")");
+        jdbcTemplate.execute("CREATE TABLE " + name + "_default PARTITION OF " + staging + " DEFAULT");
+        List<Long> lowerBounds = jdbcTemplate.queryForList(
+            "SELECT DISTINCT id - id % ? FROM weekly_lotteries WHERE archived_at IS NULL ORDER BY 1",
+            Long.class, table.lotteriesPerPartition);
+        for (Long from : lowerBounds) {
+            jdbcTemplate.execute("CREATE TABLE " + table.partitionName(from) + " PARTITION OF " + staging +
+                " FOR VALUES FROM (" + from + ") TO (" + (from + table.lotteriesPerPartition) + ")");
+        }
+        int rows = jdbcTemplate.update("INSERT INTO " + staging + " SELECT * FROM " + name);
+
+        for (Map<String, Object> view : views) {
+            jdbcTemplate.execute("DROP VIEW " + view.get("view"));
+        }
+        jdbcTemplate.execute("DROP TABLE " + name);
+        jdbcTemplate.execute("ALTER TABLE " + staging + " RENAME TO " + name);
+
+        // Keys and indexes are built once the rows are in, which is faster than maintaining them per row
+        jdbcTemplate.execute("ALTER TABLE " + name + " ADD PRIMARY KEY (id, " + PARTITION_KEY + ")");
+        if (table.uniqueKey != null) {
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + table.uniqueKey +
+                                 " UNIQUE (" + table.uniqueColumns + ")");
+        }
+        for (Map<String, Object> constraint : constraints) {
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + constraint.get("conname") +
+                                 " " + constraint.get("definition"));
+        }
+        for (String index : indexes) {
+            jdbcTemplate.execute(index);
+        }
+        for (Map<String, Object> view : views) {
+            jdbcTemplate.execute("CREATE VIEW " + view.get("view") + " AS " + view.get("definition"));
+        }
+        log.info("Partitioned {} by {} into {} partitions ({} rows) in {} ms", name, PARTITION_KEY,
+                 lowerBounds.size(), rows, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<PartitionedTable> tables() {
+        List<PartitionedTable> tables = new ArrayList<>();
+        tables.add(new PartitionedTable("lottery_tickets", 1, TICKET_UNIQUE_KEY, PARTITION_KEY + ", ticket_id",
+                                        TICKET_GLOBAL_KEY));
+        tables.add(new PartitionedTable("draw_events", drawEventsLotteriesPerPartition, null, null, null));
+        return tables;
+    }
+
+    private static class PartitionedTable {
+        private final String name;
+        private final long lotteriesPerPartition;
+        private final String uniqueKey;
+        private final String uniqueColumns;
+        private final String droppedKey;
+
+        PartitionedTable(String name, long lotteriesPerPartition, String uniqueKey, String uniqueColumns,
+                         String droppedKey) {
+            this.name = name;
+            this.lotteriesPerPartition = lotteriesPerPartition;
+            this.uniqueKey = uniqueKey;
+            this.uniqueColumns = uniqueColumns;
+            this.droppedKey = droppedKey;
+        }
+
+        long lowerBound(long lotteryId) {
+            return lotteryId - lotteryId % lotteriesPerPartition;
+        }
+
+        String partitionName(long lowerBound) {
+            return name + "_l" + lowerBound;
+        }
+    }
+
+    /**
+     * Helper class for the outcome of detaching a ticket partition
+     */
+    public static class DetachResult {
+        private final Long lotteryId;
+        private final String partition;
+        private final Long rows;
+        private final boolean dropped;
+
+        public DetachResult(Long lotteryId, String partition, Long rows, boolean dropped) {
+            this.lotteryId = lotteryId;
+            this.partition = partition;
+            this.rows = rows;
+            this.dropped = dropped;
+        }
+
+        public Long getLotteryId() { return lotteryId; }
+        public String getPartition() { return partition; }
+        public Long getRows() { return rows; }
+        public boolean isDropped() { return dropped; }
+    }
+}
@@ -0,0 +1,465 @@
+package com.bingochain.service;
+
+import com.bingochain.archive.TicketSegment;
+import com.bingochain.archive.TicketSegmentWriter;
+import com.bingochain.dto.LotteryTicketView;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves the tickets of finished lotteries out of lottery_tickets into segment files.
+ *
+ * A lottery is archived once it is completed or cancelled and has not changed for
+ * {@code archive.min-age-hours}. Its tickets are streamed into a
+ * new segment, which is then moved into place and the rows deleted in one transaction
+ * holding the lottery row lock; the deleted rows must add up to what the segment holds
+ * or nothing is deleted. Per-wallet totals of the deleted rows go to
+ * archived_player_totals so player statistics can still be rebuilt.
+ *
+ * Segments of archived lotteries are mapped at startup; segments archived by other
+ * instances are picked up on a periodic refresh, or on demand when a lottery's rows
+ * are gone. Reads go through {@link LotteryTicketService}, which combines both tiers.
+ */
+@Service
+public class TicketArchiveService implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketArchiveService.class);
+
+    private static final int FETCH_SIZE = 10_000;
+
+    private static final String TICKET_SQL =
+        "SELECT id, ticket_id, wallet_address, chosen_numbers, matched_numbers, ticket_price_paid, is_winner, " +
+        "prize_amount, transaction_hash, purchased_at, updated_at FROM lottery_tickets " +
+        "WHERE weekly_lottery_id = ? ORDER BY purchased_at NULLS FIRST, id";
+
+    // Deletes the rows, adds them to the archived wallet totals and returns their fingerprint
+    private static final String DELETE_SQL =
+        "WITH archived AS (" +
+        "    DELETE FROM lottery_tickets WHERE weekly_lottery_id = ? " +
+        "    RETURNING wallet_address, matched_numbers, is_winner, ticket_price_paid, prize_amount" +
+        "), totals AS (" +
+        "    INSERT INTO archived_player_totals (wallet_address, total_tickets, winning_tickets, total_spent, total_won, updated_at) " +
+        "    SELECT wallet_address, COUNT(*), COUNT(*) FILTER (WHERE is_winner = true), " +
+        "    COALESCE(SUM(ticket_price_paid), 0), COALESCE(SUM(prize_amount) FILTER (WHERE is_winner = true), 0), NOW() " +
+        "    FROM archived GROUP BY wallet_address ORDER BY wallet_address " +
+        "    ON CONFLICT (wallet_address) DO UPDATE SET " +
+        "    total_tickets = archived_player_totals.total_tickets + EXCLUDED.total_tickets, " +
+        "    winning_tickets = archived_player_totals.winning_tickets + EXCLUDED.winning_tickets, " +
+        "    total_spent = archived_player_totals.total_spent + EXCLUDED.total_spent, " +
+        "    total_won = archived_player_totals.total_won + EXCLUDED.total_won, " +
+        "    updated_at = NOW()" +
+        ") " +
+        "SELECT COUNT(*), COALESCE(SUM(matched_numbers), 0), COUNT(*) FILTER (WHERE is_winner = true), " +
+        "COALESCE(SUM(prize_amount) FILTER (WHERE is_winner = true), 0) FROM archived";
+
+    private static final RowMapper<LotteryInfo> LOTTERY_MAPPER = (rs, rowNum) -> new LotteryInfo(
+        rs.getString(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4));
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TicketIndexService ticketIndexService;
+
+    @Autowired
+    private WeeklyLotteryService weeklyLotteryService;
+
+    @Value("${archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${archive.directory:./data/ticket-archive}")
+    private String directory;
+
+    @Value("${archive.min-age-hours:168}")
+    private long minAgeHours;
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private AsyncTaskExecutor taskExecutor;
+
+    private final Map<Long, TicketSegment> segments = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean archiving = new AtomicBoolean();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        refreshSegments();
+    }
+
+    /**
+     * Map the segments of lotteries archived since the last refresh, including by other instances
+     */
+    @Scheduled(fixedDelayString = "${archive.refresh-interval-ms:60000}",
+               initialDelayString = "${archive.refresh-interval-ms:60000}")
+    public void refreshSegments() {
+        List<Long> archived = jdbcTemplate.queryForList(
+            "SELECT id FROM weekly_lotteries WHERE archived_at IS NOT NULL", Long.class);
+        for (Long lotteryId : archived) {
+            if (!segments.containsKey(lotteryId)) {
+                try {
+                    openSegment(lotteryId);
+                } catch (IOException | RuntimeException e) {
+                    log.error("Tickets of archived lottery {} are unreadable: {}", lotteryId, e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Archive every finished lottery old enough. Writing segments takes a while, so it runs
+     * on the task executor rather than the shared scheduler thread; a run still going when
+     * the next one is due makes that one a no-op.
+     */
+    @Scheduled(fixedDelayString = "${archive.interval-ms:3600000}",
+               initialDelayString = "${archive.interval-ms:3600000}")
+    public void archiveFinishedLotteries() {
+        if (!enabled || !archiving.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    archiveCandidates();
+                } finally {
+                    archiving.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            archiving.set(false);
+            log.error("Could not start archiving finished lotteries", e);
+        }
+    }
+
+    private void archiveCandidates() {
+        List<Long> candidates = jdbcTemplate.queryForList(
+            "SELECT id FROM weekly_lotteries WHERE archived_at IS NULL " +
+            "AND status IN ('COMPLETED', 'CANCELLED') " +
+            "AND updated_at < NOW() - make_interval(hours => ?) ORDER BY id",
+            Long.class, (int) minAgeHours);
+        for (Long lotteryId : candidates) {
+            try {
+                archiveLottery(lotteryId);
+            } catch (RuntimeException e) {
+                log.error("Archiving lottery {} failed", lotteryId, e);
+            }
+        }
+    }
+
+    /**
+     * Move the tickets of a completed or cancelled lottery into a segment file
+     */
+    public synchronized ArchiveResult archiveLottery(Long lotteryId) {
+        long start = System.nanoTime();
+        LotteryInfo lottery = loadLottery(lotteryId);
+        checkArchivable(lotteryId, lottery);
+
+        Path target = segmentPath(lotteryId);
+        Path temp = tempPath(target);
+        Fingerprint written = writeSegment(lotteryId, lottery, temp);
+        boolean[] moved = new boolean[1];
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                // The row lock orders this against payouts and against other instances archiving it
+                checkArchivable(lotteryId, jdbcTemplate.queryForObject(
+                    "SELECT lottery_name, status, drawn_numbers, archived_at FROM weekly_lotteries WHERE id = ? FOR UPDATE",
+                    LOTTERY_MAPPER, lotteryId));
+                try {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    moved[0] = true;
+                    // Registered before commit so no read finds the lottery in neither tier
+                    segments.put(lotteryId, TicketSegment.open(target));
+
+                    Fingerprint deleted = jdbcTemplate.queryForObject(DELETE_SQL,
+                        (rs, rowNum) -> new Fingerprint(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getBigDecimal(4)),
+                        lotteryId);
+                    if (!written.equals(deleted)) {
+                        throw new IllegalStateException("Tickets of lottery " + lotteryId + " changed while archiving: "
+                            + "segment has " + written + ", table had " + deleted);
+                    }
+                    jdbcTemplate.update("UPDATE weekly_lotteries SET archived_at = NOW(), " +
+                                        "tickets_version = tickets_version + 1 WHERE id = ?", lotteryId);
+                } catch (IOException | RuntimeException e) {
+                    // Still under the row lock, so the file cannot be another instance's by now
+                    segments.remove(lotteryId);
+                    deleteQuietly(target);
+                    if (e instanceof IOException) {
+                        throw new UncheckedIOException((IOException) e);
+                    }
+                    throw (RuntimeException) e;
+                }
+            });
+        } catch (RuntimeException e) {
+            if (moved[0]) {
+                // A failed commit leaves the file behind; it is ignored until the lottery is archived again
+                segments.remove(lotteryId);
+            }
+            throw e;
+        } finally {
+            deleteQuietly(temp);
+        }
+        // The lottery's tickets are no longer in lottery_tickets, which its index was built from
+        ticketIndexService.evict(lotteryId);
+        weeklyLotteryService.evictCaches();
+
+        long bytes = segmentSize(target);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        log.info("Archived {} tickets of lottery {} into {} ({} bytes) in {} ms",
+                 written.tickets, lotteryId, target, bytes, elapsedMillis);
+        return new ArchiveResult(lotteryId, written.tickets, written.winners, bytes, elapsedMillis);
+    }
+
+    /**
+     * Get the mapped segment of a lottery, or null if it is not known to be archived
+     */
+    public TicketSegment getSegment(Long lotteryId) {
+        return segments.get(lotteryId);
+    }
+
+    /**
+     * Get the segment of a lottery, mapping it first if another instance archived it;
+     * null if the lottery is not archived
+     */
+    public TicketSegment loadSegment(Long lotteryId) {
+        TicketSegment segment = segments.get(lotteryId);
+        if (segment != null) {
+            return segment;
+        }
+        List<Timestamp> archivedAt = jdbcTemplate.queryForList(
+            "SELECT archived_at FROM weekly_lotteries WHERE id = ?", Timestamp.class, lotteryId);
+        if (archivedAt.isEmpty() || archivedAt.get(0) == null) {
+            return null;
+        }
+        try {
+            return openSegment(lotteryId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Tickets of archived lottery " + lotteryId + " are unreadable", e);
+        }
+    }
+
+    /**
+     * Get all mapped segments
+     */
+    public Collection<TicketSegment> getSegments() {
+        return segments.values();
+    }
+
+    private TicketSegment openSegment(Long lotteryId) throws IOException {
+        TicketSegment segment = TicketSegment.open(segmentPath(lotteryId));
+        if (segment.getLotteryId() != lotteryId) {
+            throw new IOException("Segment " + segment.getPath() + " belongs to lottery " + segment.getLotteryId());
+        }
+        TicketSegment existing = segments.putIfAbsent(lotteryId, segment);
+        return existing != null ? existing : segment;
+    }
+
+    private LotteryInfo loadLottery(Long lotteryId) {
+        List<LotteryInfo> lottery = jdbcTemplate.query(
+            "SELECT lottery_name, status, drawn_numbers, archived_at FROM weekly_lotteries WHERE id = ?",
+            LOTTERY_MAPPER, lotteryId);
+        if (lottery.isEmpty()) {
+            throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+        }
+        return lottery.get(0);
+    }
+
+    private static void checkArchivable(Long lotteryId, LotteryInfo lottery) {
+        if (lottery.archivedAt != null) {
+            throw new RuntimeException("Lottery " + lotteryId + " is already archived");
+        }
+        if (!"COMPLETED".equals(lottery.status) && !"CANCELLED".equals(lottery.status)) {
+            throw new RuntimeException("Only completed or cancelled lotteries can be archived");
+        }
+    }
+
+    /**
+     * Stream the lottery's tickets into a segment in one read-only transaction; the file is deleted on failure
+     */
+    private Fingerprint writeSegment(Long lotteryId, LotteryInfo lottery, Path path) {
+        long[] matched = new long[1];
+        long[] winners = new long[1];
+        BigDecimal[] prizes = { BigDecimal.ZERO };
+        try (TicketSegmentWriter writer = new TicketSegmentWriter(path, lotteryId, lottery.name, lottery.status,
+                                                                  lottery.drawnNumbers)) {
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            // Inside a transaction the driver honours the fetch size instead of buffering every row
+            readOnly.executeWithoutResult(status -> jdbcTemplate.query(
+                connection -> {
+                    PreparedStatement statement = connection.prepareStatement(TICKET_SQL);
+                    statement.setLong(1, lotteryId);
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                },
+                rs -> {
+                    Integer matchedNumbers = rs.getObject(5, Integer.class);
+                    Boolean isWinner = rs.getObject(7, Boolean.class);
+                    BigDecimal prizeAmount = rs.getBigDecimal(8);
+                    Timestamp purchasedAt = rs.getTimestamp(10);
+                    Timestamp updatedAt = rs.getTimestamp(11);
+                    try {
+                        writer.add(new LotteryTicketView(rs.getLong(1), rs.getString(2), rs.getString(3), lotteryId,
+                            rs.getString(4), matchedNumbers, rs.getBigDecimal(6), isWinner, prizeAmount,
+                            rs.getString(9), purchasedAt != null ? purchasedAt.toLocalDateTime() : null,
+                            updatedAt != null ? updatedAt.toLocalDateTime() : null));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (matchedNumbers != null) {
+                        matched[0] += matchedNumbers;
+                    }
+                    if (Boolean.TRUE.equals(isWinner)) {
+                        winners[0]++;
+                        if (prizeAmount != null) {
+                            prizes[0] = prizes[0].add(prizeAmount);
+                        }
+                    }
+                }));
+            writer.finish();
+            return new Fingerprint(writer.getTicketCount(), matched[0], winners[0], prizes[0]);
+        } catch (IOException e) {
+            deleteQuietly(path);
+            throw new UncheckedIOException("Writing the segment of lottery " + lotteryId + " failed", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(path);
+            throw e;
+        }
+    }
+
+    /**
+     * Unique name next to the target, so instances sharing the directory never write the same file
+     */
+    private static Path tempPath(Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create the archive directory " + target.getParent(), e);
+        }
+        return target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+    }
+
+    private Path segmentPath(Long lotteryId) {
+        return Paths.get(directory).resolve("lottery-" + lotteryId + ".seg");
+    }
+
+    private static long segmentSize(Path path) {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static class LotteryInfo {
+        private final String name;
+        private final String status;
+        private final String drawnNumbers;
+        private final Timestamp archivedAt;
+
+        LotteryInfo(String name, String status, String drawnNumbers, Timestamp archivedAt) {
+            this.name = name;
+            this.status = status;
+            this.drawnNumbers = drawnNumbers;
+            this.archivedAt = archivedAt;
+        }
+    }
+
+    /**
+     * What the archived rows must add up to: tickets, sum of matches, winners and prizes
+     */
+    private static class Fingerprint {
+        private final long tickets;
+        private final long matched;
+        private final long winners;
+        private final BigDecimal prizes;
+
+        Fingerprint(long tickets, long matched, long winners, BigDecimal prizes) {
+            this.tickets = tickets;
+            this.matched = matched;
+            this.winners = winners;
+            this.prizes = prizes;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint that = (Fingerprint) other;
+            return tickets == that.tickets && matched == that.matched && winners == that.winners
+                && prizes.compareTo(that.prizes) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(tickets);
+        }
+
+        @Override
+        public String toString() {
+            return tickets + " tickets, " + matched + " matches, " + winners + " winners, " + prizes.toPlainString() + " in prizes";
+        }
+    }
+
+    /**
+     * Helper class for the outcome of archiving one lottery
+     */
+    public static class ArchiveResult {
+        private final Long lotteryId;
+        private final long tickets;
+        private final long winningTickets;
+        private final long segmentBytes;
+        private final long elapsedMillis;
+
+        public ArchiveResult(Long lotteryId, long tickets, long winningTickets, long segmentBytes, long elapsedMillis) {
+            this.lotteryId = lotteryId;
+            this.tickets = tickets;
+            this.winningTickets = winningTickets;
+            this.segmentBytes = segmentBytes;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public Long getLotteryId() { return lotteryId; }
+        public long getTickets() { return tickets; }
+        public long getWinningTickets() { return winningTickets; }
+        public long getSegmentBytes() { return segmentBytes; }
+        public long getElapsedMillis() { return elapsedMillis; }
+    }
+}
@@ -0,0 +1,334 @@
+package com.bingochain.service;
+
+import com.bingochain.event.TicketsImportedEvent;
+import com.bingochain.model.NumberSet;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Bulk loads tickets into lottery_tickets through the PostgreSQL COPY protocol.
+ *
+ * Rows are validated while streaming, copied into a temporary staging table and
+ * moved into lottery_tickets with a single INSERT ... SELECT that skips ticket ids
+ * and transaction hashes already present; only the rows it returns are recorded for
+ * purchase replay checks. The lottery's ticket count and prize pool are credited once
+ * for the whole import.
+ */
+@Service
+public class TicketImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketImportService.class);
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private LotteryTicketService lotteryTicketService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PurchaseIdempotencyService purchaseIdempotencyService;
+
+    @Autowired
+    private ResourceVersionService resourceVersionService;
+
+    public enum ImportFormat {
+        NDJSON,
+        CSV
+    }
+
+    /**
+     * Import tickets for a lottery from an NDJSON or CSV stream
+     */
+    @Transactional
+    public ImportResult importTickets(Long lotteryId, InputStream input, ImportFormat format) {
+        Integer lotteries = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM weekly_lotteries WHERE id = ?", Integer.class, lotteryId);
+        if (lotteries == null || lotteries == 0) {
+            throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+        }
+
+        long start = System.nanoTime();
+        ImportResult result = new ImportResult();
+
+        jdbcTemplate.execute(
+            "CREATE TEMP TABLE ticket_import_staging (" +
+            "line_number BIGINT, ticket_id VARCHAR(255), wallet_address VARCHAR(255), " +
+            "chosen_numbers VARCHAR(50), chosen_mask BYTEA, ticket_price_paid NUMERIC(18,8), " +
+            "transaction_hash VARCHAR(255), purchased_at TIMESTAMP) ON COMMIT DROP");
+
+        long staged = copyIntoStaging(input, format, result);
+
+        // Inserted rows also feed player_stats in the same statement, and only they are
+        // recorded for replay checks, not the staged rows the insert skipped
+        long[] inserted = new long[1];
+        BigDecimal[] prizePool = {BigDecimal.ZERO};
+        jdbcTemplate.query(
+            "WITH inserted AS (" +
+            "INSERT INTO lottery_tickets (ticket_id, wallet_address, weekly_lottery_id, chosen_numbers, chosen_mask, " +
+            "matched_numbers, ticket_price_paid, is_winner, prize_amount, transaction_hash, purchased_at, updated_at) " +
+            "SELECT DISTINCT ON (ticket_id) ticket_id, wallet_address, ?, chosen_numbers, chosen_mask, 0, ticket_price_paid, " +
+            "false, 0, transaction_hash, COALESCE(purchased_at, NOW()), NOW() " +
+            "FROM ticket_import_staging s " +
+            // The unique key is per lottery, so ticket ids taken by other lotteries are skipped here
+            "WHERE NOT EXISTS (SELECT 1 FROM lottery_tickets t WHERE t.ticket_id = s.ticket_id) " +
+            "ORDER BY ticket_id, line_number " +
+            // Ticket ids or transaction hashes already in this lottery are skipped as duplicates
+            "ON CONFLICT DO NOTHING " +
+            "RETURNING ticket_id, transaction_hash, wallet_address, ticket_price_paid), " +
+            "stats AS (" + PlayerStatsService.upsertSql(
+                "SELECT wallet_address, COUNT(*), 0, SUM(ticket_price_paid), 0 FROM inserted GROUP BY wallet_address") + ") " +
+            "SELECT ticket_id, transaction_hash, ticket_price_paid FROM inserted",
+            rs -> {
+                purchaseIdempotencyService.record(lotteryId, rs.getString(1), rs.getString(2));
+                inserted[0]++;
+                prizePool[0] = prizePool[0].add(rs.getBigDecimal(3));
+            },
+            lotteryId);
+        if (inserted[0] > 0) {
+            resourceVersionService.ticketsChanged(lotteryId);
+        }
+
+        long duplicates = staged - inserted[0];
+        result.accepted = inserted[0];
+        result.rejected += duplicates;
+        if (duplicates > 0) {
+            result.addError(0, duplicates + " rows skipped because their ticket id or transaction hash already exists");
+        }
+        result.elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        eventPublisher.publishEvent(new TicketsImportedEvent(lotteryId, inserted[0], prizePool[0]));
+        log.info("Imported {} tickets into lottery {} ({} rejected) in {} ms",
+                 result.accepted, lotteryId, result.rejected, result.elapsedMillis);
+        return result;
+    }
+
+    private long copyIntoStaging(InputStream input, ImportFormat format, ImportResult result) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                "COPY ticket_import_staging (line_number, ticket_id, wallet_address, chosen_numbers, chosen_mask, " +
+                "ticket_price_paid, transaction_hash, purchased_at) FROM STDIN WITH (FORMAT csv)");
+            try {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream(COPY_BUFFER_SIZE * 2);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+                String line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    if (line.isBlank() || (format == ImportFormat.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                        continue;
+                    }
+
+                    String[] row;
+                    try {
+                        row = format == ImportFormat.NDJSON ? parseNdjson(line) : parseCsv(line);
+                    } catch (IllegalArgumentException | IOException e) {
+                        result.rejected++;
+                        result.addError(lineNumber, "Unreadable row: " + e.getMessage());
+                        continue;
+                    }
+
+                    String error = validate(row);
+                    if (error != null) {
+                        result.rejected++;
+                        result.addError(lineNumber, error);
+                        continue;
+                    }
+
+                    writeCsvRow(buffer, lineNumber, row);
+                    if (buffer.size() >= COPY_BUFFER_SIZE) {
+                        copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                        buffer.reset();
+                    }
+                }
+                if (buffer.size() > 0) {
+                    copyIn.writeToCopy(buffer.toByteArray(), 0, buffer.size());
+                }
+                return copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        } catch (SQLException | IOException e) {
+            throw new RuntimeException("Ticket import failed: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    /**
+     * Row layout: ticketId, walletAddress, chosenNumbers, ticketPrice, transactionHash, purchasedAt
+     */
+    private String validate(String[] row) {
+        if (row.length < 4) {
+            return "Expected at least 4 columns but found " + row.length;
+        }
+        if (isBlank(row[0])) {
+            return "Missing ticketId";
+        }
+        if (isBlank(row[1])) {
+            return "Missing walletAddress";
+        }
+        if (!lotteryTicketService.validateChosenNumbers(row[2])) {
+            return "Invalid chosenNumbers: " + row[2];
+        }
+        try {
+            if (new BigDecimal(row[3]).signum() < 0) {
+                return "Negative ticketPrice: " + row[3];
+            }
+        } catch (NumberFormatException | NullPointerException e) {
+            return "Invalid ticketPrice: " + row[3];
+        }
+        if (row.length > 5 && !isBlank(row[5])) {
+            try {
+                LocalDateTime.parse(row[5]);
+            } catch (RuntimeException e) {
+                return "Invalid purchasedAt: " + row[5];
+            }
+        }
+        return null;
+    }
+
+    private String[] parseNdjson(String line) throws IOException {
+        JsonNode node = objectMapper.readTree(line);
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("not a JSON object");
+        }
+        JsonNode numbers = node.get("chosenNumbers");
+        String chosenNumbers = numbers == null || numbers.isNull() ? null
+            : numbers.isArray() ? numbers.toString() : numbers.asText();
+        return new String[] {
+            text(node, "ticketId"),
+            text(node, "walletAddress"),
+            chosenNumbers,
+            text(node, "ticketPrice"),
+            text(node, "transactionHash"),
+            text(node, "purchasedAt")
+        };
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static boolean isCsvHeader(String line) {
+        String lower = line.toLowerCase();
+        return lower.startsWith("ticketid") || lower.startsWith("ticket_id") || lower.startsWith("\"ticket");
+    }
+
+    /**
+     * Split one CSV line, honouring double-quoted fields such as "[1,2,3,4,5,6]"
+     */
+    static String[] parseCsv(String line) {
+        List<String> fields = new ArrayList<>(6);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString().trim());
+        return fields.toArray(new String[0]);
+    }
+
+    private static void writeCsvRow(ByteArrayOutputStream out, long lineNumber, String[] row) {
+        StringBuilder line = new StringBuilder(160);
+        line.append(lineNumber);
+        for (int i = 0; i < 6; i++) {
+            line.append(',');
+            String value = i < row.length ? row[i] : null;
+            if (!isBlank(value)) {
+                line.append('"').append(value.replace("\"", "\"\"")).append('"');
+            }
+            if (i == 2) {
+                line.append(",\\x").append(HexFormat.of().formatHex(NumberSet.parse(row[2]).toBytes()));
+            }
+        }
+        line.append('\n');
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * Helper class for import results
+     */
+    public static class ImportResult {
+        private long accepted;
+        private long rejected;
+        private long elapsedMillis;
+        private final List<String> errors = new ArrayList<>();
+
+        void addError(long lineNumber, String message) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(lineNumber > 0 ? "Line " + lineNumber + ": " + message : message);
+            }
+        }
+
+        public Long getAccepted() { return accepted; }
+        public Long getRejected() { return rejected; }
+        public Long getElapsedMillis() { return elapsedMillis; }
+        public List<String> getErrors() { return errors; }
+    }
+}
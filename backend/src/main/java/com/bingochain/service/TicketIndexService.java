@@ -0,0 +1,249 @@
+package com.bingochain.service;
+
+import com.bingochain.event.LotteryStatusChangedEvent;
+import com.bingochain.event.TicketPurchasedEvent;
+import com.bingochain.event.TicketsImportedEvent;
+import com.bingochain.index.LotteryTicketIndex;
+import com.bingochain.model.WeeklyLottery;
+import com.bingochain.model.NumberSet;
+import org.roaringbitmap.longlong.LongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link LotteryTicketIndex} per weekly lottery.
+ *
+ * An index is loaded from the database the first time it is needed and then kept
+ * current from committed purchases, so lookups never scan lottery_tickets again.
+ * Purchases made on other instances never reach this one's listener, so every use
+ * reads the lottery's tickets_version, a single row. When it moved since the index was
+ * last synced, only the tickets above the highest id read so far, or written since
+ * shortly before that sync, are read and added; adding is idempotent. The time window
+ * catches transactions that took a lower id but committed after the sync.
+ */
+@Service
+public class TicketIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketIndexService.class);
+
+    private static final int MAX_RETURNED_IDS = 1000;
+
+    // Tickets committed shortly after a sync may carry an earlier updated_at and a lower id
+    private static final Duration SYNC_OVERLAP = Duration.ofMinutes(1);
+
+    private static final String INDEX_COLUMNS = "SELECT id, chosen_mask, chosen_numbers FROM lottery_tickets ";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Map<Long, LotteryTicketIndex> indexes = new ConcurrentHashMap<>();
+
+    private final Map<Long, SyncMark> marks = new ConcurrentHashMap<>();
+
+    /**
+     * Add a committed purchase to its lottery's index
+     */
+    @TransactionalEventListener
+    public void onTicketPurchased(TicketPurchasedEvent event) {
+        LotteryTicketIndex index = indexes.get(event.getLotteryId());
+        if (index != null) {
+            index.add(event.getTicketId(), toNumbers(null, event.getChosenNumbers()));
+        }
+    }
+
+    /**
+     * Drop the index of a lottery after a bulk import so it is reloaded with the new rows
+     */
+    @TransactionalEventListener
+    public void onTicketsImported(TicketsImportedEvent event) {
+        if (event.getImportedTickets() > 0) {
+            evict(event.getLotteryId());
+        }
+    }
+
+    /**
+     * Drop the index of a lottery that takes no more tickets; it is only rebuilt if searched again
+     */
+    @TransactionalEventListener
+    public void onStatusChanged(LotteryStatusChangedEvent event) {
+        if (event.getStatus() == WeeklyLottery.LotteryStatus.COMPLETED
+                || event.getStatus() == WeeklyLottery.LotteryStatus.CANCELLED) {
+            evict(event.getLotteryId());
+        }
+    }
+
+    /**
+     * Get the index of a lottery, loading it from the database on first use and
+     * catching up with tickets written elsewhere since it was last synced
+     */
+    public LotteryTicketIndex getIndex(Long lotteryId) {
+        LotteryTicketIndex index = indexes.computeIfAbsent(lotteryId, LotteryTicketIndex::new);
+        Long version = ticketsVersion(lotteryId);
+        SyncMark mark = marks.get(lotteryId);
+        if (!index.isLoaded() || mark == null || !Objects.equals(mark.version, version)) {
+            synchronized (index) {
+                mark = marks.get(lotteryId);
+                if (!index.isLoaded() || mark == null) {
+                    load(index, version);
+                } else if (!Objects.equals(mark.version, version)) {
+                    catchUp(index, mark, version);
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Get the index of a lottery only if it is already in memory
+     */
+    public Optional<LotteryTicketIndex> getLoadedIndex(Long lotteryId) {
+        LotteryTicketIndex index = indexes.get(lotteryId);
+        return index != null && index.isLoaded() ? Optional.of(index) : Optional.empty();
+    }
+
+    /**
+     * Get the in-memory index of a lottery only if it holds every ticket in the database.
+     * Settlement must not miss a ticket, so after catching up the index is also checked
+     * against the table's count; an index that still falls short is dropped and rebuilt
+     * on next use. Its tickets all come from committed rows, so equal counts mean equal sets.
+     */
+    public Optional<LotteryTicketIndex> getCompleteIndex(Long lotteryId) {
+        if (getLoadedIndex(lotteryId).isEmpty()) {
+            return Optional.empty();
+        }
+        LotteryTicketIndex index = getIndex(lotteryId);
+        Long tickets = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM lottery_tickets WHERE weekly_lottery_id = ?", Long.class, lotteryId);
+        if (tickets == null || tickets != index.getTicketCount()) {
+            log.info("Ticket index for lottery {} holds {} of {} tickets, dropping it", lotteryId,
+                     index.getTicketCount(), tickets);
+            if (indexes.remove(lotteryId, index)) {
+                marks.remove(lotteryId);
+            }
+            return Optional.empty();
+        }
+        return Optional.of(index);
+    }
+
+    /**
+     * Drop the index of a lottery; it is rebuilt on next use
+     */
+    public void evict(Long lotteryId) {
+        indexes.remove(lotteryId);
+        marks.remove(lotteryId);
+    }
+
+    /**
+     * Find tickets that chose all of the given numbers
+     */
+    public TicketSearchResult findTicketsContaining(Long lotteryId, int[] numbers) {
+        return toResult(getIndex(lotteryId).containingAll(numbers));
+    }
+
+    /**
+     * Find tickets that chose exactly the given combination
+     */
+    public TicketSearchResult findTicketsWithCombination(Long lotteryId, int[] numbers) {
+        return toResult(getIndex(lotteryId).exactCombination(numbers));
+    }
+
+    private Long ticketsVersion(Long lotteryId) {
+        List<Long> versions = jdbcTemplate.queryForList(
+            "SELECT tickets_version FROM weekly_lotteries WHERE id = ?", Long.class, lotteryId);
+        return versions.isEmpty() ? null : versions.get(0);
+    }
+
+    private void load(LotteryTicketIndex index, Long version) {
+        long start = System.nanoTime();
+        LocalDateTime syncedAt = LocalDateTime.now();
+        long maxTicketId = addTickets(index, INDEX_COLUMNS + "WHERE weekly_lottery_id = ?", index.getLotteryId());
+        index.markLoaded();
+        marks.put(index.getLotteryId(), new SyncMark(version, syncedAt, maxTicketId));
+        log.info("Loaded ticket index for lottery {} ({} tickets) in {} ms", index.getLotteryId(),
+                 index.getTicketCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void catchUp(LotteryTicketIndex index, SyncMark mark, Long version) {
+        LocalDateTime syncedAt = LocalDateTime.now();
+        long maxTicketId = addTickets(index,
+            INDEX_COLUMNS + "WHERE weekly_lottery_id = ? AND (id > ? OR updated_at >= ?)",
+            index.getLotteryId(), mark.maxTicketId, Timestamp.valueOf(mark.syncedAt.minus(SYNC_OVERLAP)));
+        marks.put(index.getLotteryId(), new SyncMark(version, syncedAt, Math.max(mark.maxTicketId, maxTicketId)));
+    }
+
+    /**
+     * @return the highest ticket id read, 0 if none
+     */
+    private long addTickets(LotteryTicketIndex index, String sql, Object... args) {
+        long[] maxTicketId = new long[1];
+        jdbcTemplate.query(sql,
+            rs -> {
+                long ticketId = rs.getLong(1);
+                index.add(ticketId, toNumbers(rs.getBytes(2), rs.getString(3)));
+                maxTicketId[0] = Math.max(maxTicketId[0], ticketId);
+            },
+            args);
+        return maxTicketId[0];
+    }
+
+    private static int[] toNumbers(byte[] mask, String json) {
+        NumberSet numbers = mask != null ? NumberSet.fromBytes(mask) : NumberSet.tryParse(json);
+        return numbers != null ? numbers.toArray() : new int[0];
+    }
+
+    private TicketSearchResult toResult(Roaring64Bitmap tickets) {
+        List<Long> ticketIds = new ArrayList<>();
+        LongIterator iterator = tickets.getLongIterator();
+        while (iterator.hasNext() && ticketIds.size() < MAX_RETURNED_IDS) {
+            ticketIds.add(iterator.next());
+        }
+        return new TicketSearchResult(tickets.getLongCardinality(), ticketIds);
+    }
+
+    /**
+     * Where an index was last synced with the database
+     */
+    private static class SyncMark {
+        final Long version;
+        final LocalDateTime syncedAt;
+        final long maxTicketId;
+
+        SyncMark(Long version, LocalDateTime syncedAt, long maxTicketId) {
+            this.version = version;
+            this.syncedAt = syncedAt;
+            this.maxTicketId = maxTicketId;
+        }
+    }
+
+    /**
+     * Helper class for index search results; ticket ids are capped, the count is exact
+     */
+    public static class TicketSearchResult {
+        private final Long count;
+        private final List<Long> ticketIds;
+
+        public TicketSearchResult(Long count, List<Long> ticketIds) {
+            this.count = count;
+            this.ticketIds = ticketIds;
+        }
+
+        public Long getCount() { return count; }
+        public List<Long> getTicketIds() { return ticketIds; }
+        public boolean isTruncated() { return count > ticketIds.size(); }
+    }
+}
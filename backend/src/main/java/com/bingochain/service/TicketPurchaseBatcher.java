@@ -0,0 +1,200 @@
+package com.bingochain.service;
+
+import com.bingochain.model.LotteryTicket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for ticket purchases.
+ *
+ * Callers queue their purchase and wait. A single committer thread takes whatever
+ * arrives within a few milliseconds of the first purchase, up to a maximum batch
+ * size, and saves it through {@link LotteryTicketService#purchaseTickets} in one
+ * transaction with one batched insert, so a rush of buyers shares a commit instead
+ * of paying for one each. Every caller gets its own ticket or error back only after
+ * that transaction has committed. If the batch fails as a whole, its purchases are
+ * retried one by one so a bad purchase only fails its own caller.
+ *
+ * A caller waits at most {@code lottery.purchase.timeout-ms}. Its purchase may still
+ * commit after that, so it is told to retry, and the retry returns the original ticket.
+ */
+@Service
+public class TicketPurchaseBatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketPurchaseBatcher.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    @Autowired
+    private LotteryTicketService lotteryTicketService;
+
+    @Autowired
+    private PurchaseIdempotencyService purchaseIdempotencyService;
+
+    @Value("${lottery.purchase.batch-window-ms:5}")
+    private long batchWindowMillis;
+
+    @Value("${lottery.purchase.max-batch-size:200}")
+    private int maxBatchSize;
+
+    @Value("${lottery.purchase.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${lottery.purchase.timeout-ms:10000}")
+    private long timeoutMillis;
+
+    private BlockingQueue<PendingPurchase> queue;
+
+    private Thread committer;
+
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        committer = new Thread(this::run, "ticket-purchase-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    /**
+     * Stop accepting purchases and commit the ones already queued
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        committer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    /**
+     * Purchase a ticket; blocks until the batch holding it has committed.
+     * A replayed purchase returns its original ticket right away, without joining a batch.
+     */
+    public LotteryTicket purchaseTicket(String walletAddress, Long lotteryId, String chosenNumbers,
+                                        BigDecimal ticketPrice, String transactionHash, String contractTicketId) {
+        Optional<LotteryTicket> original =
+            purchaseIdempotencyService.findOriginal(lotteryId, contractTicketId, transactionHash);
+        if (original.isPresent()) {
+            return original.get();
+        }
+
+        PendingPurchase pending = new PendingPurchase(new LotteryTicketService.TicketPurchase(
+            walletAddress, lotteryId, chosenNumbers, ticketPrice, transactionHash, contractTicketId));
+        if (!running || !queue.offer(pending)) {
+            throw new PurchaseUnavailableException("Too many pending ticket purchases, try again later");
+        }
+        try {
+            return pending.result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new PurchaseUnavailableException("Ticket purchase not committed within " + timeoutMillis
+                + " ms, try again later");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Ticket purchase interrupted");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+        }
+    }
+
+    private void run() {
+        List<PendingPurchase> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingPurchase first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchWindowMillis);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingPurchase next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(pending -> pending.result.completeExceptionally(
+                    new RuntimeException("Ticket purchase interrupted")));
+                return;
+            } catch (Throwable e) {
+                // Anything escaping would end this thread and leave every caller waiting
+                log.error("Ticket purchase batch failed", e);
+                batch.forEach(pending -> pending.result.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingPurchase> batch) {
+        List<LotteryTicketService.TicketPurchase> purchases = new ArrayList<>(batch.size());
+        for (PendingPurchase pending : batch) {
+            purchases.add(pending.purchase);
+        }
+
+        try {
+            lotteryTicketService.purchaseTickets(purchases);
+        } catch (RuntimeException e) {
+            log.warn("Purchase batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingPurchase pending : batch) {
+                LotteryTicketService.TicketPurchase purchase = pending.purchase;
+                try {
+                    pending.result.complete(lotteryTicketService.purchaseTicket(
+                        purchase.getWalletAddress(), purchase.getLotteryId(), purchase.getChosenNumbers(),
+                        purchase.getTicketPrice(), purchase.getTransactionHash(), purchase.getContractTicketId()));
+                } catch (RuntimeException single) {
+                    pending.result.completeExceptionally(single);
+                }
+            }
+            return;
+        }
+
+        for (PendingPurchase pending : batch) {
+            if (pending.purchase.getError() != null) {
+                pending.result.completeExceptionally(pending.purchase.getError());
+            } else {
+                pending.result.complete(pending.purchase.getTicket());
+            }
+        }
+    }
+
+    /**
+     * The purchase could not be taken or confirmed in time; the caller may retry it
+     */
+    public static class PurchaseUnavailableException extends RuntimeException {
+        public PurchaseUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    private static class PendingPurchase {
+        final LotteryTicketService.TicketPurchase purchase;
+        final CompletableFuture<LotteryTicket> result = new CompletableFuture<>();
+
+        PendingPurchase(LotteryTicketService.TicketPurchase purchase) {
+            this.purchase = purchase;
+        }
+    }
+}
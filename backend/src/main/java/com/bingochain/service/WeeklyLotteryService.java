@@ -1,47 +1,83 @@
 package com.bingochain.service;
 
+import com.bingochain.config.LotteryCacheConfig;
+import com.bingochain.dto.WeeklyLotteryView;
+import com.bingochain.event.DrawRecordedEvent;
+import com.bingochain.event.LotteryStatusChangedEvent;
+import com.bingochain.model.DrawEvent;
+import com.bingochain.model.NumberSet;
 import com.bingochain.model.WeeklyLottery;
+import com.bingochain.repository.DrawEventRepository;
 import com.bingochain.repository.WeeklyLotteryRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheConfig;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 @Service
 @Transactional
+@CacheConfig(cacheNames = {
+    LotteryCacheConfig.ALL_LOTTERIES, LotteryCacheConfig.CURRENT_LOTTERY, LotteryCacheConfig.ACTIVE_TICKET_SALES,
+    LotteryCacheConfig.DRAWING_LOTTERIES, LotteryCacheConfig.COMPLETED_LOTTERIES, LotteryCacheConfig.LOTTERY_STATISTICS
+})
 public class WeeklyLotteryService {
 
+    /** Days of the drawing phase, one number drawn per day */
+    public static final int DRAW_DAYS = 6;
+
     @Autowired
     private WeeklyLotteryRepository weeklyLotteryRepository;
 
+    @Autowired
+    private DrawEventRepository drawEventRepository;
+
+    @Autowired
+    private TablePartitionService tablePartitionService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * Get all lotteries ordered by creation date (newest first)
      */
-    public List<WeeklyLottery> getAllLotteries() {
+    @Cacheable(cacheNames = LotteryCacheConfig.ALL_LOTTERIES)
+    @Transactional(readOnly = true)
+    public List<WeeklyLotteryView> getAllLotteries() {
         return weeklyLotteryRepository.findAllOrderByCreatedAtDesc();
     }
 
     /**
      * Get lottery by ID
      */
-    public Optional<WeeklyLottery> getLotteryById(Long id) {
-        return weeklyLotteryRepository.findById(id);
+    @Transactional(readOnly = true)
+    public Optional<WeeklyLotteryView> getLotteryById(Long id) {
+        return weeklyLotteryRepository.findViewById(id);
     }
 
     /**
      * Get current active lottery (latest created)
      */
-    public Optional<WeeklyLottery> getCurrentLottery() {
-        return weeklyLotteryRepository.findTopByOrderByCreatedAtDesc();
+    @Cacheable(cacheNames = LotteryCacheConfig.CURRENT_LOTTERY)
+    @Transactional(readOnly = true)
+    public Optional<WeeklyLotteryView> getCurrentLottery() {
+        return weeklyLotteryRepository.findLatest(Limit.of(1)).stream().findFirst();
     }
 
     /**
      * Get lotteries with active ticket sales
      */
-    public List<WeeklyLottery> getActiveTicketSales() {
+    @Cacheable(cacheNames = LotteryCacheConfig.ACTIVE_TICKET_SALES)
+    @Transactional(readOnly = true)
+    public List<WeeklyLotteryView> getActiveTicketSales() {
         LocalDateTime now = LocalDateTime.now();
         return weeklyLotteryRepository.findActiveTicketSales(now);
     }
@@ -49,36 +85,50 @@ public class WeeklyLotteryService {
     /**
      * Get lotteries in drawing phase
      */
-    public List<WeeklyLottery> getLotteriesInDrawingPhase() {
-        return weeklyLotteryRepository.findLotteriesInDrawingPhase();
+    @Cacheable(cacheNames = LotteryCacheConfig.DRAWING_LOTTERIES)
+    @Transactional(readOnly = true)
+    public List<WeeklyLotteryView> getLotteriesInDrawingPhase() {
+        return weeklyLotteryRepository.findDrawingPhaseViews();
     }
 
     /**
      * Get completed lotteries
      */
-    public List<WeeklyLottery> getCompletedLotteries() {
+    @Cacheable(cacheNames = LotteryCacheConfig.COMPLETED_LOTTERIES)
+    @Transactional(readOnly = true)
+    public List<WeeklyLotteryView> getCompletedLotteries() {
         return weeklyLotteryRepository.findCompletedLotteries();
     }
 
     /**
      * Create a new weekly lottery
      */
+    @CacheEvict(allEntries = true)
     public WeeklyLottery createLottery(WeeklyLottery lottery) {
         lottery.setCreatedAt(LocalDateTime.now());
         lottery.setUpdatedAt(LocalDateTime.now());
-        return weeklyLotteryRepository.save(lottery);
+        WeeklyLottery saved = weeklyLotteryRepository.save(lottery);
+        tablePartitionService.ensurePartitions(saved.getId());
+        eventPublisher.publishEvent(new LotteryStatusChangedEvent(saved.getId(), saved.getStatus()));
+        return saved;
     }
 
     /**
      * Update lottery status
      */
+    @CacheEvict(allEntries = true)
     public WeeklyLottery updateLotteryStatus(Long lotteryId, WeeklyLottery.LotteryStatus status) {
         Optional<WeeklyLottery> lotteryOpt = weeklyLotteryRepository.findById(lotteryId);
         if (lotteryOpt.isPresent()) {
             WeeklyLottery lottery = lotteryOpt.get();
+            boolean changed = lottery.getStatus() != status;
             lottery.setStatus(status);
             lottery.setUpdatedAt(LocalDateTime.now());
-            return weeklyLotteryRepository.save(lottery);
+            WeeklyLottery saved = weeklyLotteryRepository.save(lottery);
+            if (changed) {
+                eventPublisher.publishEvent(new LotteryStatusChangedEvent(lotteryId, status));
+            }
+            return saved;
         }
         throw new RuntimeException("Lottery not found with ID: " + lotteryId);
     }
@@ -86,20 +136,86 @@ public class WeeklyLotteryService {
     /**
      * Update lottery with drawn numbers
      */
+    @CacheEvict(allEntries = true)
     public WeeklyLottery updateDrawnNumbers(Long lotteryId, String drawnNumbers) {
         Optional<WeeklyLottery> lotteryOpt = weeklyLotteryRepository.findById(lotteryId);
         if (lotteryOpt.isPresent()) {
             WeeklyLottery lottery = lotteryOpt.get();
             lottery.setDrawnNumbers(drawnNumbers);
+            lottery.setDrawnMask(NumberSet.tryParse(drawnNumbers));
             lottery.setUpdatedAt(LocalDateTime.now());
-            return weeklyLotteryRepository.save(lottery);
+            WeeklyLottery saved = weeklyLotteryRepository.save(lottery);
+            eventPublisher.publishEvent(new DrawRecordedEvent(lotteryId, drawnNumbers));
+            return saved;
         }
         throw new RuntimeException("Lottery not found with ID: " + lotteryId);
     }
 
+    /**
+     * Record a daily draw and append its number to the lottery's drawn numbers.
+     *
+     * @throws IllegalArgumentException if the day or number is out of range
+     * @throws IllegalStateException if the lottery is not drawing, or the day or number is already drawn
+     * @throws NoSuchElementException if the lottery does not exist
+     */
+    @CacheEvict(allEntries = true)
+    public DrawEvent recordDrawEvent(Long lotteryId, Integer drawDay, Integer drawnNumber,
+                                     String transactionHash, Long blockNumber) {
+        if (drawDay == null || drawDay < 1 || drawDay > DRAW_DAYS) {
+            throw new IllegalArgumentException("Draw day must be between 1 and " + DRAW_DAYS + ", got " + drawDay);
+        }
+        if (drawnNumber == null || drawnNumber < NumberSet.MIN_NUMBER || drawnNumber > NumberSet.MAX_NUMBER) {
+            throw new IllegalArgumentException("Drawn number must be between " + NumberSet.MIN_NUMBER + " and " +
+                                               NumberSet.MAX_NUMBER + ", got " + drawnNumber);
+        }
+        WeeklyLottery lottery = weeklyLotteryRepository.findById(lotteryId)
+            .orElseThrow(() -> new NoSuchElementException("Lottery not found with ID: " + lotteryId));
+        if (lottery.getStatus() != WeeklyLottery.LotteryStatus.DRAWING_PHASE) {
+            throw new IllegalStateException("Lottery " + lotteryId + " is not in its drawing phase but " + lottery.getStatus());
+        }
+        if (drawEventRepository.findByWeeklyLotteryIdAndDrawDay(lotteryId, drawDay).isPresent()) {
+            throw new IllegalStateException("Draw day " + drawDay + " already recorded for lottery " + lotteryId);
+        }
+        if (drawEventRepository.existsByWeeklyLotteryIdAndDrawnNumber(lotteryId, drawnNumber)) {
+            throw new IllegalStateException("Number " + drawnNumber + " already drawn for lottery " + lotteryId);
+        }
+
+        DrawEvent drawEvent = new DrawEvent();
+        drawEvent.setWeeklyLottery(lottery);
+        drawEvent.setDrawDay(drawDay);
+        drawEvent.setDrawnNumber(drawnNumber);
+        drawEvent.setScheduledTime(lottery.getNextDrawTime() != null ? lottery.getNextDrawTime() : LocalDateTime.now());
+        drawEvent.setTransactionHash(transactionHash);
+        drawEvent.setBlockNumber(blockNumber);
+        DrawEvent saved = drawEventRepository.save(drawEvent);
+
+        String drawnNumbers = appendNumber(lottery.getDrawnNumbers(), drawnNumber);
+        NumberSet drawnMask = lottery.getDrawnMask();
+        if (drawnMask == null) {
+            drawnMask = NumberSet.tryParse(lottery.getDrawnNumbers());
+        }
+        lottery.setDrawnNumbers(drawnNumbers);
+        lottery.setDrawnMask((drawnMask != null ? drawnMask : NumberSet.EMPTY).with(drawnNumber));
+        lottery.setCurrentDrawDay(Math.max(drawDay, lottery.getCurrentDrawDay() != null ? lottery.getCurrentDrawDay() : 0));
+        lottery.setUpdatedAt(LocalDateTime.now());
+        weeklyLotteryRepository.save(lottery);
+
+        eventPublisher.publishEvent(new DrawRecordedEvent(lotteryId, drawnNumbers, drawnNumber));
+        return saved;
+    }
+
+    private String appendNumber(String drawnNumbers, Integer number) {
+        if (drawnNumbers == null || drawnNumbers.isBlank() || drawnNumbers.replace(" ", "").equals("[]")) {
+            return "[" + number + "]";
+        }
+        String trimmed = drawnNumbers.trim();
+        return trimmed.substring(0, trimmed.length() - 1) + "," + number + "]";
+    }
+
     /**
      * Update lottery current draw day
      */
+    @CacheEvict(allEntries = true)
     public WeeklyLottery updateCurrentDrawDay(Long lotteryId, Integer drawDay) {
         Optional<WeeklyLottery> lotteryOpt = weeklyLotteryRepository.findById(lotteryId);
         if (lotteryOpt.isPresent()) {
@@ -114,6 +230,7 @@ public class WeeklyLotteryService {
     /**
      * Update lottery next draw time
      */
+    @CacheEvict(allEntries = true)
     public WeeklyLottery updateNextDrawTime(Long lotteryId, LocalDateTime nextDrawTime) {
         Optional<WeeklyLottery> lotteryOpt = weeklyLotteryRepository.findById(lotteryId);
         if (lotteryOpt.isPresent()) {
@@ -125,9 +242,33 @@ public class WeeklyLotteryService {
         throw new RuntimeException("Lottery not found with ID: " + lotteryId);
     }
 
+    /**
+     * Drop every cached lottery read after lotteries were written with plain SQL.
+     * Like the other evictions here it waits for the surrounding transaction to commit.
+     */
+    @CacheEvict(allEntries = true)
+    public void evictCaches() {
+    }
+
+    /**
+     * Replace the JSON array of winner addresses
+     */
+    @CacheEvict(allEntries = true)
+    public WeeklyLottery updateWinnerAddresses(Long lotteryId, String winnerAddresses) {
+        Optional<WeeklyLottery> lotteryOpt = weeklyLotteryRepository.findById(lotteryId);
+        if (lotteryOpt.isPresent()) {
+            WeeklyLottery lottery = lotteryOpt.get();
+            lottery.setWinnerAddresses(winnerAddresses);
+            lottery.setUpdatedAt(LocalDateTime.now());
+            return weeklyLotteryRepository.save(lottery);
+        }
+        throw new RuntimeException("Lottery not found with ID: " + lotteryId);
+    }
+
     /**
      * Mark prizes as distributed
      */
+    @CacheEvict(allEntries = true)
     public WeeklyLottery markPrizesDistributed(Long lotteryId) {
         Optional<WeeklyLottery> lotteryOpt = weeklyLotteryRepository.findById(lotteryId);
         if (lotteryOpt.isPresent()) {
@@ -142,6 +283,7 @@ public class WeeklyLotteryService {
     /**
      * Get lotteries ready for draw
      */
+    @Transactional(readOnly = true)
     public List<WeeklyLottery> getLotteriesReadyForDraw() {
         LocalDateTime now = LocalDateTime.now();
         return weeklyLotteryRepository.findLotteriesReadyForDraw(now);
@@ -150,6 +292,8 @@ public class WeeklyLotteryService {
     /**
      * Get lottery statistics
      */
+    @Cacheable(cacheNames = LotteryCacheConfig.LOTTERY_STATISTICS)
+    @Transactional(readOnly = true)
     public LotteryStats getLotteryStatistics() {
         Long totalLotteries = weeklyLotteryRepository.count();
         Long completedLotteries = weeklyLotteryRepository.countCompletedLotteries();
@@ -13,6 +13,62 @@ SET timezone = 'UTC';
 
 \echo 'Database extensions created successfully!'
 
+-- Ids come from sequences that hand out blocks of 50, so Hibernate can batch inserts.
+-- Tables created with identity columns are moved onto them, starting past the highest id.
+DO $$
+DECLARE
+    table_name TEXT;
+BEGIN
+    FOREACH table_name IN ARRAY ARRAY['weekly_lotteries', 'lottery_tickets', 'draw_events'] LOOP
+        EXECUTE format('CREATE SEQUENCE IF NOT EXISTS %I INCREMENT BY 50', table_name || '_seq');
+        EXECUTE format('ALTER SEQUENCE %I INCREMENT BY 50', table_name || '_seq');
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', table_name);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', table_name, table_name || '_seq');
+        EXECUTE format('SELECT setval(%L, GREATEST((SELECT COALESCE(MAX(id), 0) FROM %I), ' ||
+                       '(SELECT last_value FROM %I)) + 50, false)',
+                       table_name || '_seq', table_name, table_name || '_seq');
+    END LOOP;
+END;
+$$;
+
+\echo 'Id sequences configured successfully!'
+
+-- Contract ticket ids are globally unique unless lottery_tickets is partitioned, where
+-- unique keys must include weekly_lottery_id and only the per-lottery key is kept
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('lottery_tickets') AND relkind = 'r')
+       AND NOT EXISTS (SELECT 1 FROM pg_constraint c JOIN pg_attribute a
+                       ON a.attrelid = c.conrelid AND c.conkey = ARRAY[a.attnum]
+                       WHERE c.conrelid = 'lottery_tickets'::regclass AND c.contype = 'u'
+                       AND a.attname = 'ticket_id') THEN
+        ALTER TABLE lottery_tickets ADD CONSTRAINT uk_lottery_tickets_ticket_id UNIQUE (ticket_id);
+    END IF;
+END;
+$$;
+
+\echo 'Ticket id key configured successfully!'
+
+-- A transaction buys one ticket, so a purchase replayed with only its transaction hash
+-- conflicts here. The key includes weekly_lottery_id to stay valid once partitioned.
+DO $$
+BEGIN
+    IF to_regclass('lottery_tickets') IS NOT NULL
+       AND NOT EXISTS (SELECT 1 FROM lottery_tickets WHERE transaction_hash <> ''
+                       GROUP BY weekly_lottery_id, transaction_hash HAVING COUNT(*) > 1) THEN
+        CREATE UNIQUE INDEX IF NOT EXISTS uk_lottery_tickets_lottery_transaction
+            ON lottery_tickets(weekly_lottery_id, transaction_hash) WHERE transaction_hash <> '';
+    ELSE
+        RAISE NOTICE 'Skipped uk_lottery_tickets_lottery_transaction: table missing or transaction hashes repeat';
+    END IF;
+END;
+$$;
+
+\echo 'Transaction hash key configured successfully!'
+
+-- Winner addresses hold every winning wallet of a lottery, more than a varchar(1000) fits
+ALTER TABLE weekly_lotteries ALTER COLUMN winner_addresses TYPE TEXT;
+
 -- Create initial indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_weekly_lotteries_status ON weekly_lotteries(status);
 CREATE INDEX IF NOT EXISTS idx_weekly_lotteries_created_at ON weekly_lotteries(created_at);
@@ -20,6 +76,9 @@ CREATE INDEX IF NOT EXISTS idx_weekly_lotteries_sales_times ON weekly_lotteries(
 CREATE INDEX IF NOT EXISTS idx_lottery_tickets_wallet_address ON lottery_tickets(wallet_address);
 CREATE INDEX IF NOT EXISTS idx_lottery_tickets_weekly_lottery_id ON lottery_tickets(weekly_lottery_id);
 CREATE INDEX IF NOT EXISTS idx_lottery_tickets_ticket_id ON lottery_tickets(ticket_id);
+CREATE INDEX IF NOT EXISTS idx_lottery_tickets_transaction_hash ON lottery_tickets(transaction_hash);
+CREATE INDEX IF NOT EXISTS idx_lottery_tickets_lottery_updated ON lottery_tickets(weekly_lottery_id, updated_at);
+CREATE INDEX IF NOT EXISTS idx_lottery_tickets_lottery_matches ON lottery_tickets(weekly_lottery_id, matched_numbers);
 CREATE INDEX IF NOT EXISTS idx_draw_events_weekly_lottery_id ON draw_events(weekly_lottery_id);
 CREATE INDEX IF NOT EXISTS idx_draw_events_draw_day ON draw_events(draw_day);
 CREATE INDEX IF NOT EXISTS idx_draw_events_scheduled_time ON draw_events(scheduled_time);
@@ -102,35 +161,10 @@ GROUP BY wallet_address;
 
 \echo 'Database views created successfully!'
 
--- Create function to update lottery statistics
-CREATE OR REPLACE FUNCTION update_lottery_stats()
-RETURNS TRIGGER AS $$
-BEGIN
-    -- Update total_tickets count when a ticket is purchased
-    IF TG_OP = 'INSERT' THEN
-        UPDATE weekly_lotteries 
-        SET total_tickets = (
-            SELECT COUNT(*) 
-            FROM lottery_tickets 
-            WHERE weekly_lottery_id = NEW.weekly_lottery_id
-        ),
-        updated_at = NOW()
-        WHERE id = NEW.weekly_lottery_id;
-        RETURN NEW;
-    ELSIF TG_OP = 'DELETE' THEN
-        UPDATE weekly_lotteries 
-        SET total_tickets = (
-            SELECT COUNT(*) 
-            FROM lottery_tickets 
-            WHERE weekly_lottery_id = OLD.weekly_lottery_id
-        ),
-        updated_at = NOW()
-        WHERE id = OLD.weekly_lottery_id;
-        RETURN OLD;
-    END IF;
-    RETURN NULL;
-END;
-$$ LANGUAGE plpgsql;
+-- Ticket counts and prize pools are maintained by the backend (LotteryTotalsService),
+-- which batches them instead of recounting lottery_tickets on every insert
+DROP TRIGGER IF EXISTS trigger_update_lottery_stats ON lottery_tickets;
+DROP FUNCTION IF EXISTS update_lottery_stats();
 
 -- Create function to calculate next Sunday 12:30
 CREATE OR REPLACE FUNCTION next_sunday_lottery_start()
@@ -150,14 +184,7 @@ BEGIN
 END;
 $$ LANGUAGE plpgsql;
 
--- Create triggers
-DROP TRIGGER IF EXISTS trigger_update_lottery_stats ON lottery_tickets;
-CREATE TRIGGER trigger_update_lottery_stats
-    AFTER INSERT OR DELETE ON lottery_tickets
-    FOR EACH ROW
-    EXECUTE FUNCTION update_lottery_stats();
-
-\echo 'Database functions and triggers created successfully!'
+\echo 'Database functions created successfully!'
 \echo 'BingoChain database setup is complete!'
 
 -- Create indexes for performance optimization
@@ -25,6 +25,11 @@ except Exception as e:
     logger.error(f"Failed to connect to Web3: {e}")
     w3 = None
 
+@app.context_processor
+def inject_backend_urls():
+    """Expose the live-update endpoint to templates"""
+    return {'backend_ws_url': Config.BACKEND_WS_URL}
+
 # Routes
 @app.route('/')
 def index():
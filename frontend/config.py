@@ -9,6 +9,7 @@ class Config:
     
     # Backend API Configuration
     BACKEND_API_URL = os.environ.get('BACKEND_API_URL') or 'http://localhost:3500/api/v1'
+    BACKEND_WS_URL = os.environ.get('BACKEND_WS_URL') or 'ws://localhost:3500/api/v1/ws'
     
     # Blockchain Configuration
     WEB3_PROVIDER_URL = os.environ.get('WEB3_PROVIDER_URL') or 'http://localhost:8545'
@@ -315,5 +315,64 @@ function showSuccess(message) {
     container.insertAdjacentHTML('afterbegin', alertHtml);
 }
 
-// Auto-refresh lotteries every 30 seconds
-setInterval(refreshLotteries, 30000);
+/**
+ * Apply a live update pushed by the backend to the cached lotteries
+ */
+function applyLotteryUpdate(update) {
+    const lottery = currentLotteries.find(l => l.id === update.lotteryId);
+    if (!lottery) {
+        // A lottery we have not seen yet, e.g. one that was just created
+        refreshLotteries();
+        return;
+    }
+
+    if (update.totalTickets !== undefined) lottery.totalTickets = update.totalTickets;
+    if (update.prizePool !== undefined) lottery.prizePool = update.prizePool;
+    if (update.status !== undefined) lottery.status = update.status;
+    if (update.drawnNumbers !== undefined) lottery.drawnNumbers = update.drawnNumbers;
+    if (update.currentDrawDay !== undefined) lottery.currentDrawDay = update.currentDrawDay;
+
+    activeLottery = currentLotteries.find(l => l.status === 'TICKET_SALES');
+    displayActiveLottery();
+    displayAllLotteries();
+}
+
+/**
+ * Subscribe to live updates; poll every 30 seconds only while the socket is down
+ */
+let pollingTimer = null;
+
+function startPolling() {
+    if (!pollingTimer) {
+        pollingTimer = setInterval(refreshLotteries, 30000);
+    }
+}
+
+function stopPolling() {
+    if (pollingTimer) {
+        clearInterval(pollingTimer);
+        pollingTimer = null;
+    }
+}
+
+function connectLiveUpdates() {
+    if (!window.StompJs || !window.BACKEND_WS_URL) {
+        startPolling();
+        return;
+    }
+
+    const client = new StompJs.Client({
+        brokerURL: window.BACKEND_WS_URL,
+        reconnectDelay: 5000
+    });
+    client.onConnect = () => {
+        stopPolling();
+        // Catch up on anything missed while disconnected
+        refreshLotteries();
+        client.subscribe('/topic/lotteries', message => applyLotteryUpdate(JSON.parse(message.body)));
+    };
+    client.onWebSocketClose = startPolling;
+    client.activate();
+}
+
+connectLiveUpdates();